@@ -19,6 +19,7 @@
 
 package io.ballerina.messaging.broker.amqp;
 
+import io.ballerina.messaging.broker.amqp.codec.flow.PrefetchWindow;
 import io.ballerina.messaging.broker.common.data.types.ShortString;
 import io.ballerina.messaging.broker.core.Message;
 
@@ -29,11 +30,13 @@ public class AckData {
     private final Message message;
     private final String queueName;
     private final ShortString consumerTag;
+    private final PrefetchWindow prefetchWindow;
 
-    public AckData(Message message, String queueName, ShortString consumerTag) {
+    public AckData(Message message, String queueName, ShortString consumerTag, PrefetchWindow prefetchWindow) {
         this.message = message;
         this.queueName = queueName;
         this.consumerTag = consumerTag;
+        this.prefetchWindow = prefetchWindow;
     }
 
     /**
@@ -56,4 +59,11 @@ public class AckData {
     public ShortString getConsumerTag() {
         return consumerTag;
     }
+
+    /**
+     * Getter for prefetchWindow of the consumer the message was delivered to.
+     */
+    public PrefetchWindow getPrefetchWindow() {
+        return prefetchWindow;
+    }
 }
@@ -20,6 +20,7 @@
 package io.ballerina.messaging.broker.amqp;
 
 import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
+import io.ballerina.messaging.broker.amqp.codec.flow.PrefetchWindow;
 import io.ballerina.messaging.broker.common.data.types.ShortString;
 import io.ballerina.messaging.broker.core.Consumer;
 import io.ballerina.messaging.broker.core.Message;
@@ -59,8 +60,14 @@ public class AmqpConsumer extends Consumer {
 
     private final List<TraceField> tracingProperties;
 
+    /**
+     * Per consumer prefetch window set through basic.qos on the channel before the consumer was created.
+     */
+    private final PrefetchWindow prefetchWindow;
+
     public AmqpConsumer(ChannelHandlerContext ctx, AmqpChannel channel,
-                        String queueName, ShortString consumerTag, boolean isExclusive) {
+                        String queueName, ShortString consumerTag, boolean isExclusive,
+                        int prefetchCount, long prefetchSize) {
         this.queueName = queueName;
         this.consumerTag = consumerTag;
         this.isExclusive = isExclusive;
@@ -70,6 +77,8 @@ public class AmqpConsumer extends Consumer {
         this.tracingProperties = new ArrayList<>(2);
         tracingProperties.add(new TraceField(AmqpChannel.CHANNEL_ID_FIELD_NAME, channel.getChannelId()));
         tracingProperties.add(new TraceField(CONSUMER_TAG_FIELD_NAME, consumerTag));
+        this.prefetchWindow = new PrefetchWindow(prefetchCount, prefetchSize,
+                                                 () -> channel.notifyConsumerReady(this));
     }
 
     @Override
@@ -81,7 +90,9 @@ public class AmqpConsumer extends Consumer {
                          consumerTag,
                          queueName);
         }
-        AmqpDeliverMessage deliverMessage = channel.createDeliverMessage(message, consumerTag, queueName);
+        channel.reservePrefetch(prefetchWindow, message);
+        AmqpDeliverMessage deliverMessage = channel.createDeliverMessage(message, consumerTag, queueName,
+                                                                         prefetchWindow);
 
         ChannelFutureListener channelListener;
         if (MessageTracer.isTraceEnabled()) {
@@ -109,7 +120,7 @@ public class AmqpConsumer extends Consumer {
 
     @Override
     public boolean isReady() {
-        return channel.isReady();
+        return channel.isReady() && prefetchWindow.hasRoom();
     }
 
     private static class ErrorLogger implements ChannelFutureListener {
@@ -20,6 +20,7 @@
 package io.ballerina.messaging.broker.amqp;
 
 import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
+import io.ballerina.messaging.broker.amqp.codec.flow.PrefetchWindow;
 import io.ballerina.messaging.broker.amqp.codec.frames.BasicDeliver;
 import io.ballerina.messaging.broker.amqp.codec.frames.ContentFrame;
 import io.ballerina.messaging.broker.amqp.codec.frames.HeaderFrame;
@@ -52,21 +53,25 @@ public class AmqpDeliverMessage {
     private final Message message;
     private final String queueName;
     private final Broker broker;
+    private final PrefetchWindow prefetchWindow;
 
     public AmqpDeliverMessage(Message message,
                               ShortString consumerTag,
                               AmqpChannel channel,
                               String queueName,
-                              Broker broker) {
+                              Broker broker,
+                              PrefetchWindow prefetchWindow) {
         this.message = message;
         this.consumerTag = consumerTag;
         this.channel = channel;
         this.queueName = queueName;
         this.broker = broker;
+        this.prefetchWindow = prefetchWindow;
     }
 
     public void write(ChannelHandlerContext ctx) {
         if (channel.isClosed()) {
+            channel.releasePrefetch(prefetchWindow, message);
             try {
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Requeueing message since subscriber is already closed. {}", message);
@@ -87,7 +92,8 @@ public class AmqpDeliverMessage {
             }
         } else {
             long deliveryTag = channel.getNextDeliveryTag();
-            channel.recordMessageDelivery(deliveryTag, new AckData(message.shallowCopy(), queueName, consumerTag));
+            channel.recordMessageDelivery(deliveryTag, new AckData(message.shallowCopy(), queueName, consumerTag,
+                                                                      prefetchWindow));
 
             Metadata metadata = message.getMetadata();
             BasicDeliver basicDeliverFrame = new BasicDeliver(
@@ -24,6 +24,9 @@ import io.ballerina.messaging.broker.amqp.AmqpConsumer;
 import io.ballerina.messaging.broker.amqp.AmqpDeliverMessage;
 import io.ballerina.messaging.broker.amqp.AmqpServerConfiguration;
 import io.ballerina.messaging.broker.amqp.codec.flow.ChannelFlowManager;
+import io.ballerina.messaging.broker.amqp.codec.flow.ChannelPublishListener;
+import io.ballerina.messaging.broker.amqp.codec.flow.PrefetchWindow;
+import io.ballerina.messaging.broker.amqp.codec.flow.PublisherConfirmManager;
 import io.ballerina.messaging.broker.amqp.metrics.AmqpMetricManager;
 import io.ballerina.messaging.broker.common.ValidationException;
 import io.ballerina.messaging.broker.common.data.types.FieldTable;
@@ -42,11 +45,11 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -109,9 +112,9 @@ public class AmqpChannel {
     private AtomicBoolean flow = new AtomicBoolean(true);
 
     /**
-     * Indicate if unack count is within the prefetch limit.
+     * Prefetch window shared by all the channels of the connection.
      */
-    private AtomicBoolean hasRoom = new AtomicBoolean(true);
+    private final PrefetchWindow connectionPrefetchWindow;
 
     /**
      * List of messages blocked due to flow being disabled.
@@ -126,18 +129,36 @@ public class AmqpChannel {
     private BrokerTransaction transaction;
 
     /**
-     * Max window size
+     * Max window size in messages for consumers created on the channel
      */
-    private int prefetchCount;
+    private int consumerPrefetchCount;
+
+    /**
+     * Max window size in octets for consumers created on the channel
+     */
+    private long consumerPrefetchSize;
+
+    /**
+     * Publisher confirm handler of the channel. Set only when the channel is in confirm mode.
+     */
+    private volatile PublisherConfirmManager confirmManager;
+
+    /**
+     * Publish listener of the channel, used for the messages published when the channel is not in confirm mode.
+     * Accessed only from the event loop.
+     */
+    private ChannelPublishListener flowListener;
 
     public AmqpChannel(AmqpServerConfiguration configuration,
                        Broker broker,
                        int channelId,
-                       AmqpMetricManager metricManager) {
+                       AmqpMetricManager metricManager,
+                       PrefetchWindow connectionPrefetchWindow) {
         this.broker = broker;
         this.channelId = channelId;
         this.metricManager = metricManager;
-        this.consumerMap = new HashMap<>();
+        this.connectionPrefetchWindow = connectionPrefetchWindow;
+        this.consumerMap = new ConcurrentHashMap<>();
         this.transaction = new AutoCommitTransaction(broker);
         this.messageAggregator = new InMemoryMessageAggregator(broker, transaction);
         this.flowManager = new ChannelFlowManager(this,
@@ -156,9 +177,9 @@ public class AmqpChannel {
         broker.deleteExchange(exchangeName, ifUnused);
     }
 
-    public void declareQueue(ShortString queue, boolean passive,
-                             boolean durable, boolean autoDelete) throws BrokerException, ValidationException {
-        broker.createQueue(queue.toString(), passive, durable, autoDelete);
+    public void declareQueue(ShortString queue, boolean passive, boolean durable, boolean autoDelete,
+                             FieldTable arguments) throws BrokerException, ValidationException {
+        broker.createQueue(queue.toString(), passive, durable, autoDelete, arguments);
     }
 
     public void bind(ShortString queue, ShortString exchange,
@@ -177,7 +198,8 @@ public class AmqpChannel {
         if (tag.isEmpty()) {
             tag = ShortString.parseString("sgen" + getNextConsumerTag());
         }
-        AmqpConsumer amqpConsumer = new AmqpConsumer(ctx, this, queueName.toString(), tag, exclusive);
+        AmqpConsumer amqpConsumer = new AmqpConsumer(ctx, this, queueName.toString(), tag, exclusive,
+                                                     consumerPrefetchCount, consumerPrefetchSize);
         consumerMap.put(consumerTag, amqpConsumer);
         broker.addConsumer(amqpConsumer);
         metricManager.incrementConsumerCount();
@@ -192,6 +214,9 @@ public class AmqpChannel {
         transaction.onClose();
         consumerMap.clear();
         requeueUnackedMessages();
+        if (Objects.nonNull(flowListener)) {
+            broker.removeBlockedPublisher(flowListener);
+        }
     }
 
     private void requeueUnackedMessages() {
@@ -290,6 +315,19 @@ public class AmqpChannel {
         }
     }
 
+    /**
+     * Reject all the unacknowledged messages with a delivery tag up to and including the given delivery tag. A
+     * delivery tag of 0 rejects all the unacknowledged messages of the channel.
+     *
+     * @param deliveryTag last delivery tag to reject
+     * @param requeue     true if the messages should be requeued
+     */
+    public void rejectMultiple(long deliveryTag, boolean requeue) throws BrokerException {
+        for (long pendingTag : unackedMessageMap.getPendingDeliveryTags(deliveryTag)) {
+            reject(pendingTag, requeue);
+        }
+    }
+
     private void setRedeliverAndRequeue(Message message, String queueName) throws BrokerException {
         int redeliveryCount = message.setRedeliver();
         if (LOGGER.isDebugEnabled()) {
@@ -305,12 +343,13 @@ public class AmqpChannel {
     }
 
     /**
-     * Get all the unacknowledged messages and clear the unackedMessageMap.
+     * Get all the unacknowledged messages and clear the unackedMessageMap. The messages keep the room reserved in the
+     * prefetch windows since they are delivered again.
      *
      * @return all unacknowledged messages
      */
     public Collection<AckData> recover() {
-        return unackedMessageMap.removeAll();
+        return unackedMessageMap.removeAllForRedelivery();
     }
 
     public void requeueAll() throws BrokerException {
@@ -321,7 +360,29 @@ public class AmqpChannel {
     }
 
     public void setFlow(boolean active) {
-        flow.set(active);
+        if (!active) {
+            flow.set(false);
+        } else if (!flow.getAndSet(true)) {
+            notifyConsumersReady();
+        }
+    }
+
+    /**
+     * Wake up message delivery to the consumers of the channel once the channel becomes ready again.
+     */
+    public void notifyConsumersReady() {
+        for (Consumer consumer : consumerMap.values()) {
+            broker.notifyConsumerReady(consumer);
+        }
+    }
+
+    /**
+     * Wake up message delivery to a consumer of the channel once the consumer becomes ready again.
+     *
+     * @param consumer consumer that became ready
+     */
+    public void notifyConsumerReady(Consumer consumer) {
+        broker.notifyConsumerReady(consumer);
     }
 
     /**
@@ -330,7 +391,7 @@ public class AmqpChannel {
      * @return true if messages can be delivered through the channel, false otherwise
      */
     public boolean isReady() {
-        return flow.get() && hasRoom.get() && !closed.get();
+        return flow.get() && connectionPrefetchWindow.hasRoom() && !closed.get();
     }
 
     /**
@@ -367,12 +428,51 @@ public class AmqpChannel {
         return pendingMessages;
     }
 
-    public void setPrefetchCount(int prefetchCount) {
-        this.prefetchCount = prefetchCount;
+    /**
+     * Set the prefetch limits requested through basic.qos. A limit of 0 means unlimited. As in RabbitMQ, limits that
+     * are not global apply separately to each consumer created on the channel afterwards. Global limits are shared
+     * by all the consumers of the connection.
+     *
+     * @param prefetchCount prefetch window in messages
+     * @param prefetchSize  prefetch window in octets
+     * @param global        true if the limits apply to the entire connection
+     */
+    public void setPrefetchLimits(int prefetchCount, long prefetchSize, boolean global) {
+        if (global) {
+            connectionPrefetchWindow.setLimits(prefetchCount, prefetchSize);
+        } else {
+            this.consumerPrefetchCount = prefetchCount;
+            this.consumerPrefetchSize = prefetchSize;
+        }
+    }
+
+    /**
+     * Reserve room for a message sent to a consumer of the channel.
+     *
+     * @param consumerPrefetchWindow prefetch window of the consumer
+     * @param message                message sent to the consumer
+     */
+    public void reservePrefetch(PrefetchWindow consumerPrefetchWindow, Message message) {
+        long size = message.getMetadata().getContentLength();
+        consumerPrefetchWindow.reserve(size);
+        connectionPrefetchWindow.reserve(size);
+    }
+
+    /**
+     * Release the room reserved for a message once the message is settled or was not delivered.
+     *
+     * @param consumerPrefetchWindow prefetch window of the consumer
+     * @param message                message sent to the consumer
+     */
+    public void releasePrefetch(PrefetchWindow consumerPrefetchWindow, Message message) {
+        long size = message.getMetadata().getContentLength();
+        consumerPrefetchWindow.release(size);
+        connectionPrefetchWindow.release(size);
     }
 
-    public AmqpDeliverMessage createDeliverMessage(Message message, ShortString consumerTag, String queueName) {
-        return new AmqpDeliverMessage(message, consumerTag, this, queueName, broker);
+    public AmqpDeliverMessage createDeliverMessage(Message message, ShortString consumerTag, String queueName,
+                                                   PrefetchWindow consumerPrefetchWindow) {
+        return new AmqpDeliverMessage(message, consumerTag, this, queueName, broker, consumerPrefetchWindow);
     }
 
     /**
@@ -409,6 +509,45 @@ public class AmqpChannel {
         unackedMessageMap.resetMarkedAcknowledgments();
     }
 
+    /**
+     * Put the channel into confirm mode. Should be called from the event loop.
+     *
+     * @param ctx channel handler context used to send confirms
+     */
+    public void setConfirmSelect(ChannelHandlerContext ctx) {
+        if (Objects.isNull(confirmManager)) {
+            confirmManager = new PublisherConfirmManager(ctx, channelId);
+        }
+    }
+
+    /**
+     * Check whether the channel is in confirm mode.
+     *
+     * @return true if publisher confirms are enabled
+     */
+    public boolean isConfirmSelected() {
+        return Objects.nonNull(confirmManager);
+    }
+
+    /**
+     * Set the listener notified about the outcome of the publish. Assigns a publish sequence to the message if the
+     * channel is in confirm mode. Should be called from the event loop in the order messages are received.
+     *
+     * @param ctx     channel handler context
+     * @param message received message
+     */
+    public void registerPublishListener(ChannelHandlerContext ctx, Message message) {
+        if (Objects.isNull(flowListener)) {
+            // Also identifies the listeners of the channel in confirm mode once the channel is closed
+            flowListener = new ChannelPublishListener(ctx, flowManager, null);
+        }
+        if (Objects.nonNull(confirmManager)) {
+            message.setPublishListener(new ChannelPublishListener(ctx, flowManager, confirmManager.register()));
+        } else {
+            message.setPublishListener(flowListener);
+        }
+    }
+
     /**
      * Check whether the channel start local transaction
      *
@@ -419,8 +558,8 @@ public class AmqpChannel {
     }
 
     /**
-     * Data-structure to handle unacknowledge messages. This class will update the has room variable depending on the
-     * number of messages in the unackedMessageMap.
+     * Data-structure to handle unacknowledge messages. This class will release the room reserved in the prefetch
+     * windows once messages are removed from the unackedMessageMap.
      */
     private class UnackedMessageMap {
 
@@ -450,52 +589,69 @@ public class AmqpChannel {
 
         AckData negativeAcknowledge(long deliveryTag) {
             AckData ackData = pendingAcknowledgments.remove(deliveryTag);
-            checkAndEnableHasRoom();
+            release(ackData);
             return ackData;
         }
 
+        /**
+         * Get the delivery tags pending acknowledgment up to and including the given delivery tag.
+         *
+         * @param lastDeliveryTag last delivery tag, 0 to get all the pending delivery tags
+         * @return pending delivery tags
+         */
+        List<Long> getPendingDeliveryTags(long lastDeliveryTag) {
+            List<Long> deliveryTags = new ArrayList<>();
+            for (Long deliveryTag : pendingAcknowledgments.keySet()) {
+                if (lastDeliveryTag == 0 || deliveryTag <= lastDeliveryTag) {
+                    deliveryTags.add(deliveryTag);
+                }
+            }
+            return deliveryTags;
+        }
+
         void put(long deliveryTag, AckData ackData) {
             pendingAcknowledgments.put(deliveryTag, ackData);
+        }
 
-            if (hasRoom.get() && pendingAcknowledgments.size() >= prefetchCount) {
-                hasRoom.set(false);
+        Collection<AckData> removeAll() {
+            Collection<AckData> entries = removeAllForRedelivery();
+            for (AckData ackData : entries) {
+                release(ackData);
             }
+            return entries;
         }
 
-        Collection<AckData> removeAll() {
+        Collection<AckData> removeAllForRedelivery() {
             Collection<AckData> entries = new ArrayList<>(pendingAcknowledgments.values());
             pendingAcknowledgments.clear();
             entries.addAll(markedAcknowledgments.values());
             markedAcknowledgments.clear();
-            hasRoom.set(true);
             return entries;
         }
 
         AckData removeMarkedAcknowledgment(long deliveryTag) {
             AckData ackData = markedAcknowledgments.remove(deliveryTag);
-            checkAndEnableHasRoom();
+            release(ackData);
             return ackData;
         }
 
-        private void checkAndEnableHasRoom() {
-            if (!hasRoom.get() && pendingAcknowledgments.size() < prefetchCount) {
-                hasRoom.set(true);
+        private void release(AckData ackData) {
+            if (Objects.nonNull(ackData)) {
+                releasePrefetch(ackData.getPrefetchWindow(), ackData.getMessage());
             }
         }
 
         void resetMarkedAcknowledgments() {
             pendingAcknowledgments.putAll(markedAcknowledgments);
             markedAcknowledgments.clear();
-
-            if (hasRoom.get() && pendingAcknowledgments.size() >= prefetchCount) {
-                hasRoom.set(false);
-            }
         }
 
         Collection<AckData> removeMarkedAcknowledgments() {
             ArrayList<AckData> ackedMessages = new ArrayList<>(markedAcknowledgments.values());
             markedAcknowledgments.clear();
-            checkAndEnableHasRoom();
+            for (AckData ackData : ackedMessages) {
+                release(ackData);
+            }
             return ackedMessages;
 
         }
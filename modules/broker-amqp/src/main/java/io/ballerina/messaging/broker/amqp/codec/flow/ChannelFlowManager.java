@@ -25,9 +25,12 @@ import io.netty.channel.ChannelHandlerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * ChannelFlowManager is responsible for managing flow rate of publishers. The flow should be disabled and enabled
- * depending on the server load.
+ * depending on the server load and while queues the channel published to are full.
  */
 public class ChannelFlowManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ChannelFlowManager.class);
@@ -38,6 +41,11 @@ public class ChannelFlowManager {
     private boolean inflowEnabled = true;
     private final AmqpChannel channel;
 
+    /**
+     * Full queues which asked the publisher of the channel to hold back.
+     */
+    private final Set<String> blockedQueues = new HashSet<>();
+
     public ChannelFlowManager(AmqpChannel channel, int lowLimit, int highLimit) {
         this.channel = channel;
         this.lowLimit = lowLimit;
@@ -47,18 +55,52 @@ public class ChannelFlowManager {
     public void notifyMessageAddition(ChannelHandlerContext ctx) {
         messagesInFlight++;
         if (messagesInFlight > highLimit && inflowEnabled) {
-            inflowEnabled = false;
-            ctx.writeAndFlush(new ChannelFlow(channel.getChannelId(), false));
-            LOGGER.info("Inflow disabled for channel {}-{}", channel.getChannelId(), ctx.channel().remoteAddress());
+            disableInflow(ctx);
         }
     }
 
     public void notifyMessageRemoval(ChannelHandlerContext ctx) {
         messagesInFlight--;
-        if (messagesInFlight < lowLimit && !inflowEnabled) {
-            inflowEnabled = true;
-            ctx.writeAndFlush(new ChannelFlow(channel.getChannelId(), true));
-            LOGGER.info("Inflow enabled for channel {}-{}", channel.getChannelId(), ctx.channel().remoteAddress());
+        if (messagesInFlight < lowLimit && blockedQueues.isEmpty() && !inflowEnabled) {
+            enableInflow(ctx);
+        }
+    }
+
+    /**
+     * Disable the inflow until the given queue has room. Should be called from the event loop.
+     *
+     * @param ctx       channel handler context
+     * @param queueName name of the full queue
+     */
+    public void notifyQueueBlocked(ChannelHandlerContext ctx, String queueName) {
+        if (blockedQueues.add(queueName) && inflowEnabled) {
+            disableInflow(ctx);
+        }
+    }
+
+    /**
+     * Enable the inflow if no other queue is full and the channel is not overloaded. Should be called from the event
+     * loop.
+     *
+     * @param ctx       channel handler context
+     * @param queueName name of the queue which has room again
+     */
+    public void notifyQueueUnblocked(ChannelHandlerContext ctx, String queueName) {
+        if (blockedQueues.remove(queueName) && blockedQueues.isEmpty()
+                && messagesInFlight < lowLimit && !inflowEnabled) {
+            enableInflow(ctx);
         }
     }
+
+    private void disableInflow(ChannelHandlerContext ctx) {
+        inflowEnabled = false;
+        ctx.writeAndFlush(new ChannelFlow(channel.getChannelId(), false));
+        LOGGER.info("Inflow disabled for channel {}-{}", channel.getChannelId(), ctx.channel().remoteAddress());
+    }
+
+    private void enableInflow(ChannelHandlerContext ctx) {
+        inflowEnabled = true;
+        ctx.writeAndFlush(new ChannelFlow(channel.getChannelId(), true));
+        LOGGER.info("Inflow enabled for channel {}-{}", channel.getChannelId(), ctx.channel().remoteAddress());
+    }
 }
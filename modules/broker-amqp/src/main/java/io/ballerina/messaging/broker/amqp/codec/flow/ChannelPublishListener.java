@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.amqp.codec.flow;
+
+import io.ballerina.messaging.broker.core.PublishListener;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.Objects;
+
+/**
+ * Publish listener of messages received through a channel. Forwards publish completions to the confirm listener
+ * when the channel is in confirm mode and throttles the channel while queues reject its publishes.
+ * <p>
+ * Listeners of the same channel are equal so that a full queue blocks a channel only once.
+ */
+public class ChannelPublishListener implements PublishListener {
+
+    private final ChannelHandlerContext ctx;
+
+    private final ChannelFlowManager flowManager;
+
+    private final PublishListener confirmListener;
+
+    public ChannelPublishListener(ChannelHandlerContext ctx, ChannelFlowManager flowManager,
+                                  PublishListener confirmListener) {
+        this.ctx = ctx;
+        this.flowManager = flowManager;
+        this.confirmListener = confirmListener;
+    }
+
+    @Override
+    public void onPublishComplete(boolean success) {
+        if (Objects.nonNull(confirmListener)) {
+            confirmListener.onPublishComplete(success);
+        }
+    }
+
+    @Override
+    public void onQueueBlocked(String queueName) {
+        // flow manager should always be executed through the event loop
+        ctx.executor().execute(() -> flowManager.notifyQueueBlocked(ctx, queueName));
+    }
+
+    @Override
+    public void onQueueUnblocked(String queueName) {
+        ctx.executor().execute(() -> flowManager.notifyQueueUnblocked(ctx, queueName));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ChannelPublishListener && flowManager == ((ChannelPublishListener) obj).flowManager;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(flowManager);
+    }
+}
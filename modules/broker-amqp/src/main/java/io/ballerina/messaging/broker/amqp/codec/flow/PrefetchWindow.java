@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.amqp.codec.flow;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prefetch window set through basic.qos. Bounds the messages delivered but not yet acknowledged by the message count
+ * and by the total content size in octets, a limit of 0 meaning unlimited. Room is reserved when a message is sent to
+ * the client and released when the message is settled.
+ * <p>
+ * The room listener is invoked whenever a release or a limit change brings the window from full to having room, so
+ * that consumers held back due to a full window get messages again.
+ */
+public class PrefetchWindow {
+
+    private final AtomicInteger messageCount = new AtomicInteger(0);
+
+    private final AtomicLong messageSize = new AtomicLong(0);
+
+    private final Runnable roomListener;
+
+    private volatile int countLimit;
+
+    private volatile long sizeLimit;
+
+    public PrefetchWindow(int countLimit, long sizeLimit, Runnable roomListener) {
+        this.countLimit = countLimit;
+        this.sizeLimit = sizeLimit;
+        this.roomListener = roomListener;
+    }
+
+    /**
+     * Change the limits of the window.
+     *
+     * @param countLimit maximum number of unacknowledged messages, 0 for unlimited
+     * @param sizeLimit  maximum total content size of unacknowledged messages in octets, 0 for unlimited
+     */
+    public void setLimits(int countLimit, long sizeLimit) {
+        this.countLimit = countLimit;
+        this.sizeLimit = sizeLimit;
+        if (hasRoom()) {
+            roomListener.run();
+        }
+    }
+
+    /**
+     * Check whether another message can be delivered within the window. As in the AMQP specification, a message larger
+     * than the remaining size is still delivered as long as the window is not full.
+     *
+     * @return true if the window is not full
+     */
+    public boolean hasRoom() {
+        int maxCount = countLimit;
+        long maxSize = sizeLimit;
+        return (maxCount == 0 || messageCount.get() < maxCount)
+                && (maxSize == 0 || messageSize.get() < maxSize);
+    }
+
+    /**
+     * Reserve room for a message sent to the client.
+     *
+     * @param size content size of the message
+     */
+    public void reserve(long size) {
+        messageCount.incrementAndGet();
+        messageSize.addAndGet(size);
+    }
+
+    /**
+     * Release the room reserved for a message.
+     *
+     * @param size content size of the message
+     */
+    public void release(long size) {
+        int count = messageCount.decrementAndGet();
+        long remainingSize = messageSize.addAndGet(-size);
+        // Each limit is crossed downwards by exactly one release, hence a window regaining room is always notified
+        boolean countCrossed = count == countLimit - 1;
+        long maxSize = sizeLimit;
+        boolean sizeCrossed = remainingSize < maxSize && remainingSize + size >= maxSize;
+        if (countCrossed || sizeCrossed) {
+            roomListener.run();
+        }
+    }
+
+    /**
+     * Getter for messageCount.
+     */
+    public int getMessageCount() {
+        return messageCount.get();
+    }
+
+    /**
+     * Getter for messageSize.
+     */
+    public long getMessageSize() {
+        return messageSize.get();
+    }
+}
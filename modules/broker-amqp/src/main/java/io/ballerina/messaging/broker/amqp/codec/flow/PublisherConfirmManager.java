@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.amqp.codec.flow;
+
+import io.ballerina.messaging.broker.amqp.codec.frames.BasicAck;
+import io.ballerina.messaging.broker.amqp.codec.frames.BasicNack;
+import io.ballerina.messaging.broker.core.PublishListener;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handles publisher confirms of a channel in confirm mode. Publishes are completed asynchronously by the message
+ * store (usually once per database commit) and the resulting confirms are coalesced into a single multiple
+ * basic.ack wherever possible. All frames are written from the event loop.
+ */
+public class PublisherConfirmManager {
+
+    private final ChannelHandlerContext ctx;
+
+    private final int channelId;
+
+    /**
+     * Sequence number of the last publish. Accessed only from the event loop.
+     */
+    private long publishSequence = 0;
+
+    /**
+     * Delivery tags of the publishes which are not yet completed.
+     */
+    private final NavigableSet<Long> outstandingTags = new ConcurrentSkipListSet<>();
+
+    private final Queue<Long> ackedTags = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Long> nackedTags = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Acked tags waiting for a lower outstanding publish to complete. Accessed only from the event loop.
+     */
+    private final NavigableSet<Long> pendingAcks = new TreeSet<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    public PublisherConfirmManager(ChannelHandlerContext ctx, int channelId) {
+        this.ctx = ctx;
+        this.channelId = channelId;
+    }
+
+    /**
+     * Assign the next delivery tag to a publish. Should be called from the event loop in the order messages are
+     * received.
+     *
+     * @return listener to be notified when the publish is completed
+     */
+    public PublishListener register() {
+        long deliveryTag = ++publishSequence;
+        outstandingTags.add(deliveryTag);
+        AtomicBoolean completed = new AtomicBoolean(false);
+        return success -> {
+            if (completed.compareAndSet(false, true)) {
+                complete(deliveryTag, success);
+            }
+        };
+    }
+
+    private void complete(long deliveryTag, boolean success) {
+        // Tag should be visible to the flush before it is removed from the outstanding set
+        if (success) {
+            ackedTags.add(deliveryTag);
+        } else {
+            nackedTags.add(deliveryTag);
+        }
+        outstandingTags.remove(deliveryTag);
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            ctx.executor().execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+
+        // Every publish below the lowest outstanding tag is already in the acked or nacked queues
+        Iterator<Long> iterator = outstandingTags.iterator();
+        long lowestOutstandingTag = iterator.hasNext() ? iterator.next() : Long.MAX_VALUE;
+
+        Long tag;
+        while ((tag = nackedTags.poll()) != null) {
+            ctx.write(new BasicNack(channelId, tag, false, false));
+        }
+
+        while ((tag = ackedTags.poll()) != null) {
+            pendingAcks.add(tag);
+        }
+
+        NavigableSet<Long> confirmableTags = pendingAcks.headSet(lowestOutstandingTag, false);
+        if (!confirmableTags.isEmpty()) {
+            ctx.write(new BasicAck(channelId, confirmableTags.last(), confirmableTags.size() > 1));
+            confirmableTags.clear();
+        }
+
+        ctx.flush();
+    }
+}
@@ -64,7 +64,7 @@ public class AmqMethodRegistry {
         factories[50][50] = QueueUnbind.getFactory();
         factories[50][51] = QueueUnbindOk.getFactory();
 
-        factories[60] = new AmqMethodBodyFactory[112];
+        factories[60] = new AmqMethodBodyFactory[121];
         factories[60][10] = BasicQos.getFactory();
         factories[60][11] = BasicQosOk.getFactory();
         factories[60][20] = BasicConsume.getFactory();
@@ -77,6 +77,11 @@ public class AmqMethodRegistry {
         factories[60][90] = BasicReject.getFactory();
         factories[60][110] = BasicRecover.getFactory();
         factories[60][111] = BasicRecoveryOk.getFactory();
+        factories[60][120] = BasicNack.getFactory();
+
+        factories[85] = new AmqMethodBodyFactory[12];
+        factories[85][10] = ConfirmSelect.getFactory();
+        factories[85][11] = ConfirmSelectOk.getFactory();
 
         factories[90] = new AmqMethodBodyFactory[32];
         factories[90][10] = TxSelect.getFactory();
@@ -62,6 +62,14 @@ public class BasicAck extends MethodFrame {
         ctx.fireChannelRead((BlockingTask) () -> channel.acknowledge(deliveryTag, multiple));
     }
 
+    public long getDeliveryTag() {
+        return deliveryTag;
+    }
+
+    public boolean isMultiple() {
+        return multiple;
+    }
+
     public static AmqMethodBodyFactory getFactory() {
         return (buf, channel, size) -> {
             long deliveryTag = buf.readLong();
@@ -76,7 +76,8 @@ public class BasicRecover extends MethodFrame {
                     Message message = ackData.getMessage();
                     nettyChannel.write(channel.createDeliverMessage(message,
                                                               ackData.getConsumerTag(),
-                                                              ackData.getQueueName()));
+                                                              ackData.getQueueName(),
+                                                              ackData.getPrefetchWindow()));
                 }
                 nettyChannel.flush();
             });
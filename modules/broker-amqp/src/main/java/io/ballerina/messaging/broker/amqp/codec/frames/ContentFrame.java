@@ -79,6 +79,7 @@ public class ContentFrame extends GeneralFrame {
 
         if (allContentReceived) {
             Message message = messageAggregator.popMessage();
+            channel.registerPublishListener(ctx, message);
 
             ctx.fireChannelRead((BlockingTask) () -> {
                 try {
@@ -87,6 +88,7 @@ public class ContentFrame extends GeneralFrame {
                     ctx.executor().submit(() -> channel.getFlowManager().notifyMessageRemoval(ctx));
                 } catch (BrokerException e) {
                     LOGGER.warn("Content receiving failed", e);
+                    message.completePublish(false);
                 }
             });
         }
@@ -54,11 +54,9 @@ public class HeaderFrame extends GeneralFrame {
     private static final int LAST_BIT_MASK = 1;
 
     private static final ShortString REPLY_TO = ShortString.parseString("replyTo");
-    private static final ShortString TIMESTAMP = ShortString.parseString("timestamp");
     private static final ShortString TYPE = ShortString.parseString("type");
     private static final ShortString USER_ID = ShortString.parseString("userId");
     private static final ShortString APPLICATION_ID = ShortString.parseString("applicationId");
-    private static final ShortString PROPERTY_FLAGS = ShortString.parseString("propertyFlags");
 
     private final long bodySize;
     private final int classId;
@@ -88,7 +86,7 @@ public class HeaderFrame extends GeneralFrame {
         propertyListSize += getPropertySize(properties.getValue(REPLY_TO));
         propertyListSize += getPropertySize(properties.getValue(Metadata.EXPIRATION));
         propertyListSize += getPropertySize(properties.getValue(Metadata.MESSAGE_ID));
-        propertyListSize += getPropertySize(properties.getValue(TIMESTAMP));
+        propertyListSize += getPropertySize(properties.getValue(Metadata.TIMESTAMP));
         propertyListSize += getPropertySize(properties.getValue(TYPE));
         propertyListSize += getPropertySize(properties.getValue(USER_ID));
         propertyListSize += getPropertySize(properties.getValue(APPLICATION_ID));
@@ -122,7 +120,7 @@ public class HeaderFrame extends GeneralFrame {
         buf.writeShort(0); // Write 0 for weight
         buf.writeLong(bodySize);
 
-        int propertyFlags = getPropertyFlagsValue(properties.getValue(PROPERTY_FLAGS));
+        int propertyFlags = getPropertyFlagsValue(properties.getValue(Metadata.PROPERTY_FLAGS));
 
         buf.writeShort(propertyFlags);
         writeProperty(buf, properties.getValue(Metadata.CONTENT_TYPE));
@@ -134,7 +132,7 @@ public class HeaderFrame extends GeneralFrame {
         writeProperty(buf, properties.getValue(REPLY_TO));
         writeProperty(buf, properties.getValue(Metadata.EXPIRATION));
         writeProperty(buf, properties.getValue(Metadata.MESSAGE_ID));
-        writeProperty(buf, properties.getValue(TIMESTAMP));
+        writeProperty(buf, properties.getValue(Metadata.TIMESTAMP));
         writeProperty(buf, properties.getValue(TYPE));
         writeProperty(buf, properties.getValue(USER_ID));
         writeProperty(buf, properties.getValue(APPLICATION_ID));
@@ -178,7 +176,7 @@ public class HeaderFrame extends GeneralFrame {
         if (properties.getValue(Metadata.MESSAGE_ID) != null) {
             flags |= MESSAGE_ID_MASK;
         }
-        if (properties.getValue(TIMESTAMP) != null) {
+        if (properties.getValue(Metadata.TIMESTAMP) != null) {
             flags |= TIMESTAMP_MASK;
         }
         if (properties.getValue(TYPE) != null) {
@@ -283,7 +281,7 @@ public class HeaderFrame extends GeneralFrame {
             headerFrame.setAppId(ShortString.parse(buf));
         }
 
-        headerFrame.properties.add(PROPERTY_FLAGS, FieldValue.parseLongInt(propertyFlags));
+        headerFrame.properties.add(Metadata.PROPERTY_FLAGS, FieldValue.parseLongInt(propertyFlags));
         return headerFrame;
     }
 
@@ -324,7 +322,7 @@ public class HeaderFrame extends GeneralFrame {
     }
 
     public void setTimestamp(long timestamp) {
-        properties.add(TIMESTAMP, FieldValue.parseLongLongInt(timestamp));
+        properties.add(Metadata.TIMESTAMP, FieldValue.parseLongLongInt(timestamp));
     }
 
     public void setType(ShortString type) {
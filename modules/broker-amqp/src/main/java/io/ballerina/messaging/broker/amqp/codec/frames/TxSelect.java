@@ -21,7 +21,9 @@ package io.ballerina.messaging.broker.amqp.codec.frames;
 
 import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
 import io.ballerina.messaging.broker.amqp.codec.BlockingTask;
+import io.ballerina.messaging.broker.amqp.codec.ChannelException;
 import io.ballerina.messaging.broker.amqp.codec.handlers.AmqpConnectionHandler;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 
@@ -51,6 +53,16 @@ public class TxSelect extends MethodFrame {
     public void handle(ChannelHandlerContext ctx, AmqpConnectionHandler connectionHandler) {
         int channelId = getChannel();
         AmqpChannel channel = connectionHandler.getChannel(channelId);
+        if (channel.isConfirmSelected()) {
+            ctx.writeAndFlush(new ChannelClose(channelId,
+                                               ChannelException.PRECONDITION_FAILED,
+                                               ShortString.parseString("Channel in confirm mode cannot be made "
+                                                                               + "transactional"),
+                                               CLASS_ID,
+                                               METHOD_ID));
+            return;
+        }
+
         ctx.fireChannelRead((BlockingTask) () -> {
             channel.setLocalTransactional();
             ctx.writeAndFlush(new TxSelectOk(channelId));
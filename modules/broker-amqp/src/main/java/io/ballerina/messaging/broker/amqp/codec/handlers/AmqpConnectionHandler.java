@@ -23,6 +23,7 @@ import io.ballerina.messaging.broker.amqp.AmqpServerConfiguration;
 import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
 import io.ballerina.messaging.broker.amqp.codec.BlockingTask;
 import io.ballerina.messaging.broker.amqp.codec.ConnectionException;
+import io.ballerina.messaging.broker.amqp.codec.flow.PrefetchWindow;
 import io.ballerina.messaging.broker.amqp.codec.frames.AmqpBadMessage;
 import io.ballerina.messaging.broker.amqp.codec.frames.ConnectionStart;
 import io.ballerina.messaging.broker.amqp.codec.frames.GeneralFrame;
@@ -34,9 +35,9 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Netty handler for handling an AMQP connection.
@@ -44,11 +45,16 @@ import java.util.Objects;
 public class AmqpConnectionHandler extends ChannelInboundHandlerAdapter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AmqpConnectionHandler.class);
-    private final Map<Integer, AmqpChannel> channels = new HashMap<>();
+    private final Map<Integer, AmqpChannel> channels = new ConcurrentHashMap<>();
     private final AmqpServerConfiguration configuration;
     private final Broker broker;
     private final AmqpMetricManager metricManager;
 
+    /**
+     * Prefetch window set through a global basic.qos, shared by all the channels of the connection.
+     */
+    private final PrefetchWindow prefetchWindow = new PrefetchWindow(0, 0, this::notifyConsumersReady);
+
     public AmqpConnectionHandler(AmqpServerConfiguration configuration,
                                  Broker broker,
                                  AmqpMetricManager metricManager) {
@@ -100,7 +106,7 @@ public class AmqpConnectionHandler extends ChannelInboundHandlerAdapter {
             throw new ConnectionException(ConnectionException.CHANNEL_ERROR,
                     "Channel ID " + channelId + " Already exists");
         }
-        channels.put(channelId, new AmqpChannel(configuration, broker, channelId, metricManager));
+        channels.put(channelId, new AmqpChannel(configuration, broker, channelId, metricManager, prefetchWindow));
         metricManager.incrementChannelCount();
     }
 
@@ -126,6 +132,12 @@ public class AmqpConnectionHandler extends ChannelInboundHandlerAdapter {
         channel.close();
     }
 
+    private void notifyConsumersReady() {
+        for (AmqpChannel channel : channels.values()) {
+            channel.notifyConsumersReady();
+        }
+    }
+
     public void closeAllChannels() {
         for (AmqpChannel channel: channels.values()) {
             closeChannel(channel);
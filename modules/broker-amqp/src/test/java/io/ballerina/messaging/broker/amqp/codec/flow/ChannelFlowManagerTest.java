@@ -80,4 +80,16 @@ public class ChannelFlowManagerTest {
         // 2 times since flow is disabled and enables
         Mockito.verify(ctx, Mockito.times(2)).writeAndFlush(argumentCaptor.capture());
     }
+
+    @Test
+    public void testFlowDisabledWhileQueuesBlocked() throws Exception {
+        channelFlowManager.notifyQueueBlocked(ctx, "queue1");
+        channelFlowManager.notifyQueueBlocked(ctx, "queue2");
+        channelFlowManager.notifyQueueUnblocked(ctx, "queue1");
+        // Only disabled once and not enabled while queue2 is full
+        Mockito.verify(ctx, Mockito.times(1)).writeAndFlush(argumentCaptor.capture());
+
+        channelFlowManager.notifyQueueUnblocked(ctx, "queue2");
+        Mockito.verify(ctx, Mockito.times(2)).writeAndFlush(argumentCaptor.capture());
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.amqp.codec.flow;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrefetchWindowTest {
+
+    private AtomicInteger roomNotifications;
+
+    @BeforeMethod
+    public void setUp() {
+        roomNotifications = new AtomicInteger(0);
+    }
+
+    private PrefetchWindow createWindow(int countLimit, long sizeLimit) {
+        return new PrefetchWindow(countLimit, sizeLimit, roomNotifications::incrementAndGet);
+    }
+
+    @Test
+    public void testUnlimitedWindow() {
+        PrefetchWindow window = createWindow(0, 0);
+        for (int i = 0; i < 1000; i++) {
+            window.reserve(1024);
+        }
+        Assert.assertTrue(window.hasRoom());
+
+        window.release(1024);
+        Assert.assertEquals(roomNotifications.get(), 0);
+    }
+
+    @Test
+    public void testCountLimit() {
+        PrefetchWindow window = createWindow(2, 0);
+        window.reserve(10);
+        Assert.assertTrue(window.hasRoom());
+        window.reserve(10);
+        Assert.assertFalse(window.hasRoom());
+
+        window.release(10);
+        Assert.assertTrue(window.hasRoom());
+        Assert.assertEquals(roomNotifications.get(), 1);
+
+        window.release(10);
+        Assert.assertEquals(roomNotifications.get(), 1, "Window which already had room should not be notified");
+        Assert.assertEquals(window.getMessageCount(), 0);
+    }
+
+    @Test
+    public void testSizeLimit() {
+        PrefetchWindow window = createWindow(0, 100);
+        window.reserve(60);
+        Assert.assertTrue(window.hasRoom(), "Window should have room until the size limit is reached");
+        window.reserve(60);
+        Assert.assertFalse(window.hasRoom());
+
+        window.release(60);
+        Assert.assertTrue(window.hasRoom());
+        Assert.assertEquals(roomNotifications.get(), 1);
+        Assert.assertEquals(window.getMessageSize(), 60);
+    }
+
+    @Test
+    public void testMessageLargerThanSizeLimit() {
+        PrefetchWindow window = createWindow(0, 100);
+        Assert.assertTrue(window.hasRoom());
+        window.reserve(1000);
+        Assert.assertFalse(window.hasRoom());
+
+        window.release(1000);
+        Assert.assertTrue(window.hasRoom());
+        Assert.assertEquals(roomNotifications.get(), 1);
+    }
+
+    @Test
+    public void testWindowOvershootNotifiedOnceBelowLimit() {
+        PrefetchWindow window = createWindow(2, 0);
+        for (int i = 0; i < 4; i++) {
+            window.reserve(10);
+        }
+
+        window.release(10);
+        window.release(10);
+        Assert.assertFalse(window.hasRoom());
+        Assert.assertEquals(roomNotifications.get(), 0);
+
+        window.release(10);
+        Assert.assertTrue(window.hasRoom());
+        Assert.assertEquals(roomNotifications.get(), 1);
+    }
+
+    @Test
+    public void testRaisingLimitsNotifiesRoom() {
+        PrefetchWindow window = createWindow(1, 0);
+        window.reserve(10);
+        Assert.assertFalse(window.hasRoom());
+
+        window.setLimits(1, 0);
+        Assert.assertEquals(roomNotifications.get(), 0);
+
+        window.setLimits(5, 0);
+        Assert.assertTrue(window.hasRoom());
+        Assert.assertEquals(roomNotifications.get(), 1);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.amqp.codec.flow;
+
+import io.ballerina.messaging.broker.amqp.codec.frames.BasicAck;
+import io.ballerina.messaging.broker.amqp.codec.frames.BasicNack;
+import io.ballerina.messaging.broker.core.PublishListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PublisherConfirmManagerTest {
+
+    private PublisherConfirmManager confirmManager;
+    private ChannelHandlerContext ctx;
+    private ArgumentCaptor<Object> argumentCaptor;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        EventExecutor executor = Mockito.mock(EventExecutor.class);
+        Mockito.doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(Mockito.any(Runnable.class));
+
+        ctx = Mockito.mock(ChannelHandlerContext.class);
+        Mockito.when(ctx.executor()).thenReturn(executor);
+        confirmManager = new PublisherConfirmManager(ctx, 1);
+
+        argumentCaptor = ArgumentCaptor.forClass(Object.class);
+    }
+
+    @Test
+    public void testAckSentOnlyAfterLowerPublishesComplete() throws Exception {
+        PublishListener first = confirmManager.register();
+        PublishListener second = confirmManager.register();
+        PublishListener third = confirmManager.register();
+
+        second.onPublishComplete(true);
+        third.onPublishComplete(true);
+        Mockito.verify(ctx, Mockito.never()).write(Mockito.any());
+
+        first.onPublishComplete(true);
+        Mockito.verify(ctx, Mockito.times(1)).write(argumentCaptor.capture());
+        BasicAck ack = (BasicAck) argumentCaptor.getValue();
+        Assert.assertEquals(ack.getDeliveryTag(), 3, "All publishes should be confirmed with a single ack");
+        Assert.assertTrue(ack.isMultiple(), "Coalesced ack should set the multiple bit");
+    }
+
+    @Test
+    public void testSingleAck() throws Exception {
+        PublishListener first = confirmManager.register();
+        confirmManager.register();
+
+        first.onPublishComplete(true);
+        Mockito.verify(ctx, Mockito.times(1)).write(argumentCaptor.capture());
+        BasicAck ack = (BasicAck) argumentCaptor.getValue();
+        Assert.assertEquals(ack.getDeliveryTag(), 1);
+        Assert.assertFalse(ack.isMultiple(), "Ack for a single publish should not set the multiple bit");
+    }
+
+    @Test
+    public void testNackSentBeforeAck() throws Exception {
+        PublishListener first = confirmManager.register();
+        PublishListener second = confirmManager.register();
+        PublishListener third = confirmManager.register();
+
+        third.onPublishComplete(true);
+        second.onPublishComplete(false);
+        first.onPublishComplete(true);
+
+        Mockito.verify(ctx, Mockito.atLeastOnce()).write(argumentCaptor.capture());
+        List<Object> frames = argumentCaptor.getAllValues();
+        Assert.assertEquals(frames.size(), 2);
+        BasicNack nack = (BasicNack) frames.get(0);
+        Assert.assertEquals(nack.getDeliveryTag(), 2);
+        Assert.assertFalse(nack.isMultiple());
+        BasicAck ack = (BasicAck) frames.get(1);
+        Assert.assertEquals(ack.getDeliveryTag(), 3);
+        Assert.assertTrue(ack.isMultiple());
+    }
+
+    @Test
+    public void testPublishCompletedOnlyOnce() throws Exception {
+        PublishListener listener = confirmManager.register();
+
+        listener.onPublishComplete(true);
+        listener.onPublishComplete(false);
+
+        Mockito.verify(ctx, Mockito.times(1)).write(argumentCaptor.capture());
+        List<Class> frameTypes = argumentCaptor.getAllValues().stream()
+                                               .map(Object::getClass)
+                                               .collect(Collectors.toList());
+        Assert.assertEquals(frameTypes.get(0), BasicAck.class);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.amqp.codec.frames;
+
+import io.ballerina.messaging.broker.amqp.AckData;
+import io.ballerina.messaging.broker.amqp.AmqpServerConfiguration;
+import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
+import io.ballerina.messaging.broker.amqp.codec.BlockingTask;
+import io.ballerina.messaging.broker.amqp.codec.flow.PrefetchWindow;
+import io.ballerina.messaging.broker.amqp.codec.handlers.AmqpConnectionHandler;
+import io.ballerina.messaging.broker.amqp.metrics.NullAmqpMetricManager;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class BasicNackTest {
+
+    @Test(dataProvider = "flags")
+    public void testEncodeDecode(boolean multiple, boolean requeue) throws Exception {
+        BasicNack testFrame = new BasicNack(1, 42, multiple, requeue);
+        ByteBuf buf = Unpooled.buffer((int) testFrame.getMethodBodySize());
+        testFrame.writeMethod(buf);
+        BasicNack decodedFrame = (BasicNack) BasicNack.getFactory()
+                                                      .newInstance(buf, 1, testFrame.getMethodBodySize());
+
+        Assert.assertEquals(decodedFrame.getChannel(), testFrame.getChannel(), "Decoded frame's channel should match"
+                + " the original frame's channel");
+        Assert.assertEquals(decodedFrame.getDeliveryTag(), testFrame.getDeliveryTag(), "Decoded frame's delivery-tag "
+                + "should match the original frame's delivery-tag");
+        Assert.assertEquals(decodedFrame.isMultiple(), testFrame.isMultiple(), "Decoded frame's multiple bit "
+                + "should match the original frame's multiple bit");
+        Assert.assertEquals(decodedFrame.isRequeue(), testFrame.isRequeue(), "Decoded frame's requeue bit "
+                + "should match the original frame's requeue bit");
+    }
+
+    @Test
+    public void testRejectMultiple() throws Exception {
+        PrefetchWindow prefetchWindow = new PrefetchWindow(0, 0, () -> { });
+        PrefetchWindow connectionPrefetchWindow = new PrefetchWindow(0, 0, () -> { });
+        AmqpChannel channel = new AmqpChannel(new AmqpServerConfiguration(), null, 1, new NullAmqpMetricManager(),
+                                              connectionPrefetchWindow);
+        for (int i = 1; i <= 3; i++) {
+            Message message = new Message(i, new Metadata("queue1", "amq.direct", 0));
+            channel.reservePrefetch(prefetchWindow, message);
+            channel.recordMessageDelivery(channel.getNextDeliveryTag(),
+                                          new AckData(message, "queue1", ShortString.parseString("tag"),
+                                                      prefetchWindow));
+        }
+        AmqpConnectionHandler connectionHandler = Mockito.mock(AmqpConnectionHandler.class);
+        Mockito.when(connectionHandler.getChannel(1)).thenReturn(channel);
+        ChannelHandlerContext ctx = Mockito.mock(ChannelHandlerContext.class);
+        Mockito.when(ctx.fireChannelRead(Mockito.any(BlockingTask.class))).then(invocation -> {
+            ((BlockingTask) invocation.getArgument(0)).execute();
+            return ctx;
+        });
+
+        new BasicNack(1, 2, true, false).handle(ctx, connectionHandler);
+        Assert.assertEquals(prefetchWindow.getMessageCount(), 1, "Messages up to the delivery tag should be rejected");
+
+        new BasicNack(1, 0, true, false).handle(ctx, connectionHandler);
+        Assert.assertEquals(prefetchWindow.getMessageCount(), 0, "Delivery tag 0 should reject all the messages");
+    }
+
+    @DataProvider(name = "flags")
+    public Object[][] flags() {
+        return new Object[][] {
+                {true, true},
+                {true, false},
+                {false, true},
+                {false, false}
+        };
+    }
+}
@@ -19,22 +19,35 @@
 
 package io.ballerina.messaging.broker.common.data.types;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * AMQP FieldTable data
  * <p>
  * field-table = long-uint *field-value-pair.
+ * <p>
+ * A table created with {@link #parseLazily(ByteBuf)} keeps the encoded entries and only builds the entry map when
+ * an entry is accessed. Until the table is modified it is written back using the encoded entries.
  */
 public class FieldTable implements EncodableData {
 
     public static final FieldTable EMPTY_TABLE = new FieldTable(Collections.unmodifiableMap(new HashMap<>()));
 
-    private final Map<ShortString, FieldValue> properties;
+    private volatile Map<ShortString, FieldValue> properties;
+
+    /**
+     * Encoded entries of a lazily parsed table. Cleared when the table is modified.
+     */
+    @SuppressFBWarnings(value = "VO_VOLATILE_REFERENCE_TO_ARRAY",
+                        justification = "The encoded entries are never modified, only the reference is cleared")
+    private volatile byte[] encodedEntries;
 
     /**
      * Used to cache size to avoid recalculating size.
@@ -49,7 +62,16 @@ public class FieldTable implements EncodableData {
         this.properties = new HashMap<>();
     }
 
+    private FieldTable(byte[] encodedEntries) {
+        this.encodedEntries = encodedEntries;
+    }
+
     public long getSize() {
+        byte[] encoded = encodedEntries;
+        if (encoded != null) {
+            return 4L + encoded.length;
+        }
+
         long tableEntrySize = 0L;
         for (Map.Entry<ShortString, FieldValue> fieldEntry : properties.entrySet()) {
             tableEntrySize = tableEntrySize + fieldEntry.getKey().getSize() + fieldEntry.getValue().getSize();
@@ -59,7 +81,11 @@ public class FieldTable implements EncodableData {
     }
 
     public void write(ByteBuf buf) {
-        if (size != -1L) {
+        byte[] encoded = encodedEntries;
+        if (encoded != null) {
+            buf.writeInt(encoded.length);
+            buf.writeBytes(encoded);
+        } else if (size != -1L) {
             writeWithoutCalculatingSize(buf);
         } else {
             writeWithCalculatedSize(buf);
@@ -93,12 +119,14 @@ public class FieldTable implements EncodableData {
     }
 
     public void add(ShortString propertyName, FieldValue value) {
-        properties.put(propertyName, value);
+        decodedProperties().put(propertyName, value);
+        encodedEntries = null;
+        size = -1L;
     }
 
     @Override
     public int hashCode() {
-        return properties.hashCode();
+        return decodedProperties().hashCode();
     }
 
     @Override
@@ -107,11 +135,31 @@ public class FieldTable implements EncodableData {
             return true;
         }
         return (obj instanceof FieldTable)
-                && properties.equals(((FieldTable) obj).properties);
+                && decodedProperties().equals(((FieldTable) obj).decodedProperties());
     }
 
     public static FieldTable parse(ByteBuf buf) throws Exception {
         long size = buf.readUnsignedInt();
+        return new FieldTable(parseEntries(buf, size));
+    }
+
+    /**
+     * Read a field table without decoding its entries. Entries are decoded on first access.
+     *
+     * @param buf buffer positioned at the start of the field table
+     * @return field table backed by a copy of the encoded entries
+     */
+    public static FieldTable parseLazily(ByteBuf buf) {
+        int size = (int) buf.readUnsignedInt();
+        if (size == 0) {
+            return new FieldTable();
+        }
+        byte[] encoded = new byte[size];
+        buf.readBytes(encoded);
+        return new FieldTable(encoded);
+    }
+
+    private static Map<ShortString, FieldValue> parseEntries(ByteBuf buf, long size) throws Exception {
         long readBytes = 0L;
         Map<ShortString, FieldValue> properties = new HashMap<>();
 
@@ -122,11 +170,38 @@ public class FieldTable implements EncodableData {
 
             readBytes = readBytes + key.getSize() + value.getSize();
         }
+        return properties;
+    }
 
-        return new FieldTable(properties);
+    private Map<ShortString, FieldValue> decodedProperties() {
+        Map<ShortString, FieldValue> decoded = properties;
+        if (decoded == null) {
+            synchronized (this) {
+                decoded = properties;
+                if (decoded == null) {
+                    byte[] encoded = encodedEntries;
+                    try {
+                        decoded = parseEntries(Unpooled.wrappedBuffer(encoded), encoded.length);
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Error occurred while parsing field table entries", e);
+                    }
+                    properties = decoded;
+                }
+            }
+        }
+        return decoded;
     }
 
     public FieldValue getValue(ShortString propertyName) {
-        return properties.get(propertyName);
+        return decodedProperties().get(propertyName);
+    }
+
+    /**
+     * Perform the given action for each entry of the table.
+     *
+     * @param action action to be performed on each key and value
+     */
+    public void forEach(BiConsumer<ShortString, FieldValue> action) {
+        decodedProperties().forEach(action);
     }
 }
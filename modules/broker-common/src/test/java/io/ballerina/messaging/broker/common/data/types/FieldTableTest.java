@@ -72,6 +72,24 @@ public class FieldTableTest {
         Assert.assertEquals(parsedTable, testFieldTable, "Encoding and decoding should result in the same object");
     }
 
+    @Test
+    public void testParseLazily() throws Exception {
+        ByteBuf buf = Unpooled.buffer((int) testFieldTable.getSize());
+        testFieldTable.write(buf);
+
+        FieldTable lazyTable = FieldTable.parseLazily(buf);
+        Assert.assertEquals(lazyTable.getSize(), testFieldTable.getSize());
+        Assert.assertEquals(lazyTable.getValue(testKey), testValue);
+
+        ShortString otherKey = ShortString.parseString("other");
+        lazyTable.add(otherKey, testValue);
+        ByteBuf modified = Unpooled.buffer((int) lazyTable.getSize());
+        lazyTable.write(modified);
+        FieldTable parsedTable = FieldTable.parse(modified);
+        Assert.assertEquals(parsedTable.getValue(otherKey), testValue, "Modified entries should be written");
+        Assert.assertEquals(parsedTable.getValue(testKey), testValue);
+    }
+
     @Test
     public void testHashCode() throws Exception {
         Map<ShortString, FieldValue> properties = new HashMap<>();
@@ -22,6 +22,8 @@ package io.ballerina.messaging.broker.core.rest.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
@@ -32,6 +34,7 @@ public class QueueCreateRequest   {
   private @Valid String name = null;
   private @Valid Boolean durable = null;
   private @Valid Boolean autoDelete = null;
+  private @Valid Map<String, String> arguments = new HashMap<String, String>();
 
   /**
    * Name of the queue to be created
@@ -90,6 +93,24 @@ public class QueueCreateRequest   {
     this.autoDelete = autoDelete;
   }
 
+  /**
+   * Optional queue arguments. i.e. x-queue-mode: lazy keeps only message ids in memory
+   **/
+  public QueueCreateRequest arguments(Map<String, String> arguments) {
+    this.arguments = arguments;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Optional queue arguments. i.e. x-queue-mode: lazy keeps only message ids in memory")
+  @JsonProperty("arguments")
+  public Map<String, String> getArguments() {
+    return arguments;
+  }
+  public void setArguments(Map<String, String> arguments) {
+    this.arguments = arguments;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -102,12 +123,13 @@ public class QueueCreateRequest   {
     QueueCreateRequest queueCreateRequest = (QueueCreateRequest) o;
     return Objects.equals(name, queueCreateRequest.name) &&
         Objects.equals(durable, queueCreateRequest.durable) &&
-        Objects.equals(autoDelete, queueCreateRequest.autoDelete);
+        Objects.equals(autoDelete, queueCreateRequest.autoDelete) &&
+        Objects.equals(arguments, queueCreateRequest.arguments);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, durable, autoDelete);
+    return Objects.hash(name, durable, autoDelete, arguments);
   }
 
   @Override
@@ -118,6 +140,7 @@ public class QueueCreateRequest   {
     sb.append("    name: ").append(toIndentedString(name)).append("\n");
     sb.append("    durable: ").append(toIndentedString(durable)).append("\n");
     sb.append("    autoDelete: ").append(toIndentedString(autoDelete)).append("\n");
+    sb.append("    arguments: ").append(toIndentedString(arguments)).append("\n");
     sb.append("}");
     return sb.toString();
   }
@@ -36,6 +36,7 @@ public class QueueMetadata   {
   private @Valid Integer capacity = null;
   private @Valid Integer size = null;
   private @Valid Boolean autoDelete = null;
+  private @Valid Long cachedBytes = null;
 
   /**
    * Name of the queue. This is a unique value
@@ -151,6 +152,24 @@ public class QueueMetadata   {
     this.autoDelete = autoDelete;
   }
 
+  /**
+   * Number of bytes of message content held in memory by the queue.
+   **/
+  public QueueMetadata cachedBytes(Long cachedBytes) {
+    this.cachedBytes = cachedBytes;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Number of bytes of message content held in memory by the queue.")
+  @JsonProperty("cachedBytes")
+  public Long getCachedBytes() {
+    return cachedBytes;
+  }
+  public void setCachedBytes(Long cachedBytes) {
+    this.cachedBytes = cachedBytes;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -166,12 +185,13 @@ public class QueueMetadata   {
         Objects.equals(durable, queueMetadata.durable) &&
         Objects.equals(capacity, queueMetadata.capacity) &&
         Objects.equals(size, queueMetadata.size) &&
-        Objects.equals(autoDelete, queueMetadata.autoDelete);
+        Objects.equals(autoDelete, queueMetadata.autoDelete) &&
+        Objects.equals(cachedBytes, queueMetadata.cachedBytes);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, consumerCount, durable, capacity, size, autoDelete);
+    return Objects.hash(name, consumerCount, durable, capacity, size, autoDelete, cachedBytes);
   }
 
   @Override
@@ -185,6 +205,7 @@ public class QueueMetadata   {
     sb.append("    capacity: ").append(toIndentedString(capacity)).append("\n");
     sb.append("    size: ").append(toIndentedString(size)).append("\n");
     sb.append("    autoDelete: ").append(toIndentedString(autoDelete)).append("\n");
+    sb.append("    cachedBytes: ").append(toIndentedString(cachedBytes)).append("\n");
     sb.append("}");
     return sb.toString();
   }
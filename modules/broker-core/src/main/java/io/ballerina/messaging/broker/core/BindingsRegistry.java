@@ -90,15 +90,15 @@ public final class BindingsRegistry {
         return bindingPatternToBindingsMap.isEmpty();
     }
 
-    public void retrieveAllBindingsForExchange(QueueRegistry queueRegistry) throws BrokerException {
-        bindingDao.retrieveBindingsForExchange(exchange.getName(), (queueName, bindingKey, filterTable) -> {
-            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
-
-            Binding binding = new Binding(queueHandler.getQueue(), bindingKey, filterTable);
-            BindingSet bindingSet = bindingPatternToBindingsMap.computeIfAbsent(bindingKey, k -> new BindingSet());
-            bindingSet.add(binding);
-            queueHandler.addBinding(binding, bindingDeleteListener);
-        });
+    /**
+     * Add a binding retrieved from the database without persisting it again.
+     */
+    void restoreBinding(QueueHandler queueHandler, String bindingKey,
+                        FieldTable arguments) throws BrokerException, ValidationException {
+        Binding binding = new Binding(queueHandler.getQueue(), bindingKey, arguments);
+        BindingSet bindingSet = bindingPatternToBindingsMap.computeIfAbsent(bindingKey, k -> new BindingSet());
+        bindingSet.add(binding);
+        queueHandler.addBinding(binding, bindingDeleteListener);
     }
 
     public Map<String, BindingSet> getAllBindings() {
@@ -36,6 +36,7 @@ import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
 import io.ballerina.messaging.broker.core.rest.api.ExchangesApi;
 import io.ballerina.messaging.broker.core.rest.api.QueuesApi;
 import io.ballerina.messaging.broker.core.store.DbBackedStoreFactory;
+import io.ballerina.messaging.broker.core.store.FileBackedStoreFactory;
 import io.ballerina.messaging.broker.core.store.MemBackedStoreFactory;
 import io.ballerina.messaging.broker.core.store.MessageStore;
 import io.ballerina.messaging.broker.core.store.StoreFactory;
@@ -55,6 +56,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.sql.DataSource;
@@ -97,6 +99,8 @@ public final class Broker {
 
     private final TaskExecutorService<MessageDeliveryTask> deliveryTaskService;
 
+    private final DeliveryQuantum deliveryQuantum;
+
     private final ExchangeRegistry exchangeRegistry;
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
@@ -123,6 +127,7 @@ public final class Broker {
         exchangeRegistry.retrieveFromStore(queueRegistry);
 
         this.deliveryTaskService = createTaskExecutorService(configuration);
+        this.deliveryQuantum = createDeliveryQuantum(configuration);
         messageIdGenerator = new MessageIdGenerator();
 
         initDefaultDeadLetterQueue();
@@ -148,6 +153,8 @@ public final class Broker {
 
         if (commonConfigs.getEnableInMemoryMode()) {
             return new MemBackedStoreFactory(metricManager, configuration);
+        } else if (configuration.getFileStore().isEnabled()) {
+            return new FileBackedStoreFactory(dataSource, metricManager, configuration);
         } else {
             return new DbBackedStoreFactory(dataSource, metricManager, configuration);
         }
@@ -191,7 +198,14 @@ public final class Broker {
                                                                 .build();
         int workerCount = Integer.parseInt(configuration.getDeliveryTask().getWorkerCount());
         int idleTaskDelay = Integer.parseInt(configuration.getDeliveryTask().getIdleTaskDelay());
-        return new TaskExecutorService<>(workerCount, idleTaskDelay, threadFactory);
+        boolean signalling = Boolean.parseBoolean(configuration.getDeliveryTask().getSignalling());
+        int parkTimeout = Integer.parseInt(configuration.getDeliveryTask().getParkTimeout());
+        boolean workStealing = Boolean.parseBoolean(configuration.getDeliveryTask().getWorkStealing());
+        TaskExecutorService<MessageDeliveryTask> taskExecutorService =
+                new TaskExecutorService<>(workerCount, idleTaskDelay, threadFactory, signalling, parkTimeout,
+                                          workStealing);
+        taskExecutorService.setTaskRunListener(metricManager::recordDeliveryTaskRun);
+        return taskExecutorService;
     }
 
 
@@ -208,10 +222,14 @@ public final class Broker {
                     LOGGER.info("Dropping message since no queues found for routing key {} in {}",
                                 routingKey, exchange);
                     MessageTracer.trace(message, MessageTracer.NO_ROUTES);
+                    message.completePublish(true);
                 } else {
                     try {
-                        messageStore.add(message.shallowCopy());
                         Set<QueueHandler> uniqueQueues = getUniqueQueueHandlersForBinding(metadata, bindingSet);
+                        recordArrivalTime(metadata, uniqueQueues);
+                        Message storedMessage = message.shallowCopy();
+                        storedMessage.setPublishListener(message.getPublishListener());
+                        messageStore.add(storedMessage);
                         publishToQueues(message, uniqueQueues);
                     } finally {
                         messageStore.flush(message.getInternalId());
@@ -243,6 +261,19 @@ public final class Broker {
         return uniqueQueues;
     }
 
+    /**
+     * Record the arrival time of a message that can expire in one of the given queues. The arrival time is stored with
+     * the message, hence the expiry time can be computed again when the message is read back from the store.
+     */
+    private static void recordArrivalTime(Metadata metadata, Set<QueueHandler> queueHandlers) {
+        for (QueueHandler queueHandler : queueHandlers) {
+            if (queueHandler.canExpire(metadata)) {
+                metadata.setArrivalTime(System.currentTimeMillis());
+                return;
+            }
+        }
+    }
+
     private void publishToQueues(Message message, Set<QueueHandler> uniqueQueueHandlers) throws BrokerException {
         // Unique queues can be empty due to un-matching selectors.
         if (uniqueQueueHandlers.isEmpty()) {
@@ -252,8 +283,16 @@ public final class Broker {
             return;
         }
 
+        boolean rejected = false;
         for (QueueHandler handler : uniqueQueueHandlers) {
-            handler.enqueue(message.shallowCopy());
+            if (!handler.enqueue(message.shallowCopy())) {
+                rejected = true;
+                handler.blockPublisher(message.getPublishListener());
+            }
+        }
+        if (rejected) {
+            // Publisher is notified even if other queues accepted the message
+            message.completePublish(false);
         }
         metricManager.markPublish();
     }
@@ -285,6 +324,7 @@ public final class Broker {
                 if (uniqueQueueHandlers.isEmpty()) {
                     return uniqueQueueHandlers;
                 }
+                recordArrivalTime(metadata, uniqueQueueHandlers);
                 messageStore.add(xid, message.shallowCopy());
                 for (QueueHandler handler : uniqueQueueHandlers) {
                     handler.prepareForEnqueue(xid, message.shallowCopy());
@@ -327,7 +367,9 @@ public final class Broker {
             if (queueHandler != null) {
                 synchronized (queueHandler) {
                     if (queueHandler.addConsumer(consumer) && queueHandler.consumerCount() == 1) {
-                        deliveryTaskService.add(new MessageDeliveryTask(queueHandler));
+                        for (QueueHandler partition : queueHandler.getPartitions()) {
+                            deliveryTaskService.add(new MessageDeliveryTask(partition, deliveryQuantum));
+                        }
                     }
                 }
             } else {
@@ -346,7 +388,9 @@ public final class Broker {
             if (queueHandler != null) {
                 synchronized (queueHandler) {
                     if (queueHandler.removeConsumer(consumer) && queueHandler.consumerCount() == 0) {
-                        deliveryTaskService.remove(queueHandler.getQueue().getName());
+                        for (QueueHandler partition : queueHandler.getPartitions()) {
+                            deliveryTaskService.remove(partition.getQueue().getName());
+                        }
                     }
                 }
             }
@@ -386,9 +430,14 @@ public final class Broker {
 
     public boolean createQueue(String queueName, boolean passive,
                                boolean durable, boolean autoDelete) throws BrokerException, ValidationException {
+        return createQueue(queueName, passive, durable, autoDelete, FieldTable.EMPTY_TABLE);
+    }
+
+    public boolean createQueue(String queueName, boolean passive, boolean durable, boolean autoDelete,
+                               FieldTable arguments) throws BrokerException, ValidationException {
         lock.writeLock().lock();
         try {
-            boolean queueAdded = queueRegistry.addQueue(queueName, passive, durable, autoDelete);
+            boolean queueAdded = queueRegistry.addQueue(queueName, passive, durable, autoDelete, arguments);
             if (queueAdded) {
                 QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
                 // We need to bind every queue to the default exchange
@@ -405,7 +454,13 @@ public final class Broker {
                                                                                            ResourceNotFoundException {
         lock.writeLock().lock();
         try {
-            return queueRegistry.removeQueue(queueName, ifUnused, ifEmpty);
+            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+            int messageCount = queueRegistry.removeQueue(queueName, ifUnused, ifEmpty);
+            // Delivery tasks still being removed remove the metrics again once they are removed
+            for (QueueHandler partition : queueHandler.getPartitions()) {
+                metricManager.removeQueueMetrics(partition.getQueue().getName());
+            }
+            return messageCount;
         } finally {
             lock.writeLock().unlock();
         }
@@ -465,12 +520,25 @@ public final class Broker {
 
     public void shutdown() {
         brokerHelper.shutdown();
+        try {
+            messageStore.close();
+        } catch (BrokerException e) {
+            LOGGER.error("Error while closing the message store", e);
+        }
     }
 
     public long getNextMessageId() {
         return messageIdGenerator.getNextId();
     }
 
+    private static DeliveryQuantum createDeliveryQuantum(BrokerCoreConfiguration configuration) {
+        BrokerCoreConfiguration.DeliveryTask deliveryTaskConfiguration = configuration.getDeliveryTask();
+        long quantum = Long.parseLong(deliveryTaskConfiguration.getQuantum());
+        DeliveryQuantum.Unit unit = DeliveryQuantum.Unit.parse(deliveryTaskConfiguration.getQuantumUnit());
+        long runTimeBudget = Long.parseLong(deliveryTaskConfiguration.getRunTimeBudget());
+        return new DeliveryQuantum(quantum, unit, TimeUnit.MICROSECONDS.toNanos(runTimeBudget));
+    }
+
     public void requeue(String queueName, Message message) throws BrokerException {
         lock.readLock().lock();
         try {
@@ -481,6 +549,39 @@ public final class Broker {
         }
     }
 
+    /**
+     * Notify that a consumer became ready to receive messages, waking up the delivery of its queue.
+     *
+     * @param consumer {@link Consumer} that is ready
+     */
+    public void notifyConsumerReady(Consumer consumer) {
+        lock.readLock().lock();
+        try {
+            QueueHandler queueHandler = queueRegistry.getQueueHandler(consumer.getQueueName());
+            if (queueHandler != null) {
+                queueHandler.onConsumerReady(consumer);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forget a publisher blocked by full queues, i.e. once its channel is closed.
+     *
+     * @param publishListener listener of the publisher
+     */
+    public void removeBlockedPublisher(PublishListener publishListener) {
+        lock.readLock().lock();
+        try {
+            for (QueueHandler queueHandler : queueRegistry.getAllQueues()) {
+                queueHandler.removeBlockedPublisher(publishListener);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     public Collection<QueueHandler> getAllQueues() {
         lock.readLock().lock();
         try {
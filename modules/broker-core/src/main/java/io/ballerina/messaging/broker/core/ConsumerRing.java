@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Consumers of a queue rotated in round robin order for delivery. Only consumers ready to accept messages are kept in
+ * the ready index, hence delivery does not go through consumers that cannot accept messages.
+ * <p>
+ * A consumer found not ready is dropped from the ready index and is put back through {@link #markReady(Consumer)}
+ * once it becomes ready again. {@link Consumer} implementations must notify the broker when they become ready.
+ */
+@ThreadSafe
+final class ConsumerRing {
+
+    private final Map<Consumer, Member> members = new HashMap<>();
+
+    /**
+     * Ready consumers in the order they receive messages.
+     */
+    private final Deque<Member> readyMembers = new ArrayDeque<>();
+
+    synchronized void add(Consumer consumer) {
+        if (!members.containsKey(consumer)) {
+            Member member = new Member(consumer);
+            members.put(consumer, member);
+            addReady(member);
+        }
+    }
+
+    synchronized void remove(Consumer consumer) {
+        Member member = members.remove(consumer);
+        if (member != null && member.ready) {
+            readyMembers.remove(member);
+        }
+    }
+
+    synchronized void clear() {
+        members.clear();
+        readyMembers.clear();
+    }
+
+    /**
+     * Put a consumer back to the ready index. Must be invoked after the consumer becomes ready.
+     *
+     * @param consumer {@link Consumer} that became ready
+     * @return true if the consumer was not in the ready index
+     */
+    synchronized boolean markReady(Consumer consumer) {
+        Member member = members.get(consumer);
+        if (member != null && !member.ready) {
+            addReady(member);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the next ready consumer in round robin order. Consumers that are no longer ready are dropped from the ready
+     * index on the way.
+     *
+     * @return a ready {@link Consumer} or null if no consumer is ready
+     */
+    synchronized Consumer nextReady() {
+        Member member;
+        while ((member = readyMembers.pollFirst()) != null) {
+            // A consumer becoming ready after this check is marked ready afterwards, hence it is not lost
+            if (member.consumer.isReady()) {
+                readyMembers.addLast(member);
+                return member.consumer;
+            }
+            member.ready = false;
+        }
+        return null;
+    }
+
+    private void addReady(Member member) {
+        member.ready = true;
+        readyMembers.addLast(member);
+    }
+
+    /**
+     * Entry of a consumer in the ring.
+     */
+    private static final class Member {
+
+        private final Consumer consumer;
+
+        /**
+         * Whether the consumer is in the ready index.
+         */
+        private boolean ready;
+
+        Member(Consumer consumer) {
+            this.consumer = consumer;
+        }
+    }
+}
@@ -19,28 +19,38 @@
 
 package io.ballerina.messaging.broker.core;
 
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.queue.DbBackedQueueImpl;
-import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+import io.ballerina.messaging.broker.core.queue.MemQueueFactory;
 import io.ballerina.messaging.broker.core.queue.QueueBufferFactory;
-import io.ballerina.messaging.broker.core.store.DbMessageStore;
+import io.ballerina.messaging.broker.core.store.MessageStore;
 
 /**
  * DB backed factory for creating queue handler objects.
  */
 public class DbBackedQueueHandlerFactory implements QueueHandlerFactory {
-    private final DbMessageStore dbMessageStore;
+    private final MessageStore messageStore;
     private final BrokerMetricManager metricManager;
-    private final int nonDurableQueueMaxDepth;
+    private final int durableQueueRecoveryPageSize;
     private QueueBufferFactory queueBufferFactory;
+    private final MemQueueFactory memQueueFactory;
+    private final MessageExpiryWheel expiryWheel;
+    private final int maxConsecutiveRedeliveries;
 
-    public DbBackedQueueHandlerFactory(DbMessageStore dbMessageStore, BrokerMetricManager metricManager,
+    public DbBackedQueueHandlerFactory(MessageStore messageStore, BrokerMetricManager metricManager,
                                        BrokerCoreConfiguration configuration) {
-        this.dbMessageStore = dbMessageStore;
+        this.messageStore = messageStore;
         this.metricManager = metricManager;
-        nonDurableQueueMaxDepth = Integer.parseInt(configuration.getNonDurableQueueMaxDepth());
+        durableQueueRecoveryPageSize = Integer.parseInt(configuration.getDurableQueueRecoveryPageSize());
         queueBufferFactory = new QueueBufferFactory(configuration);
+        memQueueFactory = new MemQueueFactory(configuration);
+        BrokerCoreConfiguration.MessageExpiry expiryConfiguration = configuration.getMessageExpiry();
+        expiryWheel = new MessageExpiryWheel(Long.parseLong(expiryConfiguration.getTickDuration()),
+                                             Integer.parseInt(expiryConfiguration.getWheelSize()));
+        maxConsecutiveRedeliveries = Integer.parseInt(configuration.getRedelivery()
+                                                                   .getMaxConsecutiveRedeliveries());
     }
 
     /**
@@ -48,12 +58,20 @@ public class DbBackedQueueHandlerFactory implements QueueHandlerFactory {
      *
      * @param queueName  name of the queue
      * @param autoDelete true if auto deletable
+     * @param arguments  arguments given when declaring the queue
      * @return QueueHandler object
      * @throws BrokerException if cannot create queue handler
      */
-    public QueueHandler createDurableQueueHandler(String queueName, boolean autoDelete) throws BrokerException {
-        Queue queue = new DbBackedQueueImpl(queueName, autoDelete, dbMessageStore, queueBufferFactory);
-        return new QueueHandler(queue, metricManager);
+    public QueueHandler createDurableQueueHandler(String queueName, boolean autoDelete,
+                                                  FieldTable arguments) throws BrokerException {
+        Queue queue = new DbBackedQueueImpl(queueName, autoDelete, arguments, messageStore, queueBufferFactory,
+                                            durableQueueRecoveryPageSize);
+        QueueHandler queueHandler = new QueueHandler(queue, metricManager, expiryWheel, maxConsecutiveRedeliveries);
+        if (queue.size() > 0) {
+            // Expiry times of the recovered messages are known once their data is read
+            queueHandler.scheduleExpiryCheck();
+        }
+        return queueHandler;
     }
 
     /**
@@ -61,11 +79,12 @@ public class DbBackedQueueHandlerFactory implements QueueHandlerFactory {
      *
      * @param queueName  name of the queue
      * @param autoDelete true if auto deletable
+     * @param arguments  arguments given when declaring the queue
      * @return QueueHandler object
      */
-    public QueueHandler createNonDurableQueueHandler(String queueName, boolean autoDelete) {
-        Queue queue = new MemQueueImpl(queueName, nonDurableQueueMaxDepth, autoDelete);
-        return new QueueHandler(queue, metricManager);
+    public QueueHandler createNonDurableQueueHandler(String queueName, boolean autoDelete, FieldTable arguments) {
+        Queue queue = memQueueFactory.createQueue(queueName, false, autoDelete, arguments);
+        return new QueueHandler(queue, metricManager, expiryWheel, maxConsecutiveRedeliveries);
     }
 
 }
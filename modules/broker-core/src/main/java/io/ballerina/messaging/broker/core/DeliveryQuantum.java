@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deficit round robin parameters of the message delivery tasks. Each run of a delivery task is credited with a
+ * quantum scaled by the delivery weight of the queue. The task delivers until the credit is spent, the queue is empty
+ * or the run time budget is used up, and then yields the worker to the next queue.
+ */
+final class DeliveryQuantum {
+
+    /**
+     * Quantum used when the broker configuration is not available.
+     */
+    static final DeliveryQuantum DEFAULT = new DeliveryQuantum(1000, Unit.MESSAGES, TimeUnit.MILLISECONDS.toNanos(1));
+
+    /**
+     * Unit the quantum is measured in.
+     */
+    enum Unit {
+
+        /**
+         * Each message costs one unit of the quantum.
+         */
+        MESSAGES,
+
+        /**
+         * Each message costs its content length.
+         */
+        BYTES;
+
+        static Unit parse(String unit) {
+            return valueOf(unit.trim().toUpperCase(Locale.ENGLISH));
+        }
+    }
+
+    private final long quantum;
+
+    private final Unit unit;
+
+    private final long runTimeBudgetNanos;
+
+    DeliveryQuantum(long quantum, Unit unit, long runTimeBudgetNanos) {
+        this.quantum = quantum;
+        this.unit = unit;
+        this.runTimeBudgetNanos = runTimeBudgetNanos;
+    }
+
+    /**
+     * Credit given to a queue in each round.
+     *
+     * @param weight delivery weight of the queue
+     * @return quantum scaled by the weight
+     */
+    long quantumFor(int weight) {
+        return quantum * weight;
+    }
+
+    /**
+     * Part of the quantum spent by delivering a message.
+     *
+     * @param message delivered message
+     * @return cost of the message
+     */
+    long costOf(Message message) {
+        if (unit == Unit.MESSAGES) {
+            return 1;
+        }
+        Metadata metadata = message.getMetadata();
+        // Messages without content still take a turn
+        return Objects.nonNull(metadata) ? Math.max(1, metadata.getContentLength()) : 1;
+    }
+
+    /**
+     * Maximum time a delivery task runs before yielding the worker, regardless of the remaining credit.
+     *
+     * @return run time budget in nanoseconds
+     */
+    long getRunTimeBudgetNanos() {
+        return runTimeBudgetNanos;
+    }
+}
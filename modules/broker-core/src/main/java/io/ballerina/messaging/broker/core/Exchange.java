@@ -129,8 +129,23 @@ public abstract class Exchange {
         return false;
     }
 
+    /**
+     * Add a binding retrieved from the database.
+     *
+     * @param queueHandler queue handler of the bound queue
+     * @param routingKey   routing key of the binding
+     * @param arguments    binding arguments
+     */
+    void restoreBinding(QueueHandler queueHandler, String routingKey,
+                        FieldTable arguments) throws BrokerException, ValidationException {
+        bindingsRegistry.restoreBinding(queueHandler, routingKey, arguments);
+    }
+
     void retrieveBindingsFromDb(QueueRegistry queueRegistry) throws BrokerException {
-        bindingsRegistry.retrieveAllBindingsForExchange(queueRegistry);
+        bindingDao.retrieveBindingsForExchange(name, (queueName, bindingKey, filterTable) -> {
+            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+            restoreBinding(queueHandler, bindingKey, filterTable);
+        });
     }
 
     @Override
@@ -23,18 +23,23 @@ import io.ballerina.messaging.broker.common.ValidationException;
 import io.ballerina.messaging.broker.core.store.dao.BindingDao;
 import io.ballerina.messaging.broker.core.store.dao.ExchangeDao;
 import io.ballerina.messaging.broker.core.store.dao.impl.NoOpBindingDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Registry object which contains all the registered exchanges of the broker.
  */
 public final class ExchangeRegistry {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExchangeRegistry.class);
+
     private static final String DIRECT = "amq.direct";
 
     private static final String TOPIC = "amq.topic";
@@ -53,7 +58,17 @@ public final class ExchangeRegistry {
 
     private final Collection<Exchange> unmodifiableExchangesView;
 
+    /**
+     * Retrieve bindings of all the exchanges using a single query instead of a query per exchange.
+     */
+    private final boolean bulkBindingRecovery;
+
     public ExchangeRegistry(ExchangeDao exchangeDao, BindingDao bindingDao) {
+        this(exchangeDao, bindingDao, false);
+    }
+
+    public ExchangeRegistry(ExchangeDao exchangeDao, BindingDao bindingDao, boolean bulkBindingRecovery) {
+        this.bulkBindingRecovery = bulkBindingRecovery;
         exchangeMap = new ConcurrentHashMap<>(3);
         exchangeMap.put(DIRECT, new DirectExchange(DIRECT, bindingDao));
         exchangeMap.put(TOPIC, new TopicExchange(TOPIC, bindingDao));
@@ -158,10 +173,26 @@ public final class ExchangeRegistry {
     }
 
     public void retrieveFromStore(QueueRegistry queueRegistry) throws BrokerException {
+        long startTime = System.nanoTime();
         retrieveAllExchangesFromDao();
-        for (Exchange exchange : exchangeMap.values()) {
-            exchange.retrieveBindingsFromDb(queueRegistry);
+        if (bulkBindingRecovery) {
+            bindingDao.retrieveAllBindings((exchangeName, queueName, routingKey, arguments) -> {
+                Exchange exchange = exchangeMap.get(exchangeName);
+                QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+                if (Objects.nonNull(exchange) && Objects.nonNull(queueHandler)) {
+                    exchange.restoreBinding(queueHandler, routingKey, arguments);
+                } else {
+                    LOGGER.warn("Ignoring binding of queue {} to exchange {} with routing key {} since the queue or "
+                                        + "the exchange is not found", queueName, exchangeName, routingKey);
+                }
+            });
+        } else {
+            for (Exchange exchange : exchangeMap.values()) {
+                exchange.retrieveBindingsFromDb(queueRegistry);
+            }
         }
+        LOGGER.info("Recovered {} exchanges and bindings in {} ms", exchangeMap.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
     }
 
     public Collection<Exchange> getAllExchanges() {
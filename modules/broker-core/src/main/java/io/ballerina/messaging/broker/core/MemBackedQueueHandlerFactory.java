@@ -19,9 +19,10 @@
 
 package io.ballerina.messaging.broker.core;
 
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
-import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+import io.ballerina.messaging.broker.core.queue.MemQueueFactory;
 
 
 /**
@@ -29,26 +30,34 @@ import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
  */
 public class MemBackedQueueHandlerFactory implements QueueHandlerFactory {
     private final BrokerMetricManager metricManager;
-    private final int nonDurableQueueMaxDepth;
+    private final MemQueueFactory memQueueFactory;
+    private final MessageExpiryWheel expiryWheel;
+    private final int maxConsecutiveRedeliveries;
 
     public MemBackedQueueHandlerFactory(BrokerMetricManager metricManager,
                                         BrokerCoreConfiguration configuration) {
         this.metricManager = metricManager;
-        this.nonDurableQueueMaxDepth = Integer.parseInt(configuration.getNonDurableQueueMaxDepth());
+        this.memQueueFactory = new MemQueueFactory(configuration);
+        BrokerCoreConfiguration.MessageExpiry expiryConfiguration = configuration.getMessageExpiry();
+        this.expiryWheel = new MessageExpiryWheel(Long.parseLong(expiryConfiguration.getTickDuration()),
+                                                  Integer.parseInt(expiryConfiguration.getWheelSize()));
+        this.maxConsecutiveRedeliveries = Integer.parseInt(configuration.getRedelivery()
+                                                                        .getMaxConsecutiveRedeliveries());
     }
 
     @Override
-    public QueueHandler createDurableQueueHandler(String queueName, boolean autoDelete) {
-        return getQueueHandler(queueName, true, autoDelete);
+    public QueueHandler createDurableQueueHandler(String queueName, boolean autoDelete, FieldTable arguments) {
+        return getQueueHandler(queueName, true, autoDelete, arguments);
     }
 
     @Override
-    public QueueHandler createNonDurableQueueHandler(String queueName, boolean autoDelete) {
-        return getQueueHandler(queueName, false, autoDelete);
+    public QueueHandler createNonDurableQueueHandler(String queueName, boolean autoDelete, FieldTable arguments) {
+        return getQueueHandler(queueName, false, autoDelete, arguments);
     }
 
-    private QueueHandler getQueueHandler(String queueName, boolean durable, boolean autoDelete) {
-        Queue queue = new MemQueueImpl(queueName, durable, nonDurableQueueMaxDepth, autoDelete);
-        return new QueueHandler(queue, metricManager);
+    private QueueHandler getQueueHandler(String queueName, boolean durable, boolean autoDelete,
+                                         FieldTable arguments) {
+        Queue queue = memQueueFactory.createQueue(queueName, durable, autoDelete, arguments);
+        return new QueueHandler(queue, metricManager, expiryWheel, maxConsecutiveRedeliveries);
     }
 }
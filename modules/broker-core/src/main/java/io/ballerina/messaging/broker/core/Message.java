@@ -33,6 +33,11 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class Message {
 
+    /**
+     * Expiry time of messages that do not expire.
+     */
+    public static final long NO_EXPIRY = 0;
+
     private Metadata metadata;
 
     private final List<ContentChunk> contentChunks;
@@ -41,8 +46,19 @@ public class Message {
 
     private int redeliveryCount;
 
+    /**
+     * Time in milliseconds since epoch at which the message expires, or {@link #NO_EXPIRY} if it does not expire.
+     */
+    private long expiryTime = NO_EXPIRY;
+
     private final Set<String> queueSet;
 
+    /**
+     * Listener notified once the broker has taken responsibility for the message. This is not carried over to
+     * shallow copies.
+     */
+    private PublishListener publishListener;
+
     /**
      * Unique id of the message.
      */
@@ -81,6 +97,7 @@ public class Message {
         Message message = new Message(internalId, metadata.shallowCopy(), queueSet);
         message.redelivered = redelivered;
         message.redeliveryCount = redeliveryCount;
+        message.expiryTime = expiryTime;
         shallowCopyContent(message);
         return message;
     }
@@ -137,6 +154,26 @@ public class Message {
         return redelivered;
     }
 
+    /**
+     * Getter for expiryTime.
+     */
+    public long getExpiryTime() {
+        return expiryTime;
+    }
+
+    public void setExpiryTime(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * Check if the message has passed its expiry time.
+     *
+     * @return true if the message is expired
+     */
+    public boolean isExpired() {
+        return expiryTime != NO_EXPIRY && expiryTime <= System.currentTimeMillis();
+    }
+
     @Override
     public String toString() {
 
@@ -147,6 +184,25 @@ public class Message {
         }
     }
 
+    public PublishListener getPublishListener() {
+        return publishListener;
+    }
+
+    public void setPublishListener(PublishListener publishListener) {
+        this.publishListener = publishListener;
+    }
+
+    /**
+     * Notify the publish listener, if there is one, about the outcome of the publish.
+     *
+     * @param success true if the message was accepted by the broker
+     */
+    public void completePublish(boolean success) {
+        if (Objects.nonNull(publishListener)) {
+            publishListener.onPublishComplete(success);
+        }
+    }
+
     public void setMetadata(Metadata metadata) {
         this.metadata = metadata;
     }
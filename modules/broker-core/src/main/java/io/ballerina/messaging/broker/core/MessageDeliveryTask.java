@@ -25,7 +25,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Delivers messages to consumers for a given queueHandler.
+ * Delivers messages to consumers for a given queueHandler. Runs are scheduled in deficit round robin order, see
+ * {@link DeliveryQuantum}.
  */
 final class MessageDeliveryTask extends Task {
 
@@ -33,18 +34,30 @@ final class MessageDeliveryTask extends Task {
 
     private final QueueHandler queueHandler;
 
+    private final DeliveryQuantum deliveryQuantum;
+
+    /**
+     * Credit left for delivering messages. Carried over to the next run while the queue has messages.
+     */
+    private long deficit;
+
     MessageDeliveryTask(QueueHandler queueHandler) {
+        this(queueHandler, DeliveryQuantum.DEFAULT);
+    }
+
+    MessageDeliveryTask(QueueHandler queueHandler, DeliveryQuantum deliveryQuantum) {
         this.queueHandler = queueHandler;
+        this.deliveryQuantum = deliveryQuantum;
     }
 
     @Override
     public void onAdd() {
-
+        queueHandler.setDeliveryTask(this);
     }
 
     @Override
     public void onRemove() {
-
+        queueHandler.clearDeliveryTask(this);
     }
 
     @Override
@@ -54,48 +67,48 @@ final class MessageDeliveryTask extends Task {
 
     @Override
     public TaskHint call() throws Exception {
-        CyclicConsumerIterator consumerIterator = queueHandler.getCyclicConsumerIterator();
-        if (!consumerIterator.hasNext()) {
+        Consumer consumer = queueHandler.nextReadyConsumer();
+        if (consumer == null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("No consumer is ready for consuming messages from {}", queueHandler.getQueue().getName());
+            }
+            deficit = 0;
             return TaskHint.IDLE;
         }
 
+        long quantum = deliveryQuantum.quantumFor(queueHandler.getDeliveryWeight());
+        // Credit beyond a quantum is not carried over, the run time budget might have ended the previous run
+        deficit = Math.min(deficit, 0) + quantum;
+        if (deficit <= 0) {
+            // Skip the turn until large messages delivered in earlier turns are paid off
+            return TaskHint.ACTIVE;
+        }
+        long deadline = System.nanoTime() + deliveryQuantum.getRunTimeBudgetNanos();
         int deliveredCount = 0;
-        Consumer previousConsumer = null;
         while (true) {
-            Consumer consumer = consumerIterator.next();
-
-            if (!consumer.isReady()) {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Consumer {} is not ready for consuming messages from {}",
-                                 consumer,
-                                 queueHandler.getQueue().getName());
-                }
-
-                if (consumer.equals(previousConsumer)) {
-                    return TaskHint.IDLE;
-                } else {
-                    previousConsumer = consumer;
-                    continue;
-                }
-            } else {
-                // TODO: handle send errors
-                Message message = queueHandler.takeForDelivery();
-                if (message != null) {
-                    LOGGER.debug("Sending message {} to {}", message, consumer);
-                    MessageTracer.trace(message, queueHandler, MessageTracer.DELIVER);
-                    consumer.send(message);
-                    deliveredCount++;
-                    // TODO: make the value configurable
-                    if (deliveredCount == 1000) {
-                        break;
-                    }
-                } else {
-                    // We need to break the while loop if there are no messages in the queue
-                    break;
-                }
+            // TODO: handle send errors
+            Message message = queueHandler.takeForDelivery();
+            if (message == null) {
+                // We need to break the while loop if there are no messages in the queue. An empty queue does not
+                // keep its credit
+                deficit = 0;
+                break;
             }
 
-            previousConsumer = consumer;
+            LOGGER.debug("Sending message {} to {}", message, consumer);
+            MessageTracer.trace(message, queueHandler, MessageTracer.DELIVER);
+            consumer.send(message);
+            deliveredCount++;
+            deficit -= deliveryQuantum.costOf(message);
+            if (deficit <= 0 || System.nanoTime() - deadline >= 0) {
+                break;
+            }
+
+            consumer = queueHandler.nextReadyConsumer();
+            if (consumer == null) {
+                deficit = 0;
+                return TaskHint.IDLE;
+            }
         }
         if (deliveredCount > 0) {
             return TaskHint.ACTIVE;
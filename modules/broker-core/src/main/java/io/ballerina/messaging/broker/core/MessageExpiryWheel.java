@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Hashed timing wheel used to wake up queues when their messages expire. Each slot of the wheel holds the queues
+ * with messages expiring in the ticks mapped to the slot. Scheduling and firing an entry take constant time
+ * regardless of the number of messages in the queues.
+ * <p>
+ * The wheel thread runs only while there are scheduled entries.
+ */
+@ThreadSafe
+final class MessageExpiryWheel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageExpiryWheel.class);
+
+    /**
+     * Time in seconds the idle wheel thread is kept alive.
+     */
+    private static final long THREAD_KEEP_ALIVE_TIME = 60;
+
+    private final long tickDuration;
+
+    private final List<ArrayDeque<ExpiryEntry>> slots;
+
+    private final int mask;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Last tick processed by the wheel.
+     */
+    private long processedTick;
+
+    private int pendingCount = 0;
+
+    private ScheduledFuture<?> tickFuture;
+
+    /**
+     * Create a timing wheel.
+     *
+     * @param tickDuration duration of a tick in milliseconds
+     * @param wheelSize    number of slots in the wheel. Rounded up to a power of two.
+     */
+    MessageExpiryWheel(long tickDuration, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration should be positive: " + tickDuration);
+        }
+        this.tickDuration = tickDuration;
+        int slotCount = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        mask = slotCount - 1;
+
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("MessageExpiryWheel-%d")
+                                                                .setDaemon(true)
+                                                                .build();
+        executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+        executor.setKeepAliveTime(THREAD_KEEP_ALIVE_TIME, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Get the tick in which the given time falls due. A tick is due once the whole tick has elapsed.
+     *
+     * @param time time in milliseconds since epoch
+     * @return tick of the time
+     */
+    long tickOf(long time) {
+        return (time + tickDuration - 1) / tickDuration;
+    }
+
+    /**
+     * Wake up the queue handler to expire messages once the given tick is due.
+     *
+     * @param queueHandler queue handler with expiring messages
+     * @param tick         tick returned by {@link #tickOf(long)}
+     */
+    synchronized void schedule(QueueHandler queueHandler, long tick) {
+        if (Objects.isNull(tickFuture)) {
+            processedTick = currentTick();
+            tickFuture = executor.scheduleAtFixedRate(this::tick, tickDuration, tickDuration, TimeUnit.MILLISECONDS);
+        }
+        long dueTick = Math.max(tick, processedTick + 1);
+        slots.get((int) (dueTick & mask)).addLast(new ExpiryEntry(queueHandler, dueTick));
+        pendingCount++;
+    }
+
+    /**
+     * Number of entries yet to be fired.
+     */
+    synchronized int pendingCount() {
+        return pendingCount;
+    }
+
+    private long currentTick() {
+        return System.currentTimeMillis() / tickDuration;
+    }
+
+    private void tick() {
+        Set<QueueHandler> dueQueueHandlers = Collections.newSetFromMap(new IdentityHashMap<>());
+        synchronized (this) {
+            long currentTick = currentTick();
+            long fromTick = Math.max(processedTick + 1, currentTick - mask);
+            for (long tick = fromTick; tick <= currentTick; tick++) {
+                Iterator<ExpiryEntry> iterator = slots.get((int) (tick & mask)).iterator();
+                while (iterator.hasNext()) {
+                    ExpiryEntry entry = iterator.next();
+                    if (entry.dueTick <= currentTick) {
+                        iterator.remove();
+                        pendingCount--;
+                        dueQueueHandlers.add(entry.queueHandler);
+                    }
+                }
+            }
+            processedTick = Math.max(processedTick, currentTick);
+
+            if (pendingCount == 0 && Objects.nonNull(tickFuture)) {
+                tickFuture.cancel(false);
+                tickFuture = null;
+            }
+        }
+
+        for (QueueHandler queueHandler : dueQueueHandlers) {
+            try {
+                queueHandler.expireMessages();
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while expiring messages of queue " + queueHandler.getQueue().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Entry of the wheel.
+     */
+    private static final class ExpiryEntry {
+
+        private final QueueHandler queueHandler;
+
+        private final long dueTick;
+
+        ExpiryEntry(QueueHandler queueHandler, long dueTick) {
+            this.queueHandler = queueHandler;
+            this.dueTick = dueTick;
+        }
+    }
+}
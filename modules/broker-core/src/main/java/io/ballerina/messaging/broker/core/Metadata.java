@@ -47,10 +47,22 @@ public class Metadata {
 
     public static final ShortString CORRELATION_ID = ShortString.parseString("correlationId");
 
+    public static final ShortString TIMESTAMP = ShortString.parseString("timestamp");
+
+    /**
+     * Property flags of the received AMQP content header, kept to write the same header back on delivery.
+     */
+    public static final ShortString PROPERTY_FLAGS = ShortString.parseString("propertyFlags");
+
     public static final int PERSISTENT_MESSAGE = 2;
 
     public static final int NON_PERSISTENT_MESSAGE = 1;
 
+    /**
+     * Arrival time of messages without a recorded arrival time.
+     */
+    public static final long NO_ARRIVAL_TIME = 0;
+
     /**
      * Key value used by the router (exchange) to identify the relevant queue(s) for this message.
      */
@@ -70,6 +82,12 @@ public class Metadata {
 
     private FieldTable headers;
 
+    /**
+     * Time in milliseconds since epoch at which the broker received the message. Recorded only for messages that can
+     * expire, so that their expiry time can be computed again once the message is read back from the store.
+     */
+    private long arrivalTime = NO_ARRIVAL_TIME;
+
     public Metadata(String routingKey, String exchangeName, long contentLength) {
         this.routingKey = routingKey;
         this.exchangeName = exchangeName;
@@ -98,6 +116,7 @@ public class Metadata {
         Metadata metadata = new Metadata(routingKey, exchangeName, contentLength);
         metadata.properties = properties;
         metadata.headers = headers;
+        metadata.arrivalTime = arrivalTime;
         return metadata;
 
     }
@@ -114,6 +133,14 @@ public class Metadata {
                 + "'}";
     }
 
+    public long getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public void setArrivalTime(long arrivalTime) {
+        this.arrivalTime = arrivalTime;
+    }
+
     public void setProperties(FieldTable properties) {
         this.properties = properties;
     }
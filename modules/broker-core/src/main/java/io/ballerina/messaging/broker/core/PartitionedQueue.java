@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.transaction.xa.Xid;
+
+/**
+ * Logical view of a queue split into partitions. Each partition is a queue of its own with a separate buffer and
+ * delivery task, which lets consumers of a single queue be served by several delivery threads. Messages are routed
+ * to a partition by message id, hence acknowledgements, rejections and transactions find the partition of a
+ * message without any bookkeeping. Messages are not ordered across partitions.
+ */
+final class PartitionedQueue extends Queue {
+
+    private static final String PARTITION_SEPARATOR = "#";
+
+    private static final Pattern PARTITION_NAME_PATTERN = Pattern.compile(PARTITION_SEPARATOR + "\\d+\\z");
+
+    /**
+     * Multiplier used to spread consecutive message ids across partitions.
+     */
+    private static final long ID_MIX = 0x9E3779B97F4A7C15L;
+
+    private final List<QueueHandler> partitions;
+
+    PartitionedQueue(String queueName, boolean durable, boolean autoDelete, FieldTable arguments,
+                     List<QueueHandler> partitions) {
+        super(queueName, durable, autoDelete, arguments);
+        this.partitions = partitions;
+    }
+
+    /**
+     * Name of a partition of a queue.
+     *
+     * @param queueName name of the partitioned queue
+     * @param index     index of the partition
+     * @return partition name
+     */
+    static String partitionName(String queueName, int index) {
+        return queueName + PARTITION_SEPARATOR + index;
+    }
+
+    /**
+     * Check if the given name has the form of a partition name. Such names are not allowed for user queues, since
+     * the queue would be taken as a partition of another queue when queues are recovered.
+     *
+     * @param queueName queue name
+     * @return true if the name has the form of a partition name
+     */
+    static boolean isPartitionName(String queueName) {
+        return PARTITION_NAME_PATTERN.matcher(queueName).find();
+    }
+
+    /**
+     * Index of the partition a message belongs to.
+     *
+     * @param messageId      internal id of the message
+     * @param partitionCount number of partitions
+     * @return partition index
+     */
+    static int partitionIndex(long messageId, int partitionCount) {
+        // Message ids share their low bits within a millisecond, hence the id is mixed before taking the modulus
+        return Math.floorMod(Long.hashCode(messageId * ID_MIX), partitionCount);
+    }
+
+    List<QueueHandler> getPartitions() {
+        return partitions;
+    }
+
+    @Override
+    public int capacity() {
+        return Queue.UNBOUNDED;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (QueueHandler partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    @Override
+    public long cachedBytes() {
+        long cachedBytes = 0;
+        for (QueueHandler partition : partitions) {
+            cachedBytes += partition.getQueue().cachedBytes();
+        }
+        return cachedBytes;
+    }
+
+    @Override
+    public boolean enqueue(Message message) {
+        throw new UnsupportedOperationException("Messages are routed to the partitions of queue " + getName());
+    }
+
+    @Override
+    public void prepareEnqueue(Xid xid, Message message) {
+        throw new UnsupportedOperationException("Messages are routed to the partitions of queue " + getName());
+    }
+
+    @Override
+    public void commit(Xid xid) {
+        throw new UnsupportedOperationException("Messages are routed to the partitions of queue " + getName());
+    }
+
+    @Override
+    public void rollback(Xid xid) {
+        throw new UnsupportedOperationException("Messages are routed to the partitions of queue " + getName());
+    }
+
+    @Override
+    public Message dequeue() {
+        throw new UnsupportedOperationException("Messages are delivered from the partitions of queue " + getName());
+    }
+
+    @Override
+    public void detach(Message message) {
+        throw new UnsupportedOperationException("Messages are routed to the partitions of queue " + getName());
+    }
+
+    @Override
+    public void prepareDetach(Xid xid, Message message) {
+        throw new UnsupportedOperationException("Messages are routed to the partitions of queue " + getName());
+    }
+}
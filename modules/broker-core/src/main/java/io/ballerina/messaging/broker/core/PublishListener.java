@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+/**
+ * Listener notified once the broker has taken responsibility for a published message. For persistent messages
+ * routed to durable queues this happens after the message is written to the message store.
+ */
+@FunctionalInterface
+public interface PublishListener {
+
+    /**
+     * Invoked when the publish is completed.
+     *
+     * @param success true if the broker has accepted the message, false if the message could not be stored
+     */
+    void onPublishComplete(boolean success);
+
+    /**
+     * Invoked when a queue with the reject-publish-flow overflow policy rejected the message. The publisher should
+     * hold back until {@link #onQueueUnblocked(String)} is invoked for the queue.
+     *
+     * @param queueName name of the full queue
+     */
+    default void onQueueBlocked(String queueName) {
+        // Publishers are not throttled by default
+    }
+
+    /**
+     * Invoked when a queue which rejected a message of the publisher has room again.
+     *
+     * @param queueName name of the queue
+     */
+    default void onQueueUnblocked(String queueName) {
+        // Publishers are not throttled by default
+    }
+}
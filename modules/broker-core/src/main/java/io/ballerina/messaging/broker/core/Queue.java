@@ -19,6 +19,13 @@
 
 package io.ballerina.messaging.broker.core;
 
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+
+import java.util.Objects;
+
 import javax.transaction.xa.Xid;
 
 /**
@@ -37,12 +44,22 @@ public abstract class Queue {
 
     private final boolean autoDelete;
 
-    private QueueHandler queueHandler;
+    /**
+     * Optional arguments given when declaring the queue.
+     */
+    private final FieldTable arguments;
+
+    private volatile QueueHandler queueHandler;
 
     public Queue(String queueName, boolean durable, boolean autoDelete) {
+        this(queueName, durable, autoDelete, FieldTable.EMPTY_TABLE);
+    }
+
+    public Queue(String queueName, boolean durable, boolean autoDelete, FieldTable arguments) {
         this.name = queueName;
         this.durable = durable;
         this.autoDelete = autoDelete;
+        this.arguments = arguments;
     }
 
     public final String getName() {
@@ -57,6 +74,14 @@ public abstract class Queue {
         return autoDelete;
     }
 
+    public final FieldTable getArguments() {
+        return arguments;
+    }
+
+    public final FieldValue getArgument(ShortString argumentName) {
+        return arguments.getValue(argumentName);
+    }
+
     public QueueHandler getQueueHandler() {
         return queueHandler;
     }
@@ -65,6 +90,17 @@ public abstract class Queue {
         this.queueHandler = queueHandler;
     }
 
+    /**
+     * Wake up message delivery and pending expiry checks of the queue once messages become deliverable outside the
+     * delivery task, i.e. after messages are read from the message store.
+     */
+    protected final void notifyMessagesAvailable() {
+        QueueHandler handler = queueHandler;
+        if (Objects.nonNull(handler)) {
+            handler.onMessagesAvailable();
+        }
+    }
+
     @Override
     public final boolean equals(Object obj) {
         if (this == obj) {
@@ -96,6 +132,13 @@ public abstract class Queue {
 
     public abstract int size();
 
+    /**
+     * Number of bytes of message content held in memory by the queue.
+     *
+     * @return cached content size in bytes
+     */
+    public abstract long cachedBytes();
+
     public abstract boolean enqueue(Message message) throws BrokerException;
 
     public abstract void prepareEnqueue(Xid xid, Message message) throws BrokerException;
@@ -106,7 +149,34 @@ public abstract class Queue {
 
     public abstract Message dequeue();
 
+    /**
+     * Take the message at the head of the queue in order to drop it, even if its data is not read yet. The message
+     * is removed from the queue through {@link #detach(Message)}.
+     *
+     * @return message at the head of the queue, which may be a bare message, or null if the queue is empty
+     */
+    public Message dequeueHead() {
+        return dequeue();
+    }
+
     public abstract void detach(Message message) throws BrokerException;
 
     public abstract void prepareDetach(Xid xid, Message message) throws BrokerException;
+
+    /**
+     * Create the queue holding the messages of this queue that are requeued for redelivery. Requeued messages are
+     * kept in memory by default since their data is already in memory.
+     *
+     * @return redelivery queue
+     */
+    public Queue createRedeliveryQueue() {
+        return new MemQueueImpl(name, false);
+    }
+
+    /**
+     * Release the resources held by the queue once the queue is removed from the broker.
+     */
+    public void release() {
+        // Nothing to release by default
+    }
 }
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+
+import java.util.Objects;
+
+/**
+ * Optional arguments supported when declaring a queue.
+ */
+public final class QueueArguments {
+
+    /**
+     * Argument used to select how a durable queue holds its messages in memory.
+     */
+    public static final ShortString QUEUE_MODE = ShortString.parseString("x-queue-mode");
+
+    /**
+     * Queue mode which keeps messages in memory up to the in-memory limit of the queue.
+     */
+    public static final String DEFAULT_QUEUE_MODE = "default";
+
+    /**
+     * Queue mode which keeps only the ids of persistent messages in memory. Message data is read just before
+     * delivery.
+     */
+    public static final String LAZY_QUEUE_MODE = "lazy";
+
+    /**
+     * Argument used to set the time in milliseconds a message can stay in the queue before it expires.
+     */
+    public static final ShortString MESSAGE_TTL = ShortString.parseString("x-message-ttl");
+
+    /**
+     * Value returned when a time to live is not set.
+     */
+    public static final long NO_TTL = -1;
+
+    /**
+     * Argument used to limit the number of messages ready for delivery in the queue.
+     */
+    public static final ShortString MAX_LENGTH = ShortString.parseString("x-max-length");
+
+    /**
+     * Argument used to limit the total content bytes of the messages ready for delivery in the queue.
+     */
+    public static final ShortString MAX_LENGTH_BYTES = ShortString.parseString("x-max-length-bytes");
+
+    /**
+     * Argument used to select what happens to a publish once the queue reaches one of its length limits.
+     */
+    public static final ShortString OVERFLOW = ShortString.parseString("x-overflow");
+
+    /**
+     * Argument used to split a queue into partitions that are delivered in parallel.
+     */
+    public static final ShortString PARTITIONS = ShortString.parseString("x-partitions");
+
+    /**
+     * Maximum number of partitions of a queue.
+     */
+    public static final int MAX_PARTITIONS = 256;
+
+    /**
+     * Argument used to give a queue a larger share of the delivery workers than queues with a lower weight.
+     */
+    public static final ShortString DELIVERY_WEIGHT = ShortString.parseString("x-delivery-weight");
+
+    /**
+     * Maximum delivery weight of a queue.
+     */
+    public static final int MAX_DELIVERY_WEIGHT = 100;
+
+    /**
+     * Value returned when a length limit is not set.
+     */
+    public static final long NO_LIMIT = -1;
+
+    /**
+     * Value returned when a field value is not a non negative number.
+     */
+    private static final long INVALID_NUMBER = -1;
+
+    /**
+     * Policies applied when a queue reaches one of its length limits.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Discard messages from the head of the queue to make room for the new message.
+         */
+        DROP_HEAD("drop-head"),
+
+        /**
+         * Reject the new message. Publishers using confirms receive a negative acknowledgement.
+         */
+        REJECT_PUBLISH("reject-publish"),
+
+        /**
+         * Reject the new message and ask the publisher to hold back until the queue has room.
+         */
+        REJECT_PUBLISH_FLOW("reject-publish-flow");
+
+        private final String value;
+
+        OverflowPolicy(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        private static OverflowPolicy parse(String value) {
+            for (OverflowPolicy policy : values()) {
+                if (policy.value.equals(value)) {
+                    return policy;
+                }
+            }
+            return null;
+        }
+    }
+
+    private QueueArguments() {
+    }
+
+    /**
+     * Validate the arguments given when declaring a queue.
+     *
+     * @param arguments queue arguments
+     * @throws ValidationException if an argument has an unsupported value
+     */
+    public static void validate(FieldTable arguments) throws ValidationException {
+        FieldValue queueMode = arguments.getValue(QUEUE_MODE);
+        if (Objects.nonNull(queueMode)) {
+            String mode = getString(queueMode);
+            if (!DEFAULT_QUEUE_MODE.equals(mode) && !LAZY_QUEUE_MODE.equals(mode)) {
+                throw new ValidationException("Invalid value [ " + queueMode + " ] for queue argument " + QUEUE_MODE
+                                                      + ". Supported values are " + DEFAULT_QUEUE_MODE + " and "
+                                                      + LAZY_QUEUE_MODE + ".");
+            }
+        }
+
+        validateNonNegative(arguments, MESSAGE_TTL, "a non negative number of milliseconds");
+        validateNonNegative(arguments, MAX_LENGTH, "a non negative number of messages");
+        validateNonNegative(arguments, MAX_LENGTH_BYTES, "a non negative number of bytes");
+
+        FieldValue overflow = arguments.getValue(OVERFLOW);
+        if (Objects.nonNull(overflow) && Objects.isNull(OverflowPolicy.parse(getString(overflow)))) {
+            throw new ValidationException("Invalid value [ " + overflow + " ] for queue argument " + OVERFLOW
+                                                  + ". Supported values are " + OverflowPolicy.DROP_HEAD.getValue()
+                                                  + ", " + OverflowPolicy.REJECT_PUBLISH.getValue() + " and "
+                                                  + OverflowPolicy.REJECT_PUBLISH_FLOW.getValue() + ".");
+        }
+
+        FieldValue partitions = arguments.getValue(PARTITIONS);
+        if (Objects.nonNull(partitions)) {
+            long partitionCount = getNonNegativeLong(partitions);
+            if (partitionCount < 1 || partitionCount > MAX_PARTITIONS) {
+                throw new ValidationException("Invalid value [ " + partitions + " ] for queue argument " + PARTITIONS
+                                                      + ". Value should be a number between 1 and " + MAX_PARTITIONS
+                                                      + ".");
+            }
+        }
+
+        FieldValue deliveryWeight = arguments.getValue(DELIVERY_WEIGHT);
+        if (Objects.nonNull(deliveryWeight)) {
+            long weight = getNonNegativeLong(deliveryWeight);
+            if (weight < 1 || weight > MAX_DELIVERY_WEIGHT) {
+                throw new ValidationException("Invalid value [ " + deliveryWeight + " ] for queue argument "
+                                                      + DELIVERY_WEIGHT + ". Value should be a number between 1 and "
+                                                      + MAX_DELIVERY_WEIGHT + ".");
+            }
+        }
+    }
+
+    private static void validateNonNegative(FieldTable arguments, ShortString argumentName, String description)
+            throws ValidationException {
+        FieldValue value = arguments.getValue(argumentName);
+        if (Objects.nonNull(value) && getNonNegativeLong(value) == INVALID_NUMBER) {
+            throw new ValidationException("Invalid value [ " + value + " ] for queue argument " + argumentName
+                                                  + ". Value should be " + description + ".");
+        }
+    }
+
+    /**
+     * Check whether the arguments select the lazy queue mode.
+     *
+     * @param arguments queue arguments
+     * @return true if the queue is lazy
+     */
+    public static boolean isLazy(FieldTable arguments) {
+        FieldValue queueMode = arguments.getValue(QUEUE_MODE);
+        return Objects.nonNull(queueMode) && LAZY_QUEUE_MODE.equals(getString(queueMode));
+    }
+
+    /**
+     * Get the message time to live set in the arguments.
+     *
+     * @param arguments queue arguments
+     * @return time to live in milliseconds or {@link #NO_TTL} if not set
+     */
+    public static long getMessageTtl(FieldTable arguments) {
+        FieldValue messageTtl = arguments.getValue(MESSAGE_TTL);
+        return Objects.isNull(messageTtl) ? NO_TTL : getNonNegativeLong(messageTtl);
+    }
+
+    /**
+     * Get the maximum number of messages ready for delivery set in the arguments.
+     *
+     * @param arguments queue arguments
+     * @return maximum number of messages or {@link #NO_LIMIT} if not set
+     */
+    public static long getMaxLength(FieldTable arguments) {
+        FieldValue maxLength = arguments.getValue(MAX_LENGTH);
+        return Objects.isNull(maxLength) ? NO_LIMIT : getNonNegativeLong(maxLength);
+    }
+
+    /**
+     * Get the maximum content bytes of the messages ready for delivery set in the arguments.
+     *
+     * @param arguments queue arguments
+     * @return maximum content bytes or {@link #NO_LIMIT} if not set
+     */
+    public static long getMaxLengthBytes(FieldTable arguments) {
+        FieldValue maxLengthBytes = arguments.getValue(MAX_LENGTH_BYTES);
+        return Objects.isNull(maxLengthBytes) ? NO_LIMIT : getNonNegativeLong(maxLengthBytes);
+    }
+
+    /**
+     * Get the overflow policy set in the arguments.
+     *
+     * @param arguments queue arguments
+     * @return overflow policy, {@link OverflowPolicy#DROP_HEAD} if not set
+     */
+    public static OverflowPolicy getOverflowPolicy(FieldTable arguments) {
+        FieldValue overflow = arguments.getValue(OVERFLOW);
+        OverflowPolicy policy = Objects.isNull(overflow) ? null : OverflowPolicy.parse(getString(overflow));
+        return Objects.isNull(policy) ? OverflowPolicy.DROP_HEAD : policy;
+    }
+
+    /**
+     * Get the number of partitions set in the arguments.
+     *
+     * @param arguments queue arguments
+     * @return number of partitions, 1 if the queue is not partitioned
+     */
+    public static int getPartitionCount(FieldTable arguments) {
+        FieldValue partitions = arguments.getValue(PARTITIONS);
+        if (Objects.isNull(partitions)) {
+            return 1;
+        }
+        long partitionCount = getNonNegativeLong(partitions);
+        return partitionCount < 1 ? 1 : (int) Math.min(partitionCount, MAX_PARTITIONS);
+    }
+
+    /**
+     * Get the delivery weight set in the arguments.
+     *
+     * @param arguments queue arguments
+     * @return delivery weight, 1 if not set
+     */
+    public static int getDeliveryWeight(FieldTable arguments) {
+        FieldValue deliveryWeight = arguments.getValue(DELIVERY_WEIGHT);
+        if (Objects.isNull(deliveryWeight)) {
+            return 1;
+        }
+        long weight = getNonNegativeLong(deliveryWeight);
+        return weight < 1 ? 1 : (int) Math.min(weight, MAX_DELIVERY_WEIGHT);
+    }
+
+    /**
+     * Get the arguments of the partitions of a partitioned queue. Partitions take all the arguments of the queue
+     * except the partition count, hence limits and the time to live apply to each partition.
+     *
+     * @param arguments queue arguments
+     * @return partition arguments
+     */
+    static FieldTable getPartitionArguments(FieldTable arguments) {
+        FieldTable partitionArguments = new FieldTable();
+        arguments.forEach((name, value) -> {
+            if (!PARTITIONS.equals(name)) {
+                partitionArguments.add(name, value);
+            }
+        });
+        return partitionArguments;
+    }
+
+    /**
+     * Parse a non negative number from a numeric or string field value.
+     *
+     * @param value field value
+     * @return parsed number or -1 if the value is not a non negative number
+     */
+    static long getNonNegativeLong(FieldValue value) {
+        if (value.getType() == FieldValue.Type.BOOLEAN || value.getType() == FieldValue.Type.FIELD_TABLE) {
+            return INVALID_NUMBER;
+        }
+        try {
+            long number = Long.parseLong(value.getValue().toString().trim());
+            return number < 0 ? INVALID_NUMBER : number;
+        } catch (NumberFormatException e) {
+            return INVALID_NUMBER;
+        }
+    }
+
+    private static String getString(FieldValue value) {
+        if (value.getType() == FieldValue.Type.LONG_STRING || value.getType() == FieldValue.Type.SHORT_STRING) {
+            return value.getValue().toString();
+        }
+        return null;
+    }
+}
@@ -19,21 +19,26 @@
 
 package io.ballerina.messaging.broker.core;
 
-import com.google.common.collect.Iterables;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
 import io.ballerina.messaging.broker.common.util.function.ThrowingConsumer;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
-import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
 import io.ballerina.messaging.broker.core.queue.UnmodifiableQueueWrapper;
 import io.ballerina.messaging.broker.core.util.MessageTracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.transaction.xa.Xid;
 
 /**
@@ -44,12 +49,32 @@ public final class QueueHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(QueueHandler.class);
 
+    private static final int DEFAULT_MAX_CONSECUTIVE_REDELIVERIES = 16;
+
     private Queue queue;
 
-    private final CyclicConsumerIterator consumerIterator;
+    /**
+     * Consumers rotated for delivery, keeping an index of the consumers ready to accept messages.
+     */
+    private final ConsumerRing consumerRing = new ConsumerRing();
 
+    /**
+     * Messages requeued for redelivery. Created by the queue since durable queues keep requeued messages beyond an
+     * in-memory limit as bare messages.
+     */
     private final Queue redeliveryQueue;
 
+    /**
+     * Maximum number of requeued messages delivered in a row while the queue has messages that were not delivered.
+     */
+    private final int maxConsecutiveRedeliveries;
+
+    /**
+     * Number of requeued messages delivered since the last message taken from the queue. Guarded by the delivery
+     * lock.
+     */
+    private int consecutiveRedeliveries = 0;
+
     /**
      * Used to send metric signals related to queue handler
      */
@@ -61,19 +86,110 @@ public final class QueueHandler {
 
     private final Map<Binding, ThrowingConsumer<Binding, BrokerException>> bindingChangeListenersMap;
 
+    /**
+     * Timing wheel used to wake up the queue handler when messages expire. Null if expired messages are only
+     * discarded when taken for delivery.
+     */
+    private final MessageExpiryWheel expiryWheel;
+
+    /**
+     * Time to live in milliseconds set for all the messages of the queue.
+     */
+    private final long messageTtl;
+
+    /**
+     * Last tick scheduled in the expiry wheel. Used to schedule a single wake up per tick.
+     */
+    private final AtomicLong scheduledExpiryTick = new AtomicLong(-1);
+
+    /**
+     * True while an expiry check waits for the data of the head message to be read from the store.
+     */
+    private final AtomicBoolean expiryCheckPending = new AtomicBoolean(false);
+
+    /**
+     * Lock held while taking messages from the queue.
+     */
+    private final Object deliveryLock = new Object();
+
+    /**
+     * Message taken from the queue while discarding expired messages. This is the next message to be delivered.
+     */
+    private volatile Message heldMessage;
+
+    private boolean released = false;
+
+    /**
+     * Maximum number of messages ready for delivery, or {@link QueueArguments#NO_LIMIT}.
+     */
+    private final long maxLength;
+
+    /**
+     * Maximum content bytes of the messages ready for delivery, or {@link QueueArguments#NO_LIMIT}.
+     */
+    private final long maxLengthBytes;
+
+    private final QueueArguments.OverflowPolicy overflowPolicy;
+
+    /**
+     * Content bytes of the messages ready for delivery. Only tracked when the queue has a byte limit.
+     */
+    private final AtomicLong readyBytes = new AtomicLong(0);
+
+    /**
+     * Content bytes of the messages enqueued within transactions which are not yet committed.
+     */
+    private final Map<Xid, Long> pendingEnqueueBytes = new ConcurrentHashMap<>();
+
+    /**
+     * Publishers asked to hold back since the queue is full.
+     */
+    private final Set<PublishListener> blockedPublishers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Handlers of the partitions of a partitioned queue, each with its own delivery task. Contains only this handler
+     * if the queue is not partitioned.
+     */
+    private final List<QueueHandler> partitions;
+
+    private final boolean partitioned;
+
+    /**
+     * Share of the delivery workers given to the queue relative to other queues.
+     */
+    private final int deliveryWeight;
+
+    /**
+     * Task delivering the messages of this handler. Null while the queue has no consumers.
+     */
+    private final AtomicReference<MessageDeliveryTask> deliveryTask = new AtomicReference<>();
+
     QueueHandler(Queue queue, BrokerMetricManager metricManager) {
+        this(queue, metricManager, null);
+    }
+
+    QueueHandler(Queue queue, BrokerMetricManager metricManager, MessageExpiryWheel expiryWheel) {
+        this(queue, metricManager, expiryWheel, DEFAULT_MAX_CONSECUTIVE_REDELIVERIES);
+    }
+
+    QueueHandler(Queue queue, BrokerMetricManager metricManager, MessageExpiryWheel expiryWheel,
+                 int maxConsecutiveRedeliveries) {
         this.queue = queue;
         queue.setQueueHandler(this);
         unmodifiableQueueView = new UnmodifiableQueueWrapper(queue);
-        // TODO: take message count from queue configuration
-        // We create an unbounded redelivery queue since we keep the messages which are already in memory which does
-        // not increase memory usage. When loading data to memory we should consider messages in both queue and
-        // redelivery queue data structures.
-        this.redeliveryQueue = new MemQueueImpl(queue.getName(), false);
+        this.redeliveryQueue = queue.createRedeliveryQueue();
+        this.maxConsecutiveRedeliveries = maxConsecutiveRedeliveries;
         this.metricManager = metricManager;
         this.consumers = ConcurrentHashMap.newKeySet();
-        consumerIterator = new CyclicConsumerIterator();
         bindingChangeListenersMap = new ConcurrentHashMap<>();
+        this.expiryWheel = expiryWheel;
+        messageTtl = QueueArguments.getMessageTtl(queue.getArguments());
+        maxLength = QueueArguments.getMaxLength(queue.getArguments());
+        maxLengthBytes = QueueArguments.getMaxLengthBytes(queue.getArguments());
+        overflowPolicy = QueueArguments.getOverflowPolicy(queue.getArguments());
+        deliveryWeight = QueueArguments.getDeliveryWeight(queue.getArguments());
+        partitioned = queue instanceof PartitionedQueue;
+        partitions = partitioned ? ((PartitionedQueue) queue).getPartitions() : Collections.singletonList(this);
     }
 
     public Queue getQueue() {
@@ -96,7 +212,18 @@ public final class QueueHandler {
      * @return true if {@link Consumer} was successfully added.
      */
     boolean addConsumer(Consumer consumer) {
-        return consumers.add(consumer);
+        boolean added = consumers.add(consumer);
+        if (added) {
+            // Consumers of a partitioned queue receive messages from all the partitions
+            for (QueueHandler partition : partitions) {
+                if (partitioned) {
+                    partition.consumers.add(consumer);
+                }
+                partition.consumerRing.add(consumer);
+            }
+            signalDelivery();
+        }
+        return added;
     }
 
     /**
@@ -107,62 +234,504 @@ public final class QueueHandler {
      * @return True if the {@link Consumer} is removed.
      */
     boolean removeConsumer(Consumer consumer) {
-        return consumers.remove(consumer);
+        boolean removed = consumers.remove(consumer);
+        if (removed) {
+            for (QueueHandler partition : partitions) {
+                if (partitioned) {
+                    partition.consumers.remove(consumer);
+                }
+                partition.consumerRing.remove(consumer);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Notify that a consumer of the queue became ready to accept messages.
+     *
+     * @param consumer {@link Consumer} that became ready
+     */
+    void onConsumerReady(Consumer consumer) {
+        for (QueueHandler partition : partitions) {
+            partition.consumerRing.markReady(consumer);
+        }
+        signalDelivery();
+    }
+
+    /**
+     * Handlers delivering the messages of the queue. These are the partitions of a partitioned queue and this
+     * handler otherwise.
+     *
+     * @return handlers that need a delivery task
+     */
+    List<QueueHandler> getPartitions() {
+        return partitions;
+    }
+
+    int getDeliveryWeight() {
+        return deliveryWeight;
+    }
+
+    void setDeliveryTask(MessageDeliveryTask task) {
+        deliveryTask.set(task);
+    }
+
+    void clearDeliveryTask(MessageDeliveryTask task) {
+        // A new task might already be set if the queue got a consumer before the previous task was removed
+        if (deliveryTask.compareAndSet(task, null)) {
+            synchronized (deliveryLock) {
+                if (released) {
+                    // Runs of the task are recorded before it is removed, hence metrics of the deleted queue are not
+                    // created again afterwards
+                    metricManager.removeQueueMetrics(queue.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Wake up the delivery tasks of the queue. Delivery tasks parked since they had nothing to deliver are
+     * processed again.
+     */
+    void signalDelivery() {
+        for (QueueHandler partition : partitions) {
+            MessageDeliveryTask task = partition.deliveryTask.get();
+            if (Objects.nonNull(task)) {
+                task.signal();
+            }
+        }
+    }
+
+    private QueueHandler partitionOf(Message message) {
+        return partitions.get(PartitionedQueue.partitionIndex(message.getInternalId(), partitions.size()));
     }
 
     /**
      * Put the message to the tail of the queue. If the queue is full message will get dropped
      *
      * @param message {@link Message}
+     * @return true if the message was added to the queue
      */
-    void enqueue(Message message) throws BrokerException {
+    boolean enqueue(Message message) throws BrokerException {
+        if (partitioned) {
+            return partitionOf(message).enqueue(message);
+        }
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Enqueuing message {} to queue {}", message, queue.getName());
         }
-        boolean success = queue.enqueue(message);
+        long contentLength = message.getMetadata().getContentLength();
+        boolean success = makeRoomFor(contentLength);
+        if (success) {
+            long expiryTime = setExpiryTime(message);
+            success = queue.enqueue(message);
+            if (success) {
+                addReadyBytes(contentLength);
+                scheduleExpiry(expiryTime);
+            }
+        }
+
         if (success) {
             metricManager.addInMemoryMessage();
             MessageTracer.trace(message, this, MessageTracer.PUBLISH_SUCCESSFUL);
+            signalDelivery();
         } else {
             message.release();
             MessageTracer.trace(message, this, MessageTracer.PUBLISH_FAILURE);
             LOGGER.info("Failed to publish message {} to the queue {}", message, queue.getName());
         }
+        return success;
     }
 
     void prepareForEnqueue(Xid xid, Message message) throws BrokerException {
+        if (partitioned) {
+            partitionOf(message).prepareForEnqueue(xid, message);
+            return;
+        }
+        long expiryTime = setExpiryTime(message);
         queue.prepareEnqueue(xid, message);
+        if (maxLengthBytes != QueueArguments.NO_LIMIT) {
+            pendingEnqueueBytes.merge(xid, message.getMetadata().getContentLength(), Long::sum);
+        }
+        scheduleExpiry(expiryTime);
+    }
+
+    /**
+     * Check the length limits of the queue before adding a message. With the drop-head policy messages at the head
+     * of the queue are discarded until the message fits.
+     *
+     * @param contentLength content length of the message to be added
+     * @return true if the message can be added to the queue
+     */
+    private boolean makeRoomFor(long contentLength) {
+        if (hasRoomFor(contentLength)) {
+            return true;
+        }
+        if (overflowPolicy != QueueArguments.OverflowPolicy.DROP_HEAD) {
+            return false;
+        }
+
+        List<Message> droppedMessages = new ArrayList<>();
+        boolean hasRoom;
+        synchronized (deliveryLock) {
+            if (released) {
+                return false;
+            }
+            // Content of the dropped messages is released from the ready bytes once they are discarded
+            long droppedBytes = 0;
+            Message message;
+            do {
+                message = takeNext();
+                if (Objects.isNull(message)) {
+                    message = takeBareHead();
+                }
+                if (Objects.nonNull(message)) {
+                    droppedMessages.add(message);
+                    if (Objects.nonNull(message.getMetadata())) {
+                        droppedBytes += message.getMetadata().getContentLength();
+                    }
+                }
+                hasRoom = hasRoomFor(contentLength - droppedBytes);
+            } while (!hasRoom && Objects.nonNull(message));
+        }
+        discardMessages(droppedMessages, MessageTracer.OVERFLOW);
+        return hasRoom;
+    }
+
+    /**
+     * Take the head of the queue while its data is not read yet, so that a publish does not wait on the store. The
+     * content length of a bare message is not known, hence bare messages are dropped only to meet the message count
+     * limit.
+     */
+    private Message takeBareHead() {
+        if (maxLength == QueueArguments.NO_LIMIT || size() < maxLength) {
+            return null;
+        }
+        Message message = redeliveryQueue.dequeueHead();
+        return Objects.nonNull(message) ? message : queue.dequeueHead();
+    }
+
+    /**
+     * Check whether a message fits within the length limits of the queue. O(1) since the message count and the
+     * content bytes are kept as counters.
+     */
+    private boolean hasRoomFor(long contentLength) {
+        return (maxLength == QueueArguments.NO_LIMIT || size() < maxLength)
+                && (maxLengthBytes == QueueArguments.NO_LIMIT || readyBytes.get() + contentLength <= maxLengthBytes);
+    }
+
+    private void addReadyBytes(long contentLength) {
+        if (maxLengthBytes != QueueArguments.NO_LIMIT) {
+            readyBytes.addAndGet(contentLength);
+        }
+    }
+
+    /**
+     * Update the counters once a message is no longer ready for delivery and unblock publishers if the queue has
+     * room.
+     */
+    private void onMessageTaken(Message message) {
+        if (maxLengthBytes != QueueArguments.NO_LIMIT && Objects.nonNull(message.getMetadata())) {
+            long contentLength = message.getMetadata().getContentLength();
+            // Messages recovered from the store are not counted when they are added
+            readyBytes.accumulateAndGet(contentLength, (current, taken) -> Math.max(0, current - taken));
+        }
+        if (!blockedPublishers.isEmpty() && hasRoomFor(0)) {
+            unblockPublishers();
+        }
+    }
+
+    /**
+     * Ask the publisher to hold back if the queue rejects publishes until it has room.
+     *
+     * @param publishListener listener of the rejected publish
+     */
+    void blockPublisher(PublishListener publishListener) {
+        if (partitioned) {
+            for (QueueHandler partition : partitions) {
+                if (!partition.hasRoomFor(0)) {
+                    partition.blockPublisher(publishListener);
+                }
+            }
+            return;
+        }
+        if (overflowPolicy != QueueArguments.OverflowPolicy.REJECT_PUBLISH_FLOW || Objects.isNull(publishListener)) {
+            return;
+        }
+        if (blockedPublishers.add(publishListener)) {
+            publishListener.onQueueBlocked(queue.getName());
+        }
+        // Queue might have drained while the publisher was being blocked
+        if (hasRoomFor(0)) {
+            unblockPublishers();
+        }
+    }
+
+    /**
+     * Forget a blocked publisher without notifying it.
+     *
+     * @param publishListener listener of the publisher
+     */
+    void removeBlockedPublisher(PublishListener publishListener) {
+        if (partitioned) {
+            for (QueueHandler partition : partitions) {
+                partition.removeBlockedPublisher(publishListener);
+            }
+            return;
+        }
+        blockedPublishers.remove(publishListener);
+    }
+
+    private void unblockPublishers() {
+        Iterator<PublishListener> iterator = blockedPublishers.iterator();
+        while (iterator.hasNext()) {
+            PublishListener publishListener = iterator.next();
+            iterator.remove();
+            publishListener.onQueueUnblocked(queue.getName());
+        }
+    }
+
+    /**
+     * Check if messages can expire in the queue, either by the message time to live of the queue or by their own
+     * expiration property.
+     *
+     * @param metadata metadata of a message routed to the queue
+     * @return true if the message can expire
+     */
+    boolean canExpire(Metadata metadata) {
+        return messageTtl != QueueArguments.NO_TTL || Objects.nonNull(metadata.getProperty(Metadata.EXPIRATION));
+    }
+
+    /**
+     * Set the expiry time of a message entering the queue from the expiration property of the message and the
+     * message time to live of the queue, whichever expires first. Both are counted from the arrival time of the
+     * message if it was recorded.
+     *
+     * @param message message entering the queue
+     * @return expiry time of the message
+     */
+    private long setExpiryTime(Message message) {
+        if (message.getExpiryTime() != Message.NO_EXPIRY) {
+            return message.getExpiryTime();
+        }
+        long ttl = messageTtl;
+        FieldValue expiration = message.getMetadata().getProperty(Metadata.EXPIRATION);
+        if (Objects.nonNull(expiration)) {
+            long messageExpiration = QueueArguments.getNonNegativeLong(expiration);
+            if (messageExpiration != QueueArguments.NO_TTL
+                    && (ttl == QueueArguments.NO_TTL || messageExpiration < ttl)) {
+                ttl = messageExpiration;
+            }
+        }
+        if (ttl != QueueArguments.NO_TTL) {
+            long arrivalTime = message.getMetadata().getArrivalTime();
+            if (arrivalTime == Metadata.NO_ARRIVAL_TIME) {
+                arrivalTime = System.currentTimeMillis();
+            }
+            message.setExpiryTime(arrivalTime + ttl);
+        }
+        return message.getExpiryTime();
+    }
+
+    /**
+     * Check if the message is expired. The expiry time of a message recovered or recreated from the store is not
+     * kept in memory, hence it is computed again from the arrival time stored with the message.
+     */
+    private boolean isExpired(Message message) {
+        if (message.getExpiryTime() == Message.NO_EXPIRY
+                && message.getMetadata().getArrivalTime() != Metadata.NO_ARRIVAL_TIME) {
+            setExpiryTime(message);
+        }
+        return message.isExpired();
+    }
+
+    /**
+     * Schedule a check for expired messages at the head of the queue. Used when the expiry times of the messages are
+     * not known yet, e.g. for messages recovered from the store.
+     */
+    void scheduleExpiryCheck() {
+        if (Objects.nonNull(expiryWheel)) {
+            expiryWheel.schedule(this, expiryWheel.tickOf(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Invoked when messages of the queue become available for delivery, e.g. once their data is read from the store.
+     */
+    void onMessagesAvailable() {
+        if (expiryCheckPending.compareAndSet(true, false)) {
+            scheduleExpiryCheck();
+        }
+        signalDelivery();
+    }
+
+    private void scheduleExpiry(long expiryTime) {
+        if (expiryTime == Message.NO_EXPIRY || Objects.isNull(expiryWheel)) {
+            return;
+        }
+        long tick = expiryWheel.tickOf(expiryTime);
+        if (scheduledExpiryTick.getAndSet(tick) != tick) {
+            expiryWheel.schedule(this, tick);
+        }
     }
 
     void prepareForDetach(Xid xid, Message message) throws BrokerException {
+        if (partitioned) {
+            partitionOf(message).prepareForDetach(xid, message);
+            return;
+        }
         queue.prepareDetach(xid, message);
     }
 
     public void commit(Xid xid) {
+        if (partitioned) {
+            for (QueueHandler partition : partitions) {
+                partition.commit(xid);
+            }
+            return;
+        }
         queue.commit(xid);
+        Long committedBytes = pendingEnqueueBytes.remove(xid);
+        if (Objects.nonNull(committedBytes)) {
+            readyBytes.addAndGet(committedBytes);
+        }
+        // Transactional publishes cannot be rejected at commit, the head of the queue is dropped instead
+        if (overflowPolicy == QueueArguments.OverflowPolicy.DROP_HEAD && !hasRoomFor(0)) {
+            makeRoomFor(0);
+        }
+        signalDelivery();
     }
 
     public void rollback(Xid xid) {
+        if (partitioned) {
+            for (QueueHandler partition : partitions) {
+                partition.rollback(xid);
+            }
+            return;
+        }
         queue.rollback(xid);
+        pendingEnqueueBytes.remove(xid);
     }
 
     /**
-     * Retrieves next available message for delivery. If the queue is empty, null is returned.
+     * Retrieves next available message for delivery. If the queue is empty, null is returned. Expired messages
+     * reaching the head of the queue are discarded.
      *
      * @return Message
      */
     Message takeForDelivery() {
-        Message message = redeliveryQueue.dequeue();
-        if (message == null) {
-            message = queue.dequeue();
+        List<Message> expiredMessages = null;
+        Message message;
+        synchronized (deliveryLock) {
+            message = takeNext();
+            while (Objects.nonNull(message) && isExpired(message)) {
+                if (Objects.isNull(expiredMessages)) {
+                    expiredMessages = new ArrayList<>();
+                }
+                expiredMessages.add(message);
+                message = takeNext();
+            }
+        }
+        if (Objects.nonNull(expiredMessages)) {
+            discardMessages(expiredMessages, MessageTracer.EXPIRE);
+        }
+        if (Objects.nonNull(message)) {
+            onMessageTaken(message);
+        }
+        return message;
+    }
+
+    private Message takeNext() {
+        Message message = heldMessage;
+        if (Objects.nonNull(message)) {
+            heldMessage = null;
+            return message;
+        }
+
+        // Requeued messages go first, but a message is taken from the queue after a run of redeliveries so that a
+        // large set of requeued messages does not hold back the rest of the queue
+        boolean redeliveryTurn = consecutiveRedeliveries < maxConsecutiveRedeliveries;
+        if (redeliveryTurn) {
+            message = redeliveryQueue.dequeue();
+            if (Objects.nonNull(message)) {
+                return onRedelivery(message);
+            }
+        }
+
+        message = queue.dequeue();
+        if (Objects.nonNull(message)) {
+            consecutiveRedeliveries = 0;
             MessageTracer.trace(message, this, MessageTracer.RETRIEVE_FOR_DELIVERY);
-        } else {
-            MessageTracer.trace(message, this, MessageTracer.RETRIEVE_FOR_REDELIVERY);
+            return message;
         }
 
+        if (!redeliveryTurn) {
+            message = redeliveryQueue.dequeue();
+            if (Objects.nonNull(message)) {
+                return onRedelivery(message);
+            }
+        }
+        return null;
+    }
+
+    private Message onRedelivery(Message message) {
+        consecutiveRedeliveries++;
+        MessageTracer.trace(message, this, MessageTracer.RETRIEVE_FOR_REDELIVERY);
         return message;
     }
 
+    /**
+     * Discard the expired messages at the head of the queue. Invoked by the expiry wheel once messages of the queue
+     * are due to expire. Messages behind a message which is not expired are discarded when they reach the head of
+     * the queue.
+     */
+    void expireMessages() {
+        List<Message> expiredMessages = new ArrayList<>();
+        synchronized (deliveryLock) {
+            if (released) {
+                return;
+            }
+            // Set before taking the head, so that a read of the head completing meanwhile triggers another check
+            expiryCheckPending.set(true);
+            Message message = takeNext();
+            while (Objects.nonNull(message) && isExpired(message)) {
+                expiredMessages.add(message);
+                message = takeNext();
+            }
+            heldMessage = message;
+            if (Objects.nonNull(message)) {
+                expiryCheckPending.set(false);
+                scheduleExpiry(message.getExpiryTime());
+            } else if (queue.size() == 0) {
+                expiryCheckPending.set(false);
+            }
+        }
+        discardMessages(expiredMessages, MessageTracer.EXPIRE);
+    }
+
+    /**
+     * Remove messages taken from the head of the queue without delivering them. Persistent messages are deleted
+     * through the batched detach events of the message store.
+     *
+     * @param messages    messages taken from the queue
+     * @param description trace description of the reason
+     */
+    private void discardMessages(List<Message> messages, String description) {
+        for (Message message : messages) {
+            onMessageTaken(message);
+            try {
+                queue.detach(message);
+            } catch (BrokerException e) {
+                LOGGER.error("Error while discarding message " + message + " from queue " + queue.getName(), e);
+            }
+            metricManager.removeInMemoryMessage();
+            MessageTracer.trace(message, this, description);
+            message.release();
+        }
+        if (LOGGER.isDebugEnabled() && !messages.isEmpty()) {
+            LOGGER.debug("Discarded {} messages from queue {}. {}", messages.size(), queue.getName(), description);
+        }
+    }
+
     /**
      * Removes the message from the queue.
      *
@@ -170,31 +739,42 @@ public final class QueueHandler {
      * @throws BrokerException
      */
     void dequeue(Message message) throws BrokerException {
+        if (partitioned) {
+            partitionOf(message).dequeue(message);
+            return;
+        }
         queue.detach(message);
         metricManager.removeInMemoryMessage();
         MessageTracer.trace(message, this, MessageTracer.ACKNOWLEDGE);
     }
 
     public void requeue(Message message) throws BrokerException {
+        if (partitioned) {
+            partitionOf(message).requeue(message);
+            return;
+        }
+        if (Objects.nonNull(message.getMetadata())) {
+            addReadyBytes(message.getMetadata().getContentLength());
+        }
         boolean success = redeliveryQueue.enqueue(message);
         if (!success) {
             LOGGER.warn("Enqueuing message since redelivery queue for {} is full. message:{}",
                         queue.getName(),
                         message);
             enqueue(message);
+        } else {
+            signalDelivery();
         }
         MessageTracer.trace(message, this, MessageTracer.REQUEUE);
     }
 
     /**
-     * Get the current consumer list iterator for the queue. This is a snapshot of the consumers at the time
-     * when the when this method is invoked.
+     * Get the next consumer ready to accept messages. Consumers take turns in round robin order.
      *
-     * @return CyclicConsumerIterator
+     * @return a ready {@link Consumer} or null if no consumer is ready
      */
-    CyclicConsumerIterator getCyclicConsumerIterator() {
-        consumerIterator.setIterator(Iterables.cycle(consumers).iterator());
-        return consumerIterator;
+    Consumer nextReadyConsumer() {
+        return consumerRing.nextReady();
     }
 
     /**
@@ -212,7 +792,8 @@ public final class QueueHandler {
      * @return Number of {@link Message} objects in the queue.
      */
     public int size() {
-        return queue.size() + redeliveryQueue.size();
+        Message message = heldMessage;
+        return queue.size() + redeliveryQueue.size() + (Objects.nonNull(message) ? 1 : 0);
     }
 
     /**
@@ -238,6 +819,7 @@ public final class QueueHandler {
                 iterator.remove();
             }
         }
+        consumerRing.clear();
     }
 
     public int consumerCount() {
@@ -250,12 +832,41 @@ public final class QueueHandler {
 
     public void releaseResources() throws BrokerException {
         closeAllConsumers();
+        if (partitioned) {
+            for (QueueHandler partition : partitions) {
+                // Consumers are already closed through the partitioned queue
+                partition.consumers.clear();
+                partition.consumerRing.clear();
+            }
+        }
+        release();
         for (Map.Entry<Binding, ThrowingConsumer<Binding, BrokerException>> entry
                 : bindingChangeListenersMap.entrySet()) {
             entry.getValue().accept(entry.getKey());
         }
     }
 
+    /**
+     * Release the messages held by the queue, its redelivery queue and its partitions. Binding listeners are not
+     * notified since the queue itself is not deleted.
+     */
+    void release() {
+        if (partitioned) {
+            for (QueueHandler partition : partitions) {
+                partition.release();
+            }
+        }
+        synchronized (deliveryLock) {
+            released = true;
+            if (Objects.nonNull(heldMessage)) {
+                heldMessage.release();
+                heldMessage = null;
+            }
+            redeliveryQueue.release();
+        }
+        queue.release();
+    }
+
     public void removeBinding(Binding binding) {
         bindingChangeListenersMap.remove(binding);
     }
@@ -19,30 +19,63 @@
 
 package io.ballerina.messaging.broker.core;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.ballerina.messaging.broker.common.ResourceNotFoundException;
 import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
 import io.ballerina.messaging.broker.core.store.dao.QueueDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Registry object which contains all the queues of the broker
  */
 public final class QueueRegistry {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueRegistry.class);
+
+    /**
+     * Minimum interval between two recovery progress logs in milliseconds.
+     */
+    private static final long RECOVERY_PROGRESS_LOG_INTERVAL = 5000;
+
     private final Map<String, QueueHandler> queueHandlerMap;
 
     private final QueueDao queueDao;
 
     private final QueueHandlerFactory queueHandlerFactory;
 
+    /**
+     * Number of threads used to recover durable queues. Queues are recovered sequentially when the value is 1.
+     */
+    private final int recoveryThreadCount;
+
     public QueueRegistry(QueueDao queueDao, QueueHandlerFactory queueHandlerFactory) throws BrokerException {
+        this(queueDao, queueHandlerFactory, 1);
+    }
+
+    public QueueRegistry(QueueDao queueDao, QueueHandlerFactory queueHandlerFactory,
+                         int recoveryThreadCount) throws BrokerException {
         this.queueHandlerMap = new HashMap<>();
         this.queueDao = queueDao;
         this.queueHandlerFactory = queueHandlerFactory;
+        this.recoveryThreadCount = recoveryThreadCount;
         retrieveQueuesFromDao();
     }
 
@@ -50,7 +83,8 @@ public final class QueueRegistry {
         return queueHandlerMap.get(queueName);
     }
 
-    boolean addQueue(String queueName, boolean passive, boolean durable, boolean autoDelete) throws BrokerException {
+    boolean addQueue(String queueName, boolean passive, boolean durable, boolean autoDelete,
+                     FieldTable arguments) throws BrokerException, ValidationException {
         QueueHandler queueHandler = queueHandlerMap.get(queueName);
 
         if (passive) {
@@ -62,11 +96,19 @@ public final class QueueRegistry {
             }
         } else {
             if (Objects.isNull(queueHandler)) {
-                if (durable) {
-                    queueHandler = queueHandlerFactory.createDurableQueueHandler(queueName, autoDelete);
+                if (PartitionedQueue.isPartitionName(queueName)) {
+                    throw new ValidationException("Queue name [ " + queueName + " ] is reserved for queue "
+                                                          + "partitions. Queue names cannot end with '#' "
+                                                          + "followed by digits.");
+                }
+                QueueArguments.validate(arguments);
+                if (QueueArguments.getPartitionCount(arguments) > 1) {
+                    queueHandler = createPartitionedQueueHandler(queueName, durable, autoDelete, arguments);
+                } else if (durable) {
+                    queueHandler = queueHandlerFactory.createDurableQueueHandler(queueName, autoDelete, arguments);
                     queueDao.persist(queueHandler.getQueue());
                 } else {
-                    queueHandler = queueHandlerFactory.createNonDurableQueueHandler(queueName, autoDelete);
+                    queueHandler = queueHandlerFactory.createNonDurableQueueHandler(queueName, autoDelete, arguments);
                 }
                 queueHandlerMap.put(queueName, queueHandler);
                 return true;
@@ -98,15 +140,141 @@ public final class QueueRegistry {
             queueHandlerMap.remove(queueName);
             queueHandler.releaseResources();
             queueDao.delete(queueHandler.getQueue());
+            for (QueueHandler partition : queueHandler.getPartitions()) {
+                if (partition != queueHandler) {
+                    queueDao.delete(partition.getQueue());
+                }
+            }
             return queueHandler.size();
         }
     }
 
+    /**
+     * Create a partitioned queue along with its partitions. Partitions of a durable queue are persisted as queues
+     * of their own since messages are attached to the partitions in the store.
+     */
+    private QueueHandler createPartitionedQueueHandler(String queueName, boolean durable, boolean autoDelete,
+                                                       FieldTable arguments) throws BrokerException {
+        FieldTable partitionArguments = QueueArguments.getPartitionArguments(arguments);
+        int partitionCount = QueueArguments.getPartitionCount(arguments);
+        List<QueueHandler> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            String partitionName = PartitionedQueue.partitionName(queueName, i);
+            if (durable) {
+                partitions.add(queueHandlerFactory.createDurableQueueHandler(partitionName, autoDelete,
+                                                                             partitionArguments));
+            } else {
+                partitions.add(queueHandlerFactory.createNonDurableQueueHandler(partitionName, autoDelete,
+                                                                                partitionArguments));
+            }
+        }
+
+        QueueHandler queueHandler = createPartitionedQueueHandler(queueName, durable, autoDelete, arguments,
+                                                                  partitions);
+        if (durable) {
+            queueDao.persist(queueHandler.getQueue());
+            for (QueueHandler partition : partitions) {
+                queueDao.persist(partition.getQueue());
+            }
+        }
+        return queueHandler;
+    }
+
+    private static QueueHandler createPartitionedQueueHandler(String queueName, boolean durable, boolean autoDelete,
+                                                              FieldTable arguments, List<QueueHandler> partitions) {
+        PartitionedQueue queue = new PartitionedQueue(queueName, durable, autoDelete, arguments,
+                                                      Collections.unmodifiableList(partitions));
+        return new QueueHandler(queue, new NullBrokerMetricManager());
+    }
+
     private void retrieveQueuesFromDao() throws BrokerException {
-            queueDao.retrieveAll((name) -> {
-                QueueHandler handler = queueHandlerFactory.createDurableQueueHandler(name, false);
-                queueHandlerMap.putIfAbsent(name, handler);
-            });
+        long startTime = System.nanoTime();
+        Map<String, FieldTable> queueArguments = new LinkedHashMap<>();
+        queueDao.retrieveAll(queueArguments::put);
+
+        // Partitioned queues are assembled from their partitions, which are recovered as queues
+        Map<String, FieldTable> partitionedQueues = new LinkedHashMap<>();
+        queueArguments.forEach((queueName, arguments) -> {
+            if (QueueArguments.getPartitionCount(arguments) > 1) {
+                partitionedQueues.put(queueName, arguments);
+            }
+        });
+        partitionedQueues.keySet().forEach(queueArguments::remove);
+
+        if (recoveryThreadCount > 1) {
+            recoverQueuesInParallel(queueArguments);
+        } else {
+            for (Map.Entry<String, FieldTable> entry : queueArguments.entrySet()) {
+                QueueHandler handler = queueHandlerFactory.createDurableQueueHandler(entry.getKey(), false,
+                                                                                     entry.getValue());
+                queueHandlerMap.putIfAbsent(entry.getKey(), handler);
+            }
+        }
+
+        for (Map.Entry<String, FieldTable> entry : partitionedQueues.entrySet()) {
+            recoverPartitionedQueue(entry.getKey(), entry.getValue());
+        }
+        LOGGER.info("Recovered {} queues in {} ms", queueHandlerMap.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Create the durable queue handlers concurrently on a bounded pool. Handlers are added to the registry from
+     * the calling thread.
+     */
+    private void recoverQueuesInParallel(Map<String, FieldTable> queueArguments) throws BrokerException {
+        if (queueArguments.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(recoveryThreadCount, queueArguments.size()),
+                new ThreadFactoryBuilder().setNameFormat("QueueRecoveryThread-%d").build());
+        try {
+            CompletionService<QueueHandler> completionService = new ExecutorCompletionService<>(executor);
+            queueArguments.forEach((queueName, arguments) -> completionService.submit(
+                    () -> queueHandlerFactory.createDurableQueueHandler(queueName, false, arguments)));
+
+            long lastLogTime = System.currentTimeMillis();
+            for (int recoveredCount = 1; recoveredCount <= queueArguments.size(); recoveredCount++) {
+                QueueHandler handler = completionService.take().get();
+                queueHandlerMap.putIfAbsent(handler.getQueue().getName(), handler);
+
+                long currentTime = System.currentTimeMillis();
+                if (currentTime - lastLogTime >= RECOVERY_PROGRESS_LOG_INTERVAL) {
+                    LOGGER.info("Recovered {} of {} queues", recoveredCount, queueArguments.size());
+                    lastLogTime = currentTime;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BrokerException("Interrupted while recovering queues", e);
+        } catch (ExecutionException e) {
+            throw new BrokerException("Error occurred while recovering queues", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Replace the recovered partitions of a partitioned queue with the partitioned queue. Partitions missing in the
+     * store are created.
+     */
+    private void recoverPartitionedQueue(String queueName, FieldTable arguments) throws BrokerException {
+        int partitionCount = QueueArguments.getPartitionCount(arguments);
+        List<QueueHandler> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            String partitionName = PartitionedQueue.partitionName(queueName, i);
+            QueueHandler partition = queueHandlerMap.remove(partitionName);
+            if (Objects.isNull(partition)) {
+                partition = queueHandlerFactory.createDurableQueueHandler(
+                        partitionName, false, QueueArguments.getPartitionArguments(arguments));
+                queueDao.persist(partition.getQueue());
+            }
+            partitions.add(partition);
+        }
+        queueHandlerMap.putIfAbsent(queueName, createPartitionedQueueHandler(queueName, true, false, arguments,
+                                                                           partitions));
     }
 
     public Collection<QueueHandler> getAllQueues() {
@@ -119,6 +287,9 @@ public final class QueueRegistry {
      * @throws BrokerException if an error occurs loading messages from the database
      */
     void reloadQueuesOnBecomingActive() throws BrokerException {
+        for (QueueHandler queueHandler : queueHandlerMap.values()) {
+            queueHandler.release();
+        }
         queueHandlerMap.clear();
         retrieveQueuesFromDao();
     }
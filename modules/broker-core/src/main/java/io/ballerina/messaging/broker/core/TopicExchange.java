@@ -59,6 +59,18 @@ final class TopicExchange extends Exchange {
         }
     }
 
+    @Override
+    void restoreBinding(QueueHandler queue, String routingPattern,
+                        FieldTable arguments) throws BrokerException, ValidationException {
+        lock.writeLock().lock();
+        try {
+            super.restoreBinding(queue, routingPattern, arguments);
+            fastTopicMatcher.add(routingPattern);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     @Override
     public void unbind(Queue queue, String routingPattern) throws BrokerException {
         lock.writeLock().lock();
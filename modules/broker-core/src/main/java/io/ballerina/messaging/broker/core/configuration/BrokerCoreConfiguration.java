@@ -19,6 +19,12 @@
 
 package io.ballerina.messaging.broker.core.configuration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Represents configuration for broker.
  */
@@ -40,10 +46,26 @@ public class BrokerCoreConfiguration {
 
     private String nonDurableQueueMaxDepth = "10000";
 
+    private NonDurableQueueSpill nonDurableQueueSpill = new NonDurableQueueSpill();
+
     private String durableQueueInMemoryCacheLimit = "10000";
 
+    private String durableQueueRecoveryPageSize = "10000";
+
+    private DurableQueueBuffer durableQueueBuffer = new DurableQueueBuffer();
+
     private DeliveryTask deliveryTask = new DeliveryTask();
 
+    private MessageExpiry messageExpiry = new MessageExpiry();
+
+    private Redelivery redelivery = new Redelivery();
+
+    private DbStore dbStore = new DbStore();
+
+    private FileStore fileStore = new FileStore();
+
+    private Recovery recovery = new Recovery();
+
     /**
      * Getter for nonDurableQueueMaxDepth
      */
@@ -55,6 +77,17 @@ public class BrokerCoreConfiguration {
         this.nonDurableQueueMaxDepth = nonDurableQueueMaxDepth;
     }
 
+    /**
+     * Getter for nonDurableQueueSpill.
+     */
+    public NonDurableQueueSpill getNonDurableQueueSpill() {
+        return nonDurableQueueSpill;
+    }
+
+    public void setNonDurableQueueSpill(NonDurableQueueSpill nonDurableQueueSpill) {
+        this.nonDurableQueueSpill = nonDurableQueueSpill;
+    }
+
     /**
      * Getter for durableQueueInMemoryCacheLimit.
      */
@@ -66,6 +99,28 @@ public class BrokerCoreConfiguration {
         this.durableQueueInMemoryCacheLimit = durableQueueInMemoryCacheLimit;
     }
 
+    /**
+     * Getter for durableQueueRecoveryPageSize.
+     */
+    public String getDurableQueueRecoveryPageSize() {
+        return durableQueueRecoveryPageSize;
+    }
+
+    public void setDurableQueueRecoveryPageSize(String durableQueueRecoveryPageSize) {
+        this.durableQueueRecoveryPageSize = durableQueueRecoveryPageSize;
+    }
+
+    /**
+     * Getter for durableQueueBuffer.
+     */
+    public DurableQueueBuffer getDurableQueueBuffer() {
+        return durableQueueBuffer;
+    }
+
+    public void setDurableQueueBuffer(DurableQueueBuffer durableQueueBuffer) {
+        this.durableQueueBuffer = durableQueueBuffer;
+    }
+
     /**
      * Getter for deliveryTask
      */
@@ -77,6 +132,175 @@ public class BrokerCoreConfiguration {
         this.deliveryTask = deliveryTask;
     }
 
+    /**
+     * Getter for messageExpiry.
+     */
+    public MessageExpiry getMessageExpiry() {
+        return messageExpiry;
+    }
+
+    public void setMessageExpiry(MessageExpiry messageExpiry) {
+        this.messageExpiry = messageExpiry;
+    }
+
+    /**
+     * Getter for redelivery.
+     */
+    public Redelivery getRedelivery() {
+        return redelivery;
+    }
+
+    public void setRedelivery(Redelivery redelivery) {
+        this.redelivery = redelivery;
+    }
+
+    /**
+     * Getter for dbStore.
+     */
+    public DbStore getDbStore() {
+        return dbStore;
+    }
+
+    public void setDbStore(DbStore dbStore) {
+        this.dbStore = dbStore;
+    }
+
+    /**
+     * Getter for fileStore.
+     */
+    public FileStore getFileStore() {
+        return fileStore;
+    }
+
+    public void setFileStore(FileStore fileStore) {
+        this.fileStore = fileStore;
+    }
+
+    /**
+     * Getter for recovery.
+     */
+    public Recovery getRecovery() {
+        return recovery;
+    }
+
+    public void setRecovery(Recovery recovery) {
+        this.recovery = recovery;
+    }
+
+    /**
+     * Represent configurations of spilling the messages of non-durable queues to temporary files.
+     */
+    public static class NonDurableQueueSpill {
+        private boolean enabled = false;
+
+        private String location = "./database/queue-spill";
+
+        private String maxInMemoryBytes = "67108864";
+
+        private String segmentSize = "16777216";
+
+        /**
+         * Getter for enabled.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Getter for location.
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        /**
+         * Getter for maxInMemoryBytes.
+         */
+        public String getMaxInMemoryBytes() {
+            return maxInMemoryBytes;
+        }
+
+        public void setMaxInMemoryBytes(String maxInMemoryBytes) {
+            this.maxInMemoryBytes = maxInMemoryBytes;
+        }
+
+        /**
+         * Getter for segmentSize.
+         */
+        public String getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(String segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+    }
+
+    /**
+     * Represent configurations of the buffer holding the messages of a durable queue.
+     */
+    public static class DurableQueueBuffer {
+        private String type = "linked";
+
+        private Map<String, String> queueTypes = new HashMap<>();
+
+        private String contentCacheBudget = "512";
+
+        private String offHeapBacklog = "false";
+
+        /**
+         * Getter for type.
+         */
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        /**
+         * Getter for queueTypes.
+         */
+        public Map<String, String> getQueueTypes() {
+            return queueTypes;
+        }
+
+        public void setQueueTypes(Map<String, String> queueTypes) {
+            this.queueTypes = queueTypes;
+        }
+
+        /**
+         * Getter for contentCacheBudget.
+         */
+        public String getContentCacheBudget() {
+            return contentCacheBudget;
+        }
+
+        public void setContentCacheBudget(String contentCacheBudget) {
+            this.contentCacheBudget = contentCacheBudget;
+        }
+
+        /**
+         * Getter for offHeapBacklog.
+         */
+        public String getOffHeapBacklog() {
+            return offHeapBacklog;
+        }
+
+        public void setOffHeapBacklog(String offHeapBacklog) {
+            this.offHeapBacklog = offHeapBacklog;
+        }
+    }
+
     /**
      * Represent delivery task related configurations.
      */
@@ -85,6 +309,18 @@ public class BrokerCoreConfiguration {
 
         private String idleTaskDelay = "50";
 
+        private String signalling = "false";
+
+        private String parkTimeout = "1000";
+
+        private String workStealing = "false";
+
+        private String quantum = "1000";
+
+        private String quantumUnit = "messages";
+
+        private String runTimeBudget = "1000";
+
         /**
          * Getter for workerCount
          */
@@ -106,5 +342,428 @@ public class BrokerCoreConfiguration {
         public void setIdleTaskDelay(String idleTaskDelay) {
             this.idleTaskDelay = idleTaskDelay;
         }
+
+        /**
+         * Getter for signalling.
+         */
+        public String getSignalling() {
+            return signalling;
+        }
+
+        public void setSignalling(String signalling) {
+            this.signalling = signalling;
+        }
+
+        /**
+         * Getter for parkTimeout.
+         */
+        public String getParkTimeout() {
+            return parkTimeout;
+        }
+
+        public void setParkTimeout(String parkTimeout) {
+            this.parkTimeout = parkTimeout;
+        }
+
+        /**
+         * Getter for workStealing.
+         */
+        public String getWorkStealing() {
+            return workStealing;
+        }
+
+        public void setWorkStealing(String workStealing) {
+            this.workStealing = workStealing;
+        }
+
+        /**
+         * Getter for quantum.
+         */
+        public String getQuantum() {
+            return quantum;
+        }
+
+        public void setQuantum(String quantum) {
+            this.quantum = quantum;
+        }
+
+        /**
+         * Getter for quantumUnit.
+         */
+        public String getQuantumUnit() {
+            return quantumUnit;
+        }
+
+        public void setQuantumUnit(String quantumUnit) {
+            this.quantumUnit = quantumUnit;
+        }
+
+        /**
+         * Getter for runTimeBudget.
+         */
+        public String getRunTimeBudget() {
+            return runTimeBudget;
+        }
+
+        public void setRunTimeBudget(String runTimeBudget) {
+            this.runTimeBudget = runTimeBudget;
+        }
+    }
+
+    /**
+     * Represent configurations of the timing wheel used to expire messages.
+     */
+    public static class MessageExpiry {
+        private String tickDuration = "100";
+
+        private String wheelSize = "512";
+
+        /**
+         * Getter for tickDuration.
+         */
+        public String getTickDuration() {
+            return tickDuration;
+        }
+
+        public void setTickDuration(String tickDuration) {
+            this.tickDuration = tickDuration;
+        }
+
+        /**
+         * Getter for wheelSize.
+         */
+        public String getWheelSize() {
+            return wheelSize;
+        }
+
+        public void setWheelSize(String wheelSize) {
+            this.wheelSize = wheelSize;
+        }
+    }
+
+    /**
+     * Represent configurations of the messages requeued for redelivery.
+     */
+    public static class Redelivery {
+        private String inMemoryLimit = "1000";
+
+        private String maxConsecutiveRedeliveries = "16";
+
+        /**
+         * Getter for inMemoryLimit.
+         */
+        public String getInMemoryLimit() {
+            return inMemoryLimit;
+        }
+
+        public void setInMemoryLimit(String inMemoryLimit) {
+            this.inMemoryLimit = inMemoryLimit;
+        }
+
+        /**
+         * Getter for maxConsecutiveRedeliveries.
+         */
+        public String getMaxConsecutiveRedeliveries() {
+            return maxConsecutiveRedeliveries;
+        }
+
+        public void setMaxConsecutiveRedeliveries(String maxConsecutiveRedeliveries) {
+            this.maxConsecutiveRedeliveries = maxConsecutiveRedeliveries;
+        }
+    }
+
+    /**
+     * Represent configurations of the database backed message store.
+     */
+    public static class DbStore {
+        private String pipelineCount = "1";
+
+        private String ringBufferSize = "32768";
+
+        private String maxBatchSize = "1024";
+
+        private String minBatchSize = "16";
+
+        private String commitLatencyTarget = "20";
+
+        private String readerCount = "2";
+
+        private String maxReadBatchSize = "256";
+
+        private Compression compression = new Compression();
+
+        /**
+         * Getter for pipelineCount.
+         */
+        public String getPipelineCount() {
+            return pipelineCount;
+        }
+
+        public void setPipelineCount(String pipelineCount) {
+            this.pipelineCount = pipelineCount;
+        }
+
+        /**
+         * Getter for ringBufferSize.
+         */
+        public String getRingBufferSize() {
+            return ringBufferSize;
+        }
+
+        public void setRingBufferSize(String ringBufferSize) {
+            this.ringBufferSize = ringBufferSize;
+        }
+
+        /**
+         * Getter for maxBatchSize.
+         */
+        public String getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(String maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        /**
+         * Getter for minBatchSize.
+         */
+        public String getMinBatchSize() {
+            return minBatchSize;
+        }
+
+        public void setMinBatchSize(String minBatchSize) {
+            this.minBatchSize = minBatchSize;
+        }
+
+        /**
+         * Getter for commitLatencyTarget.
+         */
+        public String getCommitLatencyTarget() {
+            return commitLatencyTarget;
+        }
+
+        public void setCommitLatencyTarget(String commitLatencyTarget) {
+            this.commitLatencyTarget = commitLatencyTarget;
+        }
+
+        /**
+         * Getter for readerCount.
+         */
+        public String getReaderCount() {
+            return readerCount;
+        }
+
+        public void setReaderCount(String readerCount) {
+            this.readerCount = readerCount;
+        }
+
+        /**
+         * Getter for maxReadBatchSize.
+         */
+        public String getMaxReadBatchSize() {
+            return maxReadBatchSize;
+        }
+
+        public void setMaxReadBatchSize(String maxReadBatchSize) {
+            this.maxReadBatchSize = maxReadBatchSize;
+        }
+
+        /**
+         * Getter for compression.
+         */
+        public Compression getCompression() {
+            return compression;
+        }
+
+        public void setCompression(Compression compression) {
+            this.compression = compression;
+        }
+    }
+
+    /**
+     * Represent configurations used to compress message content written to the database.
+     */
+    public static class Compression {
+        private boolean enabled = false;
+
+        private String codec = "io.ballerina.messaging.broker.core.store.compression.DeflateContentCodec";
+
+        private String minimumSize = "1024";
+
+        private List<String> contentTypes = new ArrayList<>(Arrays.asList("application/json",
+                                                                          "application/xml",
+                                                                          "text/*"));
+
+        /**
+         * Getter for enabled.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Getter for codec.
+         */
+        public String getCodec() {
+            return codec;
+        }
+
+        public void setCodec(String codec) {
+            this.codec = codec;
+        }
+
+        /**
+         * Getter for minimumSize.
+         */
+        public String getMinimumSize() {
+            return minimumSize;
+        }
+
+        public void setMinimumSize(String minimumSize) {
+            this.minimumSize = minimumSize;
+        }
+
+        /**
+         * Getter for contentTypes.
+         */
+        public List<String> getContentTypes() {
+            return contentTypes;
+        }
+
+        public void setContentTypes(List<String> contentTypes) {
+            this.contentTypes = contentTypes;
+        }
+    }
+
+    /**
+     * Represent configurations of the file based message store.
+     */
+    public static class FileStore {
+        private boolean enabled = false;
+
+        private String location = "./database/message-store";
+
+        private String segmentSize = "67108864";
+
+        private String compactionThreshold = "0.5";
+
+        private String compactionInterval = "5000";
+
+        private String flushInterval = "100";
+
+        private String readerThreadCount = "2";
+
+        /**
+         * Getter for enabled.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Getter for location.
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        /**
+         * Getter for segmentSize.
+         */
+        public String getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(String segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        /**
+         * Getter for compactionThreshold.
+         */
+        public String getCompactionThreshold() {
+            return compactionThreshold;
+        }
+
+        public void setCompactionThreshold(String compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+        }
+
+        /**
+         * Getter for compactionInterval.
+         */
+        public String getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        public void setCompactionInterval(String compactionInterval) {
+            this.compactionInterval = compactionInterval;
+        }
+
+        /**
+         * Getter for flushInterval.
+         */
+        public String getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(String flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        /**
+         * Getter for readerThreadCount.
+         */
+        public String getReaderThreadCount() {
+            return readerThreadCount;
+        }
+
+        public void setReaderThreadCount(String readerThreadCount) {
+            this.readerThreadCount = readerThreadCount;
+        }
+    }
+
+    /**
+     * Represent configurations used when recovering durable queues and bindings.
+     */
+    public static class Recovery {
+        private boolean parallelEnabled = true;
+
+        private String threadCount = "8";
+
+        /**
+         * Getter for parallelEnabled.
+         */
+        public boolean isParallelEnabled() {
+            return parallelEnabled;
+        }
+
+        public void setParallelEnabled(boolean parallelEnabled) {
+            this.parallelEnabled = parallelEnabled;
+        }
+
+        /**
+         * Getter for threadCount.
+         */
+        public String getThreadCount() {
+            return threadCount;
+        }
+
+        public void setThreadCount(String threadCount) {
+            this.threadCount = threadCount;
+        }
     }
 }
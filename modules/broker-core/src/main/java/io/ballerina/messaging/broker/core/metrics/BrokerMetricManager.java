@@ -38,4 +38,31 @@ public interface BrokerMetricManager {
     Context startMessageDeleteTimer();
 
     Context startMessageReadTimer();
+
+    /**
+     * Record a database commit of the message store.
+     *
+     * @param batchSize      number of operations committed
+     * @param batchSizeLimit batch size chosen by the group commit policy after the commit
+     * @param commitNanos    time taken to commit in nanoseconds
+     */
+    void recordDbCommit(int batchSize, int batchSizeLimit, long commitNanos);
+
+    /**
+     * Record a run of a message delivery task. The time the task waited for a worker is recorded both for the worker
+     * and as the scheduling delay of the queue.
+     *
+     * @param workerId       index of the delivery worker that ran the task
+     * @param queueName      name of the queue delivered by the task
+     * @param queueTimeNanos time the task waited for a worker after it was ready in nanoseconds
+     * @param runTimeNanos   time taken to run the task in nanoseconds
+     */
+    void recordDeliveryTaskRun(int workerId, String queueName, long queueTimeNanos, long runTimeNanos);
+
+    /**
+     * Remove the metrics of a deleted queue.
+     *
+     * @param queueName name of the queue
+     */
+    void removeQueueMetrics(String queueName);
 }
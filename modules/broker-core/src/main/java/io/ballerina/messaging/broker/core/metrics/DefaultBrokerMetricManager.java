@@ -21,12 +21,17 @@ package io.ballerina.messaging.broker.core.metrics;
 
 import io.ballerina.messaging.broker.core.Broker;
 import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Histogram;
 import org.wso2.carbon.metrics.core.Level;
 import org.wso2.carbon.metrics.core.Meter;
 import org.wso2.carbon.metrics.core.MetricService;
 import org.wso2.carbon.metrics.core.Timer;
 import org.wso2.carbon.metrics.core.Timer.Context;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Default implementation of {@link BrokerMetricManager}
  */
@@ -37,8 +42,15 @@ public class DefaultBrokerMetricManager implements BrokerMetricManager {
     private final Timer messageWriteTimer;
     private final Timer messageDeleteTimer;
     private final Timer messageReadTimer;
+    private final Histogram dbCommitBatchSize;
+    private final Histogram dbBatchSizeLimit;
+    private final Timer dbCommitTimer;
+    private final MetricService metrics;
+    private final Map<Integer, DeliveryWorkerTimers> deliveryWorkerTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> schedulingDelayTimers = new ConcurrentHashMap<>();
 
     public DefaultBrokerMetricManager(MetricService metrics) {
+        this.metrics = metrics;
         totalPublishedCounter = metrics.meter(MetricService.name(Broker.class, "node", "totalPublished"), Level.INFO);
         totalAckCounter = metrics.meter(MetricService.name(Broker.class, "node", "totalAcknowledged"), Level.INFO);
         totalEnqueueCounter = metrics.counter(MetricService.name(Broker.class, "node", "totalInMemoryMessages"),
@@ -46,6 +58,11 @@ public class DefaultBrokerMetricManager implements BrokerMetricManager {
         messageWriteTimer = metrics.timer(MetricService.name(Broker.class, "node", "messageWrite"), Level.INFO);
         messageDeleteTimer = metrics.timer(MetricService.name(Broker.class, "node", "messageDelete"), Level.INFO);
         messageReadTimer = metrics.timer(MetricService.name(Broker.class, "node", "messageRead"), Level.INFO);
+        dbCommitBatchSize = metrics.histogram(MetricService.name(Broker.class, "node", "dbCommitBatchSize"),
+                                              Level.INFO);
+        dbBatchSizeLimit = metrics.histogram(MetricService.name(Broker.class, "node", "dbBatchSizeLimit"),
+                                             Level.INFO);
+        dbCommitTimer = metrics.timer(MetricService.name(Broker.class, "node", "dbCommit"), Level.INFO);
     }
 
     @Override
@@ -82,4 +99,48 @@ public class DefaultBrokerMetricManager implements BrokerMetricManager {
     public Context startMessageReadTimer() {
         return messageReadTimer.start();
     }
+
+    @Override
+    public void recordDbCommit(int batchSize, int batchSizeLimit, long commitNanos) {
+        dbCommitBatchSize.update(batchSize);
+        dbBatchSizeLimit.update(batchSizeLimit);
+        dbCommitTimer.update(commitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordDeliveryTaskRun(int workerId, String queueName, long queueTimeNanos, long runTimeNanos) {
+        DeliveryWorkerTimers timers = deliveryWorkerTimers.computeIfAbsent(workerId, DeliveryWorkerTimers::new);
+        timers.queueTimer.update(queueTimeNanos, TimeUnit.NANOSECONDS);
+        timers.runTimer.update(runTimeNanos, TimeUnit.NANOSECONDS);
+        schedulingDelayTimers.computeIfAbsent(queueName, name -> metrics.timer(schedulingDelayMetricName(name),
+                                                                               Level.INFO))
+                             .update(queueTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void removeQueueMetrics(String queueName) {
+        if (schedulingDelayTimers.remove(queueName) != null) {
+            metrics.remove(schedulingDelayMetricName(queueName));
+        }
+    }
+
+    private static String schedulingDelayMetricName(String queueName) {
+        return MetricService.name(Broker.class, "queue", queueName, "schedulingDelay");
+    }
+
+    /**
+     * Queue time and run time timers of a delivery worker.
+     */
+    private class DeliveryWorkerTimers {
+        private final Timer queueTimer;
+        private final Timer runTimer;
+
+        DeliveryWorkerTimers(int workerId) {
+            String worker = String.valueOf(workerId);
+            queueTimer = metrics.timer(MetricService.name(Broker.class, "node", "deliveryWorker", worker,
+                                                          "queueTime"), Level.INFO);
+            runTimer = metrics.timer(MetricService.name(Broker.class, "node", "deliveryWorker", worker, "runTime"),
+                                     Level.INFO);
+        }
+    }
 }
@@ -62,6 +62,21 @@ public class NullBrokerMetricManager implements BrokerMetricManager {
         return nullContext;
     }
 
+    @Override
+    public void recordDbCommit(int batchSize, int batchSizeLimit, long commitNanos) {
+        // do nothing
+    }
+
+    @Override
+    public void recordDeliveryTaskRun(int workerId, String queueName, long queueTimeNanos, long runTimeNanos) {
+        // do nothing
+    }
+
+    @Override
+    public void removeQueueMetrics(String queueName) {
+        // do nothing
+    }
+
     /**
      * Null object representation for Timer context
      */
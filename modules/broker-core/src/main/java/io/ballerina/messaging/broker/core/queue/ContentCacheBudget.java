@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Broker wide limit on the bytes of message content cached by durable queue buffers.
+ * <p>
+ * Each buffer holds an {@link Allocation}. While the budget has room any buffer can cache content. Once the budget
+ * is exhausted the budget is shared equally among the buffers that cache content. A buffer within its share makes
+ * room by evicting content from buffers exceeding their share, starting with the buffer that delivered a message
+ * least recently. Hence cold and slow queues are evicted first. Evicted messages are read again before delivery.
+ */
+@ThreadSafe
+final class ContentCacheBudget {
+
+    /**
+     * Fraction of the budget evicted at once, so that a full budget does not trigger an eviction for every message.
+     */
+    private static final int EVICTION_CHUNK_DIVISOR = 64;
+
+    /**
+     * Maximum number of content bytes cached. Non positive values disable the limit.
+     */
+    private final long capacity;
+
+    private final AtomicLong usedBytes = new AtomicLong(0);
+
+    private final Set<Allocation> allocations = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of allocations with cached content.
+     */
+    private final AtomicInteger activeAllocationCount = new AtomicInteger(0);
+
+    ContentCacheBudget(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Create a budget without a limit. Cached bytes are still tracked per buffer.
+     */
+    static ContentCacheBudget unlimited() {
+        return new ContentCacheBudget(0);
+    }
+
+    /**
+     * Register a buffer with the budget.
+     *
+     * @param evictor used to evict content of the buffer
+     * @return allocation of the buffer
+     */
+    Allocation register(Evictor evictor) {
+        Allocation allocation = new Allocation(evictor);
+        allocations.add(allocation);
+        return allocation;
+    }
+
+    long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    private boolean isLimited() {
+        return capacity > 0;
+    }
+
+    private boolean tryAllocate(long bytes) {
+        long used;
+        do {
+            used = usedBytes.get();
+            if (used + bytes > capacity) {
+                return false;
+            }
+        } while (!usedBytes.compareAndSet(used, used + bytes));
+        return true;
+    }
+
+    /**
+     * Budget divided equally among the allocations with cached content, including the requester.
+     */
+    private long getFairShare(Allocation requester) {
+        int activeCount = activeAllocationCount.get() + (requester.bytes.get() == 0 ? 1 : 0);
+        return capacity / Math.max(1, activeCount);
+    }
+
+    /**
+     * Evict content from allocations exceeding their fair share, least recently delivered first.
+     */
+    private void evictFor(Allocation requester, long bytes) {
+        long fairShare = getFairShare(requester);
+        List<Allocation> victims = new ArrayList<>();
+        for (Allocation allocation : allocations) {
+            if (allocation != requester && allocation.bytes.get() > fairShare) {
+                victims.add(allocation);
+            }
+        }
+        victims.sort(Comparator.comparingLong(allocation -> allocation.lastDeliveryTime));
+
+        long remaining = Math.max(bytes, capacity / EVICTION_CHUNK_DIVISOR);
+        for (Allocation victim : victims) {
+            if (remaining <= 0) {
+                break;
+            }
+            long excess = victim.bytes.get() - fairShare;
+            if (excess > 0) {
+                remaining -= victim.evictor.evict(Math.min(excess, remaining));
+            }
+        }
+    }
+
+    /**
+     * Content cached by a single buffer.
+     */
+    final class Allocation {
+
+        private final Evictor evictor;
+
+        private final AtomicLong bytes = new AtomicLong(0);
+
+        private volatile long lastDeliveryTime = System.nanoTime();
+
+        private volatile boolean closed = false;
+
+        private Allocation(Evictor evictor) {
+            this.evictor = evictor;
+        }
+
+        /**
+         * Reserve room for content that can be evicted. The content should not be cached if the reservation fails.
+         *
+         * @param size content size in bytes
+         * @return true if the content can be cached
+         */
+        boolean reserve(long size) {
+            if (!isLimited() || closed) {
+                add(size);
+                return true;
+            }
+
+            if (!tryAllocate(size)) {
+                if (bytes.get() + size > getFairShare(this)) {
+                    return false;
+                }
+                evictFor(this, size);
+                if (!tryAllocate(size)) {
+                    return false;
+                }
+            }
+            add(size);
+            return true;
+        }
+
+        /**
+         * Account content which has to be cached regardless of the budget. i.e. content read for delivery.
+         *
+         * @param size content size in bytes
+         */
+        void allocate(long size) {
+            if (isLimited() && !closed) {
+                usedBytes.addAndGet(size);
+            }
+            add(size);
+        }
+
+        /**
+         * Release content that is no longer cached. Should be called for content evicted by the {@link Evictor} as
+         * well.
+         *
+         * @param size content size in bytes
+         */
+        void release(long size) {
+            if (size == 0) {
+                return;
+            }
+            long remainingBytes = bytes.addAndGet(-size);
+            if (!closed) {
+                if (isLimited()) {
+                    usedBytes.addAndGet(-size);
+                }
+                if (remainingBytes == 0) {
+                    activeAllocationCount.decrementAndGet();
+                }
+            }
+        }
+
+        private void add(long size) {
+            if (size != 0 && bytes.getAndAdd(size) == 0 && !closed) {
+                activeAllocationCount.incrementAndGet();
+            }
+        }
+
+        long getBytes() {
+            return bytes.get();
+        }
+
+        void recordDelivery() {
+            lastDeliveryTime = System.nanoTime();
+        }
+
+        /**
+         * Release the content of the buffer from the budget once the buffer is discarded.
+         */
+        void close() {
+            if (allocations.remove(this)) {
+                closed = true;
+                long cachedBytes = bytes.get();
+                if (isLimited()) {
+                    usedBytes.addAndGet(-cachedBytes);
+                }
+                if (cachedBytes != 0) {
+                    activeAllocationCount.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts cached content of a buffer.
+     */
+    @FunctionalInterface
+    interface Evictor {
+
+        /**
+         * Evict cached content of messages that are not yet delivered, converting them to bare messages. Evicted
+         * content must be released from the {@link Allocation}.
+         *
+         * @param bytes number of bytes to evict
+         * @return number of bytes evicted
+         */
+        long evict(long bytes);
+    }
+}
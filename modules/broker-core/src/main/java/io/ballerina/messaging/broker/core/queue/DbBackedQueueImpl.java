@@ -19,19 +19,24 @@
 
 package io.ballerina.messaging.broker.core.queue;
 
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Queue;
-import io.ballerina.messaging.broker.core.store.DbMessageStore;
+import io.ballerina.messaging.broker.core.store.MessageStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.transaction.xa.Xid;
 
 /**
@@ -44,31 +49,103 @@ public class DbBackedQueueImpl extends Queue {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(DbBackedQueueImpl.class);
 
-    private final DbMessageStore dbMessageStore;
+    private final MessageStore messageStore;
 
     private final QueueBuffer buffer;
 
+    private final QueueBufferFactory queueBufferFactory;
+
     private final Map<Xid, List<Message>> pendingEnqueueMessages;
 
     private final Map<Xid, List<Message>> pendingDequeueMessages;
 
-    public DbBackedQueueImpl(String queueName, boolean autoDelete,
-                             DbMessageStore dbMessageStore, QueueBufferFactory queueBufferFactory)
-            throws BrokerException {
-        super(queueName, true, autoDelete);
-        this.dbMessageStore = dbMessageStore;
-        buffer = queueBufferFactory.createBuffer(dbMessageStore::fillMessageData);
+    /**
+     * Maximum number of messages recovered from the store at once.
+     */
+    private final int recoveryPageSize;
+
+    /**
+     * Messages enqueued while there are messages yet to be recovered from the store. These are added to the buffer
+     * after the recovery completes to preserve the message order. Also used as the lock for recovery state.
+     */
+    private final Map<Long, Message> deferredMessages = new LinkedHashMap<>();
+
+    /**
+     * Persistent messages removed while deferred. These are skipped if read from the store during the recovery.
+     */
+    private final Set<Long> removedDeferredMessageIds = new HashSet<>();
+
+    /**
+     * Budget share charged for the content of deferred non persistent messages, since the content cannot be read
+     * back from the store.
+     */
+    private final ContentCacheBudget.Allocation deferredCacheAllocation;
+
+    /**
+     * True while the next recovery page is read on the reader threads of the message store.
+     */
+    private final AtomicBoolean recoveryReadPending = new AtomicBoolean(false);
+
+    /**
+     * Id of the last message recovered from the store.
+     */
+    private long recoveryCursor = Long.MIN_VALUE;
 
-        LOGGER.debug("Recovering messages for queue {}", queueName);
+    /**
+     * Number of messages in the store that are yet to be recovered.
+     */
+    private int unrecoveredMessageCount;
 
-        Collection<Message> messages = dbMessageStore.readAllMessagesForQueue(queueName);
+    private volatile boolean recoveryComplete = false;
 
+    public DbBackedQueueImpl(String queueName, boolean autoDelete, FieldTable arguments, MessageStore messageStore,
+                             QueueBufferFactory queueBufferFactory, int recoveryPageSize) throws BrokerException {
+        super(queueName, true, autoDelete, arguments);
+        this.messageStore = messageStore;
+        this.recoveryPageSize = recoveryPageSize;
+        this.queueBufferFactory = queueBufferFactory;
+        deferredCacheAllocation = queueBufferFactory.createCacheAllocation();
+        buffer = queueBufferFactory.createBuffer(queueName, arguments, messageStore::fillMessageData);
+        buffer.setHeadFillListener(this::notifyMessagesAvailable);
         pendingEnqueueMessages = new ConcurrentHashMap<>();
         pendingDequeueMessages = new ConcurrentHashMap<>();
-        buffer.addAllBareMessages(messages);
 
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("{} messages recovered for queue {}", messages.size(), queueName);
+        synchronized (deferredMessages) {
+            unrecoveredMessageCount = messageStore.countMessagesForQueue(queueName);
+            LOGGER.debug("Recovering {} messages for queue {}", unrecoveredMessageCount, queueName);
+            recoverNextPage();
+        }
+    }
+
+    /**
+     * Read the next page of messages from the store into the buffer. Messages are read as bare messages and the
+     * message data is read when the buffer fills them for delivery.
+     */
+    private void recoverNextPage() throws BrokerException {
+        Collection<Message> messages = messageStore.readMessagesForQueue(getName(), recoveryCursor, recoveryPageSize);
+        for (Message message : messages) {
+            recoveryCursor = message.getInternalId();
+            // Skip messages enqueued after the queue was created
+            if (!deferredMessages.containsKey(recoveryCursor) && !removedDeferredMessageIds.remove(recoveryCursor)) {
+                buffer.addBareMessage(message);
+                unrecoveredMessageCount = Math.max(0, unrecoveredMessageCount - 1);
+            }
+        }
+
+        if (messages.size() < recoveryPageSize) {
+            for (Message message : deferredMessages.values()) {
+                if (Objects.nonNull(message.getMetadata())) {
+                    deferredCacheAllocation.release(message.getMetadata().getContentLength());
+                    buffer.add(message);
+                } else {
+                    buffer.addBareMessage(message);
+                }
+            }
+            deferredMessages.clear();
+            removedDeferredMessageIds.clear();
+            unrecoveredMessageCount = 0;
+            recoveryComplete = true;
+            LOGGER.debug("Recovery completed for queue {}", getName());
         }
     }
 
@@ -79,22 +156,51 @@ public class DbBackedQueueImpl extends Queue {
 
     @Override
     public int size() {
-        return buffer.getNumberOfUndeliveredMessages();
+        int size = buffer.getNumberOfUndeliveredMessages();
+        if (!recoveryComplete) {
+            synchronized (deferredMessages) {
+                size += unrecoveredMessageCount + deferredMessages.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long cachedBytes() {
+        return buffer.getCachedBytes() + deferredCacheAllocation.getBytes();
     }
 
     @Override
     public boolean enqueue(Message message) throws BrokerException {
         if (message.getMetadata().isPersistent()) {
-            dbMessageStore.attach(getName(), message.getInternalId());
+            messageStore.attach(getName(), message.getInternalId());
         }
-        buffer.add(message);
+        addToBuffer(message);
         return true;
     }
 
+    private void addToBuffer(Message message) {
+        if (!recoveryComplete) {
+            synchronized (deferredMessages) {
+                if (!recoveryComplete) {
+                    // Persistent messages can be read back from the store when the recovery completes
+                    if (message.getMetadata().isPersistent()) {
+                        message.clearData();
+                    } else {
+                        deferredCacheAllocation.allocate(message.getMetadata().getContentLength());
+                    }
+                    deferredMessages.put(message.getInternalId(), message);
+                    return;
+                }
+            }
+        }
+        buffer.add(message);
+    }
+
     @Override
     public void prepareEnqueue(Xid xid, Message message) throws BrokerException {
         if (message.getMetadata().isPersistent()) {
-            dbMessageStore.attach(xid, getName(), message.getInternalId());
+            messageStore.attach(xid, getName(), message.getInternalId());
         }
         List<Message> messages = pendingEnqueueMessages.computeIfAbsent(xid, k -> new ArrayList<>());
         messages.add(message);
@@ -105,12 +211,19 @@ public class DbBackedQueueImpl extends Queue {
 
         List<Message> dequeueMessages = pendingDequeueMessages.get(xid);
         if (Objects.nonNull(dequeueMessages)) {
+            if (!recoveryComplete) {
+                dequeueMessages.removeIf(this::removeDeferred);
+            }
             buffer.removeAll(dequeueMessages);
         }
 
         List<Message> messages = pendingEnqueueMessages.get(xid);
         if (Objects.nonNull(messages)) {
-            buffer.addAll(messages);
+            if (recoveryComplete) {
+                buffer.addAll(messages);
+            } else {
+                messages.forEach(this::addToBuffer);
+            }
         }
     }
 
@@ -122,19 +235,89 @@ public class DbBackedQueueImpl extends Queue {
 
     @Override
     public Message dequeue() {
+        if (!recoveryComplete && buffer.getNumberOfUndeliveredMessages() < recoveryPageSize
+                && recoveryReadPending.compareAndSet(false, true)) {
+            messageStore.executeRead(this::recoverPendingPage);
+        }
         return buffer.getFirstDeliverable();
     }
 
+    @Override
+    public Message dequeueHead() {
+        return buffer.takeFirstUndelivered();
+    }
+
+    /**
+     * Recover the next page on the reader threads of the message store and wake up delivery once the page is added
+     * to the buffer.
+     */
+    private void recoverPendingPage() {
+        try {
+            synchronized (deferredMessages) {
+                if (!recoveryComplete) {
+                    recoverNextPage();
+                }
+            }
+        } catch (BrokerException e) {
+            LOGGER.error("Error while recovering messages for queue " + getName(), e);
+        } finally {
+            recoveryReadPending.set(false);
+        }
+        notifyMessagesAvailable();
+    }
+
     @Override
     public void detach(Message message) {
-        dbMessageStore.detach(getName(), message);
-        buffer.remove(message);
+        messageStore.detach(getName(), message);
+        if (recoveryComplete || !removeDeferred(message)) {
+            buffer.remove(message);
+        }
+    }
+
+    /**
+     * Remove a message deferred during the recovery.
+     *
+     * @param message removed message
+     * @return true if the message was deferred
+     */
+    private boolean removeDeferred(Message message) {
+        synchronized (deferredMessages) {
+            Message deferredMessage = deferredMessages.remove(message.getInternalId());
+            if (Objects.isNull(deferredMessage)) {
+                return false;
+            }
+            if (Objects.nonNull(deferredMessage.getMetadata())) {
+                deferredCacheAllocation.release(deferredMessage.getMetadata().getContentLength());
+            } else {
+                // Persistent message, which is read from the store if the recovery has not reached it yet
+                removedDeferredMessageIds.add(message.getInternalId());
+            }
+            return true;
+        }
     }
 
     @Override
     public void prepareDetach(Xid xid, Message message) throws BrokerException {
-        dbMessageStore.detach(xid, getName(), message);
+        messageStore.detach(xid, getName(), message);
         List<Message> dequeueMessages = pendingDequeueMessages.computeIfAbsent(xid, k -> new ArrayList<>());
         dequeueMessages.add(message);
     }
+
+    /**
+     * Requeued persistent messages beyond the in-memory limit of the redelivery buffer are kept as bare messages and
+     * read from the store before they are redelivered.
+     */
+    @Override
+    public Queue createRedeliveryQueue() {
+        QueueBuffer redeliveryBuffer = queueBufferFactory.createRedeliveryBuffer(messageStore::fillMessageData);
+        // Requeued messages are delivered by the handler of this queue
+        redeliveryBuffer.setHeadFillListener(this::notifyMessagesAvailable);
+        return new RedeliveryQueueImpl(getName(), redeliveryBuffer);
+    }
+
+    @Override
+    public void release() {
+        buffer.release();
+        deferredCacheAllocation.close();
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Buffer of a lazy queue. Only the ids of undelivered persistent messages are kept, off the heap in an
+ * {@link OffHeapMessageIdQueue}. Message data is read when a message enters the small delivery window ahead of the
+ * consumers and is dropped once the message is removed. Non persistent messages cannot be read back from the store,
+ * hence they are kept with their data until delivered.
+ * <p>
+ * Message reads are submitted by the delivery thread without holding the buffer lock.
+ */
+@ThreadSafe
+final class LazyQueueBuffer extends QueueBuffer {
+
+    /**
+     * Maximum number of messages read ahead of delivery.
+     */
+    private final int deliveryWindowSize;
+
+    private final MessageReader messageReader;
+
+    private final ContentCacheBudget.Allocation cacheAllocation;
+
+    /**
+     * Ids of undelivered messages which are not yet in the delivery window.
+     */
+    private final OffHeapMessageIdQueue pendingIds = new OffHeapMessageIdQueue();
+
+    /**
+     * Non persistent messages waiting in {@link #pendingIds}.
+     */
+    private final Map<Long, Message> retainedMessages = new HashMap<>();
+
+    /**
+     * Messages taken out of {@link #pendingIds} for delivery, in queue order.
+     */
+    private final ArrayDeque<Message> deliveryWindow = new ArrayDeque<>();
+
+    /**
+     * Messages in the delivery window submitted for reading and not yet filled.
+     */
+    private final Set<Message> submittedMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Messages in the delivery window with data.
+     */
+    private final Set<Message> filledMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Cached content bytes of messages given out for delivery, keyed by message id.
+     */
+    private final Map<Long, Long> inflightMessages = new HashMap<>();
+
+    /**
+     * First message of the window delivery found without data last. The read completing it wakes up delivery.
+     */
+    private Message awaitedMessage;
+
+    LazyQueueBuffer(int deliveryWindowSize, MessageReader messageReader, ContentCacheBudget cacheBudget) {
+        this.deliveryWindowSize = deliveryWindowSize;
+        this.messageReader = messageReader;
+        // Content is cached only within the delivery window, hence there is nothing worth evicting
+        this.cacheAllocation = cacheBudget.register(bytes -> 0);
+    }
+
+    @Override
+    public synchronized void add(Message message) {
+        boolean retained = false;
+        if (isEvictable(message)) {
+            message.clearData();
+        } else if (Objects.nonNull(message.getMetadata())) {
+            cacheAllocation.allocate(contentLengthOf(message));
+            retainedMessages.put(message.getInternalId(), message);
+            retained = true;
+        }
+        pendingIds.add(message.getInternalId(), retained);
+    }
+
+    @Override
+    public synchronized void addBareMessage(Message message) {
+        pendingIds.add(message.getInternalId(), false);
+    }
+
+    @Override
+    public synchronized boolean remove(Message message) {
+        long messageId = message.getInternalId();
+        Long cachedBytes = inflightMessages.remove(messageId);
+        if (Objects.nonNull(cachedBytes)) {
+            cacheAllocation.release(cachedBytes);
+        } else if (deliveryWindow.removeIf(windowMessage -> windowMessage.getInternalId() == messageId)) {
+            submittedMessages.removeIf(windowMessage -> windowMessage.getInternalId() == messageId);
+            filledMessages.removeIf(windowMessage -> releaseIfMatches(windowMessage, messageId));
+        } else if (pendingIds.remove(messageId)) {
+            Message retainedMessage = retainedMessages.remove(messageId);
+            if (Objects.nonNull(retainedMessage)) {
+                cacheAllocation.release(contentLengthOf(retainedMessage));
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean releaseIfMatches(Message message, long messageId) {
+        if (message.getInternalId() == messageId) {
+            cacheAllocation.release(contentLengthOf(message));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized int size() {
+        return pendingIds.size() + deliveryWindow.size() + inflightMessages.size();
+    }
+
+    @Override
+    public synchronized int getNumberOfInflightMessages() {
+        return inflightMessages.size();
+    }
+
+    @Override
+    public synchronized int getNumberOfUndeliveredMessages() {
+        return pendingIds.size() + deliveryWindow.size();
+    }
+
+    @Override
+    public Message getFirstDeliverable() {
+        List<Message> messagesToRead = new ArrayList<>();
+        Message message = takeFirstDeliverable(messagesToRead);
+        if (!messagesToRead.isEmpty()) {
+            messageReader.fill(this, messagesToRead);
+            if (Objects.isNull(message)) {
+                // The reader might have filled the first message already
+                message = takeFirstDeliverable(Collections.emptyList());
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Top up the delivery window and take the first message of the window if its data is available.
+     *
+     * @param messagesToRead collects the messages that entered the window without data
+     * @return first deliverable message or null
+     */
+    private synchronized Message takeFirstDeliverable(List<Message> messagesToRead) {
+        while (deliveryWindow.size() < deliveryWindowSize && !pendingIds.isEmpty()) {
+            long entry = pendingIds.poll();
+            long messageId = OffHeapMessageIdQueue.messageIdOf(entry);
+            Message message;
+            if (OffHeapMessageIdQueue.isRetained(entry)) {
+                message = retainedMessages.remove(messageId);
+                filledMessages.add(message);
+            } else {
+                // Owned queues are restored by the store along with the data
+                message = new Message(messageId, null);
+                submittedMessages.add(message);
+                messagesToRead.add(message);
+            }
+            deliveryWindow.add(message);
+        }
+
+        Message firstMessage = deliveryWindow.peek();
+        if (Objects.nonNull(firstMessage) && filledMessages.remove(firstMessage)) {
+            deliveryWindow.poll();
+            inflightMessages.put(firstMessage.getInternalId(), contentLengthOf(firstMessage));
+            return firstMessage;
+        }
+        awaitedMessage = firstMessage;
+        return null;
+    }
+
+    @Override
+    public synchronized Message takeFirstUndelivered() {
+        Message message = deliveryWindow.poll();
+        long cachedBytes = 0;
+        if (Objects.nonNull(message)) {
+            // A pending read of the message is ignored once it is no longer submitted
+            submittedMessages.remove(message);
+            if (filledMessages.remove(message)) {
+                cachedBytes = contentLengthOf(message);
+            }
+        } else if (!pendingIds.isEmpty()) {
+            long entry = pendingIds.poll();
+            long messageId = OffHeapMessageIdQueue.messageIdOf(entry);
+            if (OffHeapMessageIdQueue.isRetained(entry)) {
+                message = retainedMessages.remove(messageId);
+                cachedBytes = contentLengthOf(message);
+            } else {
+                message = new Message(messageId, null);
+            }
+        } else {
+            return null;
+        }
+        inflightMessages.put(message.getInternalId(), cachedBytes);
+        return message;
+    }
+
+    @Override
+    public long getCachedBytes() {
+        return cacheAllocation.getBytes();
+    }
+
+    @Override
+    public synchronized void release() {
+        cacheAllocation.close();
+        pendingIds.release();
+    }
+
+    @Override
+    public synchronized void markMessagesFilled(Collection<Message> messages) {
+        boolean headFilled = false;
+        for (Message message : messages) {
+            // Messages removed while being read are no longer in the window
+            if (submittedMessages.remove(message)) {
+                cacheAllocation.allocate(contentLengthOf(message));
+                filledMessages.add(message);
+                headFilled = headFilled || message == awaitedMessage;
+            }
+        }
+        if (headFilled) {
+            notifyHeadFilled();
+        }
+    }
+}
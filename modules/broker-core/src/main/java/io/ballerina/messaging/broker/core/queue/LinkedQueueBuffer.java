@@ -0,0 +1,564 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link QueueBuffer} backed by a doubly linked list of nodes guarded by the buffer monitor.
+ */
+class LinkedQueueBuffer extends QueueBuffer {
+
+
+    /**
+     * Maximum number of messages held in memory.
+     */
+    private final int inMemoryLimit;
+
+    /**
+     * Used to submit read requests for a message.
+     */
+    private final MessageReader messageReader;
+
+    /**
+     * Number of messages to keep read ahead of the delivery cursor.
+     */
+    private final ReadAheadWindow readAheadWindow;
+
+    /**
+     * Size of the queue. i.e. in memory messages + DB messages.
+     */
+    private AtomicInteger size = new AtomicInteger(0);
+
+    /**
+     * Number of messages that are retrieved for delivery but not yet removed.
+     */
+    private AtomicInteger messagesInFlight = new AtomicInteger(0);
+
+    /**
+     * Number of in memory messages.
+     */
+    private AtomicInteger deliverableMessageCount = new AtomicInteger(0);
+
+    /**
+     * Total Number of undelivered messages in the buffer.
+     */
+    private AtomicInteger undeliveredMessageCount = new AtomicInteger(0);
+
+    /**
+     * Pointer to first deliverable candidate node.
+     */
+    private Node firstDeliverableCandidate;
+
+    /**
+     * Pointer to last deliverable node.
+     */
+    private Node firstUndeliverable;
+
+    /**
+     * Pointer to last node.
+     */
+    private Node last;
+
+    /**
+     * Pointer to the first node that is not yet submitted for reading. Nodes before this are either being read or
+     * have message data.
+     */
+    private Node readCursor;
+
+    /**
+     * Number of messages submitted for reading whose data is not yet available.
+     */
+    private final AtomicInteger pendingReadCount = new AtomicInteger(0);
+
+    /**
+     * Number of read batches completed. Used to adapt the read-ahead window once per completed read.
+     */
+    private final AtomicInteger completedReadCount = new AtomicInteger(0);
+
+    private int lastCompletedReadCount;
+
+    /**
+     * Node delivery is waiting on while its data is being read.
+     */
+    private Node stalledNode;
+
+    /**
+     * Node delivery found without data last. The read completing it wakes up delivery.
+     */
+    private volatile Node awaitedNode;
+
+    /**
+     * Used to fast lookup the node for a message ID
+     */
+    private Map<Long, Node> keyMap = new ConcurrentHashMap<>();
+
+    /**
+     * Share of the broker wide content cache budget.
+     */
+    private final ContentCacheBudget.Allocation cacheAllocation;
+
+    LinkedQueueBuffer(int inMemoryLimit, MessageReader messageReader) {
+        this(inMemoryLimit, inMemoryLimit, messageReader, ContentCacheBudget.unlimited());
+    }
+
+    LinkedQueueBuffer(int inMemoryLimit, int minReadAhead, MessageReader messageReader,
+                      ContentCacheBudget cacheBudget) {
+        this.inMemoryLimit = inMemoryLimit;
+        this.messageReader = messageReader;
+        this.readAheadWindow = new ReadAheadWindow(minReadAhead, inMemoryLimit);
+        this.cacheAllocation = cacheBudget.register(this::evict);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: Room in the content cache budget is reserved before acquiring the buffer lock, since the reservation can
+     * evict content from other buffers.
+     */
+    @Override
+    public void add(Message message) {
+        long cachedBytes = reserveCache(message);
+        synchronized (this) {
+            linkLast(message);
+            postProcessDeliverableNode(cachedBytes);
+        }
+    }
+
+    @Override
+    public void addAll(List<Message> messages) {
+        long[] cachedBytes = new long[messages.size()];
+        for (int i = 0; i < cachedBytes.length; i++) {
+            cachedBytes[i] = reserveCache(messages.get(i));
+        }
+        synchronized (this) {
+            for (int i = 0; i < cachedBytes.length; i++) {
+                linkLast(messages.get(i));
+                postProcessDeliverableNode(cachedBytes[i]);
+            }
+        }
+    }
+
+    private long reserveCache(Message message) {
+        if (size.get() >= inMemoryLimit) {
+            return NOT_CACHED;
+        }
+        return reserveCache(cacheAllocation, message);
+    }
+
+    @Override
+    public synchronized void addAllBareMessages(Collection<Message> messages) {
+        for (Message message : messages) {
+            addBareMessage(message);
+        }
+    }
+
+    @Override
+    public synchronized void addBareMessage(Message message) {
+        linkLast(message);
+        postProcessBareMessage();
+    }
+
+    /**
+     * Links newMessage as last element.
+     */
+    private void linkLast(Message newMessage) {
+        size.incrementAndGet();
+        undeliveredMessageCount.incrementAndGet();
+
+        final Node previousLast = last;
+        final Node newNode = new Node(previousLast, newMessage, null);
+
+        last = newNode;
+        keyMap.put(newMessage.getInternalId(), newNode);
+
+        if (Objects.nonNull(previousLast)) {
+            previousLast.next = newNode;
+        }
+    }
+
+    /**
+     * Post process the added deliverable message looking at the queue size and the in memory limit. Message data
+     * will be cleared if we have deliverable messages than in-memory limit or if the content cache budget is
+     * exhausted.
+     */
+    private void postProcessDeliverableNode(long cachedBytes) {
+        Node newNode = last;
+        if (size.get() > inMemoryLimit || cachedBytes == NOT_CACHED) {
+            if (cachedBytes != NOT_CACHED) {
+                cacheAllocation.release(cachedBytes);
+            }
+
+            if (Objects.isNull(firstUndeliverable)) {
+                firstUndeliverable = newNode;
+            }
+
+            newNode.item.clearData();
+            markForReading(newNode);
+        } else {
+            newNode.cachedBytes = cachedBytes;
+            newNode.state.set(Node.FULL_MESSAGE);
+            deliverableMessageCount.incrementAndGet();
+
+            if (Objects.isNull(firstDeliverableCandidate)) {
+                firstDeliverableCandidate = newNode;
+            }
+        }
+    }
+
+    /**
+     * Post process after adding a bare message.
+     */
+    private void postProcessBareMessage() {
+        Node newNode = last;
+        if (Objects.isNull(firstUndeliverable)) {
+            firstUndeliverable = newNode;
+        }
+        if (Objects.isNull(firstDeliverableCandidate)) {
+            firstDeliverableCandidate = newNode;
+        }
+        markForReading(newNode);
+    }
+
+    private void markForReading(Node node) {
+        if (Objects.isNull(readCursor)) {
+            readCursor = node;
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(Message message) {
+        long messageId = message.getInternalId();
+        Node node = keyMap.remove(messageId);
+        if (Objects.nonNull(node)) {
+            unlink(node);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Message> messages) {
+        for (Message message : messages) {
+            remove(message);
+        }
+    }
+
+    /**
+     * Unlinks a non-null node.
+     */
+    private void unlink(Node node) {
+        final Node next = node.next;
+        final Node prev = node.prev;
+
+        // if prev is null we are removing the first element
+        if (Objects.nonNull(prev)) {
+            prev.next = next;
+            node.prev = null;
+        }
+
+        if (node == readCursor) {
+            readCursor = next;
+        }
+
+        // if next is null we are removing the last element
+        if (next == null) {
+            last = prev;
+        } else {
+            next.prev = prev;
+            node.next = null;
+        }
+
+        if (node.state.getAndSet(Node.REMOVED) == Node.FULL_MESSAGE) {
+            cacheAllocation.release(node.cachedBytes);
+        }
+        node.item = null;
+        size.decrementAndGet();
+        deliverableMessageCount.decrementAndGet();
+        messagesInFlight.decrementAndGet();
+        submitMessageReads();
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public int getNumberOfInflightMessages() {
+        return messagesInFlight.get();
+    }
+
+    @Override
+    public int getNumberOfUndeliveredMessages() {
+        return undeliveredMessageCount.get();
+    }
+
+    @Override
+    public synchronized Message getFirstDeliverable() {
+
+        submitMessageReads();
+        Node deliverableCandidate = firstDeliverableCandidate;
+
+        if (deliverableCandidate != firstUndeliverable) {
+
+            if (deliverableCandidate.state.get() != Node.FULL_MESSAGE && !awaitHead(deliverableCandidate)) {
+                return null;
+            }
+
+            firstDeliverableCandidate = deliverableCandidate.next;
+
+            recordRemovingMessageForDelivery();
+            return deliverableCandidate.item;
+        } else if (firstUndeliverable != null
+                && (firstUndeliverable.state.get() == Node.FULL_MESSAGE || awaitHead(firstUndeliverable))) {
+            Node newDeliverable = firstUndeliverable;
+            firstDeliverableCandidate = firstUndeliverable.next;
+            pushFirstUndeliverableCursor();
+
+            recordRemovingMessageForDelivery();
+            return newDeliverable.item;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Read the head delivery is waiting on and register it as awaited. The head is checked again once registered,
+     * hence either delivery sees the completed read or the reader sees the awaited head and wakes up delivery.
+     *
+     * @return true if the head became deliverable
+     */
+    private boolean awaitHead(Node head) {
+        readHead(head);
+        recordStall(head);
+        awaitedNode = head;
+        return head.state.get() == Node.FULL_MESSAGE;
+    }
+
+    @Override
+    public synchronized Message takeFirstUndelivered() {
+        Node head;
+        if (firstDeliverableCandidate != firstUndeliverable) {
+            head = firstDeliverableCandidate;
+            firstDeliverableCandidate = head.next;
+        } else if (firstUndeliverable != null) {
+            head = firstUndeliverable;
+            firstDeliverableCandidate = firstUndeliverable.next;
+            pushFirstUndeliverableCursor();
+        } else {
+            return null;
+        }
+
+        // A bare message is marked removed so that a pending read does not fill it. Removing the node counts it as
+        // deliverable, hence it is counted here.
+        if (head.state.compareAndSet(Node.BARE_MESSAGE, Node.REMOVED)
+                || head.state.compareAndSet(Node.SUBMITTED_FOR_FILLING, Node.REMOVED)) {
+            deliverableMessageCount.incrementAndGet();
+        }
+        recordRemovingMessageForDelivery();
+        return head.item;
+    }
+
+    /**
+     * Read the message delivery is waiting on even when the read-ahead budget is taken by full messages added
+     * behind it. Otherwise delivery would never reach those messages to free the budget.
+     */
+    private void readHead(Node head) {
+        if (Objects.nonNull(head) && head.state.compareAndSet(Node.BARE_MESSAGE, Node.SUBMITTED_FOR_FILLING)) {
+            pendingReadCount.incrementAndGet();
+            messageReader.fill(this, Collections.singletonList(head.item));
+        }
+    }
+
+    /**
+     * Grow the read-ahead window once per message delivery had to wait on while it was being read.
+     */
+    private void recordStall(Node head) {
+        if (Objects.nonNull(head) && head != stalledNode && head.state.get() == Node.SUBMITTED_FOR_FILLING) {
+            stalledNode = head;
+            readAheadWindow.recordStall();
+            submitMessageReads();
+        }
+    }
+
+    /**
+     * Update corresponding counts when message is removed from the queue for delivery.
+     */
+    private void recordRemovingMessageForDelivery() {
+        cacheAllocation.recordDelivery();
+        messagesInFlight.incrementAndGet();
+        undeliveredMessageCount.decrementAndGet();
+    }
+
+    private void pushFirstUndeliverableCursor() {
+        firstUndeliverable = firstUndeliverable.next;
+
+        while (firstUndeliverable != null && firstUndeliverable.state.get() == Node.FULL_MESSAGE) {
+            firstUndeliverable = firstUndeliverable.next;
+        }
+    }
+
+    /**
+     * Submit reads for the messages following the read cursor. Reads are submitted as a single batch while keeping
+     * the messages read ahead of delivery within the read-ahead window and the in-memory limit. Reads are pipelined,
+     * i.e. new reads are submitted while earlier reads are in progress.
+     */
+    private void submitMessageReads() {
+        int deliverableCount = deliverableMessageCount.get();
+        int readyCount = deliverableCount - messagesInFlight.get();
+        int completedReads = completedReadCount.get();
+        if (completedReads != lastCompletedReadCount) {
+            lastCompletedReadCount = completedReads;
+            readAheadWindow.recordFill(readyCount);
+        }
+
+        int fillableMessageCount = Math.min(inMemoryLimit - deliverableCount,
+                                            readAheadWindow.getSize() - readyCount) - pendingReadCount.get();
+        if (fillableMessageCount <= 0 || Objects.isNull(readCursor)) {
+            return;
+        }
+
+        List<Message> messages = new ArrayList<>(Math.min(fillableMessageCount, size.get()));
+        Node node = readCursor;
+        while (fillableMessageCount > 0 && node != null) {
+            if (node.state.compareAndSet(Node.BARE_MESSAGE, Node.SUBMITTED_FOR_FILLING)) {
+                messages.add(node.item);
+                fillableMessageCount--;
+            }
+            node = node.next;
+        }
+        readCursor = node;
+
+        if (!messages.isEmpty()) {
+            pendingReadCount.addAndGet(messages.size());
+            messageReader.fill(this, messages);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: This does not acquire the buffer lock since readers are invoked while holding it.
+     */
+    @Override
+    public void markMessagesFilled(Collection<Message> messages) {
+        boolean headFilled = false;
+        for (Message message : messages) {
+            Node node = keyMap.get(message.getInternalId());
+            if (Objects.nonNull(node)) {
+                node.cachedBytes = contentLengthOf(message);
+                // Fails if the node is removed concurrently
+                if (node.state.compareAndSet(Node.SUBMITTED_FOR_FILLING, Node.FULL_MESSAGE)
+                        || node.state.compareAndSet(Node.BARE_MESSAGE, Node.FULL_MESSAGE)) {
+                    cacheAllocation.allocate(node.cachedBytes);
+                    deliverableMessageCount.incrementAndGet();
+                    headFilled = headFilled || node == awaitedNode;
+                }
+            }
+        }
+        pendingReadCount.addAndGet(-messages.size());
+        completedReadCount.incrementAndGet();
+        if (headFilled) {
+            notifyHeadFilled();
+        }
+    }
+
+    /**
+     * Evict the content of undelivered messages starting from the end of the buffer. Evicted messages are read
+     * again before they are delivered.
+     *
+     * @param bytes number of bytes to evict
+     * @return number of bytes evicted
+     */
+    private synchronized long evict(long bytes) {
+        Node candidate = firstDeliverableCandidate;
+        if (Objects.isNull(candidate)) {
+            return 0;
+        }
+
+        long evictedBytes = 0;
+        Node firstEvicted = null;
+        boolean passedReadCursor = Objects.isNull(readCursor);
+        boolean rewindReadCursor = false;
+        for (Node node = last; Objects.nonNull(node) && evictedBytes < bytes; node = node.prev) {
+            passedReadCursor = passedReadCursor || node == readCursor;
+            if (node.state.get() == Node.FULL_MESSAGE && isEvictable(node.item)) {
+                rewindReadCursor = rewindReadCursor || passedReadCursor;
+                node.item.clearData();
+                node.state.set(Node.BARE_MESSAGE);
+                deliverableMessageCount.decrementAndGet();
+                cacheAllocation.release(node.cachedBytes);
+                evictedBytes += node.cachedBytes;
+                node.cachedBytes = 0;
+                firstEvicted = node;
+            }
+            if (node == candidate) {
+                break;
+            }
+        }
+
+        // Read cursor only moves forward. Move it back if evicted messages are behind it.
+        if (rewindReadCursor) {
+            readCursor = firstEvicted;
+        }
+        return evictedBytes;
+    }
+
+    @Override
+    public long getCachedBytes() {
+        return cacheAllocation.getBytes();
+    }
+
+    @Override
+    public void release() {
+        cacheAllocation.close();
+    }
+
+    private static class Node {
+        private static final int BARE_MESSAGE = 0;
+        private static final int SUBMITTED_FOR_FILLING = 1;
+        private static final int FULL_MESSAGE = 2;
+        private static final int REMOVED = 3;
+        private Message item;
+        /**
+         * Content bytes accounted in the cache budget while the node is full.
+         */
+        private volatile long cachedBytes;
+        private Node next;
+        private Node prev;
+        private AtomicInteger state = new AtomicInteger(BARE_MESSAGE);
+
+        Node(Node prev, Message element, Node next) {
+            this.item = element;
+            this.next = next;
+            this.prev = prev;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.core.Queue;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Factory class for the in memory queues used for non durable queues. If spilling is enabled, messages beyond the
+ * in-memory limits are written to temporary files instead of being rejected.
+ */
+public class MemQueueFactory {
+
+    private final int maxInMemoryDepth;
+
+    private final boolean spillEnabled;
+
+    private final long maxInMemoryBytes;
+
+    private final Path spillLocation;
+
+    private final long segmentSize;
+
+    public MemQueueFactory(BrokerCoreConfiguration configuration) {
+        maxInMemoryDepth = Integer.parseInt(configuration.getNonDurableQueueMaxDepth());
+        BrokerCoreConfiguration.NonDurableQueueSpill spillConfiguration = configuration.getNonDurableQueueSpill();
+        spillEnabled = spillConfiguration.isEnabled();
+        maxInMemoryBytes = Long.parseLong(spillConfiguration.getMaxInMemoryBytes());
+        spillLocation = Paths.get(spillConfiguration.getLocation());
+        segmentSize = Long.parseLong(spillConfiguration.getSegmentSize());
+        if (spillEnabled) {
+            SpillingMemQueueImpl.deleteStaleSpillFiles(spillLocation);
+        }
+    }
+
+    /**
+     * Create an in memory queue with the given arguments.
+     *
+     * @param queueName  name of the queue
+     * @param durable    true if the queue is durable
+     * @param autoDelete true if auto deletable
+     * @param arguments  arguments given when declaring the queue
+     * @return in memory queue
+     */
+    public Queue createQueue(String queueName, boolean durable, boolean autoDelete, FieldTable arguments) {
+        if (spillEnabled) {
+            return new SpillingMemQueueImpl(queueName, durable, autoDelete, arguments, maxInMemoryDepth,
+                                            maxInMemoryBytes, spillLocation, segmentSize);
+        }
+        return new MemQueueImpl(queueName, durable, maxInMemoryDepth, autoDelete, arguments);
+    }
+}
@@ -19,38 +19,54 @@
 
 package io.ballerina.messaging.broker.core.queue;
 
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Queue;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.transaction.xa.Xid;
 
 /**
- * In memory queue implementation for non durable queues.
+ * In memory queue implementation for non durable queues. Messages are indexed by message id in insertion order,
+ * hence committing a transaction costs in proportion to the messages of the transaction regardless of the queue
+ * depth.
  */
 public class MemQueueImpl extends Queue {
 
     private final int capacity;
 
-    private final java.util.Queue<Message> queue;
+    /**
+     * Messages of the queue keyed by message id. Guarded by this queue.
+     */
+    private final LinkedHashMap<Long, Message> queue = new LinkedHashMap<>();
 
     private final Map<Xid, List<Message>> pendingEnqueueMessages;
 
     private final Map<Xid, List<Message>> pendingDequeueMessages;
 
+    /**
+     * Content bytes of the messages waiting in the queue.
+     */
+    private final AtomicLong cachedBytes = new AtomicLong(0);
+
     public MemQueueImpl(String queueName, int capacity, boolean autoDelete) {
         this(queueName, false, capacity, autoDelete);
     }
 
     public MemQueueImpl(String queueName, boolean durable, int capacity, boolean autoDelete) {
-        super(queueName, durable, autoDelete);
+        this(queueName, durable, capacity, autoDelete, FieldTable.EMPTY_TABLE);
+    }
+
+    public MemQueueImpl(String queueName, boolean durable, int capacity, boolean autoDelete, FieldTable arguments) {
+        super(queueName, durable, autoDelete, arguments);
         this.capacity = capacity;
-        queue = new LinkedBlockingDeque<>(capacity);
         pendingEnqueueMessages = new ConcurrentHashMap<>();
         pendingDequeueMessages = new ConcurrentHashMap<>();
     }
@@ -71,13 +87,23 @@ public class MemQueueImpl extends Queue {
     }
 
     @Override
-    public int size() {
+    public synchronized int size() {
         return queue.size();
     }
 
     @Override
-    public boolean enqueue(Message message) {
-        return queue.offer(message);
+    public long cachedBytes() {
+        return cachedBytes.get();
+    }
+
+    @Override
+    public synchronized boolean enqueue(Message message) {
+        if (queue.size() >= capacity) {
+            return false;
+        }
+        queue.put(message.getInternalId(), message);
+        cachedBytes.addAndGet(QueueBuffer.contentLengthOf(message));
+        return true;
     }
 
     @Override
@@ -88,14 +114,25 @@ public class MemQueueImpl extends Queue {
 
     @Override
     public void commit(Xid xid) {
-        List<Message> dequeueMessages = pendingDequeueMessages.get(xid);
-        if (Objects.nonNull(dequeueMessages)) {
-            queue.removeAll(dequeueMessages);
-        }
-
-        List<Message> messages = pendingEnqueueMessages.get(xid);
-        if (Objects.nonNull(messages)) {
-            queue.addAll(messages);
+        List<Message> dequeueMessages = pendingDequeueMessages.remove(xid);
+        List<Message> messages = pendingEnqueueMessages.remove(xid);
+        synchronized (this) {
+            if (Objects.nonNull(dequeueMessages)) {
+                // Delivered messages have already left the queue unless they were put back
+                for (Message message : dequeueMessages) {
+                    Message removedMessage = queue.remove(message.getInternalId());
+                    if (Objects.nonNull(removedMessage)) {
+                        cachedBytes.addAndGet(-QueueBuffer.contentLengthOf(removedMessage));
+                    }
+                }
+            }
+
+            if (Objects.nonNull(messages)) {
+                for (Message message : messages) {
+                    queue.put(message.getInternalId(), message);
+                    cachedBytes.addAndGet(QueueBuffer.contentLengthOf(message));
+                }
+            }
         }
     }
 
@@ -106,8 +143,15 @@ public class MemQueueImpl extends Queue {
     }
 
     @Override
-    public Message dequeue() {
-        return queue.poll();
+    public synchronized Message dequeue() {
+        Iterator<Message> iterator = queue.values().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Message message = iterator.next();
+        iterator.remove();
+        cachedBytes.addAndGet(-QueueBuffer.contentLengthOf(message));
+        return message;
     }
 
     @Override
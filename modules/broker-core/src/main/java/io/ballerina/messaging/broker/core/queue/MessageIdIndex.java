@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import java.util.Arrays;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Maps message ids to positions in a {@link SegmentedQueueBuffer}. Entries are kept in primitive open addressing
+ * tables to avoid allocating an entry per message. The tables are striped by message id so that concurrent updates
+ * of different messages seldom contend on the same lock.
+ */
+@ThreadSafe
+final class MessageIdIndex {
+
+    /**
+     * Returned when a message id is not found in the index.
+     */
+    static final long NOT_FOUND = -1;
+
+    private static final int STRIPE_COUNT = 16;
+
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    MessageIdIndex() {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    void put(long messageId, long position) {
+        long hash = hash(messageId);
+        Stripe stripe = stripes[(int) (hash & (STRIPE_COUNT - 1))];
+        synchronized (stripe) {
+            stripe.put(messageId, position, hash);
+        }
+    }
+
+    long get(long messageId) {
+        long hash = hash(messageId);
+        Stripe stripe = stripes[(int) (hash & (STRIPE_COUNT - 1))];
+        synchronized (stripe) {
+            return stripe.get(messageId, hash);
+        }
+    }
+
+    long remove(long messageId) {
+        long hash = hash(messageId);
+        Stripe stripe = stripes[(int) (hash & (STRIPE_COUNT - 1))];
+        synchronized (stripe) {
+            return stripe.remove(messageId, hash);
+        }
+    }
+
+    private static long hash(long messageId) {
+        long hash = messageId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * Open addressing table with linear probing. Positions are never negative, hence a negative position marks an
+     * empty slot.
+     */
+    private static final class Stripe {
+
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+
+        private long[] positions = newPositionTable(INITIAL_STRIPE_CAPACITY);
+
+        private int size;
+
+        void put(long messageId, long position, long hash) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = slotOf(hash, mask);
+            while (positions[slot] != NOT_FOUND) {
+                if (keys[slot] == messageId) {
+                    positions[slot] = position;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = messageId;
+            positions[slot] = position;
+            size++;
+        }
+
+        long get(long messageId, long hash) {
+            int mask = keys.length - 1;
+            int slot = slotOf(hash, mask);
+            while (positions[slot] != NOT_FOUND) {
+                if (keys[slot] == messageId) {
+                    return positions[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NOT_FOUND;
+        }
+
+        long remove(long messageId, long hash) {
+            int mask = keys.length - 1;
+            int slot = slotOf(hash, mask);
+            while (positions[slot] != NOT_FOUND) {
+                if (keys[slot] == messageId) {
+                    long position = positions[slot];
+                    shiftBack(slot, mask);
+                    size--;
+                    if (keys.length > INITIAL_STRIPE_CAPACITY && size * 8 < keys.length) {
+                        resize(keys.length / 2);
+                    }
+                    return position;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NOT_FOUND;
+        }
+
+        /**
+         * Fill the removed slot with a following entry of the same probe sequence, so that lookups do not need
+         * tombstones.
+         */
+        private void shiftBack(int removedSlot, int mask) {
+            int gap = removedSlot;
+            int slot = (gap + 1) & mask;
+            while (positions[slot] != NOT_FOUND) {
+                int home = slotOf(hash(keys[slot]), mask);
+                // Move the entry if its home slot is not within (gap, slot]
+                if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                    keys[gap] = keys[slot];
+                    positions[gap] = positions[slot];
+                    gap = slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            positions[gap] = NOT_FOUND;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldPositions = positions;
+            keys = new long[capacity];
+            positions = newPositionTable(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldPositions[i] != NOT_FOUND) {
+                    int slot = slotOf(hash(oldKeys[i]), mask);
+                    while (positions[slot] != NOT_FOUND) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    positions[slot] = oldPositions[i];
+                }
+            }
+        }
+
+        private static int slotOf(long hash, int mask) {
+            // Low bits select the stripe, hence the slot is taken from the high bits
+            return (int) (hash >>> 40) & mask;
+        }
+
+        private static long[] newPositionTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, NOT_FOUND);
+            return table;
+        }
+    }
+}
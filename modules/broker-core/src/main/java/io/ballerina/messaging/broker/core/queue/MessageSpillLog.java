@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.store.MetadataCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * First in first out log of messages spilled to temporary segment files. Messages are appended to the last segment
+ * and read back from the first segment through buffered streams, hence both writes and reads are sequential. A
+ * segment file is deleted as soon as all of its messages are read back.
+ * <p>
+ * Spilled messages do not survive a restart. The log must be closed with {@link #close()} to delete its files.
+ */
+@NotThreadSafe
+final class MessageSpillLog {
+
+    private static final String FILE_PREFIX = "spill-";
+
+    private static final String FILE_SUFFIX = ".log";
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final ArrayDeque<SpillSegment> segments = new ArrayDeque<>();
+
+    private long nextSegmentId = 0;
+
+    private int size = 0;
+
+    /**
+     * Stream appending to the last segment.
+     */
+    private DataOutputStream writer;
+
+    /**
+     * Stream reading from the first segment.
+     */
+    private DataInputStream reader;
+
+    MessageSpillLog(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Append a message to the log. The caller remains the owner of the message content.
+     *
+     * @param message message with data
+     * @throws IOException if the message cannot be written
+     */
+    void append(Message message) throws IOException {
+        SpillSegment tail = segments.peekLast();
+        if (Objects.isNull(tail) || writer.size() >= segmentSize) {
+            tail = rollSegment();
+        }
+        write(message);
+        tail.writtenCount++;
+        size++;
+    }
+
+    /**
+     * Read the first message of the log. The log must not be empty.
+     *
+     * @return first message with data
+     * @throws IOException if the message cannot be read
+     */
+    Message poll() throws IOException {
+        if (size == 0) {
+            throw new IllegalStateException("Message spill log is empty");
+        }
+        SpillSegment head = segments.peekFirst();
+        if (head == segments.peekLast()) {
+            writer.flush();
+        }
+        if (Objects.isNull(reader)) {
+            reader = new DataInputStream(new BufferedInputStream(Files.newInputStream(head.path),
+                                                                 STREAM_BUFFER_SIZE));
+        }
+
+        Message message = read();
+        head.readCount++;
+        size--;
+        if (head.readCount == head.writtenCount) {
+            deleteHead();
+        }
+        return message;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Close the streams and delete all the segment files.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    void close() throws IOException {
+        while (!segments.isEmpty()) {
+            deleteHead();
+        }
+        size = 0;
+    }
+
+    private SpillSegment rollSegment() throws IOException {
+        if (Objects.nonNull(writer)) {
+            writer.close();
+        }
+        Files.createDirectories(directory);
+        Path path = directory.resolve(FILE_PREFIX + nextSegmentId++ + FILE_SUFFIX);
+        writer = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                STREAM_BUFFER_SIZE));
+        SpillSegment segment = new SpillSegment(path);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void deleteHead() throws IOException {
+        SpillSegment head = segments.pollFirst();
+        if (Objects.nonNull(reader)) {
+            reader.close();
+            reader = null;
+        }
+        if (segments.isEmpty()) {
+            writer.close();
+            writer = null;
+        }
+        Files.deleteIfExists(head.path);
+    }
+
+    private void write(Message message) throws IOException {
+        Metadata metadata = message.getMetadata();
+        writer.writeLong(message.getInternalId());
+        writer.writeInt(message.getRedeliveryCount());
+        writer.writeLong(message.getExpiryTime());
+        writer.writeUTF(metadata.getExchangeName());
+        writer.writeUTF(metadata.getRoutingKey());
+        writer.writeLong(metadata.getContentLength());
+        byte[] encodedMetadata = MetadataCodec.encode(metadata);
+        writer.writeInt(encodedMetadata.length);
+        writer.write(encodedMetadata);
+
+        writer.writeInt(message.getContentChunks().size());
+        for (ContentChunk chunk : message.getContentChunks()) {
+            ByteBuf content = chunk.getBytes();
+            int length = content.readableBytes();
+            writer.writeLong(chunk.getOffset());
+            writer.writeInt(length);
+            content.getBytes(content.readerIndex(), writer, length);
+        }
+    }
+
+    private Message read() throws IOException {
+        long messageId = reader.readLong();
+        int redeliveryCount = reader.readInt();
+        long expiryTime = reader.readLong();
+        String exchangeName = reader.readUTF();
+        String routingKey = reader.readUTF();
+        long contentLength = reader.readLong();
+        byte[] encodedMetadata = new byte[reader.readInt()];
+        reader.readFully(encodedMetadata);
+
+        Metadata metadata = new Metadata(routingKey, exchangeName, contentLength);
+        try {
+            MetadataCodec.decode(metadata, Unpooled.wrappedBuffer(encodedMetadata));
+        } catch (Exception e) {
+            throw new IOException("Error occurred while decoding spilled message " + messageId, e);
+        }
+        Message message = new Message(messageId, metadata);
+        message.setExpiryTime(expiryTime);
+        for (int i = 0; i < redeliveryCount; i++) {
+            message.setRedeliver();
+        }
+
+        int chunkCount = reader.readInt();
+        for (int i = 0; i < chunkCount; i++) {
+            long offset = reader.readLong();
+            byte[] content = new byte[reader.readInt()];
+            reader.readFully(content);
+            message.addChunk(new ContentChunk(offset, Unpooled.wrappedBuffer(content)));
+        }
+        return message;
+    }
+
+    /**
+     * Segment file of the log.
+     */
+    private static final class SpillSegment {
+
+        private final Path path;
+
+        private int writtenCount = 0;
+
+        private int readCount = 0;
+
+        SpillSegment(Path path) {
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps the backlog of a durable queue beyond the in-memory limit off the heap. Messages are added to the wrapped
+ * buffer while it holds fewer undelivered messages than the limit. Once the limit is reached, only the ids of later
+ * messages are kept in an {@link OffHeapMessageIdQueue} and {@link Message} objects are created for them when the
+ * wrapped buffer drains during delivery. Non persistent messages cannot be read back from the store, hence they are
+ * retained on the heap with their data.
+ * <p>
+ * Buffers of requeued messages keep the {@link Message} objects of the backlog without their data instead, since
+ * the redelivery state and the owned queues of a requeued message cannot be recreated from its id.
+ * <p>
+ * Publishers add to the wrapped buffer without taking the backlog lock while there is no backlog. Delivered
+ * messages are always in the wrapped buffer, hence the backlog is searched only for messages the wrapped buffer
+ * does not hold.
+ */
+@ThreadSafe
+final class OffHeapBacklogQueueBuffer extends QueueBuffer {
+
+    private final QueueBuffer buffer;
+
+    /**
+     * Maximum number of undelivered messages held by the wrapped buffer.
+     */
+    private final int inMemoryLimit;
+
+    private final ContentCacheBudget.Allocation cacheAllocation;
+
+    private final OffHeapMessageIdQueue backlog = new OffHeapMessageIdQueue();
+
+    /**
+     * True if the message objects of the backlog are retained even if their data is cleared.
+     */
+    private final boolean retainMessages;
+
+    /**
+     * Non persistent messages in the backlog, or every message of the backlog if message objects are retained.
+     */
+    private final Map<Long, Message> retainedMessages = new HashMap<>();
+
+    /**
+     * True while there are messages in the backlog. Updated while holding the backlog lock.
+     */
+    private volatile boolean backlogged = false;
+
+    private volatile int backlogSize = 0;
+
+    OffHeapBacklogQueueBuffer(QueueBuffer buffer, int inMemoryLimit, ContentCacheBudget cacheBudget) {
+        this(buffer, inMemoryLimit, cacheBudget, false);
+    }
+
+    OffHeapBacklogQueueBuffer(QueueBuffer buffer, int inMemoryLimit, ContentCacheBudget cacheBudget,
+                              boolean retainMessages) {
+        this.buffer = buffer;
+        this.inMemoryLimit = inMemoryLimit;
+        this.retainMessages = retainMessages;
+        // Only non persistent messages are cached in the backlog, which cannot be evicted
+        this.cacheAllocation = cacheBudget.register(bytes -> 0);
+    }
+
+    @Override
+    public void add(Message message) {
+        if (!backlogged && buffer.getNumberOfUndeliveredMessages() < inMemoryLimit) {
+            buffer.add(message);
+            return;
+        }
+        synchronized (this) {
+            if (!backlogged && buffer.getNumberOfUndeliveredMessages() < inMemoryLimit) {
+                buffer.add(message);
+            } else {
+                addToBacklog(message);
+            }
+        }
+    }
+
+    @Override
+    public void addBareMessage(Message message) {
+        if (!backlogged && buffer.getNumberOfUndeliveredMessages() < inMemoryLimit) {
+            buffer.addBareMessage(message);
+            return;
+        }
+        synchronized (this) {
+            if (!backlogged && buffer.getNumberOfUndeliveredMessages() < inMemoryLimit) {
+                buffer.addBareMessage(message);
+            } else {
+                addToBacklog(message);
+            }
+        }
+    }
+
+    private void addToBacklog(Message message) {
+        boolean retained = retainMessages;
+        if (Objects.nonNull(message.getMetadata()) && !isEvictable(message)) {
+            cacheAllocation.allocate(contentLengthOf(message));
+            retained = true;
+        } else {
+            message.clearData();
+        }
+        if (retained) {
+            retainedMessages.put(message.getInternalId(), message);
+        }
+        backlog.add(message.getInternalId(), retained);
+        backlogSize = backlog.size();
+        backlogged = true;
+    }
+
+    /**
+     * Move messages from the backlog to the wrapped buffer while it is below the in-memory limit.
+     */
+    private synchronized void refill() {
+        int room = inMemoryLimit - buffer.getNumberOfUndeliveredMessages();
+        for (int i = 0; i < room && !backlog.isEmpty(); i++) {
+            long entry = backlog.poll();
+            long messageId = OffHeapMessageIdQueue.messageIdOf(entry);
+            if (OffHeapMessageIdQueue.isRetained(entry)) {
+                Message message = retainedMessages.remove(messageId);
+                cacheAllocation.release(contentLengthOf(message));
+                if (Objects.nonNull(message.getMetadata())) {
+                    buffer.add(message);
+                } else {
+                    buffer.addBareMessage(message);
+                }
+            } else {
+                // Owned queues are restored by the store along with the data
+                buffer.addBareMessage(new Message(messageId, null));
+            }
+        }
+        backlogSize = backlog.size();
+        backlogged = !backlog.isEmpty();
+    }
+
+    @Override
+    public boolean remove(Message message) {
+        return buffer.remove(message) || (backlogged && removeFromBacklog(message));
+    }
+
+    private synchronized boolean removeFromBacklog(Message message) {
+        long messageId = message.getInternalId();
+        if (!backlog.remove(messageId)) {
+            // The message might have been moved to the wrapped buffer by a concurrent refill
+            return buffer.remove(message);
+        }
+        Message retainedMessage = retainedMessages.remove(messageId);
+        if (Objects.nonNull(retainedMessage)) {
+            cacheAllocation.release(contentLengthOf(retainedMessage));
+        }
+        backlogSize = backlog.size();
+        backlogged = !backlog.isEmpty();
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return buffer.size() + backlogSize;
+    }
+
+    @Override
+    public int getNumberOfInflightMessages() {
+        return buffer.getNumberOfInflightMessages();
+    }
+
+    @Override
+    public int getNumberOfUndeliveredMessages() {
+        return buffer.getNumberOfUndeliveredMessages() + backlogSize;
+    }
+
+    @Override
+    public Message getFirstDeliverable() {
+        if (backlogged) {
+            refill();
+        }
+        return buffer.getFirstDeliverable();
+    }
+
+    @Override
+    public Message takeFirstUndelivered() {
+        if (backlogged) {
+            refill();
+        }
+        return buffer.takeFirstUndelivered();
+    }
+
+    @Override
+    public long getCachedBytes() {
+        return buffer.getCachedBytes() + cacheAllocation.getBytes();
+    }
+
+    @Override
+    public synchronized void release() {
+        buffer.release();
+        cacheAllocation.close();
+        backlog.release();
+        retainedMessages.clear();
+        backlogSize = 0;
+        backlogged = false;
+    }
+
+    @Override
+    public void setHeadFillListener(Runnable headFillListener) {
+        buffer.setHeadFillListener(headFillListener);
+    }
+
+    @Override
+    public void markMessagesFilled(Collection<Message> messages) {
+        buffer.markMessagesFilled(messages);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * First in first out queue of message ids kept in off-heap memory. Each entry holds a message id and its state flags
+ * in a single long. Entries are kept in fixed size pooled direct buffer chunks which are freed as soon as they are
+ * consumed, hence the queue neither copies entries when it grows nor adds to the heap or to GC pauses however long
+ * the backlog is. An empty queue holds no off-heap memory.
+ * <p>
+ * The queue must be released with {@link #release()} once it is no longer used.
+ */
+@NotThreadSafe
+final class OffHeapMessageIdQueue {
+
+    /**
+     * Flag of messages whose data is retained on the heap by the owner of the queue.
+     */
+    private static final long RETAINED_FLAG = Long.MIN_VALUE;
+
+    /**
+     * Marks an entry removed from the middle of the queue.
+     */
+    private static final long REMOVED_ENTRY = -1L;
+
+    static final int ENTRIES_PER_CHUNK = 4096;
+
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+
+    private int size = 0;
+
+    /**
+     * Add a message id to the end of the queue.
+     *
+     * @param messageId non negative message id
+     * @param retained  true if the message data is retained on the heap
+     */
+    void add(long messageId, boolean retained) {
+        if (messageId < 0 || messageId == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid message id " + messageId);
+        }
+        Chunk tail = chunks.peekLast();
+        if (tail == null || tail.isFull()) {
+            tail = new Chunk();
+            chunks.addLast(tail);
+        }
+        tail.add(retained ? messageId | RETAINED_FLAG : messageId);
+        size++;
+    }
+
+    /**
+     * Remove the first entry. The queue must not be empty.
+     *
+     * @return first entry. Use {@link #messageIdOf(long)} and {@link #isRetained(long)} to read it
+     */
+    long poll() {
+        if (size == 0) {
+            throw new IllegalStateException("Message id queue is empty");
+        }
+        while (true) {
+            Chunk head = chunks.peekFirst();
+            long entry = head.poll();
+            if (head.isDrained()) {
+                chunks.pollFirst().release();
+            }
+            if (entry != REMOVED_ENTRY) {
+                size--;
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Remove the given message id from any position of the queue. Linear in the size of the queue.
+     *
+     * @param messageId message id
+     * @return true if the id was found
+     */
+    boolean remove(long messageId) {
+        for (Chunk chunk : chunks) {
+            if (chunk.remove(messageId)) {
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long messageIdOf(long entry) {
+        return entry & ~RETAINED_FLAG;
+    }
+
+    static boolean isRetained(long entry) {
+        return (entry & RETAINED_FLAG) != 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Free the off-heap memory of the queue. The queue is empty afterwards.
+     */
+    void release() {
+        Iterator<Chunk> iterator = chunks.iterator();
+        while (iterator.hasNext()) {
+            iterator.next().release();
+            iterator.remove();
+        }
+        size = 0;
+    }
+
+    /**
+     * Direct buffer holding a fixed number of entries. Entries are written once and read once.
+     */
+    private static final class Chunk {
+
+        private final ByteBuf entries = PooledByteBufAllocator.DEFAULT.directBuffer(ENTRIES_PER_CHUNK * Long.BYTES);
+
+        private int readIndex = 0;
+
+        private int writeIndex = 0;
+
+        void add(long entry) {
+            entries.setLong(writeIndex * Long.BYTES, entry);
+            writeIndex++;
+        }
+
+        long poll() {
+            long entry = entries.getLong(readIndex * Long.BYTES);
+            readIndex++;
+            return entry;
+        }
+
+        boolean remove(long messageId) {
+            for (int i = readIndex; i < writeIndex; i++) {
+                long entry = entries.getLong(i * Long.BYTES);
+                if (entry != REMOVED_ENTRY && messageIdOf(entry) == messageId) {
+                    entries.setLong(i * Long.BYTES, REMOVED_ENTRY);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isFull() {
+            return writeIndex == ENTRIES_PER_CHUNK;
+        }
+
+        boolean isDrained() {
+            return readIndex == writeIndex;
+        }
+
+        void release() {
+            entries.release();
+        }
+    }
+}
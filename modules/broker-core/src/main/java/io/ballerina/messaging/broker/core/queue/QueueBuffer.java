@@ -20,93 +20,36 @@
 package io.ballerina.messaging.broker.core.queue;
 
 import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Used to track messages for the queue.
+ * Used to track messages for the queue. Messages exceeding the in-memory limit are kept as bare messages and their
+ * data is read through a {@link MessageReader} ahead of delivery.
  */
-public class QueueBuffer {
+public abstract class QueueBuffer {
 
     /**
-     * Maximum number of messages held in memory.
+     * Denotes that the content of a message is not cached.
      */
-    private final int inMemoryLimit;
+    static final long NOT_CACHED = -1;
 
-    /**
-     * Used to submit read requests for a message.
-     */
-    private final MessageReader messageReader;
-
-    /**
-     * Size of the queue. i.e. in memory messages + DB messages.
-     */
-    private AtomicInteger size = new AtomicInteger(0);
-
-    /**
-     * Number of messages that are retrieved for delivery but not yet removed.
-     */
-    private AtomicInteger messagesInFlight = new AtomicInteger(0);
-
-    /**
-     * Number of in memory messages.
-     */
-    private AtomicInteger deliverableMessageCount = new AtomicInteger(0);
-
-    /**
-     * Total Number of undelivered messages in the buffer.
-     */
-    private AtomicInteger undeliveredMessageCount = new AtomicInteger(0);
-
-    /**
-     * Pointer to first deliverable candidate node.
-     */
-    private Node firstDeliverableCandidate;
-
-    /**
-     * Pointer to last deliverable node.
-     */
-    private Node firstUndeliverable;
-
-    /**
-     * Pointer to last node.
-     */
-    private Node last;
-
-    /**
-     * Used to fast lookup the node for a message ID
-     */
-    private Map<Long, Node> keyMap = new ConcurrentHashMap<>();
-
-    QueueBuffer(int inMemoryLimit, MessageReader messageReader) {
-        this.inMemoryLimit = inMemoryLimit;
-        this.messageReader = messageReader;
-    }
+    private volatile Runnable headFillListener = () -> { };
 
     /**
-     * Appends the specified message to the end of this list.
+     * Appends the specified message to the end of this buffer.
      *
-     * @param message message to be appended to this list
+     * @param message message to be appended to this buffer
      */
-    public synchronized void add(Message message) {
-        linkLast(message);
-        postProcessDeliverableNode();
-    }
+    public abstract void add(Message message);
 
-    /**
-     * Add messages as bare messages to the queue buffer. This means that broker has to fetch message data for each
-     * and every message in this list.
-     *
-     * @param messages list of messages
-     */
-    public synchronized void addAllBareMessages(Collection<Message> messages) {
+    public void addAll(List<Message> messages) {
         for (Message message : messages) {
-            addBareMessage(message);
+            add(message);
         }
     }
 
@@ -116,62 +59,17 @@ public class QueueBuffer {
      *
      * @param message bare message
      */
-    public synchronized void addBareMessage(Message message) {
-        linkLast(message);
-        postProcessBareMessage();
-    }
-
-    /**
-     * Links newMessage as last element.
-     */
-    private void linkLast(Message newMessage) {
-        size.incrementAndGet();
-        undeliveredMessageCount.incrementAndGet();
-
-        final Node previousLast = last;
-        final Node newNode = new Node(previousLast, newMessage, null);
-
-        last = newNode;
-        keyMap.put(newMessage.getInternalId(), newNode);
-
-        if (Objects.nonNull(previousLast)) {
-            previousLast.next = newNode;
-        }
-    }
-
-    /**
-     * Post process the added deliverable message looking at the queue size and the in memory limit. Message data
-     * will be cleared if we have deliverable messages than in-memory limit.
-     */
-    private void postProcessDeliverableNode() {
-        Node newNode = last;
-        if (size.get() > inMemoryLimit) {
-
-            if (Objects.isNull(firstUndeliverable)) {
-                firstUndeliverable = newNode;
-            }
-
-            newNode.item.clearData();
-        } else {
-            newNode.state.set(Node.FULL_MESSAGE);
-            deliverableMessageCount.incrementAndGet();
-
-            if (Objects.isNull(firstDeliverableCandidate)) {
-                firstDeliverableCandidate = newNode;
-            }
-        }
-    }
+    public abstract void addBareMessage(Message message);
 
     /**
-     * Post process after adding a bare message.
+     * Add messages as bare messages to the queue buffer. This means that broker has to fetch message data for each
+     * and every message in this list.
+     *
+     * @param messages list of messages
      */
-    private void postProcessBareMessage() {
-        Node newNode = last;
-        if (Objects.isNull(firstUndeliverable)) {
-            firstUndeliverable = newNode;
-        }
-        if (Objects.isNull(firstDeliverableCandidate)) {
-            firstDeliverableCandidate = newNode;
+    public void addAllBareMessages(Collection<Message> messages) {
+        for (Message message : messages) {
+            addBareMessage(message);
         }
     }
 
@@ -179,168 +77,126 @@ public class QueueBuffer {
      * Remove a message from the buffer.
      *
      * @param message message to remove
+     * @return true if the message was in the buffer
      */
-    public synchronized void remove(Message message) {
-        long messageId = message.getInternalId();
-        Node node = keyMap.remove(messageId);
-        if (Objects.nonNull(node)) {
-            unlink(node);
-        }
-    }
+    public abstract boolean remove(Message message);
 
-    public synchronized void removeAll(Collection<Message> messages) {
+    public void removeAll(Collection<Message> messages) {
         for (Message message : messages) {
             remove(message);
         }
     }
 
-    /**
-     * Unlinks a non-null node.
-     */
-    private void unlink(Node node) {
-        final Node next = node.next;
-        final Node prev = node.prev;
-
-        // if prev is null we are removing the first element
-        if (Objects.nonNull(prev)) {
-            prev.next = next;
-            node.prev = null;
-        }
-
-        // if next is null we are removing the last element
-        if (next == null) {
-            last = prev;
-        } else {
-            next.prev = prev;
-            node.next = null;
-        }
-
-        node.item = null;
-        size.decrementAndGet();
-        deliverableMessageCount.decrementAndGet();
-        messagesInFlight.decrementAndGet();
-        submitMessageReads();
-    }
-
     /**
      * Size of the queue.
      *
      * @return total number of messages tracked in queue buffer
      */
-    public int size() {
-        return size.get();
-    }
+    public abstract int size();
 
     /**
      * Total number of messages given out for delivery but has not removed from the buffer yet.
      *
      * @return number of messages in flight
      */
-    public int getNumberOfInflightMessages() {
-        return messagesInFlight.get();
-    }
+    public abstract int getNumberOfInflightMessages();
 
     /**
      * Total number of messages that are yet to be retrieved for delivery.
      *
      * @return number of undelivered messages
      */
-    public int getNumberOfUndeliveredMessages() {
-        return undeliveredMessageCount.get();
-    }
+    public abstract int getNumberOfUndeliveredMessages();
 
     /**
      * Return the first deliverable message if one is available.
      *
      * @return the next deliverable message in queue
      */
-    public synchronized Message getFirstDeliverable() {
+    public abstract Message getFirstDeliverable();
 
-        submitMessageReads();
-        Node deliverableCandidate = firstDeliverableCandidate;
-
-        if (deliverableCandidate != firstUndeliverable) {
-
-            if (deliverableCandidate.state.get() != Node.FULL_MESSAGE) {
-                return null;
-            }
+    /**
+     * Take the first undelivered message even if its data is not read yet. Used to drop messages from the head of
+     * the queue without waiting for their data. The message is counted as in flight until it is removed.
+     *
+     * @return first undelivered message, which may be a bare message, or null if there is none
+     */
+    public abstract Message takeFirstUndelivered();
 
-            firstDeliverableCandidate = deliverableCandidate.next;
+    /**
+     * Number of bytes of message content cached in the buffer.
+     *
+     * @return cached content size in bytes
+     */
+    public abstract long getCachedBytes();
 
-            recordRemovingMessageForDelivery();
-            return deliverableCandidate.item;
-        } else if (firstUndeliverable != null && firstUndeliverable.state.get() == Node.FULL_MESSAGE) {
-            Node newDeliverable = firstUndeliverable;
-            firstDeliverableCandidate = firstUndeliverable.next;
-            pushFirstUndeliverableCursor();
+    /**
+     * Release the content cached by the buffer from the broker wide budget. Invoked once the queue is deleted.
+     */
+    public abstract void release();
 
-            recordRemovingMessageForDelivery();
-            return newDeliverable.item;
-        } else {
-            return null;
-        }
+    public void markMessageFilled(Message message) {
+        markMessagesFilled(Collections.singletonList(message));
     }
 
     /**
-     * Update corresponding counts when message is removed from the queue for delivery.
+     * Mark the data of the given messages as read. Should be called once for every message submitted for reading.
+     * <p>
+     * Note: Implementations must not acquire locks held while invoking the {@link MessageReader}.
+     *
+     * @param messages messages with data
      */
-    private void recordRemovingMessageForDelivery() {
-        messagesInFlight.incrementAndGet();
-        undeliveredMessageCount.decrementAndGet();
-    }
-
-    private void pushFirstUndeliverableCursor() {
-        firstUndeliverable = firstUndeliverable.next;
+    public abstract void markMessagesFilled(Collection<Message> messages);
 
-        while (firstUndeliverable != null && firstUndeliverable.state.get() == Node.FULL_MESSAGE) {
-            firstUndeliverable = firstUndeliverable.next;
-        }
+    /**
+     * Set the listener invoked when a read makes the message delivery is waiting on deliverable, i.e. to wake up the
+     * delivery task parked while the message was being read.
+     *
+     * @param headFillListener listener invoked by the reader thread
+     */
+    public void setHeadFillListener(Runnable headFillListener) {
+        this.headFillListener = headFillListener;
     }
 
-    private void submitMessageReads() {
-        int fillableMessageCount = inMemoryLimit - deliverableMessageCount.get();
-
-        Node undeliverableNode = this.firstUndeliverable;
-        while (fillableMessageCount-- > 0 && undeliverableNode != null) {
-            if (undeliverableNode.state.compareAndSet(Node.BARE_MESSAGE, Node.SUBMITTED_FOR_FILLING)) {
-                Message message = undeliverableNode.item;
-                messageReader.fill(this, message);
-            } else {
-                break;
-            }
-
-            undeliverableNode = undeliverableNode.next;
-        }
+    protected final void notifyHeadFilled() {
+        headFillListener.run();
     }
 
-    public void markMessageFilled(Message message) {
-        Node node = keyMap.get(message.getInternalId());
-        if (Objects.nonNull(node)) {
-            node.state.set(Node.FULL_MESSAGE);
-            deliverableMessageCount.incrementAndGet();
+    /**
+     * Reserve room in the content cache budget for a message added with data.
+     *
+     * @param cacheAllocation share of the cache budget of the buffer
+     * @param message         added message
+     * @return reserved bytes or {@link #NOT_CACHED} if the message data should be cleared
+     */
+    static long reserveCache(ContentCacheBudget.Allocation cacheAllocation, Message message) {
+        long contentLength = message.getMetadata().getContentLength();
+        if (!isPersistent(message.getMetadata())) {
+            // Non persistent messages cannot be read back from the store
+            cacheAllocation.allocate(contentLength);
+            return contentLength;
         }
+        return cacheAllocation.reserve(contentLength) ? contentLength : NOT_CACHED;
     }
 
-    public synchronized void addAll(List<Message> messages) {
-        for (Message message: messages) {
-            add(message);
-        }
+    /**
+     * Content length of a message. Messages without data, i.e. messages that could not be read, have no content.
+     */
+    static long contentLengthOf(Message message) {
+        Metadata metadata = message.getMetadata();
+        return Objects.nonNull(metadata) ? metadata.getContentLength() : 0;
     }
 
-    private static class Node {
-        private static final int BARE_MESSAGE = 0;
-        private static final int SUBMITTED_FOR_FILLING = 1;
-        private static final int FULL_MESSAGE = 2;
-        private Message item;
-        private Node next;
-        private Node prev;
-        private AtomicInteger state = new AtomicInteger(BARE_MESSAGE);
+    /**
+     * Only the content of persistent messages can be evicted since it can be read back from the store.
+     */
+    static boolean isEvictable(Message message) {
+        Metadata metadata = message.getMetadata();
+        return Objects.nonNull(metadata) && isPersistent(metadata);
+    }
 
-        Node(Node prev, Message element, Node next) {
-            this.item = element;
-            this.next = next;
-            this.prev = prev;
-        }
+    private static boolean isPersistent(Metadata metadata) {
+        return Objects.nonNull(metadata.getProperty(Metadata.DELIVERY_MODE)) && metadata.isPersistent();
     }
 
     /**
@@ -349,6 +205,13 @@ public class QueueBuffer {
     @FunctionalInterface
     public interface MessageReader {
 
-        void fill(QueueBuffer buffer, Message message);
+        /**
+         * Read the data of the given messages and call {@link QueueBuffer#markMessagesFilled(Collection)} once the
+         * data is available. Messages are ordered by their position in the buffer.
+         *
+         * @param buffer   buffer the messages belong to
+         * @param messages bare messages
+         */
+        void fill(QueueBuffer buffer, List<Message> messages);
     }
 }
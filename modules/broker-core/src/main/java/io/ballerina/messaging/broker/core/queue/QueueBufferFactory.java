@@ -19,18 +19,151 @@
 
 package io.ballerina.messaging.broker.core.queue;
 
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.core.QueueArguments;
 import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * Factory class for {@link QueueBuffer}.
  */
 public class QueueBufferFactory {
+
+    /**
+     * Minimum number of messages kept read ahead of delivery for durable queues with messages in the store.
+     */
+    private static final int MIN_READ_AHEAD = 128;
+
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
     private int inMemoryCacheLimit;
 
+    /**
+     * Buffer type used for queues without a specific type.
+     */
+    private final BufferType defaultType;
+
+    private final Map<String, BufferType> queueTypes = new HashMap<>();
+
+    /**
+     * Content cache budget shared by all the buffers created by the factory.
+     */
+    private final ContentCacheBudget cacheBudget;
+
+    /**
+     * True if messages beyond the in-memory limit are kept as ids off the heap.
+     */
+    private final boolean offHeapBacklog;
+
+    /**
+     * Maximum number of requeued messages of a queue kept in memory with their data.
+     */
+    private final int redeliveryInMemoryLimit;
+
     public QueueBufferFactory(BrokerCoreConfiguration configuration) {
         inMemoryCacheLimit = Integer.parseInt(configuration.getDurableQueueInMemoryCacheLimit());
+        BrokerCoreConfiguration.DurableQueueBuffer bufferConfiguration = configuration.getDurableQueueBuffer();
+        long cacheBudgetBytes = Long.parseLong(bufferConfiguration.getContentCacheBudget()) * BYTES_PER_MEGABYTE;
+        cacheBudget = new ContentCacheBudget(cacheBudgetBytes);
+        offHeapBacklog = Boolean.parseBoolean(bufferConfiguration.getOffHeapBacklog());
+        redeliveryInMemoryLimit = Integer.parseInt(configuration.getRedelivery().getInMemoryLimit());
+        defaultType = BufferType.parse(bufferConfiguration.getType());
+        bufferConfiguration.getQueueTypes().forEach((queueName, type) -> queueTypes.put(queueName,
+                                                                                         BufferType.parse(type)));
     }
 
     public QueueBuffer createBuffer(QueueBuffer.MessageReader messageReader) {
-        return new QueueBuffer(inMemoryCacheLimit, messageReader);
+        return createBuffer(defaultType, messageReader);
+    }
+
+    /**
+     * Create a buffer of the type configured for the queue. Lazy queues use a {@link LazyQueueBuffer} regardless of
+     * the configured type.
+     *
+     * @param queueName     name of the queue
+     * @param arguments     arguments given when declaring the queue
+     * @param messageReader reader used to fill bare messages
+     * @return queue buffer
+     */
+    public QueueBuffer createBuffer(String queueName, FieldTable arguments, QueueBuffer.MessageReader messageReader) {
+        if (QueueArguments.isLazy(arguments)) {
+            return new LazyQueueBuffer(Math.min(MIN_READ_AHEAD, inMemoryCacheLimit), messageReader, cacheBudget);
+        }
+        return createBuffer(queueTypes.getOrDefault(queueName, defaultType), messageReader);
+    }
+
+    private QueueBuffer createBuffer(BufferType type, QueueBuffer.MessageReader messageReader) {
+        QueueBuffer buffer = type.create(inMemoryCacheLimit, Math.min(MIN_READ_AHEAD, inMemoryCacheLimit),
+                                         messageReader, cacheBudget);
+        if (offHeapBacklog) {
+            return new OffHeapBacklogQueueBuffer(buffer, inMemoryCacheLimit, cacheBudget);
+        }
+        return buffer;
+    }
+
+    /**
+     * Create a share of the content cache budget for content cached outside a buffer. The content cannot be
+     * evicted.
+     *
+     * @return cache allocation
+     */
+    ContentCacheBudget.Allocation createCacheAllocation() {
+        return cacheBudget.register(bytes -> 0);
+    }
+
+    /**
+     * Create a buffer for the messages of a queue requeued for redelivery. Requeued messages beyond the in-memory
+     * limit are kept without their data and read from the store in order when they are about to be redelivered.
+     * <p>
+     * Requeued messages stay cached by the buffer of the owning queue until they are acknowledged, hence they are not
+     * charged to the content cache budget again.
+     *
+     * @param messageReader reader used to fill bare messages
+     * @return queue buffer
+     */
+    public QueueBuffer createRedeliveryBuffer(QueueBuffer.MessageReader messageReader) {
+        ContentCacheBudget redeliveryBudget = ContentCacheBudget.unlimited();
+        QueueBuffer buffer = new LinkedQueueBuffer(redeliveryInMemoryLimit,
+                                                   Math.min(MIN_READ_AHEAD, redeliveryInMemoryLimit),
+                                                   messageReader, redeliveryBudget);
+        return new OffHeapBacklogQueueBuffer(buffer, redeliveryInMemoryLimit, redeliveryBudget, true);
+    }
+
+    /**
+     * Available {@link QueueBuffer} implementations.
+     */
+    public enum BufferType {
+
+        /**
+         * Linked list of messages guarded by a single lock.
+         */
+        LINKED {
+            @Override
+            QueueBuffer create(int inMemoryLimit, int minReadAhead, QueueBuffer.MessageReader messageReader,
+                               ContentCacheBudget cacheBudget) {
+                return new LinkedQueueBuffer(inMemoryLimit, minReadAhead, messageReader, cacheBudget);
+            }
+        },
+
+        /**
+         * Array segments with lock free publishing and a single delivery cursor.
+         */
+        SEGMENTED {
+            @Override
+            QueueBuffer create(int inMemoryLimit, int minReadAhead, QueueBuffer.MessageReader messageReader,
+                               ContentCacheBudget cacheBudget) {
+                return new SegmentedQueueBuffer(inMemoryLimit, minReadAhead, messageReader, cacheBudget);
+            }
+        };
+
+        abstract QueueBuffer create(int inMemoryLimit, int minReadAhead, QueueBuffer.MessageReader messageReader,
+                                    ContentCacheBudget cacheBudget);
+
+        static BufferType parse(String type) {
+            return valueOf(type.trim().toUpperCase(Locale.ENGLISH));
+        }
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Number of messages {@link QueueBuffer} keeps read or being read ahead of the delivery cursor.
+ * <p>
+ * The window adapts to the rate consumers drain the queue relative to the time taken to read message data. When
+ * delivery catches up with a message that is still being read the window is doubled. When a read is found completed
+ * while more than half the window is still waiting for delivery the window is shrunk by a quarter, releasing memory
+ * held for slow consumers.
+ */
+@NotThreadSafe
+final class ReadAheadWindow {
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private int size;
+
+    ReadAheadWindow(int minSize, int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(1, Math.min(minSize, this.maxSize));
+        this.size = this.minSize;
+    }
+
+    /**
+     * Maximum number of messages that should be read or being read ahead of delivery.
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Record that delivery is waiting on a message that is still being read.
+     */
+    void recordStall() {
+        size = (int) Math.min(maxSize, size * 2L);
+    }
+
+    /**
+     * Record a completed read.
+     *
+     * @param readyMessages number of read messages waiting for delivery
+     */
+    void recordFill(int readyMessages) {
+        if (readyMessages > size / 2) {
+            size = Math.max(minSize, size - size / 4);
+        }
+    }
+}
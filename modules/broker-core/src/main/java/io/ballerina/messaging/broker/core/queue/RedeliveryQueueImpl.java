@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Queue;
+
+import java.util.Objects;
+import javax.transaction.xa.Xid;
+
+/**
+ * Holds the messages of a durable queue that are requeued for redelivery. Messages are kept in a
+ * {@link QueueBuffer} in the order they were requeued. Once the buffer reaches its in-memory limit, the data of the
+ * requeued messages is cleared and read from the store before they are redelivered. Messages leave
+ * the buffer as soon as they are taken for redelivery and are acknowledged through the owning queue.
+ */
+final class RedeliveryQueueImpl extends Queue {
+
+    private final QueueBuffer buffer;
+
+    RedeliveryQueueImpl(String queueName, QueueBuffer buffer) {
+        super(queueName, true, false);
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int capacity() {
+        return Queue.UNBOUNDED;
+    }
+
+    @Override
+    public int size() {
+        return buffer.getNumberOfUndeliveredMessages();
+    }
+
+    @Override
+    public long cachedBytes() {
+        return buffer.getCachedBytes();
+    }
+
+    @Override
+    public boolean enqueue(Message message) {
+        if (Objects.nonNull(message.getMetadata())) {
+            buffer.add(message);
+        } else {
+            buffer.addBareMessage(message);
+        }
+        return true;
+    }
+
+    @Override
+    public void prepareEnqueue(Xid xid, Message message) {
+        throw new UnsupportedOperationException("Requeued messages are not enqueued within transactions");
+    }
+
+    @Override
+    public void commit(Xid xid) {
+        // Nothing to commit since requeued messages are not enqueued within transactions
+    }
+
+    @Override
+    public void rollback(Xid xid) {
+        // Nothing to roll back since requeued messages are not enqueued within transactions
+    }
+
+    @Override
+    public Message dequeue() {
+        Message message = buffer.getFirstDeliverable();
+        if (Objects.nonNull(message)) {
+            buffer.remove(message);
+        }
+        return message;
+    }
+
+    @Override
+    public Message dequeueHead() {
+        Message message = buffer.takeFirstUndelivered();
+        if (Objects.nonNull(message)) {
+            buffer.remove(message);
+        }
+        return message;
+    }
+
+    @Override
+    public void detach(Message message) {
+        buffer.remove(message);
+    }
+
+    @Override
+    public void prepareDetach(Xid xid, Message message) {
+        throw new UnsupportedOperationException("Requeued messages are detached through the owning queue");
+    }
+
+    @Override
+    public void release() {
+        buffer.release();
+    }
+}
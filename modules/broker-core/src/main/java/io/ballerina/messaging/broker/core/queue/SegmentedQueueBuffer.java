@@ -0,0 +1,611 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link QueueBuffer} backed by a linked list of fixed size array segments, which does not use a buffer wide lock.
+ * <p>
+ * Publishers claim a position at the tail with a single atomic increment and any number of threads can add messages
+ * concurrently. Message ids are mapped to their positions in a {@link MessageIdIndex} to find the slot of removed
+ * and filled messages. Delivery uses a single cursor, hence {@link #getFirstDeliverable()} must not be called
+ * concurrently. Message reads are submitted by the delivery thread as well.
+ * <p>
+ * Removed slots are released with their segment once every slot of the segment is removed. Content evicted to meet
+ * the {@link ContentCacheBudget} is cleared by the evicting thread, and the delivery thread moves its read cursor
+ * back to the first evicted message on its next attempt to retrieve a message.
+ */
+@ThreadSafe
+final class SegmentedQueueBuffer extends QueueBuffer {
+
+    /**
+     * Number of slots in a segment. Must be a power of 2.
+     */
+    static final int SEGMENT_SIZE = 1024;
+
+    private static final int SEGMENT_SHIFT = Integer.numberOfTrailingZeros(SEGMENT_SIZE);
+
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * Slot is claimed by a publisher but the message is not yet visible.
+     */
+    private static final int EMPTY = 0;
+
+    private static final int BARE_MESSAGE = 1;
+
+    private static final int SUBMITTED_FOR_FILLING = 2;
+
+    private static final int FULL_MESSAGE = 3;
+
+    private static final int DELIVERED = 4;
+
+    private static final int REMOVED = 5;
+
+    /**
+     * Content of the message is being cleared by an eviction.
+     */
+    private static final int EVICTING = 6;
+
+    /**
+     * Message is taken from the head to be dropped before its data was read.
+     */
+    private static final int DROPPED = 7;
+
+    private static final long NO_EVICTED_POSITION = Long.MAX_VALUE;
+
+    /**
+     * Maximum number of messages held in memory.
+     */
+    private final int inMemoryLimit;
+
+    /**
+     * Used to submit read requests for a message.
+     */
+    private final MessageReader messageReader;
+
+    /**
+     * Number of messages to keep read ahead of the delivery cursor. Only accessed by the delivery thread.
+     */
+    private final ReadAheadWindow readAheadWindow;
+
+    private final MessageIdIndex messageIdIndex = new MessageIdIndex();
+
+    /**
+     * Position assigned to the next added message.
+     */
+    private final AtomicLong tailPosition = new AtomicLong(0);
+
+    /**
+     * Oldest segment with slots that are not removed.
+     */
+    private final AtomicReference<Segment> headSegment;
+
+    /**
+     * Latest segment linked by a publisher. Used as the starting point to find the segment of a new message.
+     */
+    private final AtomicReference<Segment> tailSegment;
+
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    private final AtomicInteger messagesInFlight = new AtomicInteger(0);
+
+    private final AtomicInteger deliverableMessageCount = new AtomicInteger(0);
+
+    private final AtomicInteger undeliveredMessageCount = new AtomicInteger(0);
+
+    private final AtomicInteger pendingReadCount = new AtomicInteger(0);
+
+    private final AtomicInteger completedReadCount = new AtomicInteger(0);
+
+    /**
+     * Share of the broker wide content cache budget.
+     */
+    private final ContentCacheBudget.Allocation cacheAllocation;
+
+    /**
+     * Lowest position evicted since the delivery thread last moved the read cursor.
+     */
+    private final AtomicLong evictedPosition = new AtomicLong(NO_EVICTED_POSITION);
+
+    /**
+     * Delivery cursor. Only updated by the delivery thread. Read by evicting threads.
+     */
+    private volatile long deliveryPosition;
+
+    /**
+     * Read-ahead window size published by the delivery thread for evicting threads.
+     */
+    private volatile int readAheadSize;
+
+    private Segment deliverySegment;
+
+    /**
+     * Position of the first message that is not yet considered for reading. Only accessed by the delivery thread.
+     */
+    private long readPosition;
+
+    private Segment readSegment;
+
+    private long stalledPosition = -1;
+
+    /**
+     * Position delivery found being read last. The read completing it wakes up delivery.
+     */
+    private volatile long awaitedPosition = -1;
+
+    private int lastCompletedReadCount;
+
+    SegmentedQueueBuffer(int inMemoryLimit, int minReadAhead, MessageReader messageReader,
+                         ContentCacheBudget cacheBudget) {
+        this.inMemoryLimit = inMemoryLimit;
+        this.messageReader = messageReader;
+        this.readAheadWindow = new ReadAheadWindow(minReadAhead, inMemoryLimit);
+        this.readAheadSize = readAheadWindow.getSize();
+        Segment firstSegment = new Segment(0);
+        headSegment = new AtomicReference<>(firstSegment);
+        tailSegment = new AtomicReference<>(firstSegment);
+        deliverySegment = firstSegment;
+        readSegment = firstSegment;
+        cacheAllocation = cacheBudget.register(this::evict);
+    }
+
+    @Override
+    public void add(Message message) {
+        undeliveredMessageCount.incrementAndGet();
+        long cachedBytes = size.incrementAndGet() > inMemoryLimit ? NOT_CACHED : reserveCache(cacheAllocation, message);
+        if (cachedBytes == NOT_CACHED) {
+            message.clearData();
+            publish(message, BARE_MESSAGE, 0);
+        } else {
+            deliverableMessageCount.incrementAndGet();
+            publish(message, FULL_MESSAGE, cachedBytes);
+        }
+    }
+
+    @Override
+    public void addBareMessage(Message message) {
+        undeliveredMessageCount.incrementAndGet();
+        size.incrementAndGet();
+        publish(message, BARE_MESSAGE, 0);
+    }
+
+    private void publish(Message message, int state, long cachedBytes) {
+        long position = tailPosition.getAndIncrement();
+        Segment segment = segmentForAppend(position);
+        int offset = offsetOf(position);
+        segment.messages.set(offset, message);
+        segment.cachedBytes[offset] = cachedBytes;
+        messageIdIndex.put(message.getInternalId(), position);
+        segment.states.set(offset, state);
+    }
+
+    /**
+     * Find the segment of a claimed position, linking new segments when the position is beyond the last segment.
+     */
+    private Segment segmentForAppend(long position) {
+        long segmentNumber = position >>> SEGMENT_SHIFT;
+        Segment segment = tailSegment.get();
+        if (segment.number > segmentNumber) {
+            // A publisher that claimed a later position has already moved the tail
+            segment = headSegment.get();
+        }
+
+        while (segment.number < segmentNumber) {
+            Segment next = segment.next.get();
+            if (Objects.isNull(next)) {
+                Segment newSegment = new Segment(segment.number + 1);
+                next = segment.next.compareAndSet(null, newSegment) ? newSegment : segment.next.get();
+                reclaimSegments();
+            }
+            segment = next;
+        }
+
+        Segment tail;
+        while ((tail = tailSegment.get()).number < segment.number && !tailSegment.compareAndSet(tail, segment)) {
+            // Retry until the tail is at or beyond this segment
+        }
+        return segment;
+    }
+
+    @Override
+    public boolean remove(Message message) {
+        long position = messageIdIndex.remove(message.getInternalId());
+        if (position == MessageIdIndex.NOT_FOUND) {
+            return false;
+        }
+
+        Segment segment = segmentAt(headSegment.get(), position);
+        int offset = offsetOf(position);
+        int previousState;
+        do {
+            // The state can be empty or evicting only while a concurrent add or eviction is in progress
+            previousState = segment.states.get(offset);
+        } while (previousState == EMPTY
+                || previousState == EVICTING
+                || !segment.states.compareAndSet(offset, previousState, REMOVED));
+        segment.messages.set(offset, null);
+        if (previousState == FULL_MESSAGE || previousState == DELIVERED) {
+            cacheAllocation.release(segment.cachedBytes[offset]);
+        }
+
+        size.decrementAndGet();
+        if (previousState == DELIVERED) {
+            messagesInFlight.decrementAndGet();
+            deliverableMessageCount.decrementAndGet();
+        } else if (previousState == DROPPED) {
+            messagesInFlight.decrementAndGet();
+        } else {
+            undeliveredMessageCount.decrementAndGet();
+            if (previousState == FULL_MESSAGE) {
+                deliverableMessageCount.decrementAndGet();
+            }
+        }
+
+        if (segment.removedCount.incrementAndGet() == SEGMENT_SIZE) {
+            reclaimSegments();
+        }
+        return true;
+    }
+
+    /**
+     * Move the head past segments with every slot removed.
+     */
+    private void reclaimSegments() {
+        Segment head;
+        Segment next;
+        while ((head = headSegment.get()).removedCount.get() == SEGMENT_SIZE
+                && Objects.nonNull(next = head.next.get())) {
+            headSegment.compareAndSet(head, next);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public int getNumberOfInflightMessages() {
+        return messagesInFlight.get();
+    }
+
+    @Override
+    public int getNumberOfUndeliveredMessages() {
+        return undeliveredMessageCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: This should be invoked by a single thread at a time.
+     */
+    @Override
+    public Message getFirstDeliverable() {
+        submitMessageReads();
+
+        while (deliveryPosition < tailPosition.get()) {
+            Segment segment = segmentAt(deliverySegment, deliveryPosition);
+            if (Objects.isNull(segment)) {
+                return null;
+            }
+            deliverySegment = segment;
+
+            int offset = offsetOf(deliveryPosition);
+            int state = segment.states.get(offset);
+            if (state == REMOVED) {
+                deliveryPosition++;
+            } else if (state == EVICTING) {
+                // The message turns bare as soon as the concurrent eviction clears its content
+                continue;
+            } else if (state == FULL_MESSAGE) {
+                Message message = segment.messages.get(offset);
+                // Fails if the message is removed concurrently
+                if (segment.states.compareAndSet(offset, FULL_MESSAGE, DELIVERED)) {
+                    deliveryPosition++;
+                    cacheAllocation.recordDelivery();
+                    messagesInFlight.incrementAndGet();
+                    undeliveredMessageCount.decrementAndGet();
+                    return message;
+                }
+            } else if (state == BARE_MESSAGE && readHead(segment, offset)) {
+                // Deliver the message in this attempt if it was read synchronously
+                continue;
+            } else if (state != SUBMITTED_FOR_FILLING || !awaitRead(segment, offset)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: This should be invoked by the thread invoking {@link #getFirstDeliverable()}.
+     */
+    @Override
+    public Message takeFirstUndelivered() {
+        while (deliveryPosition < tailPosition.get()) {
+            Segment segment = segmentAt(deliverySegment, deliveryPosition);
+            if (Objects.isNull(segment)) {
+                return null;
+            }
+            deliverySegment = segment;
+
+            int offset = offsetOf(deliveryPosition);
+            int state = segment.states.get(offset);
+            if (state == REMOVED) {
+                deliveryPosition++;
+            } else if (state == FULL_MESSAGE || state == BARE_MESSAGE || state == SUBMITTED_FOR_FILLING) {
+                Message message = segment.messages.get(offset);
+                // A bare message is dropped so that a pending read does not fill it
+                int takenState = state == FULL_MESSAGE ? DELIVERED : DROPPED;
+                // Fails if the message is removed, filled or evicted concurrently
+                if (segment.states.compareAndSet(offset, state, takenState)) {
+                    deliveryPosition++;
+                    messagesInFlight.incrementAndGet();
+                    undeliveredMessageCount.decrementAndGet();
+                    return message;
+                }
+            } else if (state != EVICTING) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the message delivery is waiting on even when the read-ahead budget is taken by full messages added
+     * behind it. Otherwise delivery would never reach those messages to free the budget.
+     *
+     * @return true if a read was submitted
+     */
+    private boolean readHead(Segment segment, int offset) {
+        Message message = segment.messages.get(offset);
+        if (segment.states.compareAndSet(offset, BARE_MESSAGE, SUBMITTED_FOR_FILLING)) {
+            pendingReadCount.incrementAndGet();
+            messageReader.fill(this, Collections.singletonList(message));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Register the head as awaited while it is being read. The head is checked again once registered, hence either
+     * delivery sees the completed read or the reader sees the awaited head and wakes up delivery.
+     *
+     * @return true if the read completed
+     */
+    private boolean awaitRead(Segment segment, int offset) {
+        recordStall();
+        awaitedPosition = deliveryPosition;
+        return segment.states.get(offset) != SUBMITTED_FOR_FILLING;
+    }
+
+    /**
+     * Grow the read-ahead window once per message delivery had to wait on while it was being read.
+     */
+    private void recordStall() {
+        if (stalledPosition != deliveryPosition) {
+            stalledPosition = deliveryPosition;
+            readAheadWindow.recordStall();
+            readAheadSize = readAheadWindow.getSize();
+            submitMessageReads();
+        }
+    }
+
+    /**
+     * Submit reads for the bare messages following the read position as a single batch, while keeping the messages
+     * read ahead of delivery within the read-ahead window and the in-memory limit.
+     */
+    private void submitMessageReads() {
+        int deliverableCount = deliverableMessageCount.get();
+        int readyCount = deliverableCount - messagesInFlight.get();
+        int completedReads = completedReadCount.get();
+        if (completedReads != lastCompletedReadCount) {
+            lastCompletedReadCount = completedReads;
+            readAheadWindow.recordFill(readyCount);
+            readAheadSize = readAheadWindow.getSize();
+        }
+
+        // Read cursor only moves forward. Move it back if evicted messages are behind it.
+        long firstEvictedPosition = evictedPosition.getAndSet(NO_EVICTED_POSITION);
+        if (firstEvictedPosition < readPosition) {
+            readPosition = firstEvictedPosition;
+            readSegment = deliverySegment;
+        }
+        if (readPosition < deliveryPosition) {
+            readPosition = deliveryPosition;
+            readSegment = deliverySegment;
+        }
+
+        int fillableMessageCount = Math.min(inMemoryLimit - deliverableCount,
+                                            readAheadWindow.getSize() - readyCount) - pendingReadCount.get();
+        long tail = tailPosition.get();
+        List<Message> messages = null;
+        while (fillableMessageCount > 0 && readPosition < tail) {
+            Segment segment = segmentAt(readSegment, readPosition);
+            if (Objects.isNull(segment)) {
+                break;
+            }
+            readSegment = segment;
+
+            int offset = offsetOf(readPosition);
+            int state = segment.states.get(offset);
+            if (state == EMPTY) {
+                break;
+            } else if (state == BARE_MESSAGE) {
+                Message message = segment.messages.get(offset);
+                if (segment.states.compareAndSet(offset, BARE_MESSAGE, SUBMITTED_FOR_FILLING)) {
+                    if (Objects.isNull(messages)) {
+                        messages = new ArrayList<>(Math.min(fillableMessageCount, SEGMENT_SIZE));
+                    }
+                    messages.add(message);
+                    fillableMessageCount--;
+                }
+            }
+            readPosition++;
+        }
+
+        if (Objects.nonNull(messages)) {
+            pendingReadCount.addAndGet(messages.size());
+            messageReader.fill(this, messages);
+        }
+    }
+
+    @Override
+    public void markMessagesFilled(Collection<Message> messages) {
+        boolean headFilled = false;
+        for (Message message : messages) {
+            long position = messageIdIndex.get(message.getInternalId());
+            if (position != MessageIdIndex.NOT_FOUND) {
+                Segment segment = segmentAt(headSegment.get(), position);
+                int offset = offsetOf(position);
+                long cachedBytes = contentLengthOf(message);
+                segment.cachedBytes[offset] = cachedBytes;
+                if (segment.states.compareAndSet(offset, SUBMITTED_FOR_FILLING, FULL_MESSAGE)
+                        || segment.states.compareAndSet(offset, BARE_MESSAGE, FULL_MESSAGE)) {
+                    cacheAllocation.allocate(cachedBytes);
+                    deliverableMessageCount.incrementAndGet();
+                    headFilled = headFilled || position == awaitedPosition;
+                }
+            }
+        }
+        pendingReadCount.addAndGet(-messages.size());
+        completedReadCount.incrementAndGet();
+        if (headFilled) {
+            notifyHeadFilled();
+        }
+    }
+
+    /**
+     * Evict the content of undelivered messages beyond the read-ahead window. The read cursor is moved back to the
+     * first evicted message by the delivery thread.
+     *
+     * @param bytes number of bytes to evict
+     * @return number of bytes evicted
+     */
+    private long evict(long bytes) {
+        long evictedBytes = 0;
+        long firstEvictedPosition = NO_EVICTED_POSITION;
+        int skippedMessageCount = 0;
+        int keptMessageCount = readAheadSize;
+        long tail = tailPosition.get();
+        Segment segment = headSegment.get();
+        // Segments behind the delivery cursor may have been released
+        for (long position = Math.max(deliveryPosition, segment.number << SEGMENT_SHIFT);
+             position < tail && evictedBytes < bytes;
+             position++) {
+            segment = segmentAt(segment, position);
+            if (Objects.isNull(segment)) {
+                break;
+            }
+
+            int offset = offsetOf(position);
+            if (segment.states.get(offset) != FULL_MESSAGE) {
+                continue;
+            }
+            Message message = segment.messages.get(offset);
+            if (skippedMessageCount < keptMessageCount) {
+                // Keep the messages that are delivered next
+                skippedMessageCount++;
+            } else if (Objects.nonNull(message) && isEvictable(message)
+                    && segment.states.compareAndSet(offset, FULL_MESSAGE, EVICTING)) {
+                message.clearData();
+                deliverableMessageCount.decrementAndGet();
+                long cachedBytes = segment.cachedBytes[offset];
+                cacheAllocation.release(cachedBytes);
+                evictedBytes += cachedBytes;
+                segment.states.set(offset, BARE_MESSAGE);
+                firstEvictedPosition = Math.min(firstEvictedPosition, position);
+            }
+        }
+
+        if (firstEvictedPosition != NO_EVICTED_POSITION) {
+            evictedPosition.accumulateAndGet(firstEvictedPosition, Math::min);
+        }
+        return evictedBytes;
+    }
+
+    @Override
+    public long getCachedBytes() {
+        return cacheAllocation.getBytes();
+    }
+
+    @Override
+    public void release() {
+        cacheAllocation.close();
+    }
+
+    /**
+     * Find the segment of the position starting from the given segment. Returns null if the segment is not yet
+     * linked.
+     */
+    private static Segment segmentAt(Segment from, long position) {
+        long segmentNumber = position >>> SEGMENT_SHIFT;
+        Segment segment = from;
+        while (Objects.nonNull(segment) && segment.number < segmentNumber) {
+            segment = segment.next.get();
+        }
+        return segment;
+    }
+
+    private static int offsetOf(long position) {
+        return (int) (position & SEGMENT_MASK);
+    }
+
+    /**
+     * Fixed size block of message slots.
+     */
+    private static final class Segment {
+
+        private final long number;
+
+        private final AtomicReferenceArray<Message> messages = new AtomicReferenceArray<>(SEGMENT_SIZE);
+
+        private final AtomicIntegerArray states = new AtomicIntegerArray(SEGMENT_SIZE);
+
+        /**
+         * Content bytes accounted in the cache budget for each full slot. Written before the state is updated.
+         */
+        private final long[] cachedBytes = new long[SEGMENT_SIZE];
+
+        private final AtomicInteger removedCount = new AtomicInteger(0);
+
+        private final AtomicReference<Segment> next = new AtomicReference<>();
+
+        Segment(long number) {
+            this.number = number;
+        }
+    }
+}
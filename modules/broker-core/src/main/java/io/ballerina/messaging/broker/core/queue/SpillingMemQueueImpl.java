@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Queue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+import javax.transaction.xa.Xid;
+
+/**
+ * In memory queue implementation for non durable queues which writes the messages beyond the in-memory limits to
+ * temporary segment files instead of rejecting them. Spilled messages are read back in order once the messages in
+ * memory are consumed.
+ */
+public class SpillingMemQueueImpl extends Queue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillingMemQueueImpl.class);
+
+    private static final String DIRECTORY_PREFIX = "queue-spill-";
+
+    private final int maxInMemoryDepth;
+
+    private final long maxInMemoryBytes;
+
+    private final Path spillLocation;
+
+    private final long segmentSize;
+
+    /**
+     * Messages held in memory keyed by message id in queue order.
+     */
+    private final LinkedHashMap<Long, Message> queue = new LinkedHashMap<>();
+
+    private final Map<Xid, List<Message>> pendingEnqueueMessages = new HashMap<>();
+
+    private final Map<Xid, List<Message>> pendingDequeueMessages = new HashMap<>();
+
+    /**
+     * Content bytes of the messages held in memory.
+     */
+    private long cachedBytes = 0;
+
+    /**
+     * Log of the messages spilled to disk. Created when the first message is spilled.
+     */
+    private MessageSpillLog spillLog;
+
+    public SpillingMemQueueImpl(String queueName, boolean durable, boolean autoDelete, FieldTable arguments,
+                                int maxInMemoryDepth, long maxInMemoryBytes, Path spillLocation, long segmentSize) {
+        super(queueName, durable, autoDelete, arguments);
+        this.maxInMemoryDepth = maxInMemoryDepth;
+        this.maxInMemoryBytes = maxInMemoryBytes;
+        this.spillLocation = spillLocation;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public int capacity() {
+        return Queue.UNBOUNDED;
+    }
+
+    @Override
+    public synchronized int size() {
+        return queue.size() + spilledCount();
+    }
+
+    @Override
+    public synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Number of messages currently held in the spill files.
+     *
+     * @return spilled message count
+     */
+    synchronized int spilledCount() {
+        return Objects.isNull(spillLog) ? 0 : spillLog.size();
+    }
+
+    @Override
+    public synchronized boolean enqueue(Message message) {
+        long contentLength = QueueBuffer.contentLengthOf(message);
+        if (spilledCount() == 0 && hasRoomInMemory(contentLength)) {
+            queue.put(message.getInternalId(), message);
+            cachedBytes += contentLength;
+            return true;
+        }
+
+        try {
+            getSpillLog().append(message);
+        } catch (IOException e) {
+            LOGGER.error("Error while spilling message " + message.getInternalId() + " of queue " + getName(), e);
+            return false;
+        }
+        message.release();
+        return true;
+    }
+
+    @Override
+    public synchronized void prepareEnqueue(Xid xid, Message message) {
+        pendingEnqueueMessages.computeIfAbsent(xid, k -> new ArrayList<>()).add(message);
+    }
+
+    @Override
+    public synchronized void commit(Xid xid) {
+        List<Message> dequeueMessages = pendingDequeueMessages.remove(xid);
+        if (Objects.nonNull(dequeueMessages)) {
+            for (Message message : dequeueMessages) {
+                // Delivered messages have already left the queue unless they were put back
+                Message removedMessage = queue.remove(message.getInternalId());
+                if (Objects.nonNull(removedMessage)) {
+                    cachedBytes -= QueueBuffer.contentLengthOf(removedMessage);
+                }
+            }
+        }
+
+        List<Message> messages = pendingEnqueueMessages.remove(xid);
+        if (Objects.nonNull(messages)) {
+            for (Message message : messages) {
+                if (!enqueue(message)) {
+                    message.release();
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void rollback(Xid xid) {
+        pendingDequeueMessages.remove(xid);
+        pendingEnqueueMessages.remove(xid);
+    }
+
+    @Override
+    public synchronized Message dequeue() {
+        if (queue.isEmpty() && spilledCount() > 0) {
+            refill();
+        }
+        Iterator<Message> iterator = queue.values().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Message message = iterator.next();
+        iterator.remove();
+        cachedBytes -= QueueBuffer.contentLengthOf(message);
+        return message;
+    }
+
+    @Override
+    public void detach(Message message) {
+        // nothing to do
+    }
+
+    @Override
+    public synchronized void prepareDetach(Xid xid, Message message) {
+        pendingDequeueMessages.computeIfAbsent(xid, k -> new ArrayList<>()).add(message);
+    }
+
+    @Override
+    public synchronized void release() {
+        for (Message message : queue.values()) {
+            message.release();
+        }
+        queue.clear();
+        cachedBytes = 0;
+        if (Objects.nonNull(spillLog)) {
+            closeSpillLog();
+        }
+    }
+
+    private boolean hasRoomInMemory(long contentLength) {
+        return queue.size() < maxInMemoryDepth
+                && (queue.isEmpty() || cachedBytes + contentLength <= maxInMemoryBytes);
+    }
+
+    /**
+     * Read spilled messages back into memory up to the in-memory limits. At least one message is read so that a
+     * message larger than the byte limit can still be delivered.
+     */
+    private void refill() {
+        try {
+            while (spillLog.size() > 0 && queue.size() < maxInMemoryDepth
+                    && (queue.isEmpty() || cachedBytes < maxInMemoryBytes)) {
+                Message message = spillLog.poll();
+                queue.put(message.getInternalId(), message);
+                cachedBytes += QueueBuffer.contentLengthOf(message);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error while reading spilled messages of queue " + getName()
+                                 + ". Discarding " + spillLog.size() + " spilled messages.", e);
+            closeSpillLog();
+        }
+        if (Objects.nonNull(spillLog) && spillLog.isEmpty()) {
+            closeSpillLog();
+        }
+    }
+
+    private MessageSpillLog getSpillLog() throws IOException {
+        if (Objects.isNull(spillLog)) {
+            Files.createDirectories(spillLocation);
+            Path directory = Files.createTempDirectory(spillLocation, DIRECTORY_PREFIX);
+            spillLog = new MessageSpillLog(directory, segmentSize);
+        }
+        return spillLog;
+    }
+
+    private void closeSpillLog() {
+        try {
+            spillLog.close();
+            Files.deleteIfExists(spillLog.getDirectory());
+        } catch (IOException e) {
+            LOGGER.warn("Error while deleting spill files of queue " + getName(), e);
+        } finally {
+            spillLog = null;
+        }
+    }
+
+    /**
+     * Delete the spill directories left behind by queues of a previous run.
+     *
+     * @param spillLocation directory holding the spill directories of the queues
+     */
+    static void deleteStaleSpillFiles(Path spillLocation) {
+        if (!Files.isDirectory(spillLocation)) {
+            return;
+        }
+        try (Stream<Path> directories = Files.list(spillLocation)) {
+            directories.filter(path -> path.getFileName().toString().startsWith(DIRECTORY_PREFIX))
+                       .forEach(SpillingMemQueueImpl::deleteRecursively);
+        } catch (IOException e) {
+            LOGGER.warn("Error while deleting stale spill files in " + spillLocation, e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            LOGGER.warn("Error while deleting stale spill directory " + directory, e);
+        }
+    }
+}
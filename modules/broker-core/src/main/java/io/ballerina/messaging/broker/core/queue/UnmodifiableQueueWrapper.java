@@ -34,7 +34,7 @@ public class UnmodifiableQueueWrapper extends Queue {
     private final Queue queue;
 
     public UnmodifiableQueueWrapper(Queue queue) {
-        super(queue.getName(), queue.isDurable(), queue.isAutoDelete());
+        super(queue.getName(), queue.isDurable(), queue.isAutoDelete(), queue.getArguments());
         this.queue = queue;
     }
 
@@ -53,6 +53,11 @@ public class UnmodifiableQueueWrapper extends Queue {
         return queue.size();
     }
 
+    @Override
+    public long cachedBytes() {
+        return queue.cachedBytes();
+    }
+
     @Override
     public boolean enqueue(Message message) {
         throw new UnsupportedOperationException("Queue " + queue.getName() + " is unmodifiable");
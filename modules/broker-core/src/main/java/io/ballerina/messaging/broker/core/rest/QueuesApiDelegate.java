@@ -21,6 +21,9 @@ package io.ballerina.messaging.broker.core.rest;
 
 import io.ballerina.messaging.broker.common.ResourceNotFoundException;
 import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
 import io.ballerina.messaging.broker.core.Broker;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.QueueHandler;
@@ -35,6 +38,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.InternalServerErrorException;
@@ -58,8 +62,8 @@ public class QueuesApiDelegate {
 
     public Response createQueue(QueueCreateRequest requestBody) {
         try {
-            if (broker.createQueue(requestBody.getName(), false,
-                                   requestBody.isDurable(), requestBody.isAutoDelete())) {
+            if (broker.createQueue(requestBody.getName(), false, requestBody.isDurable(),
+                                   requestBody.isAutoDelete(), toFieldTable(requestBody.getArguments()))) {
                 QueueCreateResponse message = new QueueCreateResponse().message("Queue created.");
                 return Response.created(new URI(BrokerAdminService.API_BASE_PATH + QUEUES_API_PATH
                                                         + "/" + requestBody.getName()))
@@ -127,6 +131,17 @@ public class QueuesApiDelegate {
                 .autoDelete(queueHandler.getQueue().isAutoDelete())
                 .capacity(queueHandler.getQueue().capacity())
                 .consumerCount(queueHandler.consumerCount())
-                .size(queueHandler.size());
+                .size(queueHandler.size())
+                .cachedBytes(queueHandler.getQueue().cachedBytes());
+    }
+
+    private static FieldTable toFieldTable(Map<String, String> arguments) {
+        if (Objects.isNull(arguments) || arguments.isEmpty()) {
+            return FieldTable.EMPTY_TABLE;
+        }
+        FieldTable fieldTable = new FieldTable();
+        arguments.forEach((name, value) -> fieldTable.add(ShortString.parseString(name),
+                                                         FieldValue.parseLongString(value)));
+        return fieldTable;
     }
 }
@@ -19,16 +19,15 @@
 
 package io.ballerina.messaging.broker.core.store;
 
+import com.lmax.disruptor.Cursored;
 import com.lmax.disruptor.EventHandler;
+import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.store.dao.MessageDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * This class initiates database operations through disruptor
  */
@@ -38,16 +37,26 @@ public class DbAccessHandler implements EventHandler<DbOperation> {
 
     private final MessageDao messageDao;
 
-    private final int maxBatchSize;
+    private final TransactionData transactionData;
 
-    private final Map<Long, Message> readList;
+    private final GroupCommitPolicy commitPolicy;
 
-    private final TransactionData transactionData;
+    /**
+     * Ring buffer cursor used to find the number of events waiting to be processed.
+     */
+    private final Cursored ringBuffer;
+
+    private final BrokerMetricManager metricManager;
+
+    private final DbMessageReader messageReader;
 
-    public DbAccessHandler(MessageDao messageDao, int maxBatchSize) {
+    DbAccessHandler(MessageDao messageDao, GroupCommitPolicy commitPolicy, Cursored ringBuffer,
+                    BrokerMetricManager metricManager, DbMessageReader messageReader) {
         this.messageDao = messageDao;
-        this.maxBatchSize = maxBatchSize;
-        readList = new HashMap<>(maxBatchSize);
+        this.commitPolicy = commitPolicy;
+        this.ringBuffer = ringBuffer;
+        this.metricManager = metricManager;
+        this.messageReader = messageReader;
         transactionData = new TransactionData();
     }
 
@@ -73,8 +82,8 @@ public class DbAccessHandler implements EventHandler<DbOperation> {
             case DETACH_MSG_FROM_QUEUE:
                 transactionData.detach(event.getQueueName(), event.getMessageId());
                 break;
-            case READ_MSG_DATA:
-                readList.put(event.getBareMessage().getInternalId(), event.getBareMessage());
+            case DETACH_MSG_WITH_UNKNOWN_OWNERS:
+                transactionData.detachUnknownOwners(event.getQueueName(), event.getMessageId());
                 break;
             case NO_OP:
                 break;
@@ -85,21 +94,39 @@ public class DbAccessHandler implements EventHandler<DbOperation> {
         }
 
         if (isBatchReady(endOfBatch, transactionData)) {
-            messageDao.persist(transactionData);
-            transactionData.clear();
+            commit(sequence);
         }
+    }
 
-        if (isBatchReady(endOfBatch, readList.values())) {
-            messageDao.read(readList);
-            readList.clear();
+    private void commit(long sequence) throws BrokerException {
+        int operationCount = transactionData.size();
+        long startTime = System.nanoTime();
+        try {
+            messageDao.persist(transactionData);
+        } catch (BrokerException e) {
+            completePublish(false);
+            throw e;
         }
+        long commitTime = System.nanoTime() - startTime;
+        completePublish(true);
+        transactionData.clear();
+
+        commitPolicy.recordCommit(operationCount, commitTime, ringBuffer.getCursor() - sequence);
+        metricManager.recordDbCommit(operationCount, commitPolicy.getBatchSize(), commitTime);
     }
 
-    private boolean isBatchReady(boolean endOfBatch, Collection collection) {
-        return !collection.isEmpty() && (collection.size() >= maxBatchSize || endOfBatch);
+    /**
+     * Notify the publishers of the messages enqueued within the current batch. Publishers are notified in
+     * batches, once per database commit. Reads of the messages waiting for the commit are released as well.
+     */
+    private void completePublish(boolean success) {
+        for (Message message : transactionData.getEnqueueMessages()) {
+            messageReader.insertCompleted(message);
+            message.completePublish(success);
+        }
     }
 
     private boolean isBatchReady(boolean endOfBatch, TransactionData transactionData) {
-        return !transactionData.isEmpty() && (transactionData.size() >= maxBatchSize || endOfBatch);
+        return !transactionData.isEmpty() && (transactionData.size() >= commitPolicy.getBatchSize() || endOfBatch);
     }
 }
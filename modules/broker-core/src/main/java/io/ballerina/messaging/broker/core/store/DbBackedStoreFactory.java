@@ -25,8 +25,10 @@ import io.ballerina.messaging.broker.core.ExchangeRegistry;
 import io.ballerina.messaging.broker.core.QueueRegistry;
 import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.compression.ContentCompressor;
 import io.ballerina.messaging.broker.core.store.dao.impl.DaoFactory;
 
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 
 /**
@@ -42,16 +44,28 @@ public class DbBackedStoreFactory implements StoreFactory {
 
     public DbBackedStoreFactory(DataSource dataSource,
                                 BrokerMetricManager metricManager,
-                                BrokerCoreConfiguration configuration) {
+                                BrokerCoreConfiguration configuration) throws BrokerException {
         daoFactory = new DaoFactory(dataSource, metricManager);
         this.metricManager = metricManager;
         this.configuration = configuration;
-        dbMessageStore = new DbMessageStore(daoFactory.createMessageDao(), 32768, 1024);
+        BrokerCoreConfiguration.DbStore dbStoreConfig = configuration.getDbStore();
+        ContentCompressor contentCompressor = ContentCompressor.create(dbStoreConfig.getCompression());
+        dbMessageStore = new DbMessageStore(daoFactory.createMessageDao(contentCompressor),
+                                            Integer.parseInt(dbStoreConfig.getRingBufferSize()),
+                                            Integer.parseInt(dbStoreConfig.getMaxBatchSize()),
+                                            Integer.parseInt(dbStoreConfig.getPipelineCount()),
+                                            Integer.parseInt(dbStoreConfig.getMinBatchSize()),
+                                            TimeUnit.MILLISECONDS.toNanos(
+                                                    Long.parseLong(dbStoreConfig.getCommitLatencyTarget())),
+                                            Integer.parseInt(dbStoreConfig.getReaderCount()),
+                                            Integer.parseInt(dbStoreConfig.getMaxReadBatchSize()),
+                                            metricManager);
     }
 
     @Override
     public ExchangeRegistry getExchangeRegistry() {
-        return new ExchangeRegistry(daoFactory.createExchangeDao(), daoFactory.createBindingDao());
+        return new ExchangeRegistry(daoFactory.createExchangeDao(), daoFactory.createBindingDao(),
+                                    configuration.getRecovery().isParallelEnabled());
     }
 
     @Override
@@ -61,7 +75,10 @@ public class DbBackedStoreFactory implements StoreFactory {
 
     @Override
     public QueueRegistry getQueueRegistry() throws BrokerException {
+        BrokerCoreConfiguration.Recovery recovery = configuration.getRecovery();
+        int recoveryThreadCount = recovery.isParallelEnabled() ? Integer.parseInt(recovery.getThreadCount()) : 1;
         return new QueueRegistry(daoFactory.createQueueDao(),
-                                 new DbBackedQueueHandlerFactory(dbMessageStore, metricManager, configuration));
+                                 new DbBackedQueueHandlerFactory(dbMessageStore, metricManager, configuration),
+                                 recoveryThreadCount);
     }
 }
@@ -45,7 +45,10 @@ public class DbEventMatcher implements EventHandler<DbOperation> {
 
     private final Queue<Long> eventQueue;
 
-    public DbEventMatcher(int ringBufferSize) {
+    private final DbMessageReader messageReader;
+
+    DbEventMatcher(int ringBufferSize, DbMessageReader messageReader) {
+        this.messageReader = messageReader;
         insertMap = new HashMap<>();
         detachMap = new HashMap<>();
         this.maxBatchSize = ringBufferSize;
@@ -69,10 +72,10 @@ public class DbEventMatcher implements EventHandler<DbOperation> {
                 removeMatchingDetachEvents(internalId);
                 break;
             case DETACH_MSG_FROM_QUEUE:
+            case DETACH_MSG_WITH_UNKNOWN_OWNERS:
                 detachMap.computeIfAbsent(event.getMessageId(), k -> new ArrayList<>())
                          .add(event);
                 break;
-            case READ_MSG_DATA:
             case NO_OP:
                 break;
             default:
@@ -115,6 +118,9 @@ public class DbEventMatcher implements EventHandler<DbOperation> {
         DbOperation insertRequest;
         if ((insertRequest = insertMap.remove(internalId)) != null) {
             if (insertRequest.acquireToProcess()) {
+                // Message was acknowledged before it was persisted. Hence the publish is complete.
+                insertRequest.getMessage().completePublish(true);
+                messageReader.insertCompleted(insertRequest.getMessage());
                 insertRequest.clear();
 
                 event.clear();
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Reads message data from the database for {@link QueueBuffer}s, independently of the persistence pipelines.
+ * <p>
+ * Reads are executed by a dedicated pool of reader threads, hence the number of readers bounds the database
+ * connections used for reading. Read requests waiting for a reader are merged into a single query up to the
+ * maximum read batch size.
+ * <p>
+ * Since reads do not go through the persistence pipelines, a read requested before the insert of the message is
+ * committed is deferred until the insert completes.
+ */
+@ThreadSafe
+final class DbMessageReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DbMessageReader.class);
+
+    /**
+     * Marker for an insert in progress without any deferred reads.
+     */
+    private static final DeferredReads NO_DEFERRED_READS = new DeferredReads();
+
+    private final MessageDao messageDao;
+
+    private final int maxBatchSize;
+
+    private final ExecutorService readExecutor;
+
+    private final Queue<ReadRequest> readRequests = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Messages submitted to a persistence pipeline which are not yet committed to the database.
+     */
+    private final Map<Long, DeferredReads> pendingInserts = new ConcurrentHashMap<>();
+
+    DbMessageReader(MessageDao messageDao, int readerCount, int maxBatchSize) {
+        this.messageDao = messageDao;
+        this.maxBatchSize = maxBatchSize;
+        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("DbMessageReaderThread-%d").build();
+        readExecutor = Executors.newFixedThreadPool(readerCount, namedThreadFactory);
+    }
+
+    /**
+     * Record that the insert of the message is in progress. Reads of the message are deferred until
+     * {@link #insertCompleted(Message)} is invoked.
+     *
+     * @param message message to be inserted
+     */
+    void insertStarted(Message message) {
+        pendingInserts.put(message.getInternalId(), NO_DEFERRED_READS);
+    }
+
+    /**
+     * Record that the insert of the message is committed, failed or canceled out. Deferred reads are submitted to
+     * the readers.
+     *
+     * @param message inserted message
+     */
+    void insertCompleted(Message message) {
+        DeferredReads deferredReads = pendingInserts.remove(message.getInternalId());
+        if (Objects.nonNull(deferredReads) && deferredReads != NO_DEFERRED_READS) {
+            for (ReadRequest request : deferredReads.requests) {
+                submit(request);
+            }
+        }
+    }
+
+    /**
+     * Read the data of the given messages. {@link QueueBuffer#markMessagesFilled(java.util.Collection)} is invoked
+     * once the data is read.
+     *
+     * @param queueBuffer buffer the messages belong to
+     * @param messages    bare messages
+     */
+    void read(QueueBuffer queueBuffer, List<Message> messages) {
+        List<Message> readableMessages = messages;
+        if (!pendingInserts.isEmpty()) {
+            readableMessages = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                if (!defer(queueBuffer, message)) {
+                    readableMessages.add(message);
+                }
+            }
+        }
+
+        for (int start = 0; start < readableMessages.size(); start += maxBatchSize) {
+            int end = Math.min(start + maxBatchSize, readableMessages.size());
+            submit(new ReadRequest(queueBuffer, readableMessages.subList(start, end)));
+        }
+    }
+
+    private boolean defer(QueueBuffer queueBuffer, Message message) {
+        // The mapping is updated atomically with respect to insertCompleted removing it
+        DeferredReads deferredReads = pendingInserts.computeIfPresent(message.getInternalId(), (id, reads) -> {
+            DeferredReads updatedReads = reads == NO_DEFERRED_READS ? new DeferredReads() : reads;
+            updatedReads.requests.add(new ReadRequest(queueBuffer, message));
+            return updatedReads;
+        });
+        return Objects.nonNull(deferredReads);
+    }
+
+    /**
+     * Run a store read other than a message data read on the reader threads.
+     *
+     * @param task read task
+     */
+    void execute(Runnable task) {
+        readExecutor.execute(task);
+    }
+
+    /**
+     * Stop the reader threads once the submitted reads are executed.
+     */
+    void close() {
+        readExecutor.shutdown();
+    }
+
+    private void submit(ReadRequest request) {
+        readRequests.add(request);
+        readExecutor.execute(this::readPendingRequests);
+    }
+
+    /**
+     * Read the requests waiting in the queue, merging them into batches. A task is executed per request, hence a
+     * task may find the queue drained by an earlier task.
+     */
+    private void readPendingRequests() {
+        List<ReadRequest> batch = new ArrayList<>();
+        int batchSize = 0;
+        ReadRequest request;
+        while (batchSize < maxBatchSize && Objects.nonNull(request = readRequests.poll())) {
+            batch.add(request);
+            batchSize += request.messages.size();
+        }
+
+        if (!batch.isEmpty()) {
+            readBatch(batch, batchSize);
+        }
+    }
+
+    private void readBatch(List<ReadRequest> batch, int batchSize) {
+        try {
+            List<Message> remaining = new ArrayList<>(batchSize);
+            for (ReadRequest request : batch) {
+                remaining.addAll(request.messages);
+            }
+
+            // Different queues hold different copies of the same message. Copies are read in separate queries.
+            while (!remaining.isEmpty()) {
+                Map<Long, Message> readList = new HashMap<>(remaining.size());
+                List<Message> duplicates = new ArrayList<>();
+                for (Message message : remaining) {
+                    if (Objects.nonNull(readList.putIfAbsent(message.getInternalId(), message))) {
+                        duplicates.add(message);
+                    }
+                }
+                messageDao.read(readList);
+                remaining = duplicates;
+            }
+        } catch (BrokerException | RuntimeException e) {
+            LOGGER.error("Error reading data of " + batchSize + " messages", e);
+        } finally {
+            for (ReadRequest request : batch) {
+                request.queueBuffer.markMessagesFilled(request.messages);
+            }
+        }
+    }
+
+    /**
+     * Bare messages of a {@link QueueBuffer} to be filled.
+     */
+    private static final class ReadRequest {
+
+        private final QueueBuffer queueBuffer;
+
+        private final List<Message> messages;
+
+        ReadRequest(QueueBuffer queueBuffer, List<Message> messages) {
+            this.queueBuffer = queueBuffer;
+            this.messages = messages;
+        }
+
+        ReadRequest(QueueBuffer queueBuffer, Message message) {
+            this(queueBuffer, new ArrayList<>(1));
+            messages.add(message);
+        }
+    }
+
+    /**
+     * Reads waiting for the insert of a message to complete.
+     */
+    private static final class DeferredReads {
+
+        private final List<ReadRequest> requests = new ArrayList<>(1);
+    }
+}
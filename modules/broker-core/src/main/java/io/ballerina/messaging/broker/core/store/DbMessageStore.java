@@ -22,16 +22,21 @@ package io.ballerina.messaging.broker.core.store;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.lmax.disruptor.EventTranslatorOneArg;
 import com.lmax.disruptor.EventTranslatorTwoArg;
+import com.lmax.disruptor.TimeoutException;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.queue.QueueBuffer;
 import io.ballerina.messaging.broker.core.store.dao.MessageDao;
 import io.ballerina.messaging.broker.core.store.disruptor.SleepingBlockingWaitStrategy;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -42,7 +47,14 @@ import javax.annotation.concurrent.ThreadSafe;
 @ThreadSafe
 public class DbMessageStore extends MessageStore {
 
-    private final Disruptor<DbOperation> disruptor;
+    /**
+     * Independent persistence pipelines. Operations are partitioned by message id so that the insert, detach and
+     * delete operations of a message are always processed in order by the same pipeline. The pipelines only process
+     * mutations. Message data is read by {@link DbMessageReader}.
+     */
+    private final List<Disruptor<DbOperation>> disruptors;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
 
     private static final EventTranslatorOneArg<DbOperation, Message> INSERT_MESSAGE =
             (event, sequence, message) -> event.insertMessage(message);
@@ -50,45 +62,109 @@ public class DbMessageStore extends MessageStore {
     private static final EventTranslatorTwoArg<DbOperation, String, Long> DETACH_FROM_QUEUE =
             (event, sequence, queueName, messageId) -> event.detachFromQueue(queueName, messageId);
 
+    private static final EventTranslatorTwoArg<DbOperation, String, Long> DETACH_UNKNOWN_OWNERS =
+            (event, sequence, queueName, messageId) -> event.detachUnknownOwners(queueName, messageId);
+
     private static final EventTranslatorOneArg<DbOperation, Long> DELETE_MESSAGE =
             (event, sequence, messageId) -> event.deleteMessage(messageId);
 
-    private static final EventTranslatorTwoArg<DbOperation, QueueBuffer, Message> READ_MESSAGE_DATA =
-            (event, sequence, queueBuffer, message) -> event.readMessageData(queueBuffer, message);
-
     private final MessageDao messageDao;
 
+    private final DbMessageReader messageReader;
+
     @SuppressWarnings("unchecked")
-    DbMessageStore(MessageDao messageDao, int bufferSize, int maxDbBatchSize) {
+    DbMessageStore(MessageDao messageDao, int bufferSize, int maxDbBatchSize, int pipelineCount,
+                   int minDbBatchSize, long commitLatencyTargetNanos, int readerCount, int maxReadBatchSize,
+                   BrokerMetricManager metricManager) {
+        messageReader = new DbMessageReader(messageDao, readerCount, maxReadBatchSize);
         ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
                 .setNameFormat("DisruptorMessageStoreThread-%d").build();
 
-        disruptor = new Disruptor<>(DbOperation.getFactory(),
-                                    bufferSize, namedThreadFactory, ProducerType.MULTI, new
-                                            SleepingBlockingWaitStrategy());
+        disruptors = new ArrayList<>(pipelineCount);
+        for (int i = 0; i < pipelineCount; i++) {
+            Disruptor<DbOperation> disruptor = new Disruptor<>(DbOperation.getFactory(),
+                                                               bufferSize, namedThreadFactory, ProducerType.MULTI,
+                                                               new SleepingBlockingWaitStrategy());
+
+            disruptor.setDefaultExceptionHandler(new LogExceptionHandler());
+
+            disruptor.handleEventsWith(new DbEventMatcher(bufferSize, messageReader))
+                     .then(new DbAccessHandler(messageDao,
+                                               new GroupCommitPolicy(minDbBatchSize, maxDbBatchSize,
+                                                                     commitLatencyTargetNanos),
+                                               disruptor.getRingBuffer(), metricManager, messageReader))
+                     .then(new FinalEventHandler());
+            disruptor.start();
+            disruptors.add(disruptor);
+        }
+        this.messageDao = messageDao;
+    }
 
-        disruptor.setDefaultExceptionHandler(new LogExceptionHandler());
+    private Disruptor<DbOperation> getDisruptor(long messageId) {
+        return disruptors.get(getPipelineIndex(messageId));
+    }
 
-        disruptor.handleEventsWith(new DbEventMatcher(bufferSize))
-                 .then(new DbAccessHandler(messageDao, maxDbBatchSize))
-                 .then(new FinalEventHandler());
-        disruptor.start();
-        this.messageDao = messageDao;
+    private int getPipelineIndex(long messageId) {
+        return (int) Math.floorMod(messageId, (long) disruptors.size());
+    }
+
+    @Override
+    public void add(Message message) {
+        // Track the insert before the message is added to the queues, since a queue buffer can clear the data of
+        // the message and request a read before the message is flushed.
+        messageReader.insertStarted(message);
+        super.add(message);
+    }
+
+    @Override
+    void discardMessage(Message message) {
+        messageReader.insertCompleted(message);
+    }
+
+    /**
+     * Wait for the persistence pipelines to write the pending operations and stop the pipeline and reader threads.
+     */
+    @Override
+    public void close() throws BrokerException {
+        boolean drained = true;
+        for (Disruptor<DbOperation> disruptor : disruptors) {
+            try {
+                disruptor.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                disruptor.halt();
+                drained = false;
+            }
+        }
+        messageReader.close();
+        if (!drained) {
+            throw new BrokerException("Timed out writing pending operations to the database");
+        }
+    }
+
+    @Override
+    public void executeRead(Runnable task) {
+        messageReader.execute(task);
     }
 
     @Override
     void publishMessageToStore(Message message) {
-        disruptor.publishEvent(INSERT_MESSAGE, message);
+        getDisruptor(message.getInternalId()).publishEvent(INSERT_MESSAGE, message);
     }
 
     @Override
     void detachFromQueue(String queueName, Message message) {
-        disruptor.publishEvent(DETACH_FROM_QUEUE, queueName, message.getInternalId());
+        getDisruptor(message.getInternalId()).publishEvent(DETACH_FROM_QUEUE, queueName, message.getInternalId());
+    }
+
+    @Override
+    void detachUnknownOwners(String queueName, Message message) {
+        getDisruptor(message.getInternalId()).publishEvent(DETACH_UNKNOWN_OWNERS, queueName,
+                                                           message.getInternalId());
     }
 
     @Override
     void deleteMessage(long messageId) {
-        disruptor.publishEvent(DELETE_MESSAGE, messageId);
+        getDisruptor(messageId).publishEvent(DELETE_MESSAGE, messageId);
     }
 
     @Override
@@ -97,12 +173,23 @@ public class DbMessageStore extends MessageStore {
     }
 
     @Override
-    public void fillMessageData(QueueBuffer queueBuffer, Message message) {
-        disruptor.publishEvent(READ_MESSAGE_DATA, queueBuffer, message);
+    public void fillMessageData(QueueBuffer queueBuffer, List<Message> messages) {
+        messageReader.read(queueBuffer, messages);
     }
 
     @Override
     public Collection<Message> readAllMessagesForQueue(String queueName) throws BrokerException {
         return messageDao.readAll(queueName);
     }
+
+    @Override
+    public Collection<Message> readMessagesForQueue(String queueName, long afterMessageId, int limit)
+            throws BrokerException {
+        return messageDao.readPage(queueName, afterMessageId, limit);
+    }
+
+    @Override
+    public int countMessagesForQueue(String queueName) throws BrokerException {
+        return messageDao.count(queueName);
+    }
 }
@@ -21,7 +21,6 @@ package io.ballerina.messaging.broker.core.store;
 
 import com.lmax.disruptor.EventFactory;
 import io.ballerina.messaging.broker.core.Message;
-import io.ballerina.messaging.broker.core.queue.QueueBuffer;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -38,8 +37,8 @@ public class DbOperation {
     public enum DbOpType {
         INSERT_MESSAGE,
         DETACH_MSG_FROM_QUEUE,
+        DETACH_MSG_WITH_UNKNOWN_OWNERS,
         DELETE_MESSAGE,
-        READ_MSG_DATA,
         NO_OP;
     }
 
@@ -73,10 +72,6 @@ public class DbOperation {
 
     private Message message;
 
-    private QueueBuffer queueBuffer;
-
-    private Message bareMessage;
-
     private DbOperation() {
         type = DbOpType.NO_OP;
         this.state = new AtomicInteger(AVAILABLE);
@@ -111,24 +106,10 @@ public class DbOperation {
         this.queueName = queueName;
     }
 
-    public void readMessageData(QueueBuffer queueBuffer, Message message) {
-        type = DbOpType.READ_MSG_DATA;
-        this.bareMessage = message;
-        this.queueBuffer = queueBuffer;
-    }
-
-    /**
-     * Getter for bareMessage
-     */
-    public Message getBareMessage() {
-        return bareMessage;
-    }
-
-    /**
-     * Getter for queueBuffer
-     */
-    public QueueBuffer getQueueBuffer() {
-        return queueBuffer;
+    public void detachUnknownOwners(String queueName, Long messageId) {
+        type = DbOpType.DETACH_MSG_WITH_UNKNOWN_OWNERS;
+        this.messageId = messageId;
+        this.queueName = queueName;
     }
 
     public DbOpType getType() {
@@ -152,8 +133,6 @@ public class DbOperation {
             message.release();
             message = null;
         }
-        bareMessage = null;
-        queueBuffer = null;
         messageId = -1;
         queueName = null;
         type = DbOpType.NO_OP;
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.DbBackedQueueHandlerFactory;
+import io.ballerina.messaging.broker.core.ExchangeRegistry;
+import io.ballerina.messaging.broker.core.QueueRegistry;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.dao.impl.DaoFactory;
+
+import java.nio.file.Paths;
+import javax.sql.DataSource;
+
+/**
+ * Factory class for objects backed by the file based message store. Exchanges, bindings and queues are still kept
+ * in the database.
+ */
+public class FileBackedStoreFactory implements StoreFactory {
+
+    private final DaoFactory daoFactory;
+    private final BrokerMetricManager metricManager;
+    private final BrokerCoreConfiguration configuration;
+
+    private FileMessageStore fileMessageStore;
+
+    public FileBackedStoreFactory(DataSource dataSource,
+                                  BrokerMetricManager metricManager,
+                                  BrokerCoreConfiguration configuration) throws BrokerException {
+        daoFactory = new DaoFactory(dataSource, metricManager);
+        this.metricManager = metricManager;
+        this.configuration = configuration;
+
+        BrokerCoreConfiguration.FileStore fileStoreConfig = configuration.getFileStore();
+        fileMessageStore = new FileMessageStore(Paths.get(fileStoreConfig.getLocation()),
+                                                Long.parseLong(fileStoreConfig.getSegmentSize()),
+                                                Double.parseDouble(fileStoreConfig.getCompactionThreshold()),
+                                                Integer.parseInt(fileStoreConfig.getFlushInterval()),
+                                                Integer.parseInt(fileStoreConfig.getCompactionInterval()),
+                                                Integer.parseInt(fileStoreConfig.getReaderThreadCount()),
+                                                metricManager);
+    }
+
+    @Override
+    public ExchangeRegistry getExchangeRegistry() {
+        return new ExchangeRegistry(daoFactory.createExchangeDao(), daoFactory.createBindingDao(),
+                                    configuration.getRecovery().isParallelEnabled());
+    }
+
+    @Override
+    public MessageStore getMessageStore() {
+        return fileMessageStore;
+    }
+
+    @Override
+    public QueueRegistry getQueueRegistry() throws BrokerException {
+        BrokerCoreConfiguration.Recovery recovery = configuration.getRecovery();
+        int recoveryThreadCount = recovery.isParallelEnabled() ? Integer.parseInt(recovery.getThreadCount()) : 1;
+        return new QueueRegistry(daoFactory.createQueueDao(),
+                                 new DbBackedQueueHandlerFactory(fileMessageStore, metricManager, configuration),
+                                 recoveryThreadCount);
+    }
+}
@@ -0,0 +1,711 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Timer.Context;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Message store that persists messages to append-only segment files instead of the database.
+ * <p>
+ * Every insert, detach and delete is appended to the active segment as a checksummed record. An in-memory index
+ * keeps the location of the latest insert record of each live message and the message ids of each queue. Segments
+ * are compacted from the oldest one onwards by rewriting the remaining live messages to the active segment, which
+ * guarantees that a detach or delete record is never replayed after the insert record it cancels has been removed.
+ * <p>
+ * Note: This class is thread safe
+ */
+@ThreadSafe
+public class FileMessageStore extends MessageStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileMessageStore.class);
+
+    private static final byte INSERT_RECORD = 1;
+
+    private static final byte DETACH_RECORD = 2;
+
+    private static final byte DELETE_RECORD = 3;
+
+    /**
+     * Record length and checksum written before each record body.
+     */
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final double compactionThreshold;
+
+    private final BrokerMetricManager metricManager;
+
+    /**
+     * Write lock guards segment appends and index updates. Read lock is used when reading message data.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+
+    private final Map<Long, MessageEntry> messageIndex = new HashMap<>();
+
+    private final Map<String, NavigableSet<Long>> queueIndex = new HashMap<>();
+
+    private final ExecutorService readExecutor;
+
+    private final int readerCount;
+
+    private final ScheduledExecutorService maintenanceExecutor;
+
+    private volatile Segment activeSegment;
+
+    /**
+     * Messages waiting for the next sync to notify their publish listeners.
+     */
+    private final Queue<Message> unsyncedMessages = new ConcurrentLinkedQueue<>();
+
+    FileMessageStore(Path directory, long segmentSize, double compactionThreshold, int flushInterval,
+                     int compactionInterval, int readerCount, BrokerMetricManager metricManager)
+            throws BrokerException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+        this.metricManager = metricManager;
+
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new BrokerException("Error recovering messages from " + directory, e);
+        }
+
+        this.readerCount = readerCount;
+        readExecutor = Executors.newFixedThreadPool(readerCount, new ThreadFactoryBuilder()
+                .setNameFormat("FileMessageStoreReaderThread-%d").build());
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("FileMessageStoreMaintenanceThread-%d").build());
+        maintenanceExecutor.scheduleWithFixedDelay(this::syncActiveSegment, flushInterval, flushInterval,
+                                                   TimeUnit.MILLISECONDS);
+        maintenanceExecutor.scheduleWithFixedDelay(this::compact, compactionInterval, compactionInterval,
+                                                   TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void executeRead(Runnable task) {
+        readExecutor.execute(task);
+    }
+
+    @Override
+    void publishMessageToStore(Message message) {
+        ByteBuffer payload = encodePayload(message);
+        message.release();
+
+        boolean written = false;
+        lock.writeLock().lock();
+        try (Context ignored = metricManager.startMessageWriteTimer()) {
+            // Queues are read within the lock so that a concurrent detach either sees the insert or is not needed
+            Set<String> queues = new HashSet<>(message.getAttachedQueues());
+            if (!queues.isEmpty()) {
+                writeInsertRecord(message.getInternalId(), queues, payload);
+                written = true;
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error persisting message " + message.getInternalId(), e);
+            message.completePublish(false);
+            return;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (!written) {
+            message.completePublish(true);
+        } else if (Objects.nonNull(message.getPublishListener())) {
+            unsyncedMessages.add(message);
+        }
+    }
+
+    @Override
+    void detachFromQueue(String queueName, Message message) {
+        lock.writeLock().lock();
+        try {
+            writeDetachRecord(queueName, message.getInternalId());
+            // Owners of a message recreated from its id are not known, hence the last detach deletes the message
+            MessageEntry entry = messageIndex.get(message.getInternalId());
+            if (Objects.nonNull(entry) && entry.queues.isEmpty()) {
+                writeDeleteRecord(message.getInternalId());
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error detaching message " + message.getInternalId() + " from queue " + queueName, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    void deleteMessage(long messageId) {
+        lock.writeLock().lock();
+        try (Context ignored = metricManager.startMessageDeleteTimer()) {
+            writeDeleteRecord(messageId);
+        } catch (IOException e) {
+            LOGGER.error("Error deleting message " + messageId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    void commitTransactionToStore(TransactionData transactionData) throws BrokerException {
+        Map<Message, ByteBuffer> payloads = new HashMap<>();
+        for (Message message : transactionData.getEnqueueMessages()) {
+            payloads.put(message, encodePayload(message));
+        }
+
+        lock.writeLock().lock();
+        try (Context ignored = metricManager.startMessageWriteTimer()) {
+            for (Map.Entry<Message, ByteBuffer> entry : payloads.entrySet()) {
+                Message message = entry.getKey();
+                writeInsertRecord(message.getInternalId(), new HashSet<>(message.getAttachedQueues()),
+                                  entry.getValue());
+            }
+            for (Map.Entry<String, List<Long>> entry : transactionData.getDetachMessageMap().entrySet()) {
+                for (Long messageId : entry.getValue()) {
+                    writeDetachRecord(entry.getKey(), messageId);
+                }
+            }
+            for (Long messageId : transactionData.getDeletableMessage()) {
+                writeDeleteRecord(messageId);
+            }
+            activeSegment.force();
+        } catch (IOException e) {
+            throw new BrokerException("Error committing transaction to message store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void fillMessageData(QueueBuffer queueBuffer, List<Message> messages) {
+        // Split the batch among the readers so that a large read-ahead is read in parallel
+        int partitionSize = (messages.size() + readerCount - 1) / readerCount;
+        for (int start = 0; start < messages.size(); start += partitionSize) {
+            List<Message> partition = messages.subList(start, Math.min(start + partitionSize, messages.size()));
+            readExecutor.execute(() -> {
+                for (Message message : partition) {
+                    try {
+                        readMessageData(message);
+                    } catch (IOException | BrokerException e) {
+                        LOGGER.error("Error reading data of message " + message.getInternalId(), e);
+                    }
+                }
+                queueBuffer.markMessagesFilled(partition);
+            });
+        }
+    }
+
+    @Override
+    public Collection<Message> readAllMessagesForQueue(String queueName) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Long> messageIds = queueIndex.get(queueName);
+            if (Objects.isNull(messageIds)) {
+                return Collections.emptyList();
+            }
+
+            return toBareMessages(messageIds, messageIds.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<Message> readMessagesForQueue(String queueName, long afterMessageId, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Long> messageIds = queueIndex.get(queueName);
+            if (Objects.isNull(messageIds)) {
+                return Collections.emptyList();
+            }
+
+            return toBareMessages(messageIds.tailSet(afterMessageId, false), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countMessagesForQueue(String queueName) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Long> messageIds = queueIndex.get(queueName);
+            return Objects.isNull(messageIds) ? 0 : messageIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Message> toBareMessages(Collection<Long> messageIds, int limit) {
+        List<Message> messages = new ArrayList<>(Math.min(messageIds.size(), limit));
+        for (Long messageId : messageIds) {
+            if (messages.size() == limit) {
+                break;
+            }
+            Message message = new Message(messageId, null);
+            for (String queue : messageIndex.get(messageId).queues) {
+                message.addOwnedQueue(queue);
+            }
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Stop the background tasks and close all the segment files.
+     */
+    @Override
+    public void close() throws BrokerException {
+        maintenanceExecutor.shutdown();
+        readExecutor.shutdown();
+        lock.writeLock().lock();
+        try {
+            activeSegment.force();
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            throw new BrokerException("Error closing message store segments in " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void readMessageData(Message message) throws IOException, BrokerException {
+        ByteBuffer payload;
+        try (Context ignored = metricManager.startMessageReadTimer()) {
+            lock.readLock().lock();
+            try {
+                MessageEntry entry = messageIndex.get(message.getInternalId());
+                if (Objects.isNull(entry)) {
+                    return;
+                }
+                payload = entry.segment.read(entry.payloadPosition, entry.payloadLength);
+                if (!message.hasAttachedQueues()) {
+                    entry.queues.forEach(message::addOwnedQueue);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        decodePayload(message, payload);
+    }
+
+    private void writeInsertRecord(long messageId, Set<String> queues, ByteBuffer payload) throws IOException {
+        List<byte[]> queueNames = new ArrayList<>(queues.size());
+        int bodyLength = 1 + 8 + 2 + payload.remaining();
+        for (String queue : queues) {
+            byte[] queueName = queue.getBytes(StandardCharsets.UTF_8);
+            queueNames.add(queueName);
+            bodyLength += 2 + queueName.length;
+        }
+
+        ByteBuffer frame = newFrame(bodyLength, INSERT_RECORD, messageId);
+        frame.putShort((short) queueNames.size());
+        for (byte[] queueName : queueNames) {
+            frame.putShort((short) queueName.length).put(queueName);
+        }
+        int payloadLength = payload.remaining();
+        frame.put(payload.duplicate());
+
+        long position = append(seal(frame));
+        index(new MessageEntry(messageId, activeSegment, position + FRAME_HEADER_SIZE + bodyLength - payloadLength,
+                               payloadLength, FRAME_HEADER_SIZE + bodyLength, queues));
+    }
+
+    private void writeDetachRecord(String queueName, long messageId) throws IOException {
+        MessageEntry entry = messageIndex.get(messageId);
+        if (Objects.isNull(entry)) {
+            // Non persistent messages and messages deleted before they were persisted are not in the store
+            return;
+        }
+
+        byte[] name = queueName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = newFrame(1 + 8 + 2 + name.length, DETACH_RECORD, messageId);
+        frame.putShort((short) name.length).put(name);
+        append(seal(frame));
+        entry.queues.remove(queueName);
+        removeFromQueueIndex(queueName, messageId);
+    }
+
+    private void writeDeleteRecord(long messageId) throws IOException {
+        if (!messageIndex.containsKey(messageId)) {
+            return;
+        }
+        append(seal(newFrame(1 + 8, DELETE_RECORD, messageId)));
+        removeEntry(messageId);
+    }
+
+    private static ByteBuffer newFrame(int bodyLength, byte recordType, long messageId) {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + bodyLength);
+        frame.putInt(bodyLength);
+        frame.putInt(0);
+        frame.put(recordType);
+        frame.putLong(messageId);
+        return frame;
+    }
+
+    private static ByteBuffer seal(ByteBuffer frame) {
+        CRC32 checksum = new CRC32();
+        checksum.update(frame.array(), FRAME_HEADER_SIZE, frame.position() - FRAME_HEADER_SIZE);
+        frame.putInt(4, (int) checksum.getValue());
+        frame.flip();
+        return frame;
+    }
+
+    private long append(ByteBuffer frame) throws IOException {
+        if (activeSegment.getSize() > 0 && activeSegment.getSize() + frame.remaining() > segmentSize) {
+            rollSegment();
+        }
+        return activeSegment.append(frame);
+    }
+
+    private void rollSegment() throws IOException {
+        long nextId = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        if (Objects.nonNull(activeSegment)) {
+            activeSegment.force();
+        }
+        Segment segment = Segment.open(directory, nextId);
+        segments.put(nextId, segment);
+        activeSegment = segment;
+    }
+
+    private void index(MessageEntry entry) {
+        MessageEntry previous = messageIndex.put(entry.messageId, entry);
+        if (Objects.nonNull(previous)) {
+            previous.segment.removeLiveMessage(previous.messageId, previous.recordLength);
+            for (String queue : previous.queues) {
+                removeFromQueueIndex(queue, previous.messageId);
+            }
+        }
+
+        entry.segment.addLiveMessage(entry.messageId, entry.recordLength);
+        for (String queue : entry.queues) {
+            queueIndex.computeIfAbsent(queue, k -> new TreeSet<>()).add(entry.messageId);
+        }
+    }
+
+    private void removeEntry(long messageId) {
+        MessageEntry entry = messageIndex.remove(messageId);
+        if (Objects.nonNull(entry)) {
+            entry.segment.removeLiveMessage(messageId, entry.recordLength);
+            for (String queue : entry.queues) {
+                removeFromQueueIndex(queue, messageId);
+            }
+        }
+    }
+
+    private void removeFromQueueIndex(String queueName, long messageId) {
+        NavigableSet<Long> messageIds = queueIndex.get(queueName);
+        if (Objects.nonNull(messageIds)) {
+            messageIds.remove(messageId);
+            if (messageIds.isEmpty()) {
+                queueIndex.remove(queueName);
+            }
+        }
+    }
+
+    /**
+     * Flush appended records of the active segment to the disk and notify the publish listeners of the messages
+     * written before the sync. Appends are not blocked while syncing.
+     */
+    private void syncActiveSegment() {
+        // Drain before syncing. Records of drained messages are either in the active segment or in a previous
+        // segment that was synced when rolling over.
+        List<Message> syncedMessages = new ArrayList<>();
+        Message message;
+        while ((message = unsyncedMessages.poll()) != null) {
+            syncedMessages.add(message);
+        }
+
+        boolean success = true;
+        try {
+            activeSegment.force();
+        } catch (ClosedChannelException e) {
+            LOGGER.debug("Segment was closed while syncing", e);
+        } catch (IOException e) {
+            LOGGER.error("Error syncing message store segment", e);
+            success = false;
+        }
+
+        for (Message syncedMessage : syncedMessages) {
+            syncedMessage.completePublish(success);
+        }
+    }
+
+    /**
+     * Compact segments starting from the oldest one while the live data ratio of the oldest segment is below the
+     * compaction threshold.
+     */
+    void compact() {
+        lock.writeLock().lock();
+        try {
+            while (true) {
+                Segment oldest = segments.firstEntry().getValue();
+                if (oldest == activeSegment || oldest.getLiveBytes() > oldest.getSize() * compactionThreshold) {
+                    break;
+                }
+
+                int relocatedCount = oldest.getLiveMessages().size();
+                for (Long messageId : new ArrayList<>(oldest.getLiveMessages())) {
+                    MessageEntry entry = messageIndex.get(messageId);
+                    ByteBuffer payload = oldest.read(entry.payloadPosition, entry.payloadLength);
+                    writeInsertRecord(messageId, entry.queues, payload);
+                }
+                activeSegment.force();
+                segments.remove(oldest.getId());
+                oldest.delete();
+
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Compacted segment {} relocating {} messages", oldest.getPath(), relocatedCount);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error compacting message store segments", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segmentIds = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                long segmentId = Segment.parseId(path.getFileName().toString());
+                if (segmentId >= 0) {
+                    segmentIds.add(segmentId);
+                }
+            }
+        }
+        Collections.sort(segmentIds);
+
+        for (Long segmentId : segmentIds) {
+            Segment segment = Segment.open(directory, segmentId);
+            segments.put(segmentId, segment);
+            replay(segment);
+        }
+        rollSegment();
+
+        LOGGER.info("Recovered {} messages from {} segments in {}", messageIndex.size(), segmentIds.size(),
+                    directory);
+    }
+
+    private void replay(Segment segment) throws IOException {
+        DataInputStream reader = segment.openReader();
+        long size = segment.getSize();
+        long position = 0;
+
+        while (position + FRAME_HEADER_SIZE <= size) {
+            int bodyLength = reader.readInt();
+            int expectedChecksum = reader.readInt();
+            if (bodyLength <= 0 || position + FRAME_HEADER_SIZE + bodyLength > size) {
+                break;
+            }
+
+            byte[] body = new byte[bodyLength];
+            reader.readFully(body);
+            CRC32 checksum = new CRC32();
+            checksum.update(body, 0, bodyLength);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                break;
+            }
+
+            applyRecord(segment, position, ByteBuffer.wrap(body));
+            position += FRAME_HEADER_SIZE + bodyLength;
+        }
+
+        if (position < size) {
+            LOGGER.warn("Discarding {} bytes of incomplete records at the end of {}", size - position,
+                        segment.getPath());
+            segment.truncate(position);
+        }
+    }
+
+    private void applyRecord(Segment segment, long position, ByteBuffer body) throws IOException {
+        byte recordType = body.get();
+        long messageId = body.getLong();
+        switch (recordType) {
+            case INSERT_RECORD:
+                int queueCount = body.getShort();
+                Set<String> queues = new HashSet<>(queueCount);
+                for (int i = 0; i < queueCount; i++) {
+                    queues.add(readString(body));
+                }
+                index(new MessageEntry(messageId, segment, position + FRAME_HEADER_SIZE + body.position(),
+                                       body.remaining(), FRAME_HEADER_SIZE + body.limit(), queues));
+                break;
+            case DETACH_RECORD:
+                String queueName = readString(body);
+                MessageEntry entry = messageIndex.get(messageId);
+                if (Objects.nonNull(entry)) {
+                    entry.queues.remove(queueName);
+                    removeFromQueueIndex(queueName, messageId);
+                }
+                break;
+            case DELETE_RECORD:
+                removeEntry(messageId);
+                break;
+            default:
+                throw new IOException("Unknown record type " + recordType + " in " + segment.getPath());
+        }
+    }
+
+    private static ByteBuffer encodePayload(Message message) {
+        Metadata metadata = message.getMetadata();
+        byte[] exchangeName = metadata.getExchangeName().getBytes(StandardCharsets.UTF_8);
+        byte[] routingKey = metadata.getRoutingKey().getBytes(StandardCharsets.UTF_8);
+        byte[] encodedMetadata = MetadataCodec.encode(metadata);
+        int contentSize = 0;
+        for (ContentChunk chunk : message.getContentChunks()) {
+            contentSize += 8 + 4 + chunk.getBytes().readableBytes();
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(2 + exchangeName.length + 2 + routingKey.length + 8
+                                                         + 4 + encodedMetadata.length + 4 + contentSize);
+        payload.putShort((short) exchangeName.length).put(exchangeName);
+        payload.putShort((short) routingKey.length).put(routingKey);
+        payload.putLong(metadata.getContentLength());
+
+        payload.putInt(encodedMetadata.length).put(encodedMetadata);
+
+        payload.putInt(message.getContentChunks().size());
+        for (ContentChunk chunk : message.getContentChunks()) {
+            ByteBuf content = chunk.getBytes();
+            int length = content.readableBytes();
+            payload.putLong(chunk.getOffset()).putInt(length);
+            content.getBytes(content.readerIndex(), payload.array(), payload.position(), length);
+            payload.position(payload.position() + length);
+        }
+        payload.flip();
+        return payload;
+    }
+
+    private static void decodePayload(Message message, ByteBuffer payload) throws BrokerException {
+        String exchangeName = readString(payload);
+        String routingKey = readString(payload);
+        long contentLength = payload.getLong();
+
+        int propertiesSize = payload.getInt();
+        ByteBuf buffer = Unpooled.wrappedBuffer(payload.array(), payload.position(), propertiesSize);
+        try {
+            Metadata metadata = new Metadata(routingKey, exchangeName, contentLength);
+            MetadataCodec.decode(metadata, buffer);
+            message.setMetadata(metadata);
+        } catch (Exception e) {
+            throw new BrokerException("Error occurred while parsing metadata properties", e);
+        } finally {
+            buffer.release();
+        }
+        payload.position(payload.position() + propertiesSize);
+
+        int chunkCount = payload.getInt();
+        for (int i = 0; i < chunkCount; i++) {
+            long offset = payload.getLong();
+            int length = payload.getInt();
+            // Payload buffer is not shared, hence chunks can wrap it without copying
+            message.addChunk(new ContentChunk(offset, Unpooled.wrappedBuffer(payload.array(), payload.position(),
+                                                                              length)));
+            payload.position(payload.position() + length);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Location and queue attachments of the latest insert record of a live message.
+     */
+    private static final class MessageEntry {
+
+        private final long messageId;
+
+        private final Segment segment;
+
+        private final long payloadPosition;
+
+        private final int payloadLength;
+
+        private final int recordLength;
+
+        private final Set<String> queues;
+
+        private MessageEntry(long messageId, Segment segment, long payloadPosition, int payloadLength,
+                             int recordLength, Set<String> queues) {
+            this.messageId = messageId;
+            this.segment = segment;
+            this.payloadPosition = payloadPosition;
+            this.payloadLength = payloadLength;
+            this.recordLength = recordLength;
+            this.queues = queues;
+        }
+    }
+}
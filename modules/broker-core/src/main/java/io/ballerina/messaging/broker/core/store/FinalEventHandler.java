@@ -34,12 +34,10 @@ public class FinalEventHandler implements EventHandler<DbOperation> {
     public void onEvent(DbOperation event, long sequence, boolean endOfBatch) {
         try {
             switch (event.getType()) {
-                case READ_MSG_DATA:
-                    event.getQueueBuffer().markMessageFilled(event.getBareMessage());
-                    break;
                 case INSERT_MESSAGE:
                 case DELETE_MESSAGE:
                 case DETACH_MSG_FROM_QUEUE:
+                case DETACH_MSG_WITH_UNKNOWN_OWNERS:
                 case NO_OP:
                     break;
                 default:
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Adaptive group commit policy used by {@link DbAccessHandler} to decide the number of operations committed in a
+ * single database transaction.
+ * <p>
+ * The policy keeps a moving average of the time spent per operation. When a commit exceeds the target latency the
+ * batch size is reduced to the size expected to meet the target. When commits are within the target and operations
+ * are piling up in the ring buffer the batch size is grown, at most doubling per commit, to amortize the commit cost.
+ */
+@NotThreadSafe
+final class GroupCommitPolicy {
+
+    /**
+     * Weight given to the latest observation when updating the moving average.
+     */
+    private static final double SMOOTHING_FACTOR = 0.2;
+
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    private final long targetLatencyNanos;
+
+    private double averageOperationNanos;
+
+    private int batchSize;
+
+    GroupCommitPolicy(int minBatchSize, int maxBatchSize, long targetLatencyNanos) {
+        this.minBatchSize = Math.max(1, Math.min(minBatchSize, maxBatchSize));
+        this.maxBatchSize = maxBatchSize;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.batchSize = maxBatchSize;
+    }
+
+    /**
+     * Number of operations that should trigger a commit.
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Update the batch size with the observations of a completed commit.
+     *
+     * @param operationCount number of operations committed
+     * @param commitNanos    time taken to commit in nanoseconds
+     * @param backlog        number of events waiting in the ring buffer after the commit
+     */
+    void recordCommit(int operationCount, long commitNanos, long backlog) {
+        double operationNanos = (double) commitNanos / operationCount;
+        if (averageOperationNanos == 0) {
+            averageOperationNanos = operationNanos;
+        } else {
+            averageOperationNanos = averageOperationNanos * (1 - SMOOTHING_FACTOR)
+                    + operationNanos * SMOOTHING_FACTOR;
+        }
+
+        long sizeWithinTarget = (long) (targetLatencyNanos / Math.max(averageOperationNanos, 1));
+        if (commitNanos > targetLatencyNanos) {
+            batchSize = clamp(Math.min(batchSize, sizeWithinTarget));
+        } else if (backlog >= batchSize) {
+            batchSize = clamp(Math.min(2L * batchSize, Math.max(batchSize, sizeWithinTarget)));
+        }
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(minBatchSize, Math.min(maxBatchSize, size));
+    }
+}
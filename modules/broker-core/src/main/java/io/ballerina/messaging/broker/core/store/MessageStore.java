@@ -24,6 +24,7 @@ import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.queue.QueueBuffer;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -71,6 +72,11 @@ public abstract class MessageStore {
     }
 
     public synchronized void detach(String queueName, final Message message) {
+        if (Objects.isNull(message.getMetadata()) && !message.hasAttachedQueues()) {
+            // A bare message recreated from its id might still be attached to other queues in the store
+            detachUnknownOwners(queueName, message);
+            return;
+        }
         message.removeAttachedQueue(queueName);
         if (!message.hasAttachedQueues()) {
             deleteMessage(message.getInternalId());
@@ -97,7 +103,9 @@ public abstract class MessageStore {
             if (message.hasAttachedQueues()) {
                 publishMessageToStore(message);
             } else {
+                discardMessage(message);
                 message.release();
+                message.completePublish(true);
             }
         }
     }
@@ -118,15 +126,84 @@ public abstract class MessageStore {
         transactionData.clear();
     }
 
+    /**
+     * Invoked when a message added to the store is not persisted since it is not attached to any queue.
+     *
+     * @param message discarded message
+     */
+    void discardMessage(Message message) {
+        // Nothing to clean up by default
+    }
+
+    /**
+     * Run a task reading from the store on the reader threads of the store, so that message delivery threads are
+     * not blocked on the store. Runs the task in the calling thread by default.
+     *
+     * @param task read task
+     */
+    public void executeRead(Runnable task) {
+        task.run();
+    }
+
+    /**
+     * Release the threads and files held by the store. Invoked once when the broker is shut down.
+     *
+     * @throws BrokerException if the store is not closed cleanly
+     */
+    public void close() throws BrokerException {
+        // Nothing to release by default
+    }
+
+    /**
+     * Persist the message. Implementations must call {@link Message#completePublish(boolean)} once the message is
+     * stored or could not be stored.
+     *
+     * @param message message to be persisted
+     */
     abstract void publishMessageToStore(Message message);
 
     abstract void detachFromQueue(String queueName, Message message);
 
+    /**
+     * Detach a message whose owned queues are not known, i.e. a message recreated from its id. The message must be
+     * deleted if no other queue holds it in the store.
+     *
+     * @param queueName name of the queue the message is detached from
+     * @param message   message recreated from its id
+     */
+    void detachUnknownOwners(String queueName, Message message) {
+        // Stores deleting a message together with its last queue only need to detach it
+        detachFromQueue(queueName, message);
+    }
+
     abstract void deleteMessage(long messageId);
 
     abstract void commitTransactionToStore(TransactionData transactionData) throws BrokerException;
 
-    public abstract void fillMessageData(QueueBuffer queueBuffer, Message message);
+    /**
+     * Read the data of the given bare messages. {@link QueueBuffer#markMessagesFilled(java.util.Collection)} is
+     * called once the data of the messages is available. Messages without owned queues, i.e. messages recreated by
+     * a buffer from their ids, get the queues the message is still attached to in the store.
+     *
+     * @param queueBuffer buffer the messages belong to
+     * @param messages    bare messages ordered by their position in the buffer
+     */
+    public abstract void fillMessageData(QueueBuffer queueBuffer, List<Message> messages);
 
     public abstract Collection<Message> readAllMessagesForQueue(String queueName) throws BrokerException;
+
+    /**
+     * Read a page of messages of a queue ordered by the message id. Only the message ids and the owning queues are
+     * read.
+     *
+     * @param queueName      name of the queue
+     * @param afterMessageId messages with an id greater than this are read
+     * @param limit          maximum number of messages to read
+     * @return messages of the page
+     * @throws BrokerException if the messages cannot be read
+     */
+    public abstract Collection<Message> readMessagesForQueue(String queueName, long afterMessageId, int limit)
+            throws BrokerException;
+
+    public abstract int countMessagesForQueue(String queueName) throws BrokerException;
 }
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.LongInt;
+import io.ballerina.messaging.broker.common.data.types.LongLongInt;
+import io.ballerina.messaging.broker.common.data.types.ShortShortInt;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.store.compression.ContentCompressor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Binary codec for the persisted properties and headers of a message.
+ * <p>
+ * Format version 1 is laid out as
+ * <pre>
+ * version (1 byte) | slot flags (1 byte) | present slots | other properties (field table) | headers (field table)
+ * </pre>
+ * Common AMQP properties are written to fixed slots without their names and type tags. A slot also records the
+ * codec used to compress the stored content, if any. Headers are decoded lazily since they are only needed when
+ * routing or filtering on them.
+ * <p>
+ * Format version 2 is used for messages with a recorded arrival time, which is written as a long after the slot
+ * flags. The rest of the layout is the same as version 1.
+ * <p>
+ * Metadata written before the codec was introduced is two field tables. Those rows start with the high order byte
+ * of the properties table size, which never has the most significant bit set, and are still readable.
+ */
+public final class MetadataCodec {
+
+    static final byte VERSION_1 = (byte) 0x81;
+
+    static final byte VERSION_2 = (byte) 0x82;
+
+    private static final int VERSION_MASK = 0x80;
+
+    private static final int DELIVERY_MODE_SLOT = 1;
+
+    private static final int PRIORITY_SLOT = 1 << 1;
+
+    private static final int TIMESTAMP_SLOT = 1 << 2;
+
+    private static final int PROPERTY_FLAGS_SLOT = 1 << 3;
+
+    private static final int EXPIRATION_SLOT = 1 << 4;
+
+    private static final int CORRELATION_ID_SLOT = 1 << 5;
+
+    private static final int MESSAGE_ID_SLOT = 1 << 6;
+
+    private static final int CONTENT_CODEC_SLOT = 1 << 7;
+
+    private MetadataCodec() {
+    }
+
+    /**
+     * Encode the properties and headers of the given metadata.
+     *
+     * @param metadata message metadata
+     * @return encoded bytes
+     */
+    public static byte[] encode(Metadata metadata) {
+        return encode(metadata, ContentCompressor.NO_CODEC);
+    }
+
+    /**
+     * Encode the properties and headers of the given metadata along with the codec of the stored content.
+     *
+     * @param metadata     message metadata
+     * @param contentCodec identifier of the codec used to compress the content
+     * @return encoded bytes
+     */
+    public static byte[] encode(Metadata metadata, byte contentCodec) {
+        SlotCollector slots = new SlotCollector(contentCodec, metadata.getArrivalTime());
+        metadata.getProperties().forEach(slots);
+        FieldTable headers = metadata.getHeaders();
+
+        byte[] bytes = new byte[(int) (slots.getSize() + headers.getSize())];
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        try {
+            buffer.resetWriterIndex();
+            slots.write(buffer);
+            headers.write(buffer);
+        } finally {
+            buffer.release();
+        }
+        return bytes;
+    }
+
+    /**
+     * Decode properties and headers from the buffer and set them on the given metadata.
+     *
+     * @param metadata message metadata to populate
+     * @param buffer   buffer positioned at the start of the encoded metadata
+     * @return identifier of the codec used to compress the content
+     * @throws Exception if the encoded metadata is malformed
+     */
+    public static byte decode(Metadata metadata, ByteBuf buffer) throws Exception {
+        byte version = buffer.getByte(buffer.readerIndex());
+        if ((version & VERSION_MASK) == 0) {
+            metadata.setProperties(FieldTable.parse(buffer));
+            metadata.setHeaders(FieldTable.parse(buffer));
+            return ContentCompressor.NO_CODEC;
+        }
+
+        if (version != VERSION_1 && version != VERSION_2) {
+            throw new Exception("Unknown metadata format version " + (version & ~VERSION_MASK));
+        }
+        buffer.skipBytes(1);
+        int slotFlags = buffer.readUnsignedByte();
+        if (version == VERSION_2) {
+            metadata.setArrivalTime(buffer.readLong());
+        }
+
+        FieldValue deliveryMode = null;
+        FieldValue priority = null;
+        FieldValue timestamp = null;
+        FieldValue propertyFlags = null;
+        FieldValue expiration = null;
+        FieldValue correlationId = null;
+        FieldValue messageId = null;
+        if ((slotFlags & DELIVERY_MODE_SLOT) != 0) {
+            deliveryMode = FieldValue.parseShortShortInt(buffer.readByte());
+        }
+        if ((slotFlags & PRIORITY_SLOT) != 0) {
+            priority = FieldValue.parseShortShortInt(buffer.readByte());
+        }
+        if ((slotFlags & TIMESTAMP_SLOT) != 0) {
+            timestamp = FieldValue.parseLongLongInt(buffer.readLong());
+        }
+        if ((slotFlags & PROPERTY_FLAGS_SLOT) != 0) {
+            propertyFlags = FieldValue.parseLongInt(buffer.readInt());
+        }
+        if ((slotFlags & EXPIRATION_SLOT) != 0) {
+            expiration = FieldValue.parseShortString(ShortString.parse(buffer));
+        }
+        if ((slotFlags & CORRELATION_ID_SLOT) != 0) {
+            correlationId = FieldValue.parseShortString(ShortString.parse(buffer));
+        }
+        if ((slotFlags & MESSAGE_ID_SLOT) != 0) {
+            messageId = FieldValue.parseShortString(ShortString.parse(buffer));
+        }
+        byte contentCodec = ContentCompressor.NO_CODEC;
+        if ((slotFlags & CONTENT_CODEC_SLOT) != 0) {
+            contentCodec = buffer.readByte();
+        }
+
+        FieldTable properties = FieldTable.parse(buffer);
+        addIfPresent(properties, Metadata.DELIVERY_MODE, deliveryMode);
+        addIfPresent(properties, Metadata.PRIORITY, priority);
+        addIfPresent(properties, Metadata.TIMESTAMP, timestamp);
+        addIfPresent(properties, Metadata.PROPERTY_FLAGS, propertyFlags);
+        addIfPresent(properties, Metadata.EXPIRATION, expiration);
+        addIfPresent(properties, Metadata.CORRELATION_ID, correlationId);
+        addIfPresent(properties, Metadata.MESSAGE_ID, messageId);
+
+        metadata.setProperties(properties);
+        metadata.setHeaders(FieldTable.parseLazily(buffer));
+        return contentCodec;
+    }
+
+    private static void addIfPresent(FieldTable properties, ShortString name, FieldValue value) {
+        if (value != null) {
+            properties.add(name, value);
+        }
+    }
+
+    /**
+     * Splits message properties into fixed slots and a field table of the remaining properties. Properties with an
+     * unexpected type are kept in the field table.
+     */
+    private static class SlotCollector implements BiConsumer<ShortString, FieldValue> {
+
+        private final FieldTable otherProperties = new FieldTable();
+
+        private final byte contentCodec;
+
+        private final long arrivalTime;
+
+        private int slotFlags;
+
+        private byte deliveryMode;
+
+        private byte priority;
+
+        private long timestamp;
+
+        private int propertyFlags;
+
+        private ShortString expiration;
+
+        private ShortString correlationId;
+
+        private ShortString messageId;
+
+        SlotCollector(byte contentCodec, long arrivalTime) {
+            this.contentCodec = contentCodec;
+            this.arrivalTime = arrivalTime;
+            if (contentCodec != ContentCompressor.NO_CODEC) {
+                slotFlags |= CONTENT_CODEC_SLOT;
+            }
+        }
+
+        @Override
+        public void accept(ShortString name, FieldValue value) {
+            FieldValue.Type type = value.getType();
+            if (type == FieldValue.Type.SHORT_SHORT_INT && Metadata.DELIVERY_MODE.equals(name)) {
+                slotFlags |= DELIVERY_MODE_SLOT;
+                deliveryMode = ((ShortShortInt) value.getValue()).getByte();
+            } else if (type == FieldValue.Type.SHORT_SHORT_INT && Metadata.PRIORITY.equals(name)) {
+                slotFlags |= PRIORITY_SLOT;
+                priority = ((ShortShortInt) value.getValue()).getByte();
+            } else if (type == FieldValue.Type.LONG_LONG_INT && Metadata.TIMESTAMP.equals(name)) {
+                slotFlags |= TIMESTAMP_SLOT;
+                timestamp = ((LongLongInt) value.getValue()).getLong();
+            } else if (type == FieldValue.Type.LONG_INT && Metadata.PROPERTY_FLAGS.equals(name)) {
+                slotFlags |= PROPERTY_FLAGS_SLOT;
+                propertyFlags = ((LongInt) value.getValue()).getInt();
+            } else if (type == FieldValue.Type.SHORT_STRING && Metadata.EXPIRATION.equals(name)) {
+                slotFlags |= EXPIRATION_SLOT;
+                expiration = (ShortString) value.getValue();
+            } else if (type == FieldValue.Type.SHORT_STRING && Metadata.CORRELATION_ID.equals(name)) {
+                slotFlags |= CORRELATION_ID_SLOT;
+                correlationId = (ShortString) value.getValue();
+            } else if (type == FieldValue.Type.SHORT_STRING && Metadata.MESSAGE_ID.equals(name)) {
+                slotFlags |= MESSAGE_ID_SLOT;
+                messageId = (ShortString) value.getValue();
+            } else {
+                otherProperties.add(name, value);
+            }
+        }
+
+        long getSize() {
+            long size = 2L + otherProperties.getSize();
+            if (arrivalTime != Metadata.NO_ARRIVAL_TIME) {
+                size += 8;
+            }
+            if ((slotFlags & DELIVERY_MODE_SLOT) != 0) {
+                size += 1;
+            }
+            if ((slotFlags & PRIORITY_SLOT) != 0) {
+                size += 1;
+            }
+            if ((slotFlags & TIMESTAMP_SLOT) != 0) {
+                size += 8;
+            }
+            if ((slotFlags & PROPERTY_FLAGS_SLOT) != 0) {
+                size += 4;
+            }
+            if (expiration != null) {
+                size += expiration.getSize();
+            }
+            if (correlationId != null) {
+                size += correlationId.getSize();
+            }
+            if (messageId != null) {
+                size += messageId.getSize();
+            }
+            if ((slotFlags & CONTENT_CODEC_SLOT) != 0) {
+                size += 1;
+            }
+            return size;
+        }
+
+        void write(ByteBuf buffer) {
+            if (arrivalTime != Metadata.NO_ARRIVAL_TIME) {
+                buffer.writeByte(VERSION_2);
+                buffer.writeByte(slotFlags);
+                buffer.writeLong(arrivalTime);
+            } else {
+                buffer.writeByte(VERSION_1);
+                buffer.writeByte(slotFlags);
+            }
+            if ((slotFlags & DELIVERY_MODE_SLOT) != 0) {
+                buffer.writeByte(deliveryMode);
+            }
+            if ((slotFlags & PRIORITY_SLOT) != 0) {
+                buffer.writeByte(priority);
+            }
+            if ((slotFlags & TIMESTAMP_SLOT) != 0) {
+                buffer.writeLong(timestamp);
+            }
+            if ((slotFlags & PROPERTY_FLAGS_SLOT) != 0) {
+                buffer.writeInt(propertyFlags);
+            }
+            if (expiration != null) {
+                expiration.write(buffer);
+            }
+            if (correlationId != null) {
+                correlationId.write(buffer);
+            }
+            if (messageId != null) {
+                messageId.write(buffer);
+            }
+            if ((slotFlags & CONTENT_CODEC_SLOT) != 0) {
+                buffer.writeByte(contentCodec);
+            }
+            otherProperties.write(buffer);
+        }
+    }
+}
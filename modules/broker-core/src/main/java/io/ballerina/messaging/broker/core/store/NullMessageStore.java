@@ -24,6 +24,7 @@ import io.ballerina.messaging.broker.core.queue.QueueBuffer;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Null message store object used to avoid calling the database access layer
@@ -32,7 +33,7 @@ public class NullMessageStore extends MessageStore {
 
     @Override
     void publishMessageToStore(Message message) {
-        // Do nothing
+        message.completePublish(true);
     }
 
     @Override
@@ -51,7 +52,7 @@ public class NullMessageStore extends MessageStore {
     }
 
     @Override
-    public void fillMessageData(QueueBuffer queueBuffer, Message message) {
+    public void fillMessageData(QueueBuffer queueBuffer, List<Message> messages) {
         // Do nothing
     }
 
@@ -59,4 +60,14 @@ public class NullMessageStore extends MessageStore {
     public Collection<Message> readAllMessagesForQueue(String queueName) {
         return Collections.emptyList();
     }
+
+    @Override
+    public Collection<Message> readMessagesForQueue(String queueName, long afterMessageId, int limit) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int countMessagesForQueue(String queueName) {
+        return 0;
+    }
 }
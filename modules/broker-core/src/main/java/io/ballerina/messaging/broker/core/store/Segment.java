@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Append-only log file used by the {@link FileMessageStore}. Each segment tracks the messages whose latest insert
+ * record is written to it so that the segment can be compacted once most of those messages are deleted.
+ */
+@NotThreadSafe
+final class Segment {
+
+    private static final String FILE_PREFIX = "segment-";
+
+    private static final String FILE_SUFFIX = ".log";
+
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile(FILE_PREFIX + "(\\d{20})\\" + FILE_SUFFIX);
+
+    private final long id;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    /**
+     * Ids of the messages whose insert record in this segment is still live.
+     */
+    private final Set<Long> liveMessages = new HashSet<>();
+
+    private long size;
+
+    private long liveBytes;
+
+    private Segment(long id, Path path, FileChannel channel) throws IOException {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    static Segment open(Path directory, long id) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, id, FILE_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        return new Segment(id, path, channel);
+    }
+
+    /**
+     * Extract the segment id from a segment file name.
+     *
+     * @param fileName name of the file
+     * @return segment id or -1 if the file is not a segment file
+     */
+    static long parseId(String fileName) {
+        Matcher matcher = FILE_NAME_PATTERN.matcher(fileName);
+        if (matcher.matches()) {
+            return Long.parseLong(matcher.group(1));
+        }
+        return -1;
+    }
+
+    /**
+     * Append the buffer to the end of the segment.
+     *
+     * @param buffer data to be written
+     * @return position the data was written to
+     * @throws IOException if the write fails
+     */
+    long append(ByteBuffer buffer) throws IOException {
+        long position = size;
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer, size);
+        }
+        return position;
+    }
+
+    /**
+     * Read length number of bytes starting from position. Safe to be called concurrently with appends.
+     */
+    ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int readBytes = channel.read(buffer, position + buffer.position());
+            if (readBytes < 0) {
+                throw new IOException("Unexpected end of segment " + path + " at " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Create a sequential reader starting from the beginning of the segment. The returned stream must not be closed
+     * since closing it would close the underlying channel.
+     */
+    DataInputStream openReader() throws IOException {
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 65536));
+    }
+
+    /**
+     * Discard everything after the given position. Used to drop a partially written record during recovery.
+     */
+    void truncate(long position) throws IOException {
+        channel.truncate(position);
+        size = position;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    void addLiveMessage(long messageId, int recordLength) {
+        liveMessages.add(messageId);
+        liveBytes += recordLength;
+    }
+
+    void removeLiveMessage(long messageId, int recordLength) {
+        if (liveMessages.remove(messageId)) {
+            liveBytes -= recordLength;
+        }
+    }
+
+    Set<Long> getLiveMessages() {
+        return liveMessages;
+    }
+
+    long getLiveBytes() {
+        return liveBytes;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+}
@@ -41,12 +41,18 @@ public class TransactionData {
 
     private final List<Long> deleteMessageIdList;
 
+    /**
+     * Detached messages whose owned queues were not known. These are deleted if no queue holds them afterwards.
+     */
+    private final List<Long> deleteIfUnusedMessageIdList;
+
     private int detachOperationsCount;
 
     public TransactionData() {
         enqueueMessages = new HashMap<>();
         detachMessageMap = new HashMap<>();
         deleteMessageIdList = new ArrayList<>();
+        deleteIfUnusedMessageIdList = new ArrayList<>();
         detachOperationsCount = 0;
     }
 
@@ -66,6 +72,11 @@ public class TransactionData {
         detachOperationsCount++;
     }
 
+    public void detachUnknownOwners(String queueName, long internalMessageId) {
+        detach(queueName, internalMessageId);
+        deleteIfUnusedMessageIdList.add(internalMessageId);
+    }
+
     public void addDeletableMessage(long internalMessageId) {
         deleteMessageIdList.add(internalMessageId);
     }
@@ -82,9 +93,14 @@ public class TransactionData {
         return deleteMessageIdList;
     }
 
+    public Collection<Long> getDeletableIfUnusedMessages() {
+        return deleteIfUnusedMessageIdList;
+    }
+
     public void clear() {
         enqueueMessages.clear();
         deleteMessageIdList.clear();
+        deleteIfUnusedMessageIdList.clear();
         detachMessageMap.clear();
         detachOperationsCount = 0;
     }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.compression;
+
+import java.io.IOException;
+
+/**
+ * Compression algorithm applied to message content before it is written to the store.
+ * <p>
+ * Implementations must be stateless and thread safe. The identifier is persisted with each compressed message,
+ * hence it must not change once messages have been written with the codec.
+ */
+public interface ContentCodec {
+
+    /**
+     * Identifier persisted with the messages compressed using this codec. Zero is reserved for uncompressed content.
+     */
+    byte getId();
+
+    /**
+     * Compress the given content.
+     *
+     * @param content content bytes
+     * @return compressed bytes
+     */
+    byte[] compress(byte[] content);
+
+    /**
+     * Restore content compressed with {@link #compress(byte[])}.
+     *
+     * @param compressed compressed bytes
+     * @return content bytes
+     * @throws IOException if the compressed bytes are malformed
+     */
+    byte[] decompress(byte[] compressed) throws IOException;
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.compression;
+
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decides which messages are compressed before they are stored and resolves the {@link ContentCodec} used to
+ * restore stored content.
+ * <p>
+ * A message is compressed when its content is at least the configured minimum size, it does not already carry a
+ * content encoding and its content type matches one of the configured types. A type ending with "/*" matches all
+ * subtypes and an empty type list matches all messages.
+ */
+public class ContentCompressor {
+
+    /**
+     * Codec identifier recorded for uncompressed content.
+     */
+    public static final byte NO_CODEC = 0;
+
+    private final ContentCodec codec;
+
+    private final long minimumSize;
+
+    private final List<String> contentTypes;
+
+    private final Map<Byte, ContentCodec> codecs = new HashMap<>();
+
+    public ContentCompressor(ContentCodec codec, long minimumSize, List<String> contentTypes) {
+        this.codec = codec;
+        this.minimumSize = Math.max(1, minimumSize);
+        this.contentTypes = new ArrayList<>();
+        for (String contentType : contentTypes) {
+            this.contentTypes.add(contentType.trim().toLowerCase(Locale.ENGLISH));
+        }
+
+        // Content written with the default codec stays readable even if compression is disabled later
+        DeflateContentCodec deflateCodec = new DeflateContentCodec();
+        codecs.put(deflateCodec.getId(), deflateCodec);
+        if (Objects.nonNull(codec)) {
+            codecs.put(codec.getId(), codec);
+        }
+    }
+
+    /**
+     * Create a compressor which does not compress any message but can still restore compressed content.
+     */
+    public static ContentCompressor disabled() {
+        return new ContentCompressor(null, Long.MAX_VALUE, Collections.emptyList());
+    }
+
+    /**
+     * Create a compressor from the configuration.
+     *
+     * @param configuration compression configuration
+     * @return content compressor
+     * @throws BrokerException if the configured codec cannot be instantiated
+     */
+    public static ContentCompressor create(BrokerCoreConfiguration.Compression configuration)
+            throws BrokerException {
+        if (!configuration.isEnabled()) {
+            return disabled();
+        }
+        ContentCodec codec;
+        try {
+            codec = (ContentCodec) ContentCompressor.class.getClassLoader()
+                                                          .loadClass(configuration.getCodec())
+                                                          .newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new BrokerException("Error while loading content codec " + configuration.getCodec(), e);
+        }
+        if (codec.getId() == NO_CODEC) {
+            throw new BrokerException("Content codec " + configuration.getCodec() + " uses the reserved id "
+                                              + NO_CODEC);
+        }
+        return new ContentCompressor(codec, Long.parseLong(configuration.getMinimumSize()),
+                                     configuration.getContentTypes());
+    }
+
+    /**
+     * Select the codec used to compress the content of the message.
+     *
+     * @param metadata message metadata
+     * @return the codec or null if the content should be stored as is
+     */
+    public ContentCodec select(Metadata metadata) {
+        if (Objects.isNull(codec) || metadata.getContentLength() < minimumSize
+                || Objects.nonNull(metadata.getProperty(Metadata.CONTENT_ENCODING))) {
+            return null;
+        }
+        return isCompressible(metadata.getProperty(Metadata.CONTENT_TYPE)) ? codec : null;
+    }
+
+    private boolean isCompressible(FieldValue contentTypeValue) {
+        if (contentTypes.isEmpty()) {
+            return true;
+        }
+        if (Objects.isNull(contentTypeValue)) {
+            return false;
+        }
+
+        String contentType = contentTypeValue.getValue().toString().toLowerCase(Locale.ENGLISH);
+        int parameterIndex = contentType.indexOf(';');
+        if (parameterIndex != -1) {
+            contentType = contentType.substring(0, parameterIndex);
+        }
+        contentType = contentType.trim();
+
+        for (String type : contentTypes) {
+            if (type.endsWith("/*") ? contentType.startsWith(type.substring(0, type.length() - 1))
+                    : contentType.equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieve the codec used to compress stored content.
+     *
+     * @param codecId codec identifier recorded with the message
+     * @return the matching codec
+     * @throws BrokerException if no codec is known for the identifier
+     */
+    public ContentCodec getCodec(byte codecId) throws BrokerException {
+        ContentCodec contentCodec = codecs.get(codecId);
+        if (Objects.isNull(contentCodec)) {
+            throw new BrokerException("Unknown content codec " + codecId);
+        }
+        return contentCodec;
+    }
+}
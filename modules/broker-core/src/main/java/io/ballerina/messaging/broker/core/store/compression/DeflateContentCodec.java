@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link ContentCodec} using the JDK deflate implementation. The content length is written before the deflate
+ * stream so that decompression allocates the content exactly once.
+ */
+public class DeflateContentCodec implements ContentCodec {
+
+    static final byte ID = 1;
+
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            byte[] output = new byte[LENGTH_PREFIX_SIZE + content.length / 2 + 16];
+            writeLength(output, content.length);
+            int length = LENGTH_PREFIX_SIZE;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] compressed) throws IOException {
+        if (compressed.length < LENGTH_PREFIX_SIZE) {
+            throw new IOException("Compressed content is shorter than the length prefix");
+        }
+        int contentLength = readLength(compressed);
+        if (contentLength < 0) {
+            throw new IOException("Invalid content length " + contentLength);
+        }
+        byte[] content = new byte[contentLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, LENGTH_PREFIX_SIZE, compressed.length - LENGTH_PREFIX_SIZE);
+            int length = 0;
+            while (length < content.length && !inflater.finished()) {
+                int inflated = inflater.inflate(content, length, content.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != content.length) {
+                throw new IOException("Compressed content does not match the expected length " + content.length);
+            }
+            // Consume the end of the stream, which verifies the checksum, if the output was filled before it
+            if (!inflater.finished() && (inflater.inflate(new byte[1]) != 0 || !inflater.finished())) {
+                throw new IOException("Compressed content is not terminated properly");
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IOException("Error occurred while decompressing content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeLength(byte[] bytes, int length) {
+        bytes[0] = (byte) (length >>> 24);
+        bytes[1] = (byte) (length >>> 16);
+        bytes[2] = (byte) (length >>> 8);
+        bytes[3] = (byte) length;
+    }
+
+    private static int readLength(byte[] bytes) {
+        return ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+}
@@ -35,6 +35,14 @@ public interface BindingDao {
 
     void retrieveBindingsForExchange(String exchangeName, BindingCollector bindingCollector) throws BrokerException;
 
+    /**
+     * Retrieve bindings of all the exchanges using a single query.
+     *
+     * @param bindingCollector callback invoked per each binding retrieved from the database
+     * @throws BrokerException if an error occurs while retrieving bindings
+     */
+    void retrieveAllBindings(ExchangeBindingCollector bindingCollector) throws BrokerException;
+
     /**
      * Interface used as a callback to retrieve bindings from the database.
      * {@link #addBinding(String, String, FieldTable)} is invoked per each binding retrieved from the database.
@@ -45,4 +53,15 @@ public interface BindingDao {
         void addBinding(String queueName, String routingKey, FieldTable arguments) throws BrokerException,
                                                                                           ValidationException;
     }
+
+    /**
+     * Interface used as a callback to retrieve bindings of all the exchanges from the database.
+     * {@link #addBinding(String, String, String, FieldTable)} is invoked per each binding retrieved from the database.
+     */
+    @FunctionalInterface
+    interface ExchangeBindingCollector {
+
+        void addBinding(String exchangeName, String queueName, String routingKey,
+                        FieldTable arguments) throws BrokerException, ValidationException;
+    }
 }
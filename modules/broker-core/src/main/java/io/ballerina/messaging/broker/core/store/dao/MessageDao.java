@@ -46,6 +46,22 @@ public interface MessageDao {
      */
     Collection<Message> readAll(String queueName) throws BrokerException;
 
+    /**
+     * Retrieve a page of messages from a given queue ordered by the message id.
+     *
+     * @param queueName      name of the queue
+     * @param afterMessageId messages with an id greater than this are retrieved
+     * @param limit          maximum number of messages to retrieve
+     */
+    Collection<Message> readPage(String queueName, long afterMessageId, int limit) throws BrokerException;
+
+    /**
+     * Count the messages in a given queue.
+     *
+     * @param queueName name of the queue
+     */
+    int count(String queueName) throws BrokerException;
+
     /**
      * Read message data for given messages.
      *
@@ -19,6 +19,7 @@
 
 package io.ballerina.messaging.broker.core.store.dao;
 
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.Queue;
 
@@ -49,6 +50,6 @@ public interface QueueDao {
     @FunctionalInterface
     interface QueueCollector {
 
-        void addQueue(String name) throws BrokerException;
+        void addQueue(String name, FieldTable arguments) throws BrokerException;
     }
 }
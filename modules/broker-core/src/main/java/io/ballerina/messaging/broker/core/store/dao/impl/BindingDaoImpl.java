@@ -118,4 +118,31 @@ class BindingDaoImpl extends BaseDao implements BindingDao {
             close(connection, statement, resultSet);
         }
     }
+
+    @Override
+    public void retrieveAllBindings(ExchangeBindingCollector bindingCollector) throws BrokerException {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = getConnection();
+            statement = connection.prepareStatement(RDBMSConstants.SELECT_ALL_BINDINGS);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                String exchangeName = resultSet.getString(1);
+                String queueName = resultSet.getString(2);
+                String routingKey = resultSet.getString(3);
+                byte[] arguments = resultSet.getBytes(4);
+                FieldTable fieldTable = FieldTable.parse(Unpooled.wrappedBuffer(arguments));
+                bindingCollector.addBinding(exchangeName, queueName, routingKey, fieldTable);
+            }
+
+        } catch (Exception e) {
+            String message = "Error occurred while retrieving bindings";
+            rollback(connection, message);
+            throw new BrokerException(message, e);
+        } finally {
+            close(connection, statement, resultSet);
+        }
+    }
 }
@@ -20,6 +20,7 @@
 package io.ballerina.messaging.broker.core.store.dao.impl;
 
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.compression.ContentCompressor;
 import io.ballerina.messaging.broker.core.store.dao.BindingDao;
 import io.ballerina.messaging.broker.core.store.dao.ExchangeDao;
 import io.ballerina.messaging.broker.core.store.dao.MessageDao;
@@ -45,7 +46,11 @@ public class DaoFactory {
     }
 
     public MessageDao createMessageDao() {
-        return new MessageDaoImpl(new MessageCrudOperationsDao(dataSource, metricManager));
+        return createMessageDao(ContentCompressor.disabled());
+    }
+
+    public MessageDao createMessageDao(ContentCompressor contentCompressor) {
+        return new MessageDaoImpl(new MessageCrudOperationsDao(dataSource, metricManager, contentCompressor));
     }
 
     public ExchangeDao createExchangeDao() {
@@ -20,21 +20,27 @@
 package io.ballerina.messaging.broker.core.store.dao.impl;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.ContentChunk;
 import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Metadata;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.MetadataCodec;
+import io.ballerina.messaging.broker.core.store.compression.ContentCodec;
+import io.ballerina.messaging.broker.core.store.compression.ContentCompressor;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.wso2.carbon.metrics.core.Timer.Context;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,11 +52,21 @@ import javax.sql.DataSource;
  */
 class MessageCrudOperationsDao extends BaseDao {
 
+    /**
+     * Messages are read using an id range when the range is at most this many times the number of messages read.
+     * Rows of other messages within the range are skipped.
+     */
+    private static final int RANGE_READ_DENSITY_FACTOR = 2;
+
     private final BrokerMetricManager metricManager;
 
-    MessageCrudOperationsDao(DataSource dataSource, BrokerMetricManager metricManager) {
+    private final ContentCompressor contentCompressor;
+
+    MessageCrudOperationsDao(DataSource dataSource, BrokerMetricManager metricManager,
+                             ContentCompressor contentCompressor) {
         super(dataSource);
         this.metricManager = metricManager;
+        this.contentCompressor = contentCompressor;
     }
 
     @SuppressFBWarnings(
@@ -68,8 +84,8 @@ class MessageCrudOperationsDao extends BaseDao {
             insertToQueueStmt = connection.prepareStatement(RDBMSConstants.PS_INSERT_INTO_QUEUE);
 
             for (Message message : messageList) {
-                prepareMetadata(metadataStmt, message);
-                prepareContent(contentStmt, message);
+                byte contentCodec = prepareContent(contentStmt, message);
+                prepareMetadata(metadataStmt, message, contentCodec);
                 prepareQueueAttachments(insertToQueueStmt, message);
             }
             metadataStmt.executeBatch();
@@ -95,40 +111,65 @@ class MessageCrudOperationsDao extends BaseDao {
         }
     }
 
-    private void prepareContent(PreparedStatement contentStmt, Message message) throws SQLException {
-        byte[] bytes;
+    /**
+     * Add the content chunks of the message to the batch, compressing them if the message qualifies.
+     *
+     * @return identifier of the codec used to compress the content
+     */
+    private byte prepareContent(PreparedStatement contentStmt, Message message) throws SQLException {
+        List<ContentChunk> chunks = message.getContentChunks();
+        byte[][] contents = new byte[chunks.size()][];
+        for (int i = 0; i < contents.length; i++) {
+            ByteBuf chunkBytes = chunks.get(i).getBytes();
+            contents[i] = new byte[chunkBytes.readableBytes()];
+            chunkBytes.getBytes(0, contents[i]);
+        }
+
+        byte contentCodec = ContentCompressor.NO_CODEC;
+        ContentCodec codec = contentCompressor.select(message.getMetadata());
+        if (Objects.nonNull(codec)) {
+            byte[][] compressed = compress(codec, contents);
+            if (Objects.nonNull(compressed)) {
+                contents = compressed;
+                contentCodec = codec.getId();
+            }
+        }
 
-        for (ContentChunk chunk : message.getContentChunks()) {
+        for (int i = 0; i < contents.length; i++) {
             contentStmt.setLong(1, message.getInternalId());
-            contentStmt.setLong(2, chunk.getOffset());
-            bytes = new byte[chunk.getBytes().readableBytes()];
-            chunk.getBytes().getBytes(0, bytes);
-            contentStmt.setBytes(3, bytes);
+            contentStmt.setLong(2, chunks.get(i).getOffset());
+            contentStmt.setBytes(3, contents[i]);
             contentStmt.addBatch();
         }
+        return contentCodec;
     }
 
-    private void prepareMetadata(PreparedStatement metadataStmt, Message message) throws SQLException {
+    /**
+     * Compress each chunk with the given codec.
+     *
+     * @return compressed chunks or null if compression does not reduce the content size
+     */
+    private static byte[][] compress(ContentCodec codec, byte[][] contents) {
+        byte[][] compressed = new byte[contents.length][];
+        long contentSize = 0;
+        long compressedSize = 0;
+        for (int i = 0; i < contents.length; i++) {
+            compressed[i] = codec.compress(contents[i]);
+            contentSize += contents[i].length;
+            compressedSize += compressed[i].length;
+        }
+        return compressedSize < contentSize ? compressed : null;
+    }
+
+    private void prepareMetadata(PreparedStatement metadataStmt, Message message,
+                                 byte contentCodec) throws SQLException {
         Metadata metadata = message.getMetadata();
         metadataStmt.setLong(1, message.getInternalId());
         metadataStmt.setString(2, metadata.getExchangeName());
         metadataStmt.setString(3, metadata.getRoutingKey());
         metadataStmt.setLong(4, metadata.getContentLength());
-        long size = metadata.getProperties().getSize() + metadata.getHeaders().getSize();
-        byte[] bytes = new byte[(int) size];
-        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
-
-        try {
-            buffer.resetWriterIndex();
-
-            metadata.getProperties().write(buffer);
-            metadata.getHeaders().write(buffer);
-
-            metadataStmt.setBytes(5, bytes);
-            metadataStmt.addBatch();
-        } finally {
-            buffer.release();
-        }
+        metadataStmt.setBytes(5, MetadataCodec.encode(metadata, contentCodec));
+        metadataStmt.addBatch();
     }
 
     public void detachFromQueue(Connection connection,
@@ -176,6 +217,29 @@ class MessageCrudOperationsDao extends BaseDao {
         }
     }
 
+    /**
+     * Delete the given messages if they are no longer attached to any queue.
+     */
+    public void deleteIfUnused(Connection connection, Collection<Long> internalIdList) throws BrokerException {
+        if (internalIdList.isEmpty()) {
+            return;
+        }
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(RDBMSConstants.PS_DELETE_UNUSED_MESSAGE);
+            for (Long internalId : internalIdList) {
+                statement.setLong(1, internalId);
+                statement.setLong(2, internalId);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw new BrokerException("Error occurred while deleting unused messages", e);
+        } finally {
+            close(statement);
+        }
+    }
+
     public Collection<Message> readAll(Connection connection, String queueName) throws BrokerException {
         Map<Long, Message> messageList = new LinkedHashMap<>();
         PreparedStatement statement = null;
@@ -199,13 +263,90 @@ class MessageCrudOperationsDao extends BaseDao {
         }
     }
 
+    /**
+     * Read a page of messages of the queue using the message id as the key. Only the message ids and the owning
+     * queues are read.
+     */
+    public Collection<Message> readPage(Connection connection, String queueName, long afterMessageId, int limit)
+            throws BrokerException {
+        Map<Long, Message> messageList = new LinkedHashMap<>();
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            statement = connection.prepareStatement(RDBMSConstants.PS_SELECT_MESSAGE_IDS_FOR_QUEUE_PAGE);
+            statement.setMaxRows(limit);
+            statement.setFetchSize(limit);
+            statement.setString(1, queueName);
+            statement.setLong(2, afterMessageId);
+            resultSet = statement.executeQuery();
+            long lastMessageId = afterMessageId;
+            while (resultSet.next()) {
+                lastMessageId = resultSet.getLong(1);
+                messageList.put(lastMessageId, new Message(lastMessageId, null));
+            }
+            close(resultSet);
+            close(statement);
+
+            if (!messageList.isEmpty()) {
+                statement = connection.prepareStatement(RDBMSConstants.PS_SELECT_QUEUES_FOR_MESSAGE_RANGE);
+                statement.setString(1, queueName);
+                statement.setLong(2, messageList.keySet().iterator().next());
+                statement.setLong(3, lastMessageId);
+                resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    Message message = messageList.get(resultSet.getLong(1));
+                    if (Objects.nonNull(message)) {
+                        message.addOwnedQueue(resultSet.getString(2));
+                    }
+                }
+            }
+            return messageList.values();
+        } catch (SQLException e) {
+            throw new BrokerException("Error occurred while reading messages", e);
+        } finally {
+            close(resultSet);
+            close(statement);
+        }
+    }
+
+    public int count(Connection connection, String queueName) throws BrokerException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            statement = connection.prepareStatement(RDBMSConstants.PS_COUNT_MESSAGES_FOR_QUEUE);
+            statement.setString(1, queueName);
+            resultSet = statement.executeQuery();
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new BrokerException("Error occurred while counting messages", e);
+        } finally {
+            close(resultSet);
+            close(statement);
+        }
+    }
+
     public Collection<Message> read(Connection connection, Map<Long, Message> messageMap) throws BrokerException {
 
         try (Context ignored = metricManager.startMessageReadTimer()) {
             if (!messageMap.isEmpty()) {
-                String idList = getSQLFormattedIdList(messageMap.size());
-                populateMessageWithMetadata(connection, idList, messageMap.keySet(), messageMap);
-                populateContent(connection, idList, messageMap);
+                String idCondition;
+                Collection<Long> idParameters;
+                long minId = Collections.min(messageMap.keySet());
+                long maxId = Collections.max(messageMap.keySet());
+                if (maxId - minId < (long) messageMap.size() * RANGE_READ_DENSITY_FACTOR) {
+                    // Ids are mostly contiguous. Hence read the id range instead of binding each id
+                    idCondition = "MESSAGE_ID BETWEEN ? AND ?";
+                    idParameters = Arrays.asList(minId, maxId);
+                } else {
+                    idCondition = "MESSAGE_ID IN (" + getSQLFormattedIdList(messageMap.size()) + ")";
+                    idParameters = messageMap.keySet();
+                }
+                Map<Long, Byte> contentCodecs
+                        = populateMessageWithMetadata(connection, idCondition, idParameters, messageMap);
+                populateContent(connection, idCondition, idParameters, messageMap, contentCodecs);
+                populateOwnedQueues(connection, idCondition, idParameters, messageMap);
             }
             return messageMap.values();
         } catch (SQLException e) {
@@ -223,27 +364,37 @@ class MessageCrudOperationsDao extends BaseDao {
         return paramList.toString();
     }
 
+    /**
+     * Populate the messages with metadata read from the store.
+     *
+     * @return codec identifiers of the messages with compressed content
+     */
     @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
-    private void populateMessageWithMetadata(Connection connection,
-                                             String idListAsString, Collection<Long> idList,
-                                             Map<Long, Message> messageMap) throws SQLException, BrokerException {
+    private Map<Long, Byte> populateMessageWithMetadata(Connection connection,
+                                                        String idCondition, Collection<Long> idParameters,
+                                                        Map<Long, Message> messageMap)
+            throws SQLException, BrokerException {
         String metadataSql = "SELECT MESSAGE_ID, EXCHANGE_NAME, ROUTING_KEY, CONTENT_LENGTH, MESSAGE_METADATA "
-                + " FROM MB_METADATA WHERE MESSAGE_ID IN (" + idListAsString + ") ORDER BY MESSAGE_ID";
+                + " FROM MB_METADATA WHERE " + idCondition + " ORDER BY MESSAGE_ID";
 
 
         PreparedStatement selectMetadata = null;
         ResultSet metadataResultSet = null;
+        Map<Long, Byte> contentCodecs = new HashMap<>();
 
         try {
             selectMetadata = connection.prepareStatement(metadataSql);
             int i = 0;
-            for (Long messageId : idList) {
+            for (Long messageId : idParameters) {
                 selectMetadata.setLong(++i, messageId);
             }
 
             metadataResultSet = selectMetadata.executeQuery();
             while (metadataResultSet.next()) {
                 long messageId = metadataResultSet.getLong(1);
+                if (!messageMap.containsKey(messageId)) {
+                    continue;
+                }
                 String exchangeName = metadataResultSet.getString(2);
                 String routingKey = metadataResultSet.getString(3);
                 long contentLength = metadataResultSet.getLong(4);
@@ -251,8 +402,10 @@ class MessageCrudOperationsDao extends BaseDao {
                 ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
                 try {
                     Metadata metadata = new Metadata(routingKey, exchangeName, contentLength);
-                    metadata.setProperties(FieldTable.parse(buffer));
-                    metadata.setHeaders(FieldTable.parse(buffer));
+                    byte contentCodec = MetadataCodec.decode(metadata, buffer);
+                    if (contentCodec != ContentCompressor.NO_CODEC) {
+                        contentCodecs.put(messageId, contentCodec);
+                    }
 
                     Message message = messageMap.get(messageId);
                     if (Objects.nonNull(message)) {
@@ -271,22 +424,23 @@ class MessageCrudOperationsDao extends BaseDao {
             close(metadataResultSet);
             close(selectMetadata);
         }
+        return contentCodecs;
     }
 
     @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
-    private void populateContent(Connection connection, String idList,
-                                 Map<Long, Message> messageMap) throws SQLException {
+    private void populateContent(Connection connection, String idCondition, Collection<Long> idParameters,
+                                 Map<Long, Message> messageMap, Map<Long, Byte> contentCodecs)
+            throws SQLException, BrokerException {
 
         PreparedStatement selectContent = null;
         ResultSet contentResultSet = null;
 
         try {
             selectContent = connection.prepareStatement(
-                    "SELECT MESSAGE_ID, CONTENT_OFFSET, MESSAGE_CONTENT FROM MB_CONTENT "
-                            + "WHERE MESSAGE_ID IN(" + idList + ")");
+                    "SELECT MESSAGE_ID, CONTENT_OFFSET, MESSAGE_CONTENT FROM MB_CONTENT WHERE " + idCondition);
 
             int i = 0;
-            for (Long messageId : messageMap.keySet()) {
+            for (Long messageId : idParameters) {
                 selectContent.setLong(++i, messageId);
             }
 
@@ -299,7 +453,11 @@ class MessageCrudOperationsDao extends BaseDao {
 
                 Message message = messageMap.get(messageId);
                 if (message != null) {
-                    message.addChunk(new ContentChunk(offset, Unpooled.copiedBuffer(bytes)));
+                    Byte contentCodec = contentCodecs.get(messageId);
+                    if (Objects.nonNull(contentCodec)) {
+                        bytes = decompress(contentCodec, bytes);
+                    }
+                    message.addChunk(new ContentChunk(offset, Unpooled.wrappedBuffer(bytes)));
                 }
             }
         } finally {
@@ -307,4 +465,54 @@ class MessageCrudOperationsDao extends BaseDao {
             close(selectContent);
         }
     }
+
+    /**
+     * Populate the owned queues of messages recreated from their ids, so that acknowledging the message on one queue
+     * does not delete it from the other queues.
+     */
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private void populateOwnedQueues(Connection connection, String idCondition, Collection<Long> idParameters,
+                                     Map<Long, Message> messageMap) throws SQLException {
+        Map<Long, Message> messagesWithoutQueues = new HashMap<>();
+        for (Message message : messageMap.values()) {
+            if (!message.hasAttachedQueues()) {
+                messagesWithoutQueues.put(message.getInternalId(), message);
+            }
+        }
+        if (messagesWithoutQueues.isEmpty()) {
+            return;
+        }
+
+        PreparedStatement selectQueues = null;
+        ResultSet queueResultSet = null;
+
+        try {
+            selectQueues = connection.prepareStatement(
+                    "SELECT MESSAGE_ID, QUEUE_NAME FROM MB_QUEUE_MAPPING WHERE " + idCondition);
+
+            int i = 0;
+            for (Long messageId : idParameters) {
+                selectQueues.setLong(++i, messageId);
+            }
+
+            queueResultSet = selectQueues.executeQuery();
+            while (queueResultSet.next()) {
+                Message message = messagesWithoutQueues.get(queueResultSet.getLong(1));
+                if (Objects.nonNull(message)) {
+                    message.addOwnedQueue(queueResultSet.getString(2));
+                }
+            }
+        } finally {
+            close(queueResultSet);
+            close(selectQueues);
+        }
+    }
+
+    private byte[] decompress(byte contentCodec, byte[] bytes) throws BrokerException {
+        try {
+            return contentCompressor.getCodec(contentCodec).decompress(bytes);
+        } catch (IOException e) {
+            throw new BrokerException("Error occurred while decompressing message content", e);
+        }
+    }
 }
@@ -43,6 +43,7 @@ class MessageDaoImpl implements MessageDao {
         crudOperationsDao.transaction(connection -> {
             crudOperationsDao.persist(connection, transactionData.getEnqueueMessages());
             crudOperationsDao.detachFromQueue(connection, transactionData.getDetachMessageMap());
+            crudOperationsDao.deleteIfUnused(connection, transactionData.getDeletableIfUnusedMessages());
             crudOperationsDao.delete(connection, transactionData.getDeletableMessage());
         });
     }
@@ -53,6 +54,19 @@ class MessageDaoImpl implements MessageDao {
                                                  "retrieving messages for queue " + queueName);
     }
 
+    @Override
+    public Collection<Message> readPage(String queueName, long afterMessageId, int limit) throws BrokerException {
+        return crudOperationsDao.selectOperation(
+                connection -> crudOperationsDao.readPage(connection, queueName, afterMessageId, limit),
+                "retrieving messages for queue " + queueName);
+    }
+
+    @Override
+    public int count(String queueName) throws BrokerException {
+        return crudOperationsDao.selectOperation(connection -> crudOperationsDao.count(connection, queueName),
+                                                 "counting messages for queue " + queueName);
+    }
+
     @Override
     public Collection<Message> read(Map<Long, Message> readList) throws BrokerException {
         return crudOperationsDao.selectOperation(connection -> crudOperationsDao.read(connection, readList),
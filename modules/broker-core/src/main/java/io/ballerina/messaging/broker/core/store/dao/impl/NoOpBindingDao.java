@@ -42,4 +42,9 @@ public class NoOpBindingDao implements BindingDao {
     public void retrieveBindingsForExchange(String exchangeName, BindingCollector bindingCollector) {
         // Ignore method invocation.
     }
+
+    @Override
+    public void retrieveAllBindings(ExchangeBindingCollector bindingCollector) {
+        // Ignore method invocation.
+    }
 }
@@ -40,4 +40,9 @@ public class NullBindingDao implements BindingDao {
     public void retrieveBindingsForExchange(String exchangeName, BindingCollector bindingCollector) {
         // Do nothing
     }
+
+    @Override
+    public void retrieveAllBindings(ExchangeBindingCollector bindingCollector) {
+        // Do nothing
+    }
 }
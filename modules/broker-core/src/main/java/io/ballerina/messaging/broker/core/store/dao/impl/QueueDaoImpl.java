@@ -19,9 +19,12 @@
 
 package io.ballerina.messaging.broker.core.store.dao.impl;
 
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.Queue;
 import io.ballerina.messaging.broker.core.store.dao.QueueDao;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -47,7 +50,12 @@ class QueueDaoImpl extends BaseDao implements QueueDao {
             connection = getConnection();
             statement = connection.prepareStatement(RDBMSConstants.PS_INSERT_QUEUE);
             statement.setString(1, queue.getName());
-            statement.setBytes(2, new byte[4]);
+            FieldTable arguments = queue.getArguments();
+            byte[] bytes = new byte[(int) arguments.getSize()];
+            ByteBuf byteBuf = Unpooled.wrappedBuffer(bytes);
+            byteBuf.resetWriterIndex();
+            arguments.write(byteBuf);
+            statement.setBytes(2, bytes);
             statement.executeUpdate();
 
             connection.commit();
@@ -91,9 +99,10 @@ class QueueDaoImpl extends BaseDao implements QueueDao {
             resultSet = statement.executeQuery(RDBMSConstants.SELECT_ALL_QUEUES);
             while (resultSet.next()) {
                 String name = resultSet.getString(1);
-                queueNameConsumer.addQueue(name);
+                byte[] arguments = resultSet.getBytes(2);
+                queueNameConsumer.addQueue(name, FieldTable.parse(Unpooled.wrappedBuffer(arguments)));
             }
-        } catch (SQLException e) {
+        } catch (Exception e) {
             String message = "Error occurred while retrieving all the queues";
             rollback(connection, message);
             throw new BrokerException(message, e);
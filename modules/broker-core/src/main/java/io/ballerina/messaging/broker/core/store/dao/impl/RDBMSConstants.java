@@ -58,6 +58,9 @@ final class RDBMSConstants {
     public static final String PS_SELECT_BINDINGS_FOR_EXCHANGE =
             "SELECT QUEUE_NAME, ROUTING_KEY, ARGUMENTS FROM MB_BINDING WHERE EXCHANGE_NAME=?";
 
+    public static final String SELECT_ALL_BINDINGS =
+            "SELECT EXCHANGE_NAME, QUEUE_NAME, ROUTING_KEY, ARGUMENTS FROM MB_BINDING";
+
     public static final String PS_INSERT_EXCHANGE =
             "INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE) VALUES(?, ?)";
 
@@ -69,10 +72,25 @@ final class RDBMSConstants {
 
     public static final String PS_DELETE_MESSAGE = "DELETE FROM MB_METADATA WHERE MESSAGE_ID=?";
 
+    public static final String PS_DELETE_UNUSED_MESSAGE =
+            "DELETE FROM MB_METADATA WHERE MESSAGE_ID=? "
+                    + "AND NOT EXISTS (SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING WHERE MESSAGE_ID=?)";
+
     public static final String PS_SELECT_MESSAGES_FOR_QUEUE =
             "SELECT MB_QUEUE_MAPPING.MESSAGE_ID, QUEUE_NAME "
                     + "FROM (SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING WHERE QUEUE_NAME=?) AS QUEUE_MESSAGES "
                     + "INNER JOIN MB_QUEUE_MAPPING "
                     + "ON QUEUE_MESSAGES.MESSAGE_ID=MB_QUEUE_MAPPING.MESSAGE_ID "
                     + "ORDER BY QUEUE_MESSAGES.MESSAGE_ID";
+
+    public static final String PS_SELECT_MESSAGE_IDS_FOR_QUEUE_PAGE =
+            "SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING WHERE QUEUE_NAME=? AND MESSAGE_ID>? ORDER BY MESSAGE_ID";
+
+    public static final String PS_SELECT_QUEUES_FOR_MESSAGE_RANGE =
+            "SELECT MESSAGE_ID, QUEUE_NAME FROM MB_QUEUE_MAPPING "
+                    + "WHERE MESSAGE_ID IN (SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING "
+                    + "WHERE QUEUE_NAME=? AND MESSAGE_ID>=? AND MESSAGE_ID<=?)";
+
+    public static final String PS_COUNT_MESSAGES_FOR_QUEUE =
+            "SELECT COUNT(MESSAGE_ID) FROM MB_QUEUE_MAPPING WHERE QUEUE_NAME=?";
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.task;
+
+import java.util.concurrent.DelayQueue;
+
+/**
+ * {@link TaskQueue} shared by all the workers. All the workers take tasks from a single {@link DelayQueue}.
+ */
+final class SharedTaskQueue implements TaskQueue {
+
+    private final DelayQueue<TaskHolder<?>> taskHolderDelayQueue = new DelayQueue<>();
+
+    @Override
+    public void put(TaskHolder<?> taskHolder) {
+        taskHolderDelayQueue.put(taskHolder);
+    }
+
+    @Override
+    public TaskHolder<?> take(int workerId) throws InterruptedException {
+        return taskHolderDelayQueue.take();
+    }
+
+    @Override
+    public int size() {
+        return taskHolderDelayQueue.size();
+    }
+}
@@ -41,6 +41,27 @@ public abstract class Task implements Callable<Task.TaskHint> {
         IDLE
     }
 
+    /**
+     * Holder of the task while the task is registered with a {@link TaskExecutorService}.
+     */
+    private volatile TaskHolder<?> taskHolder;
+
+    void setTaskHolder(TaskHolder<?> taskHolder) {
+        this.taskHolder = taskHolder;
+    }
+
+    /**
+     * Wake up the task to be processed again. A task parked after returning {@link TaskHint#IDLE} is queued for
+     * processing and a task being processed is processed once more. Tasks are parked only when the
+     * {@link TaskExecutorService} runs in signalling mode.
+     */
+    public final void signal() {
+        TaskHolder<?> holder = taskHolder;
+        if (holder != null) {
+            holder.signal();
+        }
+    }
+
     /**
      * Callback invoked when the {@link Task} implementation is added to the internal task queue. If the task is
      * a duplicate entry this method won't get invoked.
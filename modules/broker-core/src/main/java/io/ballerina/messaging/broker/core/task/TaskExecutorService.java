@@ -27,9 +27,9 @@ import java.util.ArrayDeque;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.DelayQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
@@ -47,9 +47,9 @@ public final class TaskExecutorService<T extends Task> {
     private static Logger log = LoggerFactory.getLogger(TaskExecutorService.class);
 
     /**
-     * {@link DelayQueue} used by processors to schedule tasks. Idle task will be processed after a delay.
+     * {@link TaskQueue} used by processors to schedule tasks. Idle task will be processed after a delay.
      */
-    private final DelayQueue<TaskHolder> taskHolderDelayQueue;
+    private final TaskQueue taskHolderQueue;
 
     /**
      * Mapping of registered tasks with its task id.
@@ -81,11 +81,33 @@ public final class TaskExecutorService<T extends Task> {
      */
     private TaskExceptionHandler taskExceptionHandler;
 
+    /**
+     * Listener notified of each processed task. Null if not set.
+     */
+    private TaskRunListener taskRunListener;
+
     /**
      * Delay for processing IDLE tasks in the next iteration.
      */
     private long idleTaskDelayMillis;
 
+    /**
+     * Whether IDLE tasks are parked until signalled.
+     */
+    private final boolean signalling;
+
+    /**
+     * Maximum time a parked task waits for a signal before it is processed again.
+     */
+    private final long parkTimeoutMillis;
+
+    /**
+     * Executor waking up parked tasks periodically in signalling mode. Null when polling.
+     */
+    private final ScheduledExecutorService parkedTaskSweeper;
+
+    private boolean sweeperScheduled = false;
+
     /**
      * Create a Task manager with a given number of threads to process the tasks.
      *
@@ -95,13 +117,46 @@ public final class TaskExecutorService<T extends Task> {
      * @param threadFactory       thread factory to be used for processing the tasks.
      */
     public TaskExecutorService(int workerCount, long idleTaskDelayMillis, ThreadFactory threadFactory) {
+        this(workerCount, idleTaskDelayMillis, threadFactory, false, 0, false);
+    }
+
+    /**
+     * Create a Task manager with a given number of threads to process the tasks. In signalling mode a task with IDLE
+     * {@link io.ballerina.messaging.broker.core.task.Task.TaskHint} is parked until {@link Task#signal()} is
+     * invoked, or until the park timeout elapses as a safeguard against missed signals.
+     * <p>
+     * With work stealing each worker takes tasks from its own run queue. Tasks stay with the worker they are first
+     * assigned to and workers without ready tasks steal from busy workers. Otherwise all the workers take tasks from a
+     * single shared queue.
+     *
+     * @param workerCount         maximum number of threads spawned to process the tasks.
+     * @param idleTaskDelayMillis delay set for processing a task with IDLE
+     *                            {@link io.ballerina.messaging.broker.core.task.Task.TaskHint} when not signalling.
+     * @param threadFactory       thread factory to be used for processing the tasks.
+     * @param signalling          true to park IDLE tasks until signalled.
+     * @param parkTimeoutMillis   maximum time a parked task waits for a signal.
+     * @param workStealing        true to use per worker run queues with work stealing.
+     */
+    public TaskExecutorService(int workerCount, long idleTaskDelayMillis, ThreadFactory threadFactory,
+                               boolean signalling, long parkTimeoutMillis, boolean workStealing) {
+        this.signalling = signalling;
+        this.parkTimeoutMillis = parkTimeoutMillis;
+        if (signalling) {
+            parkedTaskSweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        } else {
+            parkedTaskSweeper = null;
+        }
 
         taskExecutorPool = Executors.newFixedThreadPool(workerCount, threadFactory);
         this.workerCount = workerCount;
         taskProcessorQueue = new ArrayDeque<>(workerCount);
         taskUpdateExecutorService = Executors.newSingleThreadExecutor(threadFactory);
         taskExceptionHandler = new DefaultExceptionHandler();
-        taskHolderDelayQueue = new DelayQueue<>();
+        if (workStealing) {
+            taskHolderQueue = new WorkStealingTaskQueue(workerCount);
+        } else {
+            taskHolderQueue = new SharedTaskQueue();
+        }
         taskHolderRegistry = new ConcurrentHashMap<>();
         this.idleTaskDelayMillis = idleTaskDelayMillis;
     }
@@ -138,6 +193,18 @@ public final class TaskExecutorService<T extends Task> {
         taskUpdateExecutorService.submit(new RemoveRequest(id));
     }
 
+    /**
+     * Wake up the {@link Task} with the given task id if it is parked.
+     *
+     * @param id ID of the {@link Task} to be signalled.
+     */
+    public void signal(String id) {
+        TaskHolder<T> taskHolder = taskHolderRegistry.get(id);
+        if (taskHolder != null) {
+            taskHolder.signal();
+        }
+    }
+
     /**
      * Returns the {@link Task} implementation relevant to the task id.
      *
@@ -156,7 +223,7 @@ public final class TaskExecutorService<T extends Task> {
      * Stop processing the tasks.
      */
     public synchronized void stop() {
-        log.info("Stopping task manager. Task count " + taskHolderDelayQueue.size());
+        log.info("Stopping task manager. Task count " + taskHolderQueue.size());
         for (TaskProcessor taskProcessor : taskProcessorQueue) {
             taskProcessor.deactivate();
         }
@@ -170,6 +237,9 @@ public final class TaskExecutorService<T extends Task> {
     public void shutdown() {
         stop();
 
+        if (signalling) {
+            parkedTaskSweeper.shutdownNow();
+        }
         taskExecutorPool.shutdownNow();
 
         try {
@@ -195,14 +265,33 @@ public final class TaskExecutorService<T extends Task> {
             value = "RV_RETURN_VALUE_IGNORED_BAD_PRACTICE",
             justification = "Return future ignored since the execution needs be done asynchronously.")
     public synchronized void start() {
-        log.info("Starting task manager. Task count " + taskHolderDelayQueue.size());
+        log.info("Starting task manager. Task count " + taskHolderQueue.size());
 
         for (int i = 0; i < workerCount; i++) {
             TaskProcessor taskProcessor =
-                    new TaskProcessor(taskHolderDelayQueue, taskExceptionHandler, idleTaskDelayMillis);
+                    new TaskProcessor(taskHolderQueue, i, taskExceptionHandler, taskRunListener,
+                                      idleTaskDelayMillis, signalling);
             taskProcessorQueue.add(taskProcessor);
             taskExecutorPool.submit(taskProcessor);
         }
+        if (signalling && !sweeperScheduled) {
+            parkedTaskSweeper.scheduleWithFixedDelay(this::unparkAll, parkTimeoutMillis, parkTimeoutMillis,
+                                                     TimeUnit.MILLISECONDS);
+            sweeperScheduled = true;
+        }
+    }
+
+    /**
+     * Queue every parked task. Covers state changes that were not signalled to the task.
+     */
+    private void unparkAll() {
+        try {
+            for (TaskHolder<T> taskHolder : taskHolderRegistry.values()) {
+                taskHolder.unpark();
+            }
+        } catch (Throwable e) {
+            log.error("Error occurred while waking up parked tasks", e);
+        }
     }
 
     /**
@@ -214,6 +303,15 @@ public final class TaskExecutorService<T extends Task> {
         this.taskExceptionHandler = exceptionHandler;
     }
 
+    /**
+     * Set the listener notified each time a task is processed. Takes effect for processors started afterwards.
+     *
+     * @param taskRunListener {@link TaskRunListener}
+     */
+    public synchronized void setTaskRunListener(TaskRunListener taskRunListener) {
+        this.taskRunListener = taskRunListener;
+    }
+
     /**
      * Task add request.
      */
@@ -231,13 +329,14 @@ public final class TaskExecutorService<T extends Task> {
                 if (taskHolderRegistry.containsKey(task.getId())) {
                     return;
                 }
-                TaskHolder<T> taskHolder = new TaskHolder<>(task);
-                task.onAdd(); // Invoke task callback before adding the task to the taskHolderDelayQueue
+                TaskHolder<T> taskHolder = new TaskHolder<>(task, taskHolderQueue);
+                task.setTaskHolder(taskHolder);
+                task.onAdd(); // Invoke task callback before adding the task to the taskHolderQueue
                 // to be processed
                 taskHolderRegistry.put(task.getId(), taskHolder);
-                taskHolderDelayQueue.add(taskHolder);
+                taskHolderQueue.put(taskHolder);
                 if (log.isDebugEnabled()) {
-                    log.debug("Task added. ID " + task.getId() + " Total Tasks " + taskHolderDelayQueue.size());
+                    log.debug("Task added. ID " + task.getId() + " Total Tasks " + taskHolderQueue.size());
                 }
             } catch (Throwable e) {
                 log.error("Error occurred while adding Task " + task, e);
@@ -259,10 +358,11 @@ public final class TaskExecutorService<T extends Task> {
         @Override
         public void run() {
             try {
-                TaskHolder taskHolder = taskHolderRegistry.remove(id);
+                TaskHolder<T> taskHolder = taskHolderRegistry.remove(id);
                 taskHolder.disableProcessing(); // disable processors from processing the task
+                taskHolder.unpark(); // a parked task is queued so that a processor removes it
                 if (log.isDebugEnabled()) {
-                    log.debug("Task removed. ID " + taskHolder.getId() + " Total tasks " + taskHolderDelayQueue.size());
+                    log.debug("Task removed. ID " + taskHolder.getId() + " Total tasks " + taskHolderQueue.size());
                 }
             } catch (Throwable e) {
                 log.error("Error occurred while removing task. Task id " + id, e);
@@ -22,6 +22,8 @@ package io.ballerina.messaging.broker.core.task;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Holds a single {@link Task}. Has references to the next and previous {@link TaskHolder} of the {@link TaskHolder}
@@ -44,22 +46,58 @@ final class TaskHolder<T extends Task> implements Delayed {
      */
     private AtomicBoolean isProcessing;
 
+    /**
+     * Scheduling states of the task. A task is either in the task queue, being processed or parked.
+     */
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int RUNNING_SIGNALLED = 2;
+    private static final int PARKED = 3;
+
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+    /**
+     * Queue the task is put back to when it is signalled while parked.
+     */
+    private final TaskQueue taskQueue;
+
+    /**
+     * Index of the worker the task is assigned to by a {@link WorkStealingTaskQueue}. Negative if not assigned.
+     */
+    private int affinity = -1;
+
     /**
      * Task expiry time in milliseconds. Expired messages will be picked from the
-     * {@link java.util.concurrent.DelayQueue} by the {@link TaskProcessor}s.
+     * {@link TaskQueue} by the {@link TaskProcessor}s.
      */
     private long expiryTime;
 
+    /**
+     * Time the task becomes ready to be processed in nanoseconds, as given by {@link System#nanoTime()}.
+     */
+    private long readyTime;
+
+    /**
+     * Order in which tasks were scheduled. Tasks becoming ready at the same time are processed in this order, so
+     * that active tasks take turns.
+     */
+    private static final AtomicLong SCHEDULE_SEQUENCE = new AtomicLong();
+
+    private long sequence;
+
     /**
      * Create a {@link TaskHolder} instance with a {@link Task} implementation.
      *
      * @param task {@link Task} implementation.
      */
-    TaskHolder(T task) {
+    TaskHolder(T task, TaskQueue taskQueue) {
         this.task = task;
+        this.taskQueue = taskQueue;
         this.isDisabled = new AtomicBoolean(false);
         this.isProcessing = new AtomicBoolean(false);
         expiryTime = System.currentTimeMillis();
+        readyTime = System.nanoTime();
+        sequence = SCHEDULE_SEQUENCE.getAndIncrement();
     }
 
     /**
@@ -84,6 +122,65 @@ final class TaskHolder<T extends Task> implements Delayed {
         return hint;
     }
 
+    /**
+     * Mark the task as being processed once it is taken from the task queue.
+     */
+    void onTaken() {
+        state.set(RUNNING);
+    }
+
+    /**
+     * Mark the task as queued before it is put back to the task queue.
+     */
+    void onRequeue() {
+        state.set(QUEUED);
+    }
+
+    /**
+     * Park the task instead of putting it back to the task queue. Fails if the task was signalled while it was
+     * being processed, in which case the task should be queued again.
+     *
+     * @return true if the task is parked
+     */
+    boolean park() {
+        return state.compareAndSet(RUNNING, PARKED);
+    }
+
+    /**
+     * Queue the task if it is parked, or make the processor queue it again if it is being processed.
+     */
+    void signal() {
+        while (true) {
+            int currentState = state.get();
+            if (currentState == PARKED) {
+                if (unpark()) {
+                    return;
+                }
+            } else if (currentState == RUNNING) {
+                if (state.compareAndSet(RUNNING, RUNNING_SIGNALLED)) {
+                    return;
+                }
+            } else {
+                // Already queued or signalled
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queue the task if it is parked.
+     *
+     * @return true if the task was parked and is now queued
+     */
+    boolean unpark() {
+        if (state.compareAndSet(PARKED, QUEUED)) {
+            setDelay(0, TimeUnit.MILLISECONDS);
+            taskQueue.put(this);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Underlying {@link Task} implementation.
      *
@@ -147,6 +244,20 @@ final class TaskHolder<T extends Task> implements Delayed {
      */
     void setDelay(long delay, TimeUnit timeUnit) {
         this.expiryTime = System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(delay, timeUnit);
+        this.readyTime = System.nanoTime() + TimeUnit.NANOSECONDS.convert(delay, timeUnit);
+        this.sequence = SCHEDULE_SEQUENCE.getAndIncrement();
+    }
+
+    long getReadyTime() {
+        return readyTime;
+    }
+
+    int getAffinity() {
+        return affinity;
+    }
+
+    void setAffinity(int affinity) {
+        this.affinity = affinity;
     }
 
     /**
@@ -164,6 +275,9 @@ final class TaskHolder<T extends Task> implements Delayed {
     public int compareTo(Delayed delayedObject) {
 
         int order = Long.compare(expiryTime, ((TaskHolder) delayedObject).expiryTime); // order by expiryTime
+        if (order == 0) {
+            order = Long.compare(sequence, ((TaskHolder) delayedObject).sequence); // order by schedule order
+        }
         if (order == 0) {
             order = getId().compareTo(((TaskHolder) delayedObject).getId()); // order by string id
         }
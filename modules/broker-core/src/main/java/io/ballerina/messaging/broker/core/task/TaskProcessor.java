@@ -23,7 +23,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.Callable;
-import java.util.concurrent.DelayQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -40,7 +39,17 @@ final class TaskProcessor implements Callable<Boolean> {
     /**
      * Reference to {@link TaskHolder} queue.
      */
-    private DelayQueue<TaskHolder> taskHolderQueue;
+    private TaskQueue taskHolderQueue;
+
+    /**
+     * Index of the worker, used by the {@link TaskQueue} to pick the tasks of the worker.
+     */
+    private final int workerId;
+
+    /**
+     * Listener notified of each processed task. Null if not set.
+     */
+    private final TaskRunListener taskRunListener;
 
     /**
      * Whether the processor is active or not.
@@ -57,11 +66,20 @@ final class TaskProcessor implements Callable<Boolean> {
      */
     private final long idleWaitTimeMillis;
 
-    TaskProcessor(DelayQueue<TaskHolder> taskQueue, TaskExceptionHandler exceptionHandler, long idleWaitTimeMillis) {
+    /**
+     * Whether IDLE tasks are parked until signalled instead of being processed again after a delay.
+     */
+    private final boolean signalling;
+
+    TaskProcessor(TaskQueue taskQueue, int workerId, TaskExceptionHandler exceptionHandler,
+                  TaskRunListener taskRunListener, long idleWaitTimeMillis, boolean signalling) {
         isActive = new AtomicBoolean(false);
+        this.workerId = workerId;
+        this.taskRunListener = taskRunListener;
         this.taskExceptionHandler = exceptionHandler;
         this.taskHolderQueue = taskQueue;
         this.idleWaitTimeMillis = idleWaitTimeMillis;
+        this.signalling = signalling;
     }
 
     /**
@@ -79,13 +97,26 @@ final class TaskProcessor implements Callable<Boolean> {
                 log.debug("Task processor started");
             }
             while (isActive.get()) {
-                TaskHolder taskHolder = null;
+                TaskHolder<?> taskHolder = null;
                 long delay = 0; // No delay
+                boolean park = false;
                 try {
-                    taskHolder = taskHolderQueue.take(); // Wait if queue is empty
+                    taskHolder = taskHolderQueue.take(workerId); // Wait if queue is empty
+                    taskHolder.onTaken();
+                    long startTime = System.nanoTime();
                     Task.TaskHint hint = taskHolder.executeTask();
+                    if (taskRunListener != null) {
+                        long endTime = System.nanoTime();
+                        taskRunListener.onTaskRun(workerId, taskHolder.getId(),
+                                                  Math.max(0, startTime - taskHolder.getReadyTime()),
+                                                  endTime - startTime);
+                    }
                     if (hint == Task.TaskHint.IDLE) {
-                        delay = idleWaitTimeMillis;
+                        if (signalling) {
+                            park = true;
+                        } else {
+                            delay = idleWaitTimeMillis;
+                        }
                     }
                 } catch (InterruptedException e) {
                     if (isActive.get()) {
@@ -105,7 +136,15 @@ final class TaskProcessor implements Callable<Boolean> {
                     if (null != taskHolder) {
                         if (taskHolder.isDisabled()) {
                             taskHolder.onRemoveTask();
+                        } else if (park && taskHolder.park()) {
+                            // Parked until the task is signalled. A task signalled while it was processed fails to
+                            // park and is queued again without a delay. A task removed while parking is queued so
+                            // that it gets removed
+                            if (taskHolder.isDisabled()) {
+                                taskHolder.unpark();
+                            }
                         } else {
+                            taskHolder.onRequeue();
                             // Add a delay when adding back to the queue. This ensures the TaskHolder is added to the
                             // end of the queue. If not TaskHolder will be added to front of the queue
                             taskHolder.setDelay(delay, TimeUnit.MILLISECONDS);
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.task;
+
+/**
+ * Queue of {@link TaskHolder}s scheduled to be processed by the {@link TaskProcessor}s.
+ */
+interface TaskQueue {
+
+    /**
+     * Schedule a task to be processed once its delay elapses.
+     *
+     * @param taskHolder {@link TaskHolder} of the task
+     */
+    void put(TaskHolder<?> taskHolder);
+
+    /**
+     * Retrieve the next task to be processed by a worker, waiting if no task is ready.
+     *
+     * @param workerId index of the worker
+     * @return {@link TaskHolder} of the task
+     * @throws InterruptedException if interrupted while waiting
+     */
+    TaskHolder<?> take(int workerId) throws InterruptedException;
+
+    /**
+     * Number of tasks in the queue.
+     *
+     * @return task count
+     */
+    int size();
+}
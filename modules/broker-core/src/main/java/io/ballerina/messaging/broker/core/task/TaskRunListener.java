@@ -17,27 +17,20 @@
  *
  */
 
-package io.ballerina.messaging.broker.core;
-
-import java.util.Iterator;
+package io.ballerina.messaging.broker.core.task;
 
 /**
- * Consumer iterator which infinitely cycle through the underlying set of {@link Consumer} objects. This gives a
- * snapshot of the {@link Consumer} for a given point in time.
+ * Listener notified each time a {@link TaskProcessor} processes a {@link Task}.
  */
-final class CyclicConsumerIterator {
-
-    private Iterator<Consumer> iterator = null;
-
-    boolean hasNext() {
-        return iterator.hasNext();
-    }
-
-    Consumer next() {
-        return iterator.next();
-    }
+public interface TaskRunListener {
 
-    void setIterator(Iterator<Consumer> iterator) {
-        this.iterator = iterator;
-    }
+    /**
+     * Invoked after a {@link Task} is processed.
+     *
+     * @param workerId       index of the worker that processed the task.
+     * @param taskId         id of the processed task.
+     * @param queueTimeNanos time the task waited to be processed after it was ready in nanoseconds.
+     * @param runTimeNanos   time taken to process the task in nanoseconds.
+     */
+    void onTaskRun(int workerId, String taskId, long queueTimeNanos, long runTimeNanos);
 }
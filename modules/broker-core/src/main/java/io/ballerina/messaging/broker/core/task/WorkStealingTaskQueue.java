@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.task;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link TaskQueue} with a run queue per worker. A task is assigned to a worker when it is first scheduled and is
+ * always put back to the run queue of that worker, keeping the data of the task in the caches of the same core.
+ * A worker without ready tasks steals ready tasks from the run queues of busy workers.
+ */
+final class WorkStealingTaskQueue implements TaskQueue {
+
+    private static final Comparator<TaskHolder<?>> READY_TIME_ORDER =
+            (first, second) -> Long.compare(first.getReadyTime() - second.getReadyTime(), 0);
+
+    private final RunQueue[] runQueues;
+
+    /**
+     * Used to assign tasks to workers in round robin order.
+     */
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    WorkStealingTaskQueue(int workerCount) {
+        runQueues = new RunQueue[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            runQueues[i] = new RunQueue();
+        }
+    }
+
+    @Override
+    public void put(TaskHolder<?> taskHolder) {
+        int workerId = taskHolder.getAffinity();
+        if (workerId < 0) {
+            workerId = Math.floorMod(nextWorker.getAndIncrement(), runQueues.length);
+            taskHolder.setAffinity(workerId);
+        }
+        long readyTime = taskHolder.getReadyTime();
+        runQueues[workerId].add(taskHolder);
+        if (!runQueues[workerId].wakeUp(readyTime)) {
+            // The worker is busy. Let a waiting worker steal the task once it is ready
+            for (RunQueue runQueue : runQueues) {
+                if (runQueue.wakeUp(readyTime)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public TaskHolder<?> take(int workerId) throws InterruptedException {
+        RunQueue ownQueue = runQueues[workerId];
+        boolean waited = false;
+        while (true) {
+            TaskHolder<?> taskHolder = poll(workerId);
+            if (taskHolder != null) {
+                if (waited) {
+                    wakeUpStealer(workerId);
+                }
+                return taskHolder;
+            }
+
+            // Publish that the worker is waiting before checking the queues again so that a task put concurrently
+            // either is seen by the check or wakes the worker up
+            ownQueue.wakeUpTime = Long.MAX_VALUE;
+            ownQueue.waiter = Thread.currentThread();
+            waited = true;
+            try {
+                taskHolder = poll(workerId);
+                if (taskHolder != null) {
+                    ownQueue.waiter = null;
+                    wakeUpStealer(workerId);
+                    return taskHolder;
+                }
+                long wakeUpTime = nextReadyTime(workerId);
+                ownQueue.wakeUpTime = wakeUpTime;
+                if (wakeUpTime == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                } else {
+                    long waitTime = wakeUpTime - System.nanoTime();
+                    if (waitTime > 0) {
+                        LockSupport.parkNanos(this, waitTime);
+                    }
+                }
+            } finally {
+                ownQueue.waiter = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Wake up a waiting worker for the remaining tasks of a worker that turns busy. Waiting workers leave the tasks of
+     * other waiting workers out when they decide how long to wait, hence they would not steal these tasks in time.
+     */
+    private void wakeUpStealer(int workerId) {
+        long readyTime = runQueues[workerId].nextReadyTime();
+        if (readyTime == Long.MAX_VALUE) {
+            return;
+        }
+        for (int i = 1; i < runQueues.length; i++) {
+            if (runQueues[(workerId + i) % runQueues.length].wakeUp(readyTime)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Take a ready task from the run queue of the worker, or steal one from a busy worker.
+     */
+    private TaskHolder<?> poll(int workerId) {
+        long now = System.nanoTime();
+        TaskHolder<?> taskHolder = runQueues[workerId].poll(now);
+        for (int i = 1; taskHolder == null && i < runQueues.length; i++) {
+            RunQueue victim = runQueues[(workerId + i) % runQueues.length];
+            if (victim.waiter == null) {
+                taskHolder = victim.poll(now);
+            }
+        }
+        return taskHolder;
+    }
+
+    /**
+     * Earliest time a task the worker can take becomes ready. Tasks of waiting workers are left to their owners.
+     */
+    private long nextReadyTime(int workerId) {
+        long nextReadyTime = runQueues[workerId].nextReadyTime();
+        for (int i = 1; i < runQueues.length; i++) {
+            RunQueue runQueue = runQueues[(workerId + i) % runQueues.length];
+            if (runQueue.waiter == null) {
+                long readyTime = runQueue.nextReadyTime();
+                if (nextReadyTime == Long.MAX_VALUE
+                        || (readyTime != Long.MAX_VALUE && readyTime - nextReadyTime < 0)) {
+                    nextReadyTime = readyTime;
+                }
+            }
+        }
+        return nextReadyTime;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (RunQueue runQueue : runQueues) {
+            size += runQueue.size();
+        }
+        return size;
+    }
+
+    /**
+     * Run queue of a worker. Ready tasks are processed in FIFO order and delayed tasks are moved to the ready tasks
+     * once their delay elapses.
+     */
+    private static final class RunQueue {
+
+        private final Deque<TaskHolder<?>> readyTasks = new ArrayDeque<>();
+
+        private final PriorityQueue<TaskHolder<?>> delayedTasks = new PriorityQueue<>(READY_TIME_ORDER);
+
+        /**
+         * Worker thread waiting for tasks. Null while the worker is busy.
+         */
+        private volatile Thread waiter;
+
+        /**
+         * Time in nanoseconds the waiting worker wakes up unless woken up earlier.
+         */
+        private volatile long wakeUpTime;
+
+        synchronized void add(TaskHolder<?> taskHolder) {
+            if (taskHolder.getReadyTime() - System.nanoTime() <= 0) {
+                readyTasks.addLast(taskHolder);
+            } else {
+                delayedTasks.add(taskHolder);
+            }
+        }
+
+        synchronized TaskHolder<?> poll(long now) {
+            TaskHolder<?> delayedTask = delayedTasks.peek();
+            while (delayedTask != null && delayedTask.getReadyTime() - now <= 0) {
+                readyTasks.addLast(delayedTasks.poll());
+                delayedTask = delayedTasks.peek();
+            }
+            return readyTasks.pollFirst();
+        }
+
+        synchronized long nextReadyTime() {
+            if (!readyTasks.isEmpty()) {
+                return System.nanoTime();
+            }
+            TaskHolder<?> delayedTask = delayedTasks.peek();
+            return delayedTask != null ? delayedTask.getReadyTime() : Long.MAX_VALUE;
+        }
+
+        synchronized int size() {
+            return readyTasks.size() + delayedTasks.size();
+        }
+
+        /**
+         * Wake up the waiting worker if a task becoming ready at the given time is due before the worker wakes up.
+         *
+         * @return true if the worker is waiting and will look for the task in time, false if the worker is busy
+         */
+        boolean wakeUp(long readyTime) {
+            Thread thread = waiter;
+            if (thread == null) {
+                return false;
+            }
+            if (wakeUpTime == Long.MAX_VALUE || readyTime - wakeUpTime < 0) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+    }
+}
@@ -46,6 +46,8 @@ public final class MessageTracer {
     public static final String REQUEUE = "Requeue message.";
     public static final String ACKNOWLEDGE = "Acknowledge message.";
     public static final String DELIVER = "Deliver message to transport consumer.";
+    public static final String EXPIRE = "Message expired. Message dropped!";
+    public static final String OVERFLOW = "Queue length limit reached. Message dropped!";
 
     public static void trace(Message message, String description) {
         if (LOGGER.isTraceEnabled() && Objects.nonNull(message)) {
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test round robin rotation and the ready index of the consumer ring.
+ */
+public class ConsumerRingTest {
+
+    private ConsumerRing consumerRing;
+
+    private Consumer consumer1;
+
+    private Consumer consumer2;
+
+    private Consumer consumer3;
+
+    private static Consumer createConsumer(boolean ready) {
+        Consumer consumer = Mockito.mock(Consumer.class);
+        Mockito.when(consumer.isReady()).thenReturn(ready);
+        return consumer;
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        consumerRing = new ConsumerRing();
+        consumer1 = createConsumer(true);
+        consumer2 = createConsumer(true);
+        consumer3 = createConsumer(true);
+        consumerRing.add(consumer1);
+        consumerRing.add(consumer2);
+        consumerRing.add(consumer3);
+    }
+
+    @Test
+    public void testRoundRobinRotation() {
+        Assert.assertSame(consumerRing.nextReady(), consumer1);
+        Assert.assertSame(consumerRing.nextReady(), consumer2);
+        Assert.assertSame(consumerRing.nextReady(), consumer3);
+        Assert.assertSame(consumerRing.nextReady(), consumer1);
+    }
+
+    @Test
+    public void testNotReadyConsumerDroppedUntilMarkedReady() {
+        Mockito.when(consumer2.isReady()).thenReturn(false);
+
+        Assert.assertSame(consumerRing.nextReady(), consumer1);
+        Assert.assertSame(consumerRing.nextReady(), consumer3);
+        Assert.assertSame(consumerRing.nextReady(), consumer1);
+        Assert.assertSame(consumerRing.nextReady(), consumer3);
+        Mockito.verify(consumer2, Mockito.times(1)).isReady();
+
+        Mockito.when(consumer2.isReady()).thenReturn(true);
+        Assert.assertTrue(consumerRing.markReady(consumer2));
+        Assert.assertFalse(consumerRing.markReady(consumer2), "A ready consumer should not be added twice");
+
+        Assert.assertSame(consumerRing.nextReady(), consumer1);
+        Assert.assertSame(consumerRing.nextReady(), consumer3);
+        Assert.assertSame(consumerRing.nextReady(), consumer2);
+    }
+
+    @Test
+    public void testNoReadyConsumer() {
+        Mockito.when(consumer1.isReady()).thenReturn(false);
+        Mockito.when(consumer2.isReady()).thenReturn(false);
+        Mockito.when(consumer3.isReady()).thenReturn(false);
+
+        Assert.assertNull(consumerRing.nextReady());
+        Assert.assertNull(consumerRing.nextReady());
+    }
+
+    @Test
+    public void testRemove() {
+        consumerRing.remove(consumer2);
+
+        Assert.assertFalse(consumerRing.markReady(consumer2), "A removed consumer should not be marked ready");
+        Assert.assertSame(consumerRing.nextReady(), consumer1);
+        Assert.assertSame(consumerRing.nextReady(), consumer3);
+        Assert.assertSame(consumerRing.nextReady(), consumer1);
+    }
+}
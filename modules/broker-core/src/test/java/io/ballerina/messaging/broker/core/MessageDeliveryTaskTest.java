@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test deficit round robin delivery of the message delivery task.
+ */
+public class MessageDeliveryTaskTest {
+
+    private static final long NO_TIME_LIMIT = TimeUnit.MINUTES.toNanos(1);
+
+    private static QueueHandler createQueueHandler(FieldTable arguments, List<Message> delivered) throws Exception {
+        QueueHandler queueHandler = new QueueHandler(new MemQueueImpl("queue1", false, Queue.UNBOUNDED, false,
+                                                                      arguments),
+                                                     new NullBrokerMetricManager());
+        Consumer consumer = Mockito.mock(Consumer.class);
+        Mockito.when(consumer.isReady()).thenReturn(true);
+        Mockito.doAnswer(invocation -> delivered.add(invocation.getArgument(0)))
+               .when(consumer).send(Mockito.any(Message.class));
+        queueHandler.addConsumer(consumer);
+        return queueHandler;
+    }
+
+    private static void enqueue(QueueHandler queueHandler, int count, long contentLength) throws Exception {
+        for (int i = 1; i <= count; i++) {
+            queueHandler.enqueue(new Message(i, new Metadata("queue1", "amq.direct", contentLength)));
+        }
+    }
+
+    private static int deliver(MessageDeliveryTask task, List<Message> delivered) throws Exception {
+        delivered.clear();
+        task.call();
+        return delivered.size();
+    }
+
+    @Test
+    public void testQuantumScaledByDeliveryWeight() throws Exception {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.DELIVERY_WEIGHT, FieldValue.parseLongInt(3));
+        List<Message> delivered = new ArrayList<>();
+        QueueHandler queueHandler = createQueueHandler(arguments, delivered);
+        enqueue(queueHandler, 10, 10);
+        MessageDeliveryTask task = new MessageDeliveryTask(
+                queueHandler, new DeliveryQuantum(2, DeliveryQuantum.Unit.MESSAGES, NO_TIME_LIMIT));
+
+        Assert.assertEquals(deliver(task, delivered), 6);
+        Assert.assertEquals(deliver(task, delivered), 4);
+        Assert.assertEquals(deliver(task, delivered), 0);
+    }
+
+    @Test
+    public void testByteQuantumCarriesOverLargeMessages() throws Exception {
+        List<Message> delivered = new ArrayList<>();
+        QueueHandler queueHandler = createQueueHandler(FieldTable.EMPTY_TABLE, delivered);
+        enqueue(queueHandler, 10, 150);
+        MessageDeliveryTask task = new MessageDeliveryTask(
+                queueHandler, new DeliveryQuantum(100, DeliveryQuantum.Unit.BYTES, NO_TIME_LIMIT));
+
+        Assert.assertEquals(deliver(task, delivered), 1);
+        Assert.assertEquals(deliver(task, delivered), 1);
+        Assert.assertEquals(deliver(task, delivered), 0, "Turn should be skipped until the deficit is paid off");
+        Assert.assertEquals(deliver(task, delivered), 1);
+    }
+
+    @Test
+    public void testRunEndsWhenTimeBudgetIsUsedUp() throws Exception {
+        List<Message> delivered = new ArrayList<>();
+        QueueHandler queueHandler = createQueueHandler(FieldTable.EMPTY_TABLE, delivered);
+        enqueue(queueHandler, 10, 10);
+        MessageDeliveryTask task = new MessageDeliveryTask(
+                queueHandler, new DeliveryQuantum(1000, DeliveryQuantum.Unit.MESSAGES, 0));
+
+        Assert.assertEquals(deliver(task, delivered), 1);
+        Assert.assertEquals(deliver(task, delivered), 1);
+    }
+
+    @Test
+    public void testQueueMetricsRemovedWithTaskOfDeletedQueue() throws Exception {
+        BrokerMetricManager metricManager = Mockito.mock(BrokerMetricManager.class);
+        QueueHandler queueHandler = new QueueHandler(new MemQueueImpl("queue1", false, Queue.UNBOUNDED, false,
+                                                                      FieldTable.EMPTY_TABLE),
+                                                     metricManager);
+        MessageDeliveryTask task = new MessageDeliveryTask(queueHandler);
+        task.onAdd();
+        task.onRemove();
+        Mockito.verify(metricManager, Mockito.never()).removeQueueMetrics("queue1");
+
+        task.onAdd();
+        queueHandler.releaseResources();
+        // Task of a deleted queue is removed after its last run is recorded
+        task.onRemove();
+        Mockito.verify(metricManager).removeQueueMetrics("queue1");
+    }
+}
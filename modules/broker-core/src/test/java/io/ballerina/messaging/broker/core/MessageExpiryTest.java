@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test expiry of messages with a time to live.
+ */
+public class MessageExpiryTest {
+
+    private static final long TICK_DURATION = 10;
+
+    private static QueueHandler createQueueHandler(FieldTable arguments, MessageExpiryWheel expiryWheel) {
+        return new QueueHandler(new MemQueueImpl("queue1", false, Queue.UNBOUNDED, false, arguments),
+                                new NullBrokerMetricManager(), expiryWheel);
+    }
+
+    private static FieldTable ttlArguments(long ttl) {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.MESSAGE_TTL, FieldValue.parseLongInt((int) ttl));
+        return arguments;
+    }
+
+    private static Message createMessage(long id, String expiration) {
+        Metadata metadata = new Metadata("queue1", "amq.direct", 0);
+        FieldTable properties = new FieldTable();
+        if (expiration != null) {
+            properties.add(Metadata.EXPIRATION, FieldValue.parseShortString(expiration));
+        }
+        metadata.setProperties(properties);
+        return new Message(id, metadata);
+    }
+
+    private static void waitUntilEmpty(QueueHandler queueHandler) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (queueHandler.size() > 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(TICK_DURATION);
+        }
+    }
+
+    @Test
+    public void testExpiredMessagesSkippedOnDelivery() throws Exception {
+        QueueHandler queueHandler = createQueueHandler(FieldTable.EMPTY_TABLE, null);
+        queueHandler.enqueue(createMessage(1, "0"));
+        queueHandler.enqueue(createMessage(2, null));
+        queueHandler.enqueue(createMessage(3, "0"));
+        queueHandler.enqueue(createMessage(4, "60000"));
+        TimeUnit.MILLISECONDS.sleep(1);
+
+        Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), 2);
+        Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), 4);
+        Assert.assertNull(queueHandler.takeForDelivery());
+    }
+
+    @Test
+    public void testQueueTtlExpiresMessagesWithoutConsumers() throws Exception {
+        MessageExpiryWheel expiryWheel = new MessageExpiryWheel(TICK_DURATION, 8);
+        QueueHandler queueHandler = createQueueHandler(ttlArguments(50), expiryWheel);
+        for (int i = 0; i < 100; i++) {
+            queueHandler.enqueue(createMessage(i, null));
+        }
+        Assert.assertEquals(queueHandler.size(), 100);
+
+        waitUntilEmpty(queueHandler);
+        // Messages due in a later tick may already be discarded while the wheel still holds that tick
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (expiryWheel.pendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(TICK_DURATION);
+        }
+
+        Assert.assertEquals(queueHandler.size(), 0, "Expired messages should be removed by the expiry wheel");
+        Assert.assertEquals(expiryWheel.pendingCount(), 0);
+    }
+
+    @Test
+    public void testEarliestOfMessageExpirationAndQueueTtlApplies() throws Exception {
+        QueueHandler queueHandler = createQueueHandler(ttlArguments(60000), null);
+        Message shortLived = createMessage(1, "0");
+        Message longLived = createMessage(2, "120000");
+        queueHandler.enqueue(shortLived);
+        queueHandler.enqueue(longLived);
+
+        Assert.assertTrue(shortLived.getExpiryTime() <= System.currentTimeMillis());
+        Assert.assertTrue(longLived.getExpiryTime() <= System.currentTimeMillis() + 60000);
+    }
+
+    @Test
+    public void testExpiryKeepsOrderOfLiveMessages() throws Exception {
+        QueueHandler queueHandler = createQueueHandler(FieldTable.EMPTY_TABLE, null);
+        queueHandler.enqueue(createMessage(1, "0"));
+        queueHandler.enqueue(createMessage(2, "60000"));
+        queueHandler.enqueue(createMessage(3, "0"));
+        queueHandler.enqueue(createMessage(4, null));
+        TimeUnit.MILLISECONDS.sleep(1);
+
+        queueHandler.expireMessages();
+
+        Assert.assertEquals(queueHandler.size(), 3, "Only the expired message at the head should be removed");
+        Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), 2);
+        Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), 4);
+        Assert.assertNull(queueHandler.takeForDelivery());
+    }
+
+    @Test
+    public void testRecreatedMessageExpiresFromArrivalTime() throws Exception {
+        Queue queue = new MemQueueImpl("queue1", false, Queue.UNBOUNDED, false, ttlArguments(1000));
+        QueueHandler queueHandler = new QueueHandler(queue, new NullBrokerMetricManager(), null);
+        Message expired = createMessage(1, null);
+        expired.getMetadata().setArrivalTime(System.currentTimeMillis() - 2000);
+        Message live = createMessage(2, null);
+        live.getMetadata().setArrivalTime(System.currentTimeMillis());
+        // Messages recreated from the store do not have an expiry time in memory
+        queue.enqueue(expired);
+        queue.enqueue(live);
+
+        Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), 2,
+                            "Expiry time should be computed from the stored arrival time");
+        Assert.assertTrue(live.getExpiryTime() <= live.getMetadata().getArrivalTime() + 1000);
+    }
+
+    @Test
+    public void testExpiryCheckRepeatedOnceHeadIsRead() throws Exception {
+        MessageExpiryWheel expiryWheel = new MessageExpiryWheel(TICK_DURATION, 8);
+        Queue queue = Mockito.spy(new MemQueueImpl("queue1", false, Queue.UNBOUNDED, false, ttlArguments(1000)));
+        QueueHandler queueHandler = new QueueHandler(queue, new NullBrokerMetricManager(), expiryWheel);
+        Message message = createMessage(1, null);
+        message.getMetadata().setArrivalTime(System.currentTimeMillis() - 2000);
+        queue.enqueue(message);
+        // Data of the head message is not read yet
+        Mockito.doReturn(null).doCallRealMethod().when(queue).dequeue();
+
+        queueHandler.expireMessages();
+        Assert.assertEquals(queueHandler.size(), 1);
+
+        queueHandler.onMessagesAvailable();
+        waitUntilEmpty(queueHandler);
+        Assert.assertEquals(queueHandler.size(), 0, "Expired message should be removed once its data is read");
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test routing and delivery of partitioned queues.
+ */
+public class PartitionedQueueTest {
+
+    private static final int PARTITION_COUNT = 4;
+
+    private static QueueHandler createQueueHandler() {
+        List<QueueHandler> partitions = new ArrayList<>();
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            partitions.add(new QueueHandler(new MemQueueImpl(PartitionedQueue.partitionName("queue1", i), false),
+                                            new NullBrokerMetricManager()));
+        }
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.PARTITIONS, FieldValue.parseLongInt(PARTITION_COUNT));
+        return new QueueHandler(new PartitionedQueue("queue1", false, false, arguments, partitions),
+                                new NullBrokerMetricManager());
+    }
+
+    private static Message createMessage(long id) {
+        return new Message(id, new Metadata("queue1", "amq.direct", 10));
+    }
+
+    @Test
+    public void testMessagesSpreadAcrossPartitions() throws Exception {
+        QueueHandler queueHandler = createQueueHandler();
+        // Ids published within a millisecond differ in the low bits and ids across milliseconds in the high bits
+        for (int i = 1; i <= 400; i++) {
+            queueHandler.enqueue(createMessage(i));
+            queueHandler.enqueue(createMessage((long) i << 18));
+        }
+
+        Assert.assertEquals(queueHandler.size(), 800);
+        for (QueueHandler partition : queueHandler.getPartitions()) {
+            Assert.assertTrue(partition.size() > 100, "Messages should be spread across partitions, partition "
+                    + partition.getQueue().getName() + " has " + partition.size() + " messages");
+        }
+    }
+
+    @Test
+    public void testAcknowledgeAndRequeueRoutedToPartition() throws Exception {
+        QueueHandler queueHandler = createQueueHandler();
+        for (int i = 0; i < 100; i++) {
+            queueHandler.enqueue(createMessage(i));
+        }
+
+        QueueHandler firstPartition = queueHandler.getPartitions().get(0);
+        QueueHandler secondPartition = queueHandler.getPartitions().get(1);
+        Message acknowledged = firstPartition.takeForDelivery();
+        Message requeued = secondPartition.takeForDelivery();
+        int secondPartitionSize = secondPartition.size();
+
+        queueHandler.dequeue(acknowledged);
+        queueHandler.requeue(requeued);
+
+        Assert.assertEquals(queueHandler.size(), 99);
+        Assert.assertEquals(secondPartition.size(), secondPartitionSize + 1,
+                            "Requeued message should return to its partition");
+        Assert.assertSame(secondPartition.takeForDelivery(), requeued);
+    }
+
+    @Test
+    public void testConsumersAttachedToAllPartitions() {
+        QueueHandler queueHandler = createQueueHandler();
+        Consumer consumer = Mockito.mock(Consumer.class);
+
+        Assert.assertTrue(queueHandler.addConsumer(consumer));
+        Assert.assertEquals(queueHandler.consumerCount(), 1);
+        for (QueueHandler partition : queueHandler.getPartitions()) {
+            Assert.assertEquals(partition.consumerCount(), 1, "Consumer should receive messages of all partitions");
+        }
+
+        Assert.assertTrue(queueHandler.removeConsumer(consumer));
+        for (QueueHandler partition : queueHandler.getPartitions()) {
+            Assert.assertEquals(partition.consumerCount(), 0);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import org.testng.annotations.Test;
+
+/**
+ * Tests validation of the arguments given when declaring a queue.
+ */
+public class QueueArgumentsTest {
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testInvalidQueueMode() throws Exception {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.QUEUE_MODE, FieldValue.parseLongString("eager"));
+        QueueArguments.validate(arguments);
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testInvalidMessageTtl() throws Exception {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.MESSAGE_TTL, FieldValue.parseLongString("-1"));
+        QueueArguments.validate(arguments);
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testInvalidOverflowPolicy() throws Exception {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.OVERFLOW, FieldValue.parseLongString("drop-tail"));
+        QueueArguments.validate(arguments);
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testInvalidPartitionCount() throws Exception {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.PARTITIONS, FieldValue.parseLongInt(0));
+        QueueArguments.validate(arguments);
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testInvalidDeliveryWeight() throws Exception {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.DELIVERY_WEIGHT, FieldValue.parseLongInt(QueueArguments.MAX_DELIVERY_WEIGHT + 1));
+        QueueArguments.validate(arguments);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.DbBackedQueueImpl;
+import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+import io.ballerina.messaging.broker.core.queue.QueueBufferFactory;
+import io.ballerina.messaging.broker.core.store.MessageStore;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test length limits and overflow policies of queues.
+ */
+public class QueueLengthLimitTest {
+
+    private static final int CONTENT_LENGTH = 10;
+
+    private static QueueHandler createQueueHandler(long maxLength, long maxLengthBytes,
+                                                   QueueArguments.OverflowPolicy policy) {
+        FieldTable arguments = new FieldTable();
+        if (maxLength != QueueArguments.NO_LIMIT) {
+            arguments.add(QueueArguments.MAX_LENGTH, FieldValue.parseLongInt((int) maxLength));
+        }
+        if (maxLengthBytes != QueueArguments.NO_LIMIT) {
+            arguments.add(QueueArguments.MAX_LENGTH_BYTES, FieldValue.parseLongLongInt(maxLengthBytes));
+        }
+        arguments.add(QueueArguments.OVERFLOW, FieldValue.parseLongString(policy.getValue()));
+        return new QueueHandler(new MemQueueImpl("queue1", false, Queue.UNBOUNDED, false, arguments),
+                                new NullBrokerMetricManager());
+    }
+
+    private static Message createMessage(long id) {
+        return new Message(id, new Metadata("queue1", "amq.direct", CONTENT_LENGTH));
+    }
+
+    @Test
+    public void testDropHeadKeepsLatestMessages() throws Exception {
+        QueueHandler queueHandler = createQueueHandler(5, QueueArguments.NO_LIMIT,
+                                                       QueueArguments.OverflowPolicy.DROP_HEAD);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(queueHandler.enqueue(createMessage(i)));
+        }
+
+        Assert.assertEquals(queueHandler.size(), 5);
+        for (int i = 15; i < 20; i++) {
+            Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), i);
+        }
+    }
+
+    @Test
+    public void testDropHeadDoesNotWaitForBareHead() throws Exception {
+        MessageStore messageStore = Mockito.mock(MessageStore.class);
+        Mockito.when(messageStore.countMessagesForQueue("queue1")).thenReturn(3);
+        Mockito.when(messageStore.readMessagesForQueue(Mockito.eq("queue1"), Mockito.anyLong(), Mockito.anyInt()))
+               .thenReturn(Arrays.asList(new Message(1, null), new Message(2, null), new Message(3, null)));
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.MAX_LENGTH, FieldValue.parseLongInt(3));
+        arguments.add(QueueArguments.OVERFLOW,
+                      FieldValue.parseLongString(QueueArguments.OverflowPolicy.DROP_HEAD.getValue()));
+        // Store reads never complete, hence the recovered messages stay bare
+        Queue queue = new DbBackedQueueImpl("queue1", false, arguments, messageStore,
+                                            new QueueBufferFactory(new BrokerCoreConfiguration()), 10);
+        QueueHandler queueHandler = new QueueHandler(queue, new NullBrokerMetricManager());
+
+        Message message = createMessage(4);
+        FieldTable properties = new FieldTable();
+        properties.add(Metadata.DELIVERY_MODE, FieldValue.parseShortShortInt((byte) Metadata.PERSISTENT_MESSAGE));
+        message.getMetadata().setProperties(properties);
+        Assert.assertTrue(queueHandler.enqueue(message), "Bare head should be dropped to make room");
+        Assert.assertEquals(queueHandler.size(), 3);
+        Mockito.verify(messageStore).detach(Mockito.eq("queue1"), Mockito.argThat(dropped ->
+                dropped.getInternalId() == 1));
+    }
+
+    @Test
+    public void testRejectPublishWhenFull() throws Exception {
+        QueueHandler queueHandler = createQueueHandler(3, QueueArguments.NO_LIMIT,
+                                                       QueueArguments.OverflowPolicy.REJECT_PUBLISH);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(queueHandler.enqueue(createMessage(i)));
+        }
+        Assert.assertFalse(queueHandler.enqueue(createMessage(3)), "Publish to a full queue should be rejected");
+        Assert.assertEquals(queueHandler.size(), 3);
+
+        Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), 0);
+        Assert.assertTrue(queueHandler.enqueue(createMessage(4)), "Publish should be accepted once there is room");
+    }
+
+    @Test
+    public void testByteLimit() throws Exception {
+        QueueHandler queueHandler = createQueueHandler(QueueArguments.NO_LIMIT, CONTENT_LENGTH * 4,
+                                                       QueueArguments.OverflowPolicy.REJECT_PUBLISH);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(queueHandler.enqueue(createMessage(i)));
+        }
+        Assert.assertFalse(queueHandler.enqueue(createMessage(4)));
+
+        Message message = queueHandler.takeForDelivery();
+        Assert.assertTrue(queueHandler.enqueue(createMessage(5)));
+        Assert.assertFalse(queueHandler.enqueue(createMessage(6)));
+
+        queueHandler.requeue(message);
+        Assert.assertFalse(queueHandler.enqueue(createMessage(7)), "Requeued messages should count for the limit");
+    }
+
+    @Test
+    public void testRejectPublishFlowBlocksPublisherUntilRoom() throws Exception {
+        QueueHandler queueHandler = createQueueHandler(2, QueueArguments.NO_LIMIT,
+                                                       QueueArguments.OverflowPolicy.REJECT_PUBLISH_FLOW);
+        List<String> events = new ArrayList<>();
+        PublishListener publishListener = new PublishListener() {
+            @Override
+            public void onPublishComplete(boolean success) {
+            }
+
+            @Override
+            public void onQueueBlocked(String queueName) {
+                events.add("blocked");
+            }
+
+            @Override
+            public void onQueueUnblocked(String queueName) {
+                events.add("unblocked");
+            }
+        };
+
+        queueHandler.enqueue(createMessage(0));
+        queueHandler.enqueue(createMessage(1));
+        Assert.assertFalse(queueHandler.enqueue(createMessage(2)));
+        queueHandler.blockPublisher(publishListener);
+        queueHandler.blockPublisher(publishListener);
+        Assert.assertEquals(events.size(), 1, "Publisher should be blocked once");
+
+        queueHandler.takeForDelivery();
+        Assert.assertEquals(events, Arrays.asList("blocked", "unblocked"));
+    }
+
+    @Test
+    public void testRemovedPublisherIsNotUnblocked() throws Exception {
+        QueueHandler queueHandler = createQueueHandler(1, QueueArguments.NO_LIMIT,
+                                                       QueueArguments.OverflowPolicy.REJECT_PUBLISH_FLOW);
+        PublishListener publishListener = Mockito.mock(PublishListener.class);
+
+        queueHandler.enqueue(createMessage(0));
+        Assert.assertFalse(queueHandler.enqueue(createMessage(1)));
+        queueHandler.blockPublisher(publishListener);
+        queueHandler.removeBlockedPublisher(publishListener);
+
+        queueHandler.takeForDelivery();
+        Mockito.verify(publishListener).onQueueBlocked("queue1");
+        Mockito.verify(publishListener, Mockito.never()).onQueueUnblocked(Mockito.anyString());
+    }
+}
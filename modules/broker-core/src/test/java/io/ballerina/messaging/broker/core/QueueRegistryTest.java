@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+import io.ballerina.messaging.broker.core.store.dao.BindingDao;
+import io.ballerina.messaging.broker.core.store.dao.QueueDao;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tests recovering queues and bindings from the store.
+ */
+public class QueueRegistryTest {
+
+    private static final int QUEUE_COUNT = 50;
+
+    @Test(dataProvider = "recoveryThreadCounts")
+    public void testRecoverQueues(int recoveryThreadCount) throws Exception {
+        QueueRegistry queueRegistry = new QueueRegistry(createQueueDao(), createQueueHandlerFactory(),
+                                                        recoveryThreadCount);
+
+        Set<String> queueNames = queueRegistry.getAllQueues().stream()
+                                              .map(handler -> handler.getQueue().getName())
+                                              .collect(Collectors.toSet());
+        Assert.assertEquals(queueNames.size(), QUEUE_COUNT, "All durable queues should be recovered");
+        for (int i = 0; i < QUEUE_COUNT; i++) {
+            Assert.assertNotNull(queueRegistry.getQueueHandler("queue-" + i));
+        }
+    }
+
+    @Test
+    public void testRecoverQueueArguments() throws Exception {
+        QueueRegistry queueRegistry = new QueueRegistry(createQueueDao(), createQueueHandlerFactory(), 4);
+
+        Assert.assertTrue(QueueArguments.isLazy(queueRegistry.getQueueHandler("queue-0").getQueue().getArguments()),
+                          "Recovered queue should keep its arguments");
+        Assert.assertFalse(QueueArguments.isLazy(queueRegistry.getQueueHandler("queue-1").getQueue().getArguments()));
+    }
+
+    @Test
+    public void testAddQueueWithPartitionName() throws Exception {
+        QueueRegistry queueRegistry = new QueueRegistry(createQueueDao(), createQueueHandlerFactory());
+
+        Assert.assertTrue(queueRegistry.addQueue("orders#first", false, true, false, FieldTable.EMPTY_TABLE));
+        try {
+            queueRegistry.addQueue(PartitionedQueue.partitionName("orders", 0), false, true, false,
+                                   FieldTable.EMPTY_TABLE);
+            Assert.fail("Queue names of partitions should be rejected");
+        } catch (ValidationException e) {
+            Assert.assertNull(queueRegistry.getQueueHandler(PartitionedQueue.partitionName("orders", 0)));
+        }
+    }
+
+    @Test(dataProvider = "recoveryThreadCounts")
+    public void testRecoverPartitionedQueue(int recoveryThreadCount) throws Exception {
+        QueueDao queueDao = Mockito.mock(QueueDao.class);
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.PARTITIONS, FieldValue.parseLongInt(3));
+        Mockito.doAnswer(invocation -> {
+            QueueDao.QueueCollector collector = invocation.getArgument(0);
+            collector.addQueue("partitioned-queue", arguments);
+            collector.addQueue(PartitionedQueue.partitionName("partitioned-queue", 0), FieldTable.EMPTY_TABLE);
+            collector.addQueue(PartitionedQueue.partitionName("partitioned-queue", 1), FieldTable.EMPTY_TABLE);
+            collector.addQueue(PartitionedQueue.partitionName("partitioned-queue", 2), FieldTable.EMPTY_TABLE);
+            return null;
+        }).when(queueDao).retrieveAll(Mockito.any());
+
+        QueueRegistry queueRegistry = new QueueRegistry(queueDao, createQueueHandlerFactory(), recoveryThreadCount);
+
+        Assert.assertEquals(queueRegistry.getAllQueues().size(), 1, "Partitions should not be registered as queues");
+        QueueHandler queueHandler = queueRegistry.getQueueHandler("partitioned-queue");
+        Assert.assertEquals(queueHandler.getPartitions().size(), 3);
+        Assert.assertEquals(queueHandler.getPartitions().get(1).getQueue().getName(),
+                            PartitionedQueue.partitionName("partitioned-queue", 1));
+    }
+
+    @Test
+    public void testReloadReleasesDiscardedQueues() throws Exception {
+        Queue queue = Mockito.spy(new MemQueueImpl("queue-0", true, 10, false, FieldTable.EMPTY_TABLE));
+        QueueHandler queueHandler = new QueueHandler(queue, new NullBrokerMetricManager());
+        QueueHandlerFactory queueHandlerFactory = createQueueHandlerFactory();
+        Mockito.when(queueHandlerFactory.createDurableQueueHandler(Mockito.eq("queue-0"), Mockito.anyBoolean(),
+                                                                 Mockito.any()))
+               .thenReturn(queueHandler)
+               .thenAnswer(invocation -> new QueueHandler(new MemQueueImpl("queue-0", true, 10, false,
+                                                                           invocation.getArgument(2)),
+                                                          new NullBrokerMetricManager()));
+        QueueRegistry queueRegistry = new QueueRegistry(createQueueDao(), queueHandlerFactory, 4);
+
+        queueRegistry.reloadQueuesOnBecomingActive();
+
+        Mockito.verify(queue).release();
+        Assert.assertNotNull(queueRegistry.getQueueHandler("queue-0"), "Queues should be recovered again");
+    }
+
+    @Test
+    public void testBulkBindingRecovery() throws Exception {
+        QueueRegistry queueRegistry = new QueueRegistry(createQueueDao(), createQueueHandlerFactory(), 4);
+        BindingDao bindingDao = Mockito.mock(BindingDao.class);
+        Mockito.doAnswer(invocation -> {
+            BindingDao.ExchangeBindingCollector collector = invocation.getArgument(0);
+            collector.addBinding("amq.direct", "queue-1", "queue-1", FieldTable.EMPTY_TABLE);
+            collector.addBinding("amq.topic", "queue-2", "a.*", FieldTable.EMPTY_TABLE);
+            collector.addBinding("amq.direct", "deleted-queue", "deleted-queue", FieldTable.EMPTY_TABLE);
+            return null;
+        }).when(bindingDao).retrieveAllBindings(Mockito.any());
+
+        ExchangeRegistry exchangeRegistry = new ExchangeRegistry(new NoOpExchangeDaoTestUtil(), bindingDao, true);
+        exchangeRegistry.retrieveFromStore(queueRegistry);
+
+        Mockito.verify(bindingDao, Mockito.never()).retrieveBindingsForExchange(Mockito.anyString(), Mockito.any());
+        Assert.assertEquals(exchangeRegistry.getExchange("amq.direct").getBindingsForRoute("queue-1")
+                                            .getUnfilteredBindings().size(), 1);
+        Assert.assertEquals(exchangeRegistry.getExchange("amq.topic").getBindingsForRoute("a.b")
+                                            .getUnfilteredBindings().size(), 1,
+                            "Recovered topic bindings should be matched");
+    }
+
+    @DataProvider(name = "recoveryThreadCounts")
+    public Object[][] recoveryThreadCounts() {
+        return new Object[][] {{1}, {4}};
+    }
+
+    private QueueDao createQueueDao() throws BrokerException {
+        QueueDao queueDao = Mockito.mock(QueueDao.class);
+        Mockito.doAnswer(invocation -> {
+            QueueDao.QueueCollector collector = invocation.getArgument(0);
+            for (int i = 0; i < QUEUE_COUNT; i++) {
+                collector.addQueue("queue-" + i, i == 0 ? createLazyArguments() : FieldTable.EMPTY_TABLE);
+            }
+            return null;
+        }).when(queueDao).retrieveAll(Mockito.any());
+        return queueDao;
+    }
+
+    private static FieldTable createLazyArguments() {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.QUEUE_MODE, FieldValue.parseLongString(QueueArguments.LAZY_QUEUE_MODE));
+        return arguments;
+    }
+
+    private QueueHandlerFactory createQueueHandlerFactory() throws BrokerException {
+        QueueHandlerFactory queueHandlerFactory = Mockito.mock(QueueHandlerFactory.class);
+        Mockito.when(queueHandlerFactory.createDurableQueueHandler(Mockito.anyString(), Mockito.anyBoolean(),
+                                                                 Mockito.any()))
+               .thenAnswer(invocation -> new QueueHandler(new MemQueueImpl(invocation.getArgument(0), true, 10, false,
+                                                                           invocation.getArgument(2)),
+                                                          new NullBrokerMetricManager()));
+        return queueHandlerFactory;
+    }
+}
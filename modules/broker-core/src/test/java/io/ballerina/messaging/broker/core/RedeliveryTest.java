@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test delivery of messages requeued for redelivery.
+ */
+public class RedeliveryTest {
+
+    private static final int MAX_CONSECUTIVE_REDELIVERIES = 4;
+
+    private static QueueHandler createQueueHandler() {
+        return new QueueHandler(new MemQueueImpl("queue1", false), new NullBrokerMetricManager(), null,
+                                MAX_CONSECUTIVE_REDELIVERIES);
+    }
+
+    private static Message createMessage(long id) {
+        return new Message(id, new Metadata("queue1", "amq.direct", 10));
+    }
+
+    @Test
+    public void testRedeliveriesInterleavedWithQueuedMessages() throws Exception {
+        QueueHandler queueHandler = createQueueHandler();
+        for (int i = 0; i < 20; i++) {
+            queueHandler.enqueue(createMessage(i));
+        }
+        for (int i = 0; i < 10; i++) {
+            queueHandler.takeForDelivery();
+        }
+        for (int i = 0; i < 10; i++) {
+            queueHandler.requeue(createMessage(i));
+        }
+        Assert.assertEquals(queueHandler.size(), 20);
+
+        long[] expectedOrder = {0, 1, 2, 3, 10, 4, 5, 6, 7, 11, 8, 9, 12, 13, 14, 15, 16, 17, 18, 19};
+        for (long expectedId : expectedOrder) {
+            Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), expectedId);
+        }
+        Assert.assertNull(queueHandler.takeForDelivery());
+    }
+
+    @Test
+    public void testRedeliveriesDeliveredWhenQueueIsEmpty() throws Exception {
+        QueueHandler queueHandler = createQueueHandler();
+        for (int i = 0; i < 10; i++) {
+            queueHandler.requeue(createMessage(i));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(queueHandler.takeForDelivery().getInternalId(), i,
+                                "Requeued messages should not wait for the queue when it is empty");
+        }
+        Assert.assertTrue(queueHandler.isEmpty());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ContentCacheBudgetTest {
+
+    private static final int CONTENT_LENGTH = 100;
+
+    private Metadata persistentMetadata;
+    private Metadata nonPersistentMetadata;
+    private QueueBuffer.MessageReader messageReader;
+
+    @BeforeClass
+    public void setUp() {
+        persistentMetadata = QueueBufferTestUtil.createMetadata(Metadata.PERSISTENT_MESSAGE, CONTENT_LENGTH);
+        nonPersistentMetadata = QueueBufferTestUtil.createMetadata(Metadata.NON_PERSISTENT_MESSAGE, CONTENT_LENGTH);
+        messageReader = QueueBufferTestUtil.createMessageReader(persistentMetadata);
+    }
+
+    private List<Message> addMessages(QueueBuffer buffer, Metadata metadata, int count) {
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Message message = new Message(i + 1, metadata);
+            buffer.add(message);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    public void testEvictFromBufferExceedingFairShare() {
+        ContentCacheBudget budget = new ContentCacheBudget(10 * CONTENT_LENGTH);
+        QueueBuffer coldBuffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+        QueueBuffer hotBuffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+
+        List<Message> coldMessages = addMessages(coldBuffer, persistentMetadata, 10);
+        Assert.assertEquals(budget.getUsedBytes(), 10 * CONTENT_LENGTH);
+
+        Message hotMessage = addMessages(hotBuffer, persistentMetadata, 1).get(0);
+        Assert.assertNotNull(hotMessage.getMetadata(), "Buffer within its fair share should be able to cache");
+        Assert.assertNull(coldMessages.get(9).getMetadata(), "Last message of the cold buffer should be evicted");
+        Assert.assertEquals(coldBuffer.getCachedBytes(), 9 * CONTENT_LENGTH);
+        Assert.assertEquals(hotBuffer.getCachedBytes(), CONTENT_LENGTH);
+        Assert.assertEquals(budget.getUsedBytes(), 10 * CONTENT_LENGTH);
+    }
+
+    @Test
+    public void testEvictedMessagesReadBeforeDelivery() {
+        ContentCacheBudget budget = new ContentCacheBudget(10 * CONTENT_LENGTH);
+        QueueBuffer coldBuffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+        QueueBuffer hotBuffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+
+        addMessages(coldBuffer, persistentMetadata, 10);
+        addMessages(hotBuffer, persistentMetadata, 5);
+
+        for (int i = 0; i < 10; i++) {
+            Message message = coldBuffer.getFirstDeliverable();
+            Assert.assertNotNull(message, "Evicted messages should be delivered once read");
+            Assert.assertNotNull(message.getMetadata(), "Delivered messages should have data");
+            Assert.assertEquals(message.getInternalId(), i + 1);
+            coldBuffer.remove(message);
+        }
+        Assert.assertNull(coldBuffer.getFirstDeliverable());
+        Assert.assertEquals(coldBuffer.getCachedBytes(), 0);
+        Assert.assertEquals(budget.getUsedBytes(), hotBuffer.getCachedBytes());
+    }
+
+    @Test
+    public void testEvictFromSegmentedBuffer() {
+        ContentCacheBudget budget = new ContentCacheBudget(10 * CONTENT_LENGTH);
+        QueueBuffer coldBuffer = new SegmentedQueueBuffer(100, 1, messageReader, budget);
+        QueueBuffer hotBuffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+
+        List<Message> coldMessages = addMessages(coldBuffer, persistentMetadata, 10);
+        Message hotMessage = addMessages(hotBuffer, persistentMetadata, 1).get(0);
+        Assert.assertNotNull(hotMessage.getMetadata(), "Evicted bytes should be available to the requester");
+        Assert.assertNotNull(coldMessages.get(0).getMetadata(), "Next message to deliver should be kept");
+        Assert.assertNull(coldMessages.get(1).getMetadata(), "Only the requested bytes should be evicted");
+        Assert.assertEquals(coldBuffer.getCachedBytes(), 9 * CONTENT_LENGTH);
+        Assert.assertEquals(budget.getUsedBytes(), 10 * CONTENT_LENGTH);
+
+        for (int i = 0; i < 10; i++) {
+            Message message = coldBuffer.getFirstDeliverable();
+            Assert.assertNotNull(message, "Evicted messages should be delivered once read");
+            Assert.assertNotNull(message.getMetadata(), "Delivered messages should have data");
+            Assert.assertEquals(message.getInternalId(), i + 1);
+            coldBuffer.remove(message);
+        }
+        Assert.assertEquals(coldBuffer.getCachedBytes(), 0);
+    }
+
+    @Test
+    public void testRefuseBufferExceedingFairShare() {
+        ContentCacheBudget budget = new ContentCacheBudget(10 * CONTENT_LENGTH);
+        QueueBuffer firstBuffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+        QueueBuffer secondBuffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+
+        addMessages(firstBuffer, persistentMetadata, 5);
+        addMessages(secondBuffer, persistentMetadata, 5);
+
+        Message message = addMessages(firstBuffer, persistentMetadata, 1).get(0);
+        Assert.assertNull(message.getMetadata(), "Buffer exceeding its fair share should not cache");
+        Assert.assertEquals(firstBuffer.getCachedBytes(), 5 * CONTENT_LENGTH);
+        Assert.assertEquals(secondBuffer.getCachedBytes(), 5 * CONTENT_LENGTH);
+    }
+
+    @Test
+    public void testNonPersistentMessagesAlwaysCached() {
+        ContentCacheBudget budget = new ContentCacheBudget(CONTENT_LENGTH);
+        QueueBuffer buffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+
+        for (Message message : addMessages(buffer, nonPersistentMetadata, 5)) {
+            Assert.assertNotNull(message.getMetadata(), "Non persistent messages cannot be read back");
+        }
+        Assert.assertEquals(budget.getUsedBytes(), 5 * CONTENT_LENGTH);
+    }
+
+    @Test
+    public void testReleaseBuffer() {
+        ContentCacheBudget budget = new ContentCacheBudget(10 * CONTENT_LENGTH);
+        QueueBuffer releasedBuffer = new SegmentedQueueBuffer(100, 10, messageReader, budget);
+        QueueBuffer buffer = new LinkedQueueBuffer(100, 10, messageReader, budget);
+
+        addMessages(releasedBuffer, persistentMetadata, 10);
+        releasedBuffer.release();
+        Assert.assertEquals(budget.getUsedBytes(), 0);
+
+        for (Message message : addMessages(buffer, persistentMetadata, 10)) {
+            Assert.assertNotNull(message.getMetadata(), "Released bytes should be available to other buffers");
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.store.MessageStore;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class DbBackedQueueImplTest {
+
+    private static final String QUEUE_NAME = "DbBackedQueueImplTestQueue";
+
+    private static final int STORED_MESSAGE_COUNT = 25;
+
+    private static final int RECOVERY_PAGE_SIZE = 10;
+
+    private MessageStore messageStore;
+
+    private QueueBufferFactory queueBufferFactory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        messageStore = Mockito.mock(MessageStore.class);
+        Mockito.when(messageStore.countMessagesForQueue(QUEUE_NAME)).thenReturn(STORED_MESSAGE_COUNT);
+        Mockito.when(messageStore.readMessagesForQueue(Mockito.eq(QUEUE_NAME), Mockito.anyLong(), Mockito.anyInt()))
+               .thenAnswer(invocation -> {
+                   long afterMessageId = invocation.getArgument(1);
+                   int limit = invocation.getArgument(2);
+                   return LongStream.rangeClosed(1, STORED_MESSAGE_COUNT)
+                                    .filter(id -> id > afterMessageId)
+                                    .limit(limit)
+                                    .mapToObj(id -> new Message(id, null))
+                                    .collect(Collectors.toList());
+               });
+        Mockito.doAnswer(invocation -> {
+            QueueBuffer buffer = invocation.getArgument(0);
+            List<Message> messages = invocation.getArgument(1);
+            for (Message message : messages) {
+                message.setMetadata(new Metadata(QUEUE_NAME, "amq.direct", 0));
+            }
+            buffer.markMessagesFilled(messages);
+            return null;
+        }).when(messageStore).fillMessageData(Mockito.any(QueueBuffer.class), Mockito.anyList());
+        Mockito.doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(messageStore).executeRead(Mockito.any(Runnable.class));
+
+        queueBufferFactory = new QueueBufferFactory(new BrokerCoreConfiguration());
+    }
+
+    @Test
+    public void testRecoveryReadsOnlyFirstPage() throws Exception {
+        DbBackedQueueImpl queue = new DbBackedQueueImpl(QUEUE_NAME, false, FieldTable.EMPTY_TABLE, messageStore,
+                                                        queueBufferFactory, RECOVERY_PAGE_SIZE);
+
+        Mockito.verify(messageStore, Mockito.times(1))
+               .readMessagesForQueue(Mockito.eq(QUEUE_NAME), Mockito.anyLong(), Mockito.anyInt());
+        Assert.assertEquals(queue.size(), STORED_MESSAGE_COUNT, "Queue size should include unrecovered messages");
+    }
+
+    @Test
+    public void testMessageOrderWithEnqueueDuringRecovery() throws Exception {
+        DbBackedQueueImpl queue = new DbBackedQueueImpl(QUEUE_NAME, false, FieldTable.EMPTY_TABLE, messageStore,
+                                                        queueBufferFactory, RECOVERY_PAGE_SIZE);
+        queue.enqueue(createNonPersistentMessage(100, 0));
+        Assert.assertEquals(queue.size(), STORED_MESSAGE_COUNT + 1);
+
+        List<Long> deliveredIds = new ArrayList<>();
+        Message message;
+        while ((message = queue.dequeue()) != null) {
+            deliveredIds.add(message.getInternalId());
+            queue.detach(message);
+        }
+
+        List<Long> expectedIds = LongStream.rangeClosed(1, STORED_MESSAGE_COUNT).boxed().collect(Collectors.toList());
+        expectedIds.add(100L);
+        Assert.assertEquals(deliveredIds, expectedIds, "Recovered messages should be delivered before new messages");
+        Assert.assertEquals(queue.size(), 0);
+    }
+
+    @Test
+    public void testDetachDeferredMessage() throws Exception {
+        DbBackedQueueImpl queue = new DbBackedQueueImpl(QUEUE_NAME, false, FieldTable.EMPTY_TABLE, messageStore,
+                                                        queueBufferFactory, RECOVERY_PAGE_SIZE);
+        Message deferredMessage = createNonPersistentMessage(100, 10);
+        queue.enqueue(deferredMessage);
+        queue.enqueue(createNonPersistentMessage(101, 10));
+        Assert.assertEquals(queue.cachedBytes(), 20, "Content of deferred messages should be charged to the budget");
+
+        queue.detach(deferredMessage);
+        Assert.assertEquals(queue.size(), STORED_MESSAGE_COUNT + 1);
+        Assert.assertEquals(queue.cachedBytes(), 10);
+
+        List<Long> deliveredIds = new ArrayList<>();
+        Message message;
+        while ((message = queue.dequeue()) != null) {
+            deliveredIds.add(message.getInternalId());
+            queue.detach(message);
+        }
+        Assert.assertFalse(deliveredIds.contains(100L), "Detached deferred message should not be delivered");
+        Assert.assertEquals(deliveredIds.get(deliveredIds.size() - 1), Long.valueOf(101));
+    }
+
+    @Test
+    public void testRecoveryPageReadOnStoreReaderThreads() throws Exception {
+        List<Runnable> readTasks = new ArrayList<>();
+        Mockito.doAnswer(invocation -> readTasks.add(invocation.getArgument(0)))
+               .when(messageStore).executeRead(Mockito.any(Runnable.class));
+        DbBackedQueueImpl queue = new DbBackedQueueImpl(QUEUE_NAME, false, FieldTable.EMPTY_TABLE, messageStore,
+                                                        queueBufferFactory, RECOVERY_PAGE_SIZE);
+
+        for (int i = 0; i < RECOVERY_PAGE_SIZE; i++) {
+            queue.detach(queue.dequeue());
+        }
+        Assert.assertNull(queue.dequeue(), "Next page should not be read by the delivery thread");
+        Assert.assertEquals(readTasks.size(), 1, "Only one page read should be pending at a time");
+        Mockito.verify(messageStore, Mockito.times(1))
+               .readMessagesForQueue(Mockito.eq(QUEUE_NAME), Mockito.anyLong(), Mockito.anyInt());
+
+        readTasks.get(0).run();
+        Assert.assertEquals(queue.dequeue().getInternalId(), RECOVERY_PAGE_SIZE + 1);
+    }
+
+    private static Message createNonPersistentMessage(long id, long contentLength) {
+        Metadata metadata = new Metadata(QUEUE_NAME, "amq.direct", contentLength);
+        FieldTable properties = new FieldTable();
+        properties.add(Metadata.DELIVERY_MODE, FieldValue.parseShortShortInt((byte) Metadata.NON_PERSISTENT_MESSAGE));
+        metadata.setProperties(properties);
+        return new Message(id, metadata);
+    }
+}
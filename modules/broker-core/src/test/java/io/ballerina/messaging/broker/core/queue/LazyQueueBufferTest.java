@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LazyQueueBufferTest {
+
+    private static final int DELIVERY_WINDOW_SIZE = 5;
+
+    private static final int CONTENT_LENGTH = 10;
+
+    private Metadata persistentMetadata;
+    private Metadata nonPersistentMetadata;
+    private List<Long> readMessageIds;
+    private QueueBuffer.MessageReader messageReader;
+
+    @BeforeClass
+    public void setUp() {
+        persistentMetadata = QueueBufferTestUtil.createMetadata(Metadata.PERSISTENT_MESSAGE, CONTENT_LENGTH);
+        nonPersistentMetadata = QueueBufferTestUtil.createMetadata(Metadata.NON_PERSISTENT_MESSAGE, CONTENT_LENGTH);
+        readMessageIds = new ArrayList<>();
+        messageReader = QueueBufferTestUtil.createMessageReader(persistentMetadata, readMessageIds);
+    }
+
+    private QueueBuffer createBuffer() {
+        readMessageIds.clear();
+        return new LazyQueueBuffer(DELIVERY_WINDOW_SIZE, messageReader, ContentCacheBudget.unlimited());
+    }
+
+    @Test
+    public void testPersistentMessageDataNotKept() {
+        QueueBuffer queueBuffer = createBuffer();
+        for (int i = 0; i < 100; i++) {
+            Message message = new Message(i + 1, persistentMetadata);
+            queueBuffer.add(message);
+            Assert.assertNull(message.getMetadata(), "Lazy queues should not keep persistent message data");
+        }
+
+        Assert.assertEquals(queueBuffer.size(), 100);
+        Assert.assertEquals(queueBuffer.getCachedBytes(), 0);
+    }
+
+    @Test
+    public void testDeliveryOrder() {
+        QueueBuffer queueBuffer = createBuffer();
+        for (int i = 0; i < 20; i++) {
+            if (i % 3 == 0) {
+                queueBuffer.add(new Message(i + 1, nonPersistentMetadata));
+            } else if (i % 3 == 1) {
+                queueBuffer.add(new Message(i + 1, persistentMetadata));
+            } else {
+                queueBuffer.addBareMessage(new Message(i + 1, null));
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            Message message = queueBuffer.getFirstDeliverable();
+            Assert.assertNotNull(message, "Message should be delivered once read");
+            Assert.assertEquals(message.getInternalId(), i + 1, "Messages should be delivered in order");
+            Assert.assertNotNull(message.getMetadata(), "Delivered messages should have data");
+        }
+        Assert.assertNull(queueBuffer.getFirstDeliverable());
+        Assert.assertEquals(queueBuffer.getNumberOfInflightMessages(), 20);
+        Assert.assertEquals(queueBuffer.getNumberOfUndeliveredMessages(), 0);
+        Assert.assertEquals(readMessageIds.size(), 13, "Only persistent messages should be read");
+    }
+
+    @Test
+    public void testReadOnlyDeliveryWindow() {
+        QueueBuffer queueBuffer = createBuffer();
+        for (int i = 0; i < 100; i++) {
+            queueBuffer.add(new Message(i + 1, persistentMetadata));
+        }
+
+        Message message = queueBuffer.getFirstDeliverable();
+        Assert.assertEquals(message.getInternalId(), 1);
+        Assert.assertEquals(readMessageIds.size(), DELIVERY_WINDOW_SIZE,
+                            "Only the delivery window should be read ahead");
+        Assert.assertEquals(queueBuffer.getCachedBytes(), DELIVERY_WINDOW_SIZE * CONTENT_LENGTH);
+    }
+
+    @Test
+    public void testRemove() {
+        QueueBuffer queueBuffer = createBuffer();
+        for (int i = 0; i < 10; i++) {
+            queueBuffer.add(new Message(i + 1, persistentMetadata));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            queueBuffer.remove(queueBuffer.getFirstDeliverable());
+        }
+        Assert.assertEquals(queueBuffer.size(), 0);
+        Assert.assertEquals(queueBuffer.getCachedBytes(), 0, "Removed messages should not be cached");
+    }
+
+    @Test
+    public void testDeliveryWaitsForRead() {
+        List<List<Message>> submittedReads = new ArrayList<>();
+        QueueBuffer queueBuffer = new LazyQueueBuffer(DELIVERY_WINDOW_SIZE,
+                                                      (buffer, messages) -> submittedReads.add(messages),
+                                                      ContentCacheBudget.unlimited());
+        for (int i = 0; i < 10; i++) {
+            queueBuffer.addBareMessage(new Message(i + 1, null));
+        }
+
+        Assert.assertNull(queueBuffer.getFirstDeliverable(), "Message should not be delivered before it is read");
+        Assert.assertEquals(submittedReads.size(), 1);
+        Assert.assertNull(queueBuffer.getFirstDeliverable());
+        Assert.assertEquals(submittedReads.size(), 1, "Messages should be submitted for reading only once");
+
+        List<Message> messages = submittedReads.get(0);
+        messages.forEach(message -> message.setMetadata(persistentMetadata));
+        queueBuffer.markMessagesFilled(messages);
+        Assert.assertEquals(queueBuffer.getFirstDeliverable().getInternalId(), 1);
+    }
+
+    @Test
+    public void testTakeFirstUndeliveredWithoutData() {
+        List<List<Message>> submittedReads = new ArrayList<>();
+        QueueBuffer queueBuffer = new LazyQueueBuffer(DELIVERY_WINDOW_SIZE,
+                                                      (buffer, messages) -> submittedReads.add(messages),
+                                                      ContentCacheBudget.unlimited());
+        for (int i = 0; i < 10; i++) {
+            queueBuffer.addBareMessage(new Message(i + 1, null));
+        }
+        Assert.assertNull(queueBuffer.getFirstDeliverable());
+
+        Message head = queueBuffer.takeFirstUndelivered();
+        Assert.assertEquals(head.getInternalId(), 1, "Head should be taken before it is read");
+        List<Message> messages = submittedReads.get(0);
+        messages.forEach(message -> message.setMetadata(persistentMetadata));
+        queueBuffer.markMessagesFilled(messages);
+        Assert.assertEquals(queueBuffer.getFirstDeliverable().getInternalId(), 2);
+
+        Assert.assertTrue(queueBuffer.remove(head));
+        Assert.assertEquals(queueBuffer.size(), 9);
+        Assert.assertEquals(queueBuffer.getCachedBytes(), (DELIVERY_WINDOW_SIZE - 1) * CONTENT_LENGTH,
+                            "Content of the taken head should not be cached");
+    }
+
+    @Test
+    public void testBareHeadReadWakesUpDelivery() {
+        List<List<Message>> submittedReads = new ArrayList<>();
+        QueueBuffer queueBuffer = new LazyQueueBuffer(DELIVERY_WINDOW_SIZE,
+                                                      (buffer, messages) -> submittedReads.add(messages),
+                                                      ContentCacheBudget.unlimited());
+        AtomicInteger wakeups = new AtomicInteger();
+        queueBuffer.setHeadFillListener(wakeups::incrementAndGet);
+        queueBuffer.addBareMessage(new Message(1, null));
+
+        Assert.assertNull(queueBuffer.getFirstDeliverable());
+        List<Message> messages = submittedReads.get(0);
+        messages.forEach(message -> message.setMetadata(persistentMetadata));
+        queueBuffer.markMessagesFilled(messages);
+        Assert.assertEquals(wakeups.get(), 1, "Read of the head should wake up delivery");
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.transaction.XidImpl;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import javax.transaction.xa.Xid;
+
+public class MemQueueImplTest {
+
+    private static Message createMessage(long id) {
+        return new Message(id, new Metadata("queue1", "amq.direct", 10));
+    }
+
+    private static Xid createXid(String branch) {
+        return new XidImpl(0, branch.getBytes(StandardCharsets.UTF_8), "".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCommitAppendsTransactionalMessagesOnce() {
+        MemQueueImpl queue = new MemQueueImpl("queue1", false);
+        queue.enqueue(createMessage(1));
+        Xid xid = createXid("branch1");
+        queue.prepareEnqueue(xid, createMessage(2));
+        queue.prepareEnqueue(xid, createMessage(3));
+        Assert.assertEquals(queue.size(), 1, "Messages should not be visible before the commit");
+
+        queue.commit(xid);
+        queue.commit(xid);
+
+        Assert.assertEquals(queue.size(), 3, "Transaction state should be released after the commit");
+        Assert.assertEquals(queue.cachedBytes(), 30);
+        for (int i = 1; i <= 3; i++) {
+            Assert.assertEquals(queue.dequeue().getInternalId(), i);
+        }
+        Assert.assertNull(queue.dequeue());
+        Assert.assertEquals(queue.cachedBytes(), 0);
+    }
+
+    @Test
+    public void testCommitRemovesDequeuedMessages() {
+        MemQueueImpl queue = new MemQueueImpl("queue1", false);
+        for (int i = 1; i <= 5; i++) {
+            queue.enqueue(createMessage(i));
+        }
+        Message delivered = queue.dequeue();
+        Xid xid = createXid("branch1");
+        queue.prepareDetach(xid, delivered);
+        queue.prepareDetach(xid, createMessage(3));
+
+        queue.commit(xid);
+
+        Assert.assertEquals(queue.size(), 3);
+        Assert.assertEquals(queue.dequeue().getInternalId(), 2);
+        Assert.assertEquals(queue.dequeue().getInternalId(), 4);
+    }
+
+    @Test
+    public void testRollbackDiscardsTransaction() {
+        MemQueueImpl queue = new MemQueueImpl("queue1", false);
+        Xid xid = createXid("branch1");
+        queue.prepareEnqueue(xid, createMessage(1));
+
+        queue.rollback(xid);
+        queue.commit(xid);
+
+        Assert.assertEquals(queue.size(), 0, "Rolled back messages should not be committed");
+    }
+
+    @Test
+    public void testCapacity() {
+        MemQueueImpl queue = new MemQueueImpl("queue1", 2, false);
+        Assert.assertTrue(queue.enqueue(createMessage(1)));
+        Assert.assertTrue(queue.enqueue(createMessage(2)));
+        Assert.assertFalse(queue.enqueue(createMessage(3)), "Queue should reject messages beyond its capacity");
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OffHeapBacklogQueueBufferTest {
+
+    private static final int IN_MEMORY_LIMIT = 10;
+
+    private static final int CONTENT_LENGTH = 10;
+
+    private Metadata persistentMetadata;
+    private Metadata nonPersistentMetadata;
+    private QueueBuffer.MessageReader messageReader;
+
+    @BeforeClass
+    public void setUp() {
+        persistentMetadata = QueueBufferTestUtil.createMetadata(Metadata.PERSISTENT_MESSAGE, CONTENT_LENGTH);
+        nonPersistentMetadata = QueueBufferTestUtil.createMetadata(Metadata.NON_PERSISTENT_MESSAGE, CONTENT_LENGTH);
+        messageReader = QueueBufferTestUtil.createMessageReader(persistentMetadata);
+    }
+
+    @DataProvider(name = "bufferTypes")
+    public Object[][] bufferTypes() {
+        return new Object[][] {
+                {QueueBufferFactory.BufferType.LINKED},
+                {QueueBufferFactory.BufferType.SEGMENTED}
+        };
+    }
+
+    private QueueBuffer createBuffer(QueueBufferFactory.BufferType bufferType) {
+        ContentCacheBudget cacheBudget = ContentCacheBudget.unlimited();
+        return new OffHeapBacklogQueueBuffer(bufferType.create(IN_MEMORY_LIMIT, IN_MEMORY_LIMIT, messageReader,
+                                                               cacheBudget),
+                                             IN_MEMORY_LIMIT, cacheBudget);
+    }
+
+    @Test(dataProvider = "bufferTypes")
+    public void testBacklogKeptAsIds(QueueBufferFactory.BufferType bufferType) {
+        QueueBuffer queueBuffer = createBuffer(bufferType);
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Message message = new Message(i + 1, persistentMetadata);
+            queueBuffer.add(message);
+            messages.add(message);
+        }
+
+        for (int i = 0; i < IN_MEMORY_LIMIT; i++) {
+            Assert.assertNotNull(messages.get(i).getMetadata(), "Messages within the limit should be cached");
+        }
+        for (int i = IN_MEMORY_LIMIT; i < 100; i++) {
+            Assert.assertNull(messages.get(i).getMetadata(), "Backlogged messages should not keep data");
+        }
+        Assert.assertEquals(queueBuffer.size(), 100);
+        Assert.assertEquals(queueBuffer.getNumberOfUndeliveredMessages(), 100);
+        queueBuffer.release();
+    }
+
+    @Test(dataProvider = "bufferTypes")
+    public void testDeliveryOrderAcrossBacklog(QueueBufferFactory.BufferType bufferType) {
+        QueueBuffer queueBuffer = createBuffer(bufferType);
+        for (int i = 0; i < 50; i++) {
+            if (i % 5 == 0) {
+                queueBuffer.add(new Message(i + 1, nonPersistentMetadata));
+            } else if (i % 5 == 1) {
+                queueBuffer.addBareMessage(new Message(i + 1, null));
+            } else {
+                queueBuffer.add(new Message(i + 1, persistentMetadata));
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Message message = queueBuffer.getFirstDeliverable();
+            Assert.assertNotNull(message, "Backlogged messages should be delivered");
+            Assert.assertEquals(message.getInternalId(), i + 1, "Messages should be delivered in order");
+            Assert.assertNotNull(message.getMetadata(), "Delivered messages should have data");
+            queueBuffer.remove(message);
+        }
+        Assert.assertNull(queueBuffer.getFirstDeliverable());
+        Assert.assertEquals(queueBuffer.size(), 0);
+        Assert.assertEquals(queueBuffer.getCachedBytes(), 0);
+    }
+
+    @Test(dataProvider = "bufferTypes")
+    public void testRemoveFromBacklog(QueueBufferFactory.BufferType bufferType) {
+        QueueBuffer queueBuffer = createBuffer(bufferType);
+        for (int i = 0; i < 15; i++) {
+            queueBuffer.add(new Message(i + 1, persistentMetadata));
+        }
+        Message retainedMessage = new Message(16, nonPersistentMetadata);
+        queueBuffer.add(retainedMessage);
+        long inMemoryBytes = queueBuffer.getCachedBytes() - nonPersistentMetadata.getContentLength();
+
+        Assert.assertTrue(queueBuffer.remove(new Message(12, null)), "Backlogged message should be removed");
+        Assert.assertTrue(queueBuffer.remove(retainedMessage), "Retained message should be removed");
+        Assert.assertFalse(queueBuffer.remove(new Message(17, null)));
+        Assert.assertEquals(queueBuffer.size(), 14);
+        Assert.assertEquals(queueBuffer.getCachedBytes(), inMemoryBytes,
+                            "Content of the removed retained message should be released");
+
+        for (long expectedId : new long[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 14, 15}) {
+            Message message = queueBuffer.getFirstDeliverable();
+            Assert.assertEquals(message.getInternalId(), expectedId, "Removed messages should not be delivered");
+            queueBuffer.remove(message);
+        }
+        Assert.assertNull(queueBuffer.getFirstDeliverable());
+        Assert.assertEquals(queueBuffer.size(), 0);
+    }
+
+    @Test(dataProvider = "bufferTypes")
+    public void testAddAfterBacklogDrained(QueueBufferFactory.BufferType bufferType) {
+        QueueBuffer queueBuffer = createBuffer(bufferType);
+        for (int i = 0; i < 15; i++) {
+            queueBuffer.add(new Message(i + 1, persistentMetadata));
+        }
+        for (int i = 0; i < 10; i++) {
+            queueBuffer.remove(queueBuffer.getFirstDeliverable());
+        }
+
+        Message message = new Message(16, persistentMetadata);
+        queueBuffer.add(message);
+        Assert.assertNotNull(message.getMetadata(), "Messages should be cached once the backlog is drained");
+        for (int i = 10; i < 16; i++) {
+            Assert.assertEquals(queueBuffer.getFirstDeliverable().getInternalId(), i + 1);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class OffHeapMessageIdQueueTest {
+
+    @Test
+    public void testFirstInFirstOutAcrossChunks() {
+        OffHeapMessageIdQueue queue = new OffHeapMessageIdQueue();
+        int count = OffHeapMessageIdQueue.ENTRIES_PER_CHUNK * 3 + 10;
+        try {
+            for (int i = 0; i < count / 2; i++) {
+                queue.add(i, false);
+            }
+            for (int i = 0; i < count / 4; i++) {
+                Assert.assertEquals(OffHeapMessageIdQueue.messageIdOf(queue.poll()), i);
+            }
+            for (int i = count / 2; i < count; i++) {
+                queue.add(i, false);
+            }
+            for (int i = count / 4; i < count; i++) {
+                Assert.assertEquals(OffHeapMessageIdQueue.messageIdOf(queue.poll()), i);
+            }
+            Assert.assertTrue(queue.isEmpty());
+        } finally {
+            queue.release();
+        }
+    }
+
+    @Test
+    public void testRetainedFlag() {
+        OffHeapMessageIdQueue queue = new OffHeapMessageIdQueue();
+        try {
+            queue.add(1, true);
+            queue.add(2, false);
+
+            long entry = queue.poll();
+            Assert.assertTrue(OffHeapMessageIdQueue.isRetained(entry));
+            Assert.assertEquals(OffHeapMessageIdQueue.messageIdOf(entry), 1);
+            entry = queue.poll();
+            Assert.assertFalse(OffHeapMessageIdQueue.isRetained(entry));
+            Assert.assertEquals(OffHeapMessageIdQueue.messageIdOf(entry), 2);
+        } finally {
+            queue.release();
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        OffHeapMessageIdQueue queue = new OffHeapMessageIdQueue();
+        try {
+            for (int i = 0; i < 10; i++) {
+                queue.add(i, i % 2 == 0);
+            }
+
+            Assert.assertTrue(queue.remove(4));
+            Assert.assertFalse(queue.remove(4), "Removed id should not be found again");
+            Assert.assertEquals(queue.size(), 9);
+            for (int i = 0; i < 10; i++) {
+                if (i != 4) {
+                    Assert.assertEquals(OffHeapMessageIdQueue.messageIdOf(queue.poll()), i);
+                }
+            }
+            Assert.assertTrue(queue.isEmpty());
+        } finally {
+            queue.release();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPollEmpty() {
+        new OffHeapMessageIdQueue().poll();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeMessageId() {
+        new OffHeapMessageIdQueue().add(-1, false);
+    }
+}
@@ -23,8 +23,13 @@ import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Metadata;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class QueueBufferTest {
 
     private Metadata mockMetadata;
@@ -33,15 +38,25 @@ public class QueueBufferTest {
     @BeforeClass
     public void setUp() {
         mockMetadata = new Metadata("queue1", "amq.direct", 0);
-        messageReader = (buffer, message) -> {
-            message.setMetadata(mockMetadata);
-            buffer.markMessageFilled(message);
+        messageReader = (buffer, messages) -> {
+            for (Message message : messages) {
+                message.setMetadata(mockMetadata);
+            }
+            buffer.markMessagesFilled(messages);
+        };
+    }
+
+    @DataProvider(name = "bufferTypes")
+    public Object[][] bufferTypes() {
+        return new Object[][] {
+                {QueueBufferFactory.BufferType.LINKED},
+                {QueueBufferFactory.BufferType.SEGMENTED}
         };
     }
 
-    @Test
-    public void testAdd() {
-        QueueBuffer queueBuffer = new QueueBuffer(10, messageReader);
+    @Test(dataProvider = "bufferTypes")
+    public void testAdd(QueueBufferFactory.BufferType bufferType) {
+        QueueBuffer queueBuffer = bufferType.create(10, 10, messageReader, ContentCacheBudget.unlimited());
         for (int i = 0; i < 10; i++) {
             Message message = new Message(i + 1, mockMetadata);
             queueBuffer.add(message);
@@ -56,9 +71,9 @@ public class QueueBufferTest {
         }
     }
 
-    @Test
-    public void testBareAdd() {
-        QueueBuffer queueBuffer = new QueueBuffer(10, messageReader);
+    @Test(dataProvider = "bufferTypes")
+    public void testBareAdd(QueueBufferFactory.BufferType bufferType) {
+        QueueBuffer queueBuffer = bufferType.create(10, 10, messageReader, ContentCacheBudget.unlimited());
         for (int i = 0; i < 12; i++) {
             Message message = new Message(i + 1, null);
             queueBuffer.addBareMessage(message);
@@ -72,9 +87,9 @@ public class QueueBufferTest {
         }
     }
 
-    @Test
-    public void testSize() {
-        QueueBuffer queueBuffer = new QueueBuffer(10, messageReader);
+    @Test(dataProvider = "bufferTypes")
+    public void testSize(QueueBufferFactory.BufferType bufferType) {
+        QueueBuffer queueBuffer = bufferType.create(10, 10, messageReader, ContentCacheBudget.unlimited());
         for (int i = 0; i < 12; i++) {
             Message message = new Message(i + 1, mockMetadata);
             queueBuffer.add(message);
@@ -83,9 +98,9 @@ public class QueueBufferTest {
         Assert.assertEquals(queueBuffer.size(), 12, "Message size should match the number of added items");
     }
 
-    @Test
-    public void testGetFirstDeliverable() throws Exception {
-        QueueBuffer queueBuffer = new QueueBuffer(10, messageReader);
+    @Test(dataProvider = "bufferTypes")
+    public void testGetFirstDeliverable(QueueBufferFactory.BufferType bufferType) throws Exception {
+        QueueBuffer queueBuffer = bufferType.create(10, 10, messageReader, ContentCacheBudget.unlimited());
         for (int i = 0; i < 12; i++) {
             Message message = new Message(i + 1, mockMetadata);
             queueBuffer.add(message);
@@ -100,4 +115,117 @@ public class QueueBufferTest {
 
         Assert.assertEquals(queueBuffer.size(), 0, "Buffer size should be 0 after removing all messages");
     }
+
+    @Test(dataProvider = "bufferTypes")
+    public void testReadsAreBatchedAndPipelined(QueueBufferFactory.BufferType bufferType) {
+        List<List<Message>> submittedReads = new ArrayList<>();
+        QueueBuffer queueBuffer = bufferType.create(100, 10, (buffer, messages) -> submittedReads.add(messages),
+                                                     ContentCacheBudget.unlimited());
+        for (int i = 0; i < 50; i++) {
+            queueBuffer.addBareMessage(new Message(i + 1, null));
+        }
+
+        Assert.assertNull(queueBuffer.getFirstDeliverable(), "Head should not be delivered until it is read");
+        Assert.assertEquals(submittedReads.size(), 2, "Read-ahead should grow when delivery waits on a read");
+        Assert.assertEquals(submittedReads.get(0).size(), 10, "Reads should be submitted as a single batch");
+        Assert.assertEquals(submittedReads.get(1).size(), 10,
+                            "Next batch should be submitted while the first is being read");
+        Assert.assertEquals(submittedReads.get(1).get(0).getInternalId(), 11);
+
+        fill(queueBuffer, submittedReads.get(1));
+        Assert.assertNull(queueBuffer.getFirstDeliverable(), "Messages should be delivered in order");
+
+        fill(queueBuffer, submittedReads.get(0));
+        for (int i = 0; i < 20; i++) {
+            Message message = queueBuffer.getFirstDeliverable();
+            Assert.assertNotNull(message, "Read messages should be delivered");
+            Assert.assertEquals(message.getInternalId(), i + 1);
+            queueBuffer.remove(message);
+        }
+        Assert.assertTrue(submittedReads.size() > 2, "Reads should continue as the queue drains");
+    }
+
+    @Test(dataProvider = "bufferTypes")
+    public void testBareHeadReadWhenFullMessagesFollow(QueueBufferFactory.BufferType bufferType) {
+        QueueBuffer queueBuffer = bufferType.create(4, 1, messageReader, ContentCacheBudget.unlimited());
+        for (int i = 0; i < 6; i++) {
+            queueBuffer.add(new Message(i + 1, mockMetadata));
+        }
+        for (int i = 0; i < 4; i++) {
+            queueBuffer.remove(queueBuffer.getFirstDeliverable());
+        }
+        // Added with data once the queue drained below the limit, behind the bare messages 5 and 6
+        queueBuffer.add(new Message(7, mockMetadata));
+        queueBuffer.add(new Message(8, mockMetadata));
+
+        for (int i = 5; i <= 8; i++) {
+            Message message = queueBuffer.getFirstDeliverable();
+            if (message == null) {
+                // Head read is submitted by the previous attempt
+                message = queueBuffer.getFirstDeliverable();
+            }
+            Assert.assertNotNull(message, "Message " + i + " should be delivered");
+            Assert.assertEquals(message.getInternalId(), i);
+            queueBuffer.remove(message);
+        }
+    }
+
+    @Test(dataProvider = "bufferTypes")
+    public void testBareHeadReadWakesUpDelivery(QueueBufferFactory.BufferType bufferType) {
+        List<List<Message>> submittedReads = new ArrayList<>();
+        QueueBuffer queueBuffer = bufferType.create(10, 5, (buffer, messages) -> submittedReads.add(messages),
+                                                     ContentCacheBudget.unlimited());
+        AtomicInteger wakeups = new AtomicInteger();
+        queueBuffer.setHeadFillListener(wakeups::incrementAndGet);
+        for (int i = 0; i < 20; i++) {
+            queueBuffer.addBareMessage(new Message(i + 1, null));
+        }
+
+        Assert.assertNull(queueBuffer.getFirstDeliverable(), "Head should not be delivered until it is read");
+        fill(queueBuffer, submittedReads.get(submittedReads.size() - 1));
+        Assert.assertEquals(wakeups.get(), 0, "Reads behind the head should not wake up delivery");
+
+        fill(queueBuffer, submittedReads.get(0));
+        Assert.assertEquals(wakeups.get(), 1, "Read of the head should wake up delivery");
+        Assert.assertEquals(queueBuffer.getFirstDeliverable().getInternalId(), 1);
+    }
+
+    @Test(dataProvider = "bufferTypes")
+    public void testTakeFirstUndeliveredWithoutData(QueueBufferFactory.BufferType bufferType) {
+        List<List<Message>> submittedReads = new ArrayList<>();
+        QueueBuffer queueBuffer = bufferType.create(10, 10, (buffer, messages) -> submittedReads.add(messages),
+                                                     ContentCacheBudget.unlimited());
+        for (int i = 0; i < 5; i++) {
+            queueBuffer.addBareMessage(new Message(i + 1, null));
+        }
+        Assert.assertNull(queueBuffer.getFirstDeliverable(), "Head should not be delivered until it is read");
+
+        Message head = queueBuffer.takeFirstUndelivered();
+        Assert.assertNotNull(head, "Head should be taken before it is read");
+        Assert.assertEquals(head.getInternalId(), 1);
+        Assert.assertEquals(queueBuffer.getNumberOfInflightMessages(), 1);
+        Assert.assertEquals(queueBuffer.getNumberOfUndeliveredMessages(), 4);
+
+        fill(queueBuffer, submittedReads.get(0));
+        Message message = queueBuffer.getFirstDeliverable();
+        Assert.assertEquals(message.getInternalId(), 2, "Taken head should not be delivered once it is read");
+        Assert.assertTrue(queueBuffer.remove(head));
+        Assert.assertTrue(queueBuffer.remove(message));
+
+        Assert.assertEquals(queueBuffer.size(), 3);
+        Assert.assertEquals(queueBuffer.getNumberOfInflightMessages(), 0);
+        for (int i = 3; i <= 5; i++) {
+            message = queueBuffer.getFirstDeliverable();
+            Assert.assertEquals(message.getInternalId(), i);
+            queueBuffer.remove(message);
+        }
+        Assert.assertEquals(queueBuffer.size(), 0);
+    }
+
+    private void fill(QueueBuffer queueBuffer, List<Message> messages) {
+        for (Message message : messages) {
+            message.setMetadata(mockMetadata);
+        }
+        queueBuffer.markMessagesFilled(messages);
+    }
 }
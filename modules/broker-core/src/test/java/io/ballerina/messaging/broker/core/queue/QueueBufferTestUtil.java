@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message metadata and message readers shared by the queue buffer tests.
+ */
+public final class QueueBufferTestUtil {
+
+    private QueueBufferTestUtil() {
+    }
+
+    public static Metadata createMetadata(int deliveryMode, long contentLength) {
+        Metadata metadata = new Metadata("queue1", "amq.direct", contentLength);
+        FieldTable properties = new FieldTable();
+        properties.add(Metadata.DELIVERY_MODE, FieldValue.parseShortShortInt((byte) deliveryMode));
+        metadata.setProperties(properties);
+        return metadata;
+    }
+
+    /**
+     * Create a message reader which fills the messages with the given metadata right away.
+     *
+     * @param metadata metadata set on the read messages
+     * @return message reader
+     */
+    public static QueueBuffer.MessageReader createMessageReader(Metadata metadata) {
+        return createMessageReader(metadata, new ArrayList<>());
+    }
+
+    /**
+     * Create a message reader which fills the messages with the given metadata right away and records the ids of
+     * the read messages.
+     *
+     * @param metadata       metadata set on the read messages
+     * @param readMessageIds list the ids of the read messages are added to
+     * @return message reader
+     */
+    public static QueueBuffer.MessageReader createMessageReader(Metadata metadata, List<Long> readMessageIds) {
+        return (buffer, messages) -> {
+            for (Message message : messages) {
+                readMessageIds.add(message.getInternalId());
+                message.setMetadata(metadata);
+            }
+            buffer.markMessagesFilled(messages);
+        };
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RedeliveryQueueImplTest {
+
+    private static final int IN_MEMORY_LIMIT = 10;
+
+    private Metadata persistentMetadata;
+    private QueueBuffer.MessageReader messageReader;
+
+    @BeforeClass
+    public void setUp() {
+        persistentMetadata = new Metadata("queue1", "amq.direct", 10);
+        FieldTable properties = new FieldTable();
+        properties.add(Metadata.DELIVERY_MODE, FieldValue.parseShortShortInt((byte) Metadata.PERSISTENT_MESSAGE));
+        persistentMetadata.setProperties(properties);
+        messageReader = (buffer, messages) -> {
+            for (Message message : messages) {
+                message.setMetadata(persistentMetadata);
+            }
+            buffer.markMessagesFilled(messages);
+        };
+    }
+
+    private RedeliveryQueueImpl createQueue() {
+        BrokerCoreConfiguration configuration = new BrokerCoreConfiguration();
+        configuration.getRedelivery().setInMemoryLimit(String.valueOf(IN_MEMORY_LIMIT));
+        QueueBufferFactory queueBufferFactory = new QueueBufferFactory(configuration);
+        return new RedeliveryQueueImpl("queue1", queueBufferFactory.createRedeliveryBuffer(messageReader));
+    }
+
+    @Test
+    public void testRequeuedMessagesBeyondLimitKeptBare() {
+        RedeliveryQueueImpl queue = createQueue();
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Message message = new Message(i + 1, persistentMetadata);
+            queue.enqueue(message);
+            messages.add(message);
+        }
+
+        for (int i = 0; i < IN_MEMORY_LIMIT; i++) {
+            Assert.assertNotNull(messages.get(i).getMetadata(), "Messages within the limit should keep data");
+        }
+        for (int i = IN_MEMORY_LIMIT; i < 100; i++) {
+            Assert.assertNull(messages.get(i).getMetadata(), "Messages beyond the limit should not keep data");
+        }
+        Assert.assertEquals(queue.size(), 100);
+        Assert.assertEquals(queue.cachedBytes(), IN_MEMORY_LIMIT * 10);
+        queue.release();
+    }
+
+    @Test
+    public void testRedeliveryOrderPreserved() {
+        RedeliveryQueueImpl queue = createQueue();
+        for (int i = 0; i < 50; i++) {
+            queue.enqueue(new Message(i + 1, persistentMetadata));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Message message = queue.dequeue();
+            Assert.assertNotNull(message, "Requeued messages should be redelivered");
+            Assert.assertEquals(message.getInternalId(), i + 1, "Requeued messages should keep their order");
+            Assert.assertNotNull(message.getMetadata(), "Redelivered messages should have data");
+        }
+        Assert.assertNull(queue.dequeue());
+        Assert.assertEquals(queue.size(), 0);
+        Assert.assertEquals(queue.cachedBytes(), 0);
+    }
+
+    @Test
+    public void testRedeliveryStateKeptBeyondLimit() {
+        RedeliveryQueueImpl queue = createQueue();
+        for (int i = 0; i < 50; i++) {
+            Message message = new Message(i + 1, persistentMetadata);
+            message.addOwnedQueue("queue1");
+            message.setRedeliver();
+            message.setExpiryTime(1000 + i);
+            queue.enqueue(message);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Message message = queue.dequeue();
+            Assert.assertEquals(message.getInternalId(), i + 1);
+            Assert.assertTrue(message.isRedelivered(), "Requeued messages should stay redelivered");
+            Assert.assertEquals(message.getRedeliveryCount(), 1);
+            Assert.assertEquals(message.getExpiryTime(), 1000 + i, "Requeued messages should keep the expiry time");
+            Assert.assertTrue(message.getAttachedQueues().contains("queue1"),
+                              "Requeued messages should keep the owned queues");
+        }
+    }
+}
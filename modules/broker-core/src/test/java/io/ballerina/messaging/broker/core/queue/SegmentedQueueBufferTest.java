@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class SegmentedQueueBufferTest {
+
+    private Metadata mockMetadata;
+
+    private QueueBuffer.MessageReader messageReader;
+
+    @BeforeClass
+    public void setUp() {
+        mockMetadata = new Metadata("queue1", "amq.direct", 0);
+        messageReader = (buffer, messages) -> {
+            for (Message message : messages) {
+                message.setMetadata(mockMetadata);
+            }
+            buffer.markMessagesFilled(messages);
+        };
+    }
+
+    @Test
+    public void testDeliveryAcrossSegments() {
+        int messageCount = SegmentedQueueBuffer.SEGMENT_SIZE * 3 + 5;
+        QueueBuffer queueBuffer = new SegmentedQueueBuffer(100, 10, messageReader, ContentCacheBudget.unlimited());
+        for (int i = 0; i < messageCount; i++) {
+            queueBuffer.add(new Message(i + 1, mockMetadata));
+        }
+
+        for (int i = 0; i < messageCount; i++) {
+            Message message = queueBuffer.getFirstDeliverable();
+            Assert.assertNotNull(message, "Message " + (i + 1) + " should be deliverable");
+            Assert.assertNotNull(message.getMetadata(), "Delivered messages should have data");
+            Assert.assertEquals(message.getInternalId(), i + 1, "Messages should be delivered in order");
+            queueBuffer.remove(message);
+        }
+
+        Assert.assertNull(queueBuffer.getFirstDeliverable());
+        Assert.assertEquals(queueBuffer.size(), 0);
+        Assert.assertEquals(queueBuffer.getNumberOfInflightMessages(), 0);
+        Assert.assertEquals(queueBuffer.getNumberOfUndeliveredMessages(), 0);
+    }
+
+    @Test
+    public void testRemoveBeforeDelivery() {
+        QueueBuffer queueBuffer = new SegmentedQueueBuffer(10, 10, messageReader, ContentCacheBudget.unlimited());
+        Message removedMessage = new Message(2, mockMetadata);
+        queueBuffer.add(new Message(1, mockMetadata));
+        queueBuffer.add(removedMessage);
+        queueBuffer.add(new Message(3, mockMetadata));
+
+        queueBuffer.remove(removedMessage);
+        Assert.assertEquals(queueBuffer.getNumberOfUndeliveredMessages(), 2);
+
+        Assert.assertEquals(queueBuffer.getFirstDeliverable().getInternalId(), 1);
+        Assert.assertEquals(queueBuffer.getFirstDeliverable().getInternalId(), 3,
+                            "Removed messages should be skipped");
+        Assert.assertNull(queueBuffer.getFirstDeliverable());
+        Assert.assertEquals(queueBuffer.getNumberOfInflightMessages(), 2);
+        Assert.assertEquals(queueBuffer.size(), 2);
+    }
+
+    @Test
+    public void testConcurrentPublishers() throws Exception {
+        int publisherCount = 4;
+        int messagesPerPublisher = 5000;
+        QueueBuffer queueBuffer = new SegmentedQueueBuffer(1000, 100, messageReader, ContentCacheBudget.unlimited());
+        ExecutorService executor = Executors.newFixedThreadPool(publisherCount);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        for (int publisher = 0; publisher < publisherCount; publisher++) {
+            long firstId = (long) publisher * messagesPerPublisher;
+            executor.execute(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < messagesPerPublisher; i++) {
+                    queueBuffer.add(new Message(firstId + i, mockMetadata));
+                }
+            });
+        }
+
+        startLatch.countDown();
+        long[] lastIds = new long[publisherCount];
+        for (int i = 0; i < publisherCount; i++) {
+            lastIds[i] = -1;
+        }
+        List<Message> delivered = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (delivered.size() < publisherCount * messagesPerPublisher && System.currentTimeMillis() < deadline) {
+            Message message = queueBuffer.getFirstDeliverable();
+            if (message == null) {
+                Thread.yield();
+                continue;
+            }
+            int publisher = (int) (message.getInternalId() / messagesPerPublisher);
+            Assert.assertTrue(message.getInternalId() > lastIds[publisher],
+                              "Messages of a publisher should be delivered in order");
+            lastIds[publisher] = message.getInternalId();
+            delivered.add(message);
+            queueBuffer.remove(message);
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(delivered.size(), publisherCount * messagesPerPublisher,
+                            "All published messages should be delivered");
+        Assert.assertEquals(queueBuffer.size(), 0);
+        Assert.assertEquals(queueBuffer.getNumberOfUndeliveredMessages(), 0);
+    }
+}
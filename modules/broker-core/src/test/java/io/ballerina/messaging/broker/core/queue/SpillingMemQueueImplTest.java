@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.netty.buffer.Unpooled;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public class SpillingMemQueueImplTest {
+
+    private static final int MAX_IN_MEMORY_DEPTH = 10;
+
+    private static final long MAX_IN_MEMORY_BYTES = 1024;
+
+    private static final long SEGMENT_SIZE = 512;
+
+    private Path spillLocation;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        spillLocation = Files.createTempDirectory("spill-test");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        SpillingMemQueueImpl.deleteStaleSpillFiles(spillLocation);
+        Files.deleteIfExists(spillLocation);
+    }
+
+    private SpillingMemQueueImpl createQueue() {
+        return new SpillingMemQueueImpl("queue1", false, false, FieldTable.EMPTY_TABLE, MAX_IN_MEMORY_DEPTH,
+                                        MAX_IN_MEMORY_BYTES, spillLocation, SEGMENT_SIZE);
+    }
+
+    private static Message createMessage(long id, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Metadata metadata = new Metadata("queue1", "amq.direct", bytes.length);
+        FieldTable properties = new FieldTable();
+        properties.add(Metadata.DELIVERY_MODE, FieldValue.parseShortShortInt((byte) Metadata.NON_PERSISTENT_MESSAGE));
+        properties.add(Metadata.MESSAGE_ID, FieldValue.parseShortString("message-" + id));
+        metadata.setProperties(properties);
+        FieldTable headers = new FieldTable();
+        headers.add(ShortString.parseString("index"), FieldValue.parseLongInt((int) id));
+        metadata.setHeaders(headers);
+
+        Message message = new Message(id, metadata);
+        message.addChunk(new ContentChunk(0, Unpooled.copiedBuffer(bytes)));
+        return message;
+    }
+
+    private static String contentOf(Message message) {
+        StringBuilder content = new StringBuilder();
+        for (ContentChunk chunk : message.getContentChunks()) {
+            content.append(chunk.getBytes().toString(StandardCharsets.UTF_8));
+        }
+        return content.toString();
+    }
+
+    private long countSpillFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(spillLocation)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    public void testMessagesBeyondDepthAreSpilledInOrder() throws IOException {
+        SpillingMemQueueImpl queue = createQueue();
+        int messageCount = 100;
+        for (int i = 0; i < messageCount; i++) {
+            Assert.assertTrue(queue.enqueue(createMessage(i, "content-" + i)));
+        }
+
+        Assert.assertEquals(queue.size(), messageCount);
+        Assert.assertEquals(queue.spilledCount(), messageCount - MAX_IN_MEMORY_DEPTH);
+        Assert.assertTrue(countSpillFiles() > 1, "Spilled messages should be written to multiple segments");
+
+        for (int i = 0; i < messageCount; i++) {
+            Message message = queue.dequeue();
+            Assert.assertEquals(message.getInternalId(), i, "Messages should be dequeued in order");
+            Assert.assertEquals(contentOf(message), "content-" + i);
+            Assert.assertEquals(message.getMetadata().getProperty(Metadata.MESSAGE_ID),
+                                FieldValue.parseShortString("message-" + i));
+            Assert.assertEquals(message.getMetadata().getHeader(ShortString.parseString("index")),
+                                FieldValue.parseLongInt(i));
+            message.release();
+        }
+
+        Assert.assertNull(queue.dequeue());
+        Assert.assertEquals(queue.size(), 0);
+        Assert.assertEquals(countSpillFiles(), 0, "Spill files should be deleted once drained");
+    }
+
+    @Test
+    public void testMessagesBeyondByteLimitAreSpilled() {
+        SpillingMemQueueImpl queue = createQueue();
+        String content = new String(new char[(int) MAX_IN_MEMORY_BYTES / 2]).replace('\0', 'a');
+        for (int i = 0; i < 4; i++) {
+            queue.enqueue(createMessage(i, content));
+        }
+
+        Assert.assertEquals(queue.spilledCount(), 2);
+        Assert.assertEquals(queue.cachedBytes(), MAX_IN_MEMORY_BYTES);
+    }
+
+    @Test
+    public void testEnqueueAfterSpillKeepsOrder() {
+        SpillingMemQueueImpl queue = createQueue();
+        long nextId = 0;
+        for (; nextId < MAX_IN_MEMORY_DEPTH + 5; nextId++) {
+            queue.enqueue(createMessage(nextId, "content"));
+        }
+
+        long expectedId = 0;
+        for (int i = 0; i < MAX_IN_MEMORY_DEPTH; i++) {
+            Assert.assertEquals(queue.dequeue().getInternalId(), expectedId++);
+        }
+        // Memory has room again but the spilled messages must be delivered first
+        queue.enqueue(createMessage(nextId++, "content"));
+
+        while (queue.size() > 0) {
+            Assert.assertEquals(queue.dequeue().getInternalId(), expectedId++);
+        }
+        Assert.assertEquals(expectedId, nextId);
+    }
+
+    @Test
+    public void testReleaseDeletesSpillFiles() throws IOException {
+        SpillingMemQueueImpl queue = createQueue();
+        for (int i = 0; i < MAX_IN_MEMORY_DEPTH * 3; i++) {
+            queue.enqueue(createMessage(i, "content-" + i));
+        }
+        Assert.assertTrue(countSpillFiles() > 0);
+
+        queue.release();
+
+        Assert.assertEquals(countSpillFiles(), 0);
+        Assert.assertEquals(queue.size(), 0);
+    }
+}
@@ -22,6 +22,8 @@ package io.ballerina.messaging.broker.core.store;
 import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Metadata;
 import io.ballerina.messaging.broker.core.store.DbOperation.DbOpType;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -49,7 +51,7 @@ public class DbEventMatcherTest {
 
     @BeforeMethod
     public void setUp() {
-        dbEventMatcher = new DbEventMatcher(BUFFER_SIZE);
+        dbEventMatcher = new DbEventMatcher(BUFFER_SIZE, new DbMessageReader(Mockito.mock(MessageDao.class), 1, 16));
     }
 
     @Test(dataProvider = "testDbOperationData")
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class DbMessageReaderTest {
+
+    private MessageDao messageDao;
+
+    private DbMessageReader messageReader;
+
+    private List<Long> readIds;
+
+    @BeforeMethod
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        messageDao = Mockito.mock(MessageDao.class);
+        readIds = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(messageDao.read(Mockito.anyMap())).thenAnswer(invocation -> {
+            Map<Long, Message> readList = invocation.getArgument(0);
+            readIds.addAll(readList.keySet());
+            return readList.values();
+        });
+        messageReader = new DbMessageReader(messageDao, 2, 4);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadIsDeferredUntilInsertCompletes() throws Exception {
+        QueueBuffer queueBuffer = Mockito.mock(QueueBuffer.class);
+        Message pendingMessage = createMessage(1);
+        Message storedMessage = createMessage(2);
+
+        messageReader.insertStarted(pendingMessage);
+        messageReader.read(queueBuffer, createList(pendingMessage, storedMessage));
+
+        Mockito.verify(queueBuffer, Mockito.timeout(1000)).markMessagesFilled(Collections.singletonList(storedMessage));
+        Assert.assertEquals(readIds, Collections.singletonList(2L), "Message being inserted should not be read");
+
+        messageReader.insertCompleted(pendingMessage);
+
+        Mockito.verify(queueBuffer, Mockito.timeout(1000))
+               .markMessagesFilled(Collections.singletonList(pendingMessage));
+        Assert.assertEquals(readIds.size(), 2, "Deferred read should be executed once the insert completes");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLargeReadsAreSplitIntoBatches() throws Exception {
+        QueueBuffer queueBuffer = Mockito.mock(QueueBuffer.class);
+        List<Message> messages = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            messages.add(createMessage(i));
+        }
+
+        messageReader.read(queueBuffer, messages);
+
+        ArgumentCaptor<List<Message>> filledMessages = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(queueBuffer, Mockito.timeout(1000).times(3)).markMessagesFilled(filledMessages.capture());
+        Assert.assertEquals(filledMessages.getAllValues().stream().mapToInt(List::size).sum(), 10);
+        Mockito.verify(messageDao, Mockito.atMost(3)).read(Mockito.anyMap());
+        Assert.assertEquals(readIds.size(), 10, "All messages should be read");
+    }
+
+    @Test
+    public void testCopiesOfSameMessageAreRead() throws Exception {
+        QueueBuffer firstBuffer = Mockito.mock(QueueBuffer.class);
+        QueueBuffer secondBuffer = Mockito.mock(QueueBuffer.class);
+        Message firstCopy = createMessage(1);
+        Message secondCopy = createMessage(1);
+
+        messageReader.read(firstBuffer, createList(firstCopy));
+        messageReader.read(secondBuffer, createList(secondCopy));
+
+        Mockito.verify(firstBuffer, Mockito.timeout(1000)).markMessagesFilled(Collections.singletonList(firstCopy));
+        Mockito.verify(secondBuffer, Mockito.timeout(1000)).markMessagesFilled(Collections.singletonList(secondCopy));
+        Assert.assertEquals(readIds, createIdList(1L, 1L), "Each copy should be read");
+    }
+
+    private static Message createMessage(long id) {
+        return new Message(id, new Metadata("queue1", "amq.direct", 0));
+    }
+
+    private static List<Message> createList(Message... messages) {
+        List<Message> list = new ArrayList<>();
+        Collections.addAll(list, messages);
+        return list;
+    }
+
+    private static List<Long> createIdList(Long... ids) {
+        List<Long> list = new ArrayList<>();
+        Collections.addAll(list, ids);
+        return list;
+    }
+}
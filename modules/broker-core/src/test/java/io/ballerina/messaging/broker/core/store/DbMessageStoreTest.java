@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.DbUtil;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.QueueArguments;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+import io.ballerina.messaging.broker.core.queue.QueueBufferFactory;
+import io.ballerina.messaging.broker.core.store.dao.impl.DaoFactory;
+import io.netty.buffer.Unpooled;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+public class DbMessageStoreTest {
+
+    private static final String QUEUE_NAME = "DbMessageStoreTestQueue";
+
+    private static final int PIPELINE_COUNT = 4;
+
+    private DataSource dataSource;
+
+    private DbMessageStore messageStore;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        dataSource = DbUtil.getDataSource();
+        executeUpdate("INSERT INTO MB_QUEUE_METADATA (QUEUE_NAME, QUEUE_ARGUMENTS) VALUES (?, X'00')");
+        DaoFactory daoFactory = new DaoFactory(dataSource, new NullBrokerMetricManager());
+        messageStore = new DbMessageStore(daoFactory.createMessageDao(), 1024, 64, PIPELINE_COUNT, 16,
+                                          TimeUnit.MILLISECONDS.toNanos(20), 2, 64,
+                                          new NullBrokerMetricManager());
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+        executeUpdate("DELETE FROM MB_METADATA WHERE MESSAGE_ID IN "
+                              + "(SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING WHERE QUEUE_NAME=?)");
+        executeUpdate("DELETE FROM MB_QUEUE_METADATA WHERE QUEUE_NAME=?");
+    }
+
+    @Test
+    public void testOperationsAcrossPipelines() throws Exception {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            Message message = new Message(i, new Metadata(QUEUE_NAME, "amq.direct", 1));
+            message.addChunk(new ContentChunk(0, Unpooled.copiedBuffer("a", StandardCharsets.UTF_8)));
+            messageStore.add(message);
+            messageStore.attach(QUEUE_NAME, i);
+            messageStore.flush(i);
+            messages.add(message);
+        }
+
+        for (int i = 0; i < messages.size(); i += 2) {
+            messageStore.detach(QUEUE_NAME, messages.get(i));
+        }
+
+        Collection<Message> storedMessages = messageStore.readAllMessagesForQueue(QUEUE_NAME);
+        for (int i = 0; i < 100 && storedMessages.size() != 20; i++) {
+            Thread.sleep(50);
+            storedMessages = messageStore.readAllMessagesForQueue(QUEUE_NAME);
+        }
+
+        long[] expectedIds = new long[20];
+        for (int i = 0; i < expectedIds.length; i++) {
+            expectedIds[i] = 2 * (i + 1);
+        }
+        Assert.assertEquals(storedMessages.stream().mapToLong(Message::getInternalId).toArray(), expectedIds,
+                            "Only the messages that were not detached should remain in the store");
+    }
+
+    @Test(dependsOnMethods = "testOperationsAcrossPipelines")
+    public void testReadMessagesInPages() throws Exception {
+        Assert.assertEquals(messageStore.countMessagesForQueue(QUEUE_NAME), 20);
+
+        List<Long> messageIds = new ArrayList<>();
+        long lastMessageId = Long.MIN_VALUE;
+        Collection<Message> page;
+        do {
+            page = messageStore.readMessagesForQueue(QUEUE_NAME, lastMessageId, 7);
+            for (Message message : page) {
+                lastMessageId = message.getInternalId();
+                messageIds.add(lastMessageId);
+                Assert.assertTrue(message.hasAttachedQueues(), "Owned queues should be read with the page");
+            }
+        } while (page.size() == 7);
+
+        Assert.assertEquals(messageIds.size(), 20, "All messages should be read across the pages");
+        for (int i = 0; i < messageIds.size(); i++) {
+            Assert.assertEquals(messageIds.get(i).longValue(), 2L * (i + 1), "Pages should be ordered by message id");
+        }
+    }
+
+    @Test(dependsOnMethods = "testOperationsAcrossPipelines")
+    public void testFillRestoresOwnedQueues() throws Exception {
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.QUEUE_MODE, FieldValue.parseLongString(QueueArguments.LAZY_QUEUE_MODE));
+        QueueBuffer buffer = new QueueBufferFactory(new BrokerCoreConfiguration())
+                .createBuffer(QUEUE_NAME, arguments, messageStore::fillMessageData);
+        buffer.addBareMessage(new Message(2, null));
+
+        Message message = buffer.getFirstDeliverable();
+        for (int i = 0; i < 100 && message == null; i++) {
+            Thread.sleep(50);
+            message = buffer.getFirstDeliverable();
+        }
+        Assert.assertNotNull(message, "Message data should be read");
+        Assert.assertEquals(message.getAttachedQueues(), Collections.singleton(QUEUE_NAME),
+                            "Owned queues should be read with the data of a recreated message");
+    }
+
+    @Test
+    public void testDetachRecreatedMessageFromLastQueue() throws Exception {
+        long messageId = 1001;
+        Message message = new Message(messageId, new Metadata(QUEUE_NAME, "amq.direct", 1));
+        message.addChunk(new ContentChunk(0, Unpooled.copiedBuffer("a", StandardCharsets.UTF_8)));
+        messageStore.add(message);
+        messageStore.attach(QUEUE_NAME, messageId);
+        messageStore.flush(messageId);
+        for (int i = 0; i < 100 && !isStored(messageId); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(isStored(messageId));
+
+        messageStore.detach(QUEUE_NAME, new Message(messageId, null));
+
+        for (int i = 0; i < 100 && isStored(messageId); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertFalse(isStored(messageId), "Message recreated from its id should be deleted with its last queue");
+    }
+
+    @Test
+    public void testCloseWritesPendingOperations() throws Exception {
+        DbMessageStore closedStore = new DbMessageStore(new DaoFactory(dataSource, new NullBrokerMetricManager())
+                                                                .createMessageDao(),
+                                                        1024, 64, PIPELINE_COUNT, 16,
+                                                        TimeUnit.MILLISECONDS.toNanos(20), 2, 64,
+                                                        new NullBrokerMetricManager());
+        long messageId = 2001;
+        Message message = new Message(messageId, new Metadata(QUEUE_NAME, "amq.direct", 1));
+        message.addChunk(new ContentChunk(0, Unpooled.copiedBuffer("a", StandardCharsets.UTF_8)));
+        closedStore.add(message);
+        closedStore.attach(QUEUE_NAME, messageId);
+        closedStore.flush(messageId);
+
+        closedStore.close();
+
+        boolean stored = isStored(messageId);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM MB_METADATA WHERE MESSAGE_ID=?")) {
+            statement.setLong(1, messageId);
+            statement.executeUpdate();
+            connection.commit();
+        }
+        Assert.assertTrue(stored, "Pending inserts should be written before the store is closed");
+    }
+
+    private boolean isStored(long messageId) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT MESSAGE_ID FROM MB_METADATA WHERE MESSAGE_ID=?")) {
+            statement.setLong(1, messageId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private void executeUpdate(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, QUEUE_NAME);
+            statement.executeUpdate();
+            connection.commit();
+        }
+    }
+}
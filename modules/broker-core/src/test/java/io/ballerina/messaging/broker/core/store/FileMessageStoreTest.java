@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.QueueArguments;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+import io.ballerina.messaging.broker.core.queue.QueueBufferFactory;
+import io.netty.buffer.Unpooled;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+public class FileMessageStoreTest {
+
+    private Path directory;
+
+    private FileMessageStore messageStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("file-message-store");
+        messageStore = createStore();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        messageStore.close();
+        File[] files = directory.toFile().listFiles();
+        if (Objects.nonNull(files)) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testRecoverMessagesAfterRestart() throws Exception {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            messages.add(publish(i, "queue1", "queue2"));
+        }
+
+        messageStore.detach("queue1", messages.get(0));
+        messageStore.detach("queue1", messages.get(1));
+        messageStore.detach("queue2", messages.get(1));
+
+        restartStore();
+
+        Assert.assertEquals(getIds(messageStore.readAllMessagesForQueue("queue1")),
+                            new long[]{3, 4, 5, 6, 7, 8, 9, 10},
+                            "Detached messages should not be recovered for the queue");
+        Assert.assertEquals(getIds(messageStore.readAllMessagesForQueue("queue2")),
+                            new long[]{1, 3, 4, 5, 6, 7, 8, 9, 10},
+                            "Deleted messages should not be recovered");
+    }
+
+    @Test
+    public void testFillMessageData() throws Exception {
+        publish(1, "queue1");
+        publish(2, "queue1");
+        restartStore();
+
+        QueueBuffer buffer = new QueueBufferFactory(new BrokerCoreConfiguration())
+                .createBuffer(messageStore::fillMessageData);
+        buffer.addAllBareMessages(messageStore.readAllMessagesForQueue("queue1"));
+
+        for (int i = 1; i <= 2; i++) {
+            Message message = pollDeliverable(buffer);
+            Assert.assertEquals(message.getInternalId(), i);
+            Assert.assertEquals(message.getMetadata().getRoutingKey(), "queue1");
+            Assert.assertEquals(message.getContentChunks().size(), 1);
+            Assert.assertEquals(message.getContentChunks().get(0).getBytes().toString(StandardCharsets.UTF_8),
+                                "content-" + i);
+        }
+    }
+
+    @Test
+    public void testAcknowledgeFanoutMessageFromLazyQueue() throws Exception {
+        publish(1, "queue1", "queue2");
+        FieldTable arguments = new FieldTable();
+        arguments.add(QueueArguments.QUEUE_MODE, FieldValue.parseLongString(QueueArguments.LAZY_QUEUE_MODE));
+        QueueBuffer buffer = new QueueBufferFactory(new BrokerCoreConfiguration())
+                .createBuffer("queue1", arguments, messageStore::fillMessageData);
+        buffer.addBareMessage(new Message(1, null));
+
+        Message message = pollDeliverable(buffer);
+        Assert.assertEquals(message.getAttachedQueues().size(), 2, "Owned queues should be read with the data");
+        messageStore.detach("queue1", message);
+
+        Assert.assertEquals(getIds(messageStore.readAllMessagesForQueue("queue2")), new long[]{1},
+                            "Acknowledging on one queue should not delete the message from the other queue");
+    }
+
+    @Test
+    public void testAcknowledgeFanoutMessageFromBacklog() throws Exception {
+        publish(1, "queue1", "queue2");
+        publish(2, "queue1", "queue2");
+        BrokerCoreConfiguration configuration = new BrokerCoreConfiguration();
+        configuration.setDurableQueueInMemoryCacheLimit("1");
+        configuration.getDurableQueueBuffer().setOffHeapBacklog("true");
+        QueueBuffer buffer = new QueueBufferFactory(configuration).createBuffer(messageStore::fillMessageData);
+        buffer.addAllBareMessages(messageStore.readAllMessagesForQueue("queue1"));
+
+        for (int i = 1; i <= 2; i++) {
+            Message message = pollDeliverable(buffer);
+            Assert.assertEquals(message.getInternalId(), i);
+            messageStore.detach("queue1", message);
+            buffer.remove(message);
+        }
+
+        Assert.assertEquals(getIds(messageStore.readAllMessagesForQueue("queue2")), new long[]{1, 2},
+                            "Acknowledging on one queue should not delete backlogged messages from the other queue");
+    }
+
+    @Test
+    public void testCompactionKeepsLiveMessages() throws Exception {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            messages.add(publish(i, "queue1"));
+        }
+        int segmentCount = getSegmentCount();
+
+        for (int i = 0; i < 49; i++) {
+            messageStore.detach("queue1", messages.get(i));
+        }
+        messageStore.compact();
+
+        Assert.assertTrue(getSegmentCount() < segmentCount, "Segments with deleted messages should be compacted");
+
+        restartStore();
+        Assert.assertEquals(getIds(messageStore.readAllMessagesForQueue("queue1")), new long[]{50},
+                            "Live message should survive compaction");
+    }
+
+    private FileMessageStore createStore() throws BrokerException {
+        return new FileMessageStore(directory, 512, 0.5, 100, 60000, 1, new NullBrokerMetricManager());
+    }
+
+    private void restartStore() throws Exception {
+        messageStore.close();
+        messageStore = createStore();
+    }
+
+    private Message publish(long id, String... queues) throws BrokerException {
+        Message message = new Message(id, new Metadata(queues[0], "amq.direct", 9));
+        message.addChunk(new ContentChunk(0, Unpooled.copiedBuffer("content-" + id, StandardCharsets.UTF_8)));
+        messageStore.add(message);
+        for (String queue : queues) {
+            messageStore.attach(queue, id);
+        }
+        messageStore.flush(id);
+        return message;
+    }
+
+    private Message pollDeliverable(QueueBuffer buffer) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Message message = buffer.getFirstDeliverable();
+            if (Objects.nonNull(message)) {
+                return message;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Message data was not filled");
+    }
+
+    private int getSegmentCount() {
+        String[] files = directory.toFile().list();
+        return Objects.isNull(files) ? 0 : files.length;
+    }
+
+    private static long[] getIds(Collection<Message> messages) {
+        return messages.stream().mapToLong(Message::getInternalId).toArray();
+    }
+}
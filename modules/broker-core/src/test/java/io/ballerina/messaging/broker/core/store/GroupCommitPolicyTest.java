@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class GroupCommitPolicyTest {
+
+    private static final long TARGET_LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void testBatchSizeShrinksWhenCommitIsSlow() {
+        GroupCommitPolicy policy = new GroupCommitPolicy(8, 1024, TARGET_LATENCY);
+        // 1024 operations taking 40ms means around 256 operations fit within the target
+        policy.recordCommit(1024, TimeUnit.MILLISECONDS.toNanos(40), 0);
+        Assert.assertEquals(policy.getBatchSize(), 256, "Batch size should shrink to meet the latency target");
+    }
+
+    @Test
+    public void testBatchSizeGrowsWithBacklog() {
+        GroupCommitPolicy policy = new GroupCommitPolicy(8, 1024, TARGET_LATENCY);
+        policy.recordCommit(1024, TimeUnit.MILLISECONDS.toNanos(80), 0);
+        Assert.assertEquals(policy.getBatchSize(), 128);
+
+        for (int i = 0; i < 10; i++) {
+            policy.recordCommit(policy.getBatchSize(), TimeUnit.MICROSECONDS.toNanos(100), 5000);
+        }
+        Assert.assertEquals(policy.getBatchSize(), 1024, "Batch size should grow up to the maximum with backlog");
+    }
+
+    @Test
+    public void testBatchSizeIsKeptWithoutBacklog() {
+        GroupCommitPolicy policy = new GroupCommitPolicy(8, 1024, TARGET_LATENCY);
+        policy.recordCommit(1024, TimeUnit.MILLISECONDS.toNanos(80), 0);
+        policy.recordCommit(10, TimeUnit.MICROSECONDS.toNanos(100), 0);
+        Assert.assertEquals(policy.getBatchSize(), 128, "Batch size should not grow without a backlog");
+    }
+
+    @Test
+    public void testBatchSizeNeverDropsBelowMinimum() {
+        GroupCommitPolicy policy = new GroupCommitPolicy(8, 1024, TARGET_LATENCY);
+        policy.recordCommit(1, TimeUnit.SECONDS.toNanos(1), 0);
+        Assert.assertEquals(policy.getBatchSize(), 8);
+    }
+}
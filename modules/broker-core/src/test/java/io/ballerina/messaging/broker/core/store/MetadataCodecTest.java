@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MetadataCodecTest {
+
+    private static final ShortString CUSTOM_HEADER = ShortString.parseString("custom");
+
+    @Test
+    public void testEncodeAndDecode() throws Exception {
+        Metadata metadata = createMetadata();
+        metadata.getProperties().add(Metadata.CONTENT_TYPE, FieldValue.parseShortString("application/json"));
+
+        byte[] bytes = MetadataCodec.encode(metadata);
+        Assert.assertEquals(bytes[0], MetadataCodec.VERSION_1);
+
+        Metadata decoded = decode(bytes);
+        Assert.assertEquals(decoded.getProperties(), metadata.getProperties());
+        Assert.assertEquals(decoded.getHeaders(), metadata.getHeaders());
+        Assert.assertTrue(decoded.isPersistent());
+    }
+
+    @Test
+    public void testEncodeArrivalTime() throws Exception {
+        Metadata metadata = createMetadata();
+        metadata.setArrivalTime(1514764800000L);
+
+        byte[] bytes = MetadataCodec.encode(metadata);
+        Assert.assertEquals(bytes[0], MetadataCodec.VERSION_2);
+
+        Metadata decoded = decode(bytes);
+        Assert.assertEquals(decoded.getArrivalTime(), metadata.getArrivalTime());
+        Assert.assertEquals(decoded.getProperties(), metadata.getProperties());
+        Assert.assertEquals(decoded.getHeaders(), metadata.getHeaders());
+    }
+
+    @Test
+    public void testEncodingIsSmallerThanFieldTables() {
+        Metadata metadata = createMetadata();
+        long fieldTableSize = metadata.getProperties().getSize() + metadata.getHeaders().getSize();
+
+        Assert.assertTrue(MetadataCodec.encode(metadata).length < fieldTableSize,
+                          "Common properties should be written without names and type tags");
+    }
+
+    @Test
+    public void testDecodeFieldTableFormat() throws Exception {
+        Metadata metadata = createMetadata();
+        FieldTable properties = metadata.getProperties();
+        FieldTable headers = metadata.getHeaders();
+        ByteBuf buffer = Unpooled.buffer((int) (properties.getSize() + headers.getSize()));
+        properties.write(buffer);
+        headers.write(buffer);
+
+        Metadata decoded = decode(buffer.array());
+        Assert.assertEquals(decoded.getProperties(), properties);
+        Assert.assertEquals(decoded.getHeaders(), headers);
+    }
+
+    @Test
+    public void testDecodedHeadersCanBeModified() throws Exception {
+        Metadata decoded = decode(MetadataCodec.encode(createMetadata()));
+        decoded.addHeader("origin", "queue");
+
+        Metadata reDecoded = decode(MetadataCodec.encode(decoded));
+        Assert.assertEquals(reDecoded.getHeader(CUSTOM_HEADER), FieldValue.parseLongString("value"));
+        Assert.assertEquals(reDecoded.getHeader(ShortString.parseString("origin")),
+                            FieldValue.parseLongString("queue"));
+    }
+
+    @Test(expectedExceptions = Exception.class)
+    public void testDecodeUnknownVersion() throws Exception {
+        byte[] bytes = MetadataCodec.encode(createMetadata());
+        bytes[0] = (byte) 0x8F;
+        decode(bytes);
+    }
+
+    private static Metadata createMetadata() {
+        Metadata metadata = new Metadata("queue", "amq.direct", 0);
+        FieldTable properties = new FieldTable();
+        properties.add(Metadata.DELIVERY_MODE, FieldValue.parseShortShortInt((byte) Metadata.PERSISTENT_MESSAGE));
+        properties.add(Metadata.PRIORITY, FieldValue.parseShortShortInt((byte) 4));
+        properties.add(Metadata.TIMESTAMP, FieldValue.parseLongLongInt(1530000000000L));
+        properties.add(Metadata.PROPERTY_FLAGS, FieldValue.parseLongInt(0x3000));
+        properties.add(Metadata.MESSAGE_ID, FieldValue.parseShortString("message-1"));
+        properties.add(Metadata.CORRELATION_ID, FieldValue.parseShortString("correlation-1"));
+        properties.add(Metadata.EXPIRATION, FieldValue.parseShortString("60000"));
+        metadata.setProperties(properties);
+        FieldTable headers = new FieldTable();
+        headers.add(CUSTOM_HEADER, FieldValue.parseLongString("value"));
+        metadata.setHeaders(headers);
+        return metadata;
+    }
+
+    private static Metadata decode(byte[] bytes) throws Exception {
+        Metadata metadata = new Metadata("queue", "amq.direct", 0);
+        MetadataCodec.decode(metadata, Unpooled.wrappedBuffer(bytes));
+        return metadata;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.compression;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.Metadata;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ContentCompressorTest {
+
+    private final ContentCompressor compressor = new ContentCompressor(new DeflateContentCodec(), 100,
+                                                                       Arrays.asList("application/json", "text/*"));
+
+    @DataProvider(name = "messages")
+    public Object[][] messages() {
+        return new Object[][]{
+                {"application/json", null, 100, true},
+                {"Application/JSON; charset=utf-8", null, 100, true},
+                {"text/plain", null, 1000, true},
+                {"application/json", null, 99, false},
+                {"application/json", "gzip", 1000, false},
+                {"application/octet-stream", null, 1000, false},
+                {null, null, 1000, false}
+        };
+    }
+
+    @Test(dataProvider = "messages")
+    public void testSelect(String contentType, String contentEncoding, long contentLength, boolean compressed) {
+        Metadata metadata = new Metadata("queue", "amq.direct", contentLength);
+        FieldTable properties = new FieldTable();
+        if (contentType != null) {
+            properties.add(Metadata.CONTENT_TYPE, FieldValue.parseShortString(contentType));
+        }
+        if (contentEncoding != null) {
+            properties.add(Metadata.CONTENT_ENCODING, FieldValue.parseShortString(contentEncoding));
+        }
+        metadata.setProperties(properties);
+
+        Assert.assertEquals(compressor.select(metadata) != null, compressed);
+    }
+
+    @Test
+    public void testSelectWithoutContentTypes() {
+        ContentCompressor allTypes = new ContentCompressor(new DeflateContentCodec(), 1, Collections.emptyList());
+        Assert.assertNotNull(allTypes.select(new Metadata("queue", "amq.direct", 1)));
+        Assert.assertNull(ContentCompressor.disabled().select(new Metadata("queue", "amq.direct", 1)));
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws Exception {
+        byte[] content = String.join(",", Collections.nCopies(500, "<value>message broker</value>"))
+                               .getBytes(StandardCharsets.UTF_8);
+        ContentCodec codec = ContentCompressor.disabled().getCodec(DeflateContentCodec.ID);
+
+        byte[] compressed = codec.compress(content);
+        Assert.assertTrue(compressed.length < content.length / 5, "Repetitive content should compress well");
+        Assert.assertEquals(codec.decompress(compressed), content);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testDecompressTruncatedContent() throws Exception {
+        DeflateContentCodec codec = new DeflateContentCodec();
+        byte[] compressed = codec.compress(new byte[1000]);
+        codec.decompress(Arrays.copyOf(compressed, compressed.length - 2));
+    }
+}
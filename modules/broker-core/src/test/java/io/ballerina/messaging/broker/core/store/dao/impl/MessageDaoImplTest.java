@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.dao.impl;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.DbUtil;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.TransactionData;
+import io.ballerina.messaging.broker.core.store.compression.ContentCompressor;
+import io.ballerina.messaging.broker.core.store.compression.DeflateContentCodec;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+public class MessageDaoImplTest {
+
+    private static final long MESSAGE_ID = 5001L;
+
+    private DataSource dataSource;
+
+    private MessageDao messageDao;
+
+    @BeforeClass
+    public void setUp() {
+        dataSource = DbUtil.getDataSource();
+        ContentCompressor compressor = new ContentCompressor(new DeflateContentCodec(), 64,
+                                                             Collections.singletonList("application/json"));
+        messageDao = new DaoFactory(dataSource, new NullBrokerMetricManager()).createMessageDao(compressor);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM MB_METADATA WHERE MESSAGE_ID BETWEEN ? AND ?")) {
+            statement.setLong(1, MESSAGE_ID);
+            statement.setLong(2, MESSAGE_ID + 10);
+            statement.executeUpdate();
+            connection.commit();
+        }
+    }
+
+    @DataProvider(name = "contentTypes")
+    public Object[][] contentTypes() {
+        return new Object[][]{
+                {"application/json", true},
+                {"application/octet-stream", false}
+        };
+    }
+
+    @Test(dataProvider = "contentTypes")
+    public void testContentRoundTrip(String contentType, boolean compressed) throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("{\"id\":").append(i).append(",\"name\":\"message broker\"},");
+        }
+        byte[] content = builder.toString().getBytes(StandardCharsets.UTF_8);
+        int firstChunkSize = content.length / 2;
+
+        Metadata metadata = new Metadata("queue", "amq.direct", content.length);
+        FieldTable properties = new FieldTable();
+        properties.add(Metadata.CONTENT_TYPE, FieldValue.parseShortString(contentType));
+        metadata.setProperties(properties);
+        Message message = new Message(MESSAGE_ID, metadata);
+        message.addChunk(new ContentChunk(0, Unpooled.wrappedBuffer(content, 0, firstChunkSize)));
+        message.addChunk(new ContentChunk(firstChunkSize,
+                                          Unpooled.wrappedBuffer(content, firstChunkSize,
+                                                                 content.length - firstChunkSize)));
+        TransactionData transactionData = new TransactionData();
+        transactionData.addEnqueueMessage(message);
+        messageDao.persist(transactionData);
+
+        Assert.assertEquals(getStoredContentSize() < content.length, compressed);
+
+        Map<Long, Message> readList = new HashMap<>();
+        readList.put(MESSAGE_ID, new Message(MESSAGE_ID, null));
+        Message readMessage = messageDao.read(readList).iterator().next();
+
+        Assert.assertEquals(readMessage.getMetadata().getProperty(Metadata.CONTENT_TYPE),
+                            FieldValue.parseShortString(contentType));
+        ByteBuf readContent = Unpooled.buffer(content.length);
+        readMessage.getContentChunks().stream()
+                   .sorted((first, second) -> Long.compare(first.getOffset(), second.getOffset()))
+                   .forEach(chunk -> readContent.writeBytes(chunk.getBytes()));
+        Assert.assertEquals(readContent.array(), content, "Content should be restored as it was published");
+    }
+
+    @Test
+    public void testReadMessagesWithinIdRange() throws Exception {
+        TransactionData transactionData = new TransactionData();
+        for (long id = MESSAGE_ID; id < MESSAGE_ID + 4; id++) {
+            Message message = new Message(id, new Metadata("queue", "amq.direct", 1));
+            message.addChunk(new ContentChunk(0, Unpooled.wrappedBuffer(new byte[]{(byte) id})));
+            transactionData.addEnqueueMessage(message);
+        }
+        messageDao.persist(transactionData);
+
+        Map<Long, Message> readList = new HashMap<>();
+        readList.put(MESSAGE_ID, new Message(MESSAGE_ID, null));
+        readList.put(MESSAGE_ID + 2, new Message(MESSAGE_ID + 2, null));
+        Collection<Message> messages = messageDao.read(readList);
+
+        Assert.assertEquals(messages.size(), 2, "Only the requested messages should be read");
+        for (Message message : messages) {
+            Assert.assertNotNull(message.getMetadata());
+            Assert.assertEquals(message.getContentChunks().size(), 1);
+            Assert.assertEquals(message.getContentChunks().get(0).getBytes().getByte(0),
+                                (byte) message.getInternalId());
+        }
+    }
+
+    private long getStoredContentSize() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT MESSAGE_CONTENT FROM MB_CONTENT WHERE MESSAGE_ID=?")) {
+            statement.setLong(1, MESSAGE_ID);
+            long size = 0;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    size += resultSet.getBytes(1).length;
+                }
+            }
+            return size;
+        }
+    }
+}
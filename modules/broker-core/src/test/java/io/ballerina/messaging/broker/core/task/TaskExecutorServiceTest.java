@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.task;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test processing of tasks parked until signalled.
+ */
+public class TaskExecutorServiceTest {
+
+    private static final long PARK_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    private TaskExecutorService<CountingTask> taskExecutorService;
+
+    @BeforeMethod
+    public void setUp() {
+        taskExecutorService = new TaskExecutorService<>(2, 10, Executors.defaultThreadFactory(), true,
+                                                        PARK_TIMEOUT, false);
+        taskExecutorService.start();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        taskExecutorService.shutdown();
+    }
+
+    @Test
+    public void testIdleTaskParkedUntilSignalled() throws Exception {
+        CountingTask task = new CountingTask("task1");
+        taskExecutorService.add(task);
+        Assert.assertTrue(task.awaitRuns(1), "Task should be processed once added");
+
+        // The idle task is parked and not polled
+        TimeUnit.MILLISECONDS.sleep(200);
+        Assert.assertEquals(task.runCount.get(), 1);
+
+        task.signal();
+        Assert.assertTrue(task.awaitRuns(2), "Task should be processed once signalled");
+
+        taskExecutorService.signal("task1");
+        Assert.assertTrue(task.awaitRuns(3), "Task should be processed once signalled by id");
+    }
+
+    @Test
+    public void testParkedTaskRemoved() throws Exception {
+        CountingTask task = new CountingTask("task1");
+        taskExecutorService.add(task);
+        Assert.assertTrue(task.awaitRuns(1), "Task should be processed once added");
+
+        taskExecutorService.remove("task1");
+        Assert.assertTrue(task.removed.await(5, TimeUnit.SECONDS), "Parked task should be removed");
+    }
+
+    /**
+     * Task that is always idle and counts how many times it was processed.
+     */
+    private static class CountingTask extends Task {
+
+        private final String id;
+
+        private final AtomicInteger runCount = new AtomicInteger();
+
+        private final CountDownLatch removed = new CountDownLatch(1);
+
+        CountingTask(String id) {
+            this.id = id;
+        }
+
+        boolean awaitRuns(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            while (runCount.get() < count && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(5);
+            }
+            return runCount.get() >= count;
+        }
+
+        @Override
+        public void onAdd() {
+
+        }
+
+        @Override
+        public void onRemove() {
+            removed.countDown();
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public TaskHint call() {
+            runCount.incrementAndGet();
+            return TaskHint.IDLE;
+        }
+    }
+}
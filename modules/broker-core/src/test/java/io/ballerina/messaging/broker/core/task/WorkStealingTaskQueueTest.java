@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.task;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test scheduling of tasks with per worker run queues.
+ */
+public class WorkStealingTaskQueueTest {
+
+    @Test
+    public void testTaskReturnsToAssignedWorker() throws Exception {
+        WorkStealingTaskQueue taskQueue = new WorkStealingTaskQueue(2);
+        TaskHolder<?> first = new TaskHolder<>(new NoOpTask("task1"), taskQueue);
+        TaskHolder<?> second = new TaskHolder<>(new NoOpTask("task2"), taskQueue);
+        taskQueue.put(first);
+        taskQueue.put(second);
+        Assert.assertEquals(first.getAffinity(), 0);
+        Assert.assertEquals(second.getAffinity(), 1);
+
+        Assert.assertSame(taskQueue.take(0), first);
+        Assert.assertSame(taskQueue.take(1), second);
+
+        taskQueue.put(second);
+        Assert.assertEquals(second.getAffinity(), 1, "Task should stay with the worker it was assigned to");
+        Assert.assertEquals(taskQueue.size(), 1);
+    }
+
+    @Test
+    public void testIdleWorkerStealsFromBusyWorker() throws Exception {
+        WorkStealingTaskQueue taskQueue = new WorkStealingTaskQueue(2);
+        TaskHolder<?> first = new TaskHolder<>(new NoOpTask("task1"), taskQueue);
+        TaskHolder<?> second = new TaskHolder<>(new NoOpTask("task2"), taskQueue);
+        first.setAffinity(0);
+        second.setAffinity(0);
+        taskQueue.put(first);
+        taskQueue.put(second);
+
+        // Worker 0 is busy with the first task, leaving the second task to worker 1
+        Assert.assertSame(taskQueue.take(0), first);
+        Assert.assertSame(taskQueue.take(1), second);
+        Assert.assertEquals(second.getAffinity(), 0, "Stolen task should not change its worker");
+    }
+
+    @Test
+    public void testWaitingWorkerWokenUpByPut() throws Exception {
+        WorkStealingTaskQueue taskQueue = new WorkStealingTaskQueue(2);
+        TaskHolder<?> taskHolder = new TaskHolder<>(new NoOpTask("task1"), taskQueue);
+        CompletableFuture<TaskHolder<?>> taken = CompletableFuture.supplyAsync(() -> {
+            try {
+                return taskQueue.take(1);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assert.assertFalse(taken.isDone());
+
+        taskQueue.put(taskHolder);
+        Assert.assertSame(taken.get(5, TimeUnit.SECONDS), taskHolder);
+    }
+
+    @Test
+    public void testDelayedTaskTakenOnceReady() throws Exception {
+        WorkStealingTaskQueue taskQueue = new WorkStealingTaskQueue(1);
+        TaskHolder<?> delayed = new TaskHolder<>(new NoOpTask("task1"), taskQueue);
+        TaskHolder<?> ready = new TaskHolder<>(new NoOpTask("task2"), taskQueue);
+        delayed.setDelay(200, TimeUnit.MILLISECONDS);
+        taskQueue.put(delayed);
+        taskQueue.put(ready);
+
+        Assert.assertSame(taskQueue.take(0), ready);
+        long startTime = System.nanoTime();
+        Assert.assertSame(taskQueue.take(0), delayed);
+        Assert.assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(100),
+                          "Delayed task should not be taken before its delay elapses");
+    }
+
+    @Test
+    public void testDelayedTaskStolenOnceOwnerTurnsBusy() throws Exception {
+        WorkStealingTaskQueue taskQueue = new WorkStealingTaskQueue(2);
+        TaskHolder<?> delayed = new TaskHolder<>(new NoOpTask("task1"), taskQueue);
+        TaskHolder<?> ready = new TaskHolder<>(new NoOpTask("task2"), taskQueue);
+        delayed.setAffinity(0);
+        ready.setAffinity(0);
+        delayed.setDelay(300, TimeUnit.MILLISECONDS);
+        taskQueue.put(delayed);
+
+        CompletableFuture<TaskHolder<?>> takenByOwner = takeAsync(taskQueue, 0);
+        TimeUnit.MILLISECONDS.sleep(50);
+        // Worker 1 leaves the delayed task to the waiting worker 0
+        CompletableFuture<TaskHolder<?>> stolen = takeAsync(taskQueue, 1);
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        taskQueue.put(ready);
+        Assert.assertSame(takenByOwner.get(5, TimeUnit.SECONDS), ready);
+        // Worker 0 is busy with the ready task
+        Assert.assertSame(stolen.get(5, TimeUnit.SECONDS), delayed);
+    }
+
+    private static CompletableFuture<TaskHolder<?>> takeAsync(WorkStealingTaskQueue taskQueue, int workerId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return taskQueue.take(workerId);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Task doing nothing.
+     */
+    private static class NoOpTask extends Task {
+
+        private final String id;
+
+        NoOpTask(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void onAdd() {
+
+        }
+
+        @Override
+        public void onRemove() {
+
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public TaskHint call() {
+            return TaskHint.IDLE;
+        }
+    }
+}
@@ -73,6 +73,9 @@ CREATE TABLE MB_QUEUE_MAPPING (
     FOREIGN KEY (QUEUE_NAME) REFERENCES MB_QUEUE_METADATA (QUEUE_NAME) ON DELETE CASCADE
 );
 
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE NAME = N'MB_QUEUE_MAPPING_QUEUE_INDEX')
+CREATE INDEX MB_QUEUE_MAPPING_QUEUE_INDEX ON MB_QUEUE_MAPPING (QUEUE_NAME, MESSAGE_ID);
+
 INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE) VALUES ('<<default>>', 'direct');
 INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE) VALUES ('amq.dlx', 'direct');
 INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE) VALUES ('amq.direct', 'direct');
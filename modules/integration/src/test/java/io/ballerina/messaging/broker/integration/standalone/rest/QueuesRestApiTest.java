@@ -197,6 +197,7 @@ public class QueuesRestApiTest {
         Assert.assertEquals(queueMetadata.getConsumerCount().intValue(), 1, "JMS consumer should be present.");
         Assert.assertTrue(queueMetadata.isDurable());
         Assert.assertEquals(queueMetadata.getSize().intValue(), 0, "Queue should be empty.");
+        Assert.assertEquals(queueMetadata.getCachedBytes().longValue(), 0, "Queue should not cache content.");
         Assert.assertFalse(queueMetadata.isAutoDelete());
 
         receiver.close();
@@ -70,6 +70,8 @@ CREATE TABLE IF NOT EXISTS MB_QUEUE_MAPPING (
                 ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS MB_QUEUE_MAPPING_QUEUE_INDEX ON MB_QUEUE_MAPPING (QUEUE_NAME, MESSAGE_ID);
+
 INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE)  VALUES('<<default>>', 'direct');
 INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE)  VALUES('amq.dlx', 'direct');
 INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE)  VALUES('amq.direct', 'direct');
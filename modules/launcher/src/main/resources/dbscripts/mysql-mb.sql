@@ -66,6 +66,7 @@ CREATE TABLE IF NOT EXISTS MB_QUEUE_MAPPING (
                 PRIMARY KEY (MESSAGE_ID, QUEUE_NAME),
                 FOREIGN KEY (MESSAGE_ID) REFERENCES MB_METADATA (MESSAGE_ID)
                 ON DELETE CASCADE,
+                INDEX MB_QUEUE_MAPPING_QUEUE_INDEX (QUEUE_NAME, MESSAGE_ID),
                 FOREIGN KEY (QUEUE_NAME) REFERENCES MB_QUEUE_METADATA (QUEUE_NAME)
                 ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
@@ -67,6 +67,8 @@ CREATE TABLE MB_QUEUE_MAPPING (
     CONSTRAINT FK_MB_QUEUE_MAPPING_QUEUE FOREIGN KEY (QUEUE_NAME) REFERENCES MB_QUEUE_METADATA (QUEUE_NAME) ON DELETE CASCADE
 )
 /
+CREATE INDEX MB_QUEUE_MAPPING_QUEUE_INDEX ON MB_QUEUE_MAPPING (QUEUE_NAME, MESSAGE_ID)
+/
 INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE) VALUES ('<<default>>', 'direct')
 /
 INSERT INTO MB_EXCHANGE (EXCHANGE_NAME, EXCHANGE_TYPE) VALUES ('amq.dlx', 'direct')